@@ -0,0 +1,83 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.CourirerTrackerServiceApplication;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.repository.CourierLocationRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists 100k courier locations through {@code saveAll}, committing every {@code chunkSize}
+ * rows, against the in-memory H2 database of a non-web application context. {@code unbatched}
+ * turns Hibernate JDBC batching off, so every row is its own insert statement as it was with
+ * IDENTITY ids; {@code batched} is the configured pooled-lo sequence with batches of 50.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(2)
+public class CourierLocationInsertBenchmark {
+
+    private static final int LOCATION_COUNT = 100_000;
+    private static final int COURIER_COUNT = 1_000;
+
+    @Param({"1000"})
+    private int chunkSize;
+
+    @Param({"unbatched", "batched"})
+    private String inserts;
+
+    private ConfigurableApplicationContext context;
+    private CourierLocationRepository locationRepository;
+    private TransactionTemplate transactionTemplate;
+    private LocalDateTime start;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(CourirerTrackerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN", "--logging.level.com.migros.online=WARN",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + ("batched".equals(inserts) ? 50 : 0));
+        locationRepository = context.getBean(CourierLocationRepository.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        start = LocalDateTime.now().minusDays(1);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearLocations() {
+        locationRepository.deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOCATION_COUNT)
+    public void saveAll() {
+        for (int from = 0; from < LOCATION_COUNT; from += chunkSize) {
+            List<CourierLocation> chunk = new ArrayList<>(chunkSize);
+            for (int i = from; i < from + chunkSize; i++) {
+                chunk.add(CourierLocation.builder()
+                        .courierId("courier-" + (i % COURIER_COUNT))
+                        .lat(40.99 + (i % 100) * 0.0001)
+                        .lng(29.12)
+                        .timestamp(start.plusSeconds(i))
+                        .build());
+            }
+            transactionTemplate.executeWithoutResult(status -> locationRepository.saveAll(chunk));
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.service.distance.DistanceCalculationStrategy;
+import com.migros.online.service.distance.EuclideanDistanceStrategy;
+import com.migros.online.service.distance.HaversineDistanceStrategy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a single distance calculation per {@link DistanceCalculationStrategy}, over point pairs
+ * spread across the Istanbul area so neither branch prediction nor constant folding helps. The
+ * {@code perCall*} and {@code batch*} pairs compute the same {@value #PAIR_COUNT} distances one
+ * call at a time and through the batch API; all of them report distances per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DistanceStrategyBenchmark {
+
+    private static final int PAIR_COUNT = 1024;
+
+    // Roughly the Istanbul metropolitan area
+    private static final double MIN_LAT = 40.80;
+    private static final double MIN_LNG = 28.50;
+    private static final double LAT_SPAN = 0.40;
+    private static final double LNG_SPAN = 0.90;
+
+    @Param({"haversine", "euclidean"})
+    private String strategyName;
+
+    private DistanceCalculationStrategy strategy;
+    private double[] lats1;
+    private double[] lngs1;
+    private double[] lats2;
+    private double[] lngs2;
+    private double[] out;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        strategy = switch (strategyName) {
+            case "haversine" -> new HaversineDistanceStrategy();
+            case "euclidean" -> new EuclideanDistanceStrategy();
+            default -> throw new IllegalArgumentException("Unknown strategy: " + strategyName);
+        };
+
+        Random random = new Random(42);
+        lats1 = new double[PAIR_COUNT];
+        lngs1 = new double[PAIR_COUNT];
+        lats2 = new double[PAIR_COUNT];
+        lngs2 = new double[PAIR_COUNT];
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            lats1[i] = MIN_LAT + random.nextDouble() * LAT_SPAN;
+            lngs1[i] = MIN_LNG + random.nextDouble() * LNG_SPAN;
+            lats2[i] = MIN_LAT + random.nextDouble() * LAT_SPAN;
+            lngs2[i] = MIN_LNG + random.nextDouble() * LNG_SPAN;
+        }
+        out = new double[PAIR_COUNT];
+    }
+
+    @Benchmark
+    public double calculateDistance() {
+        cursor = (cursor + 1) & (PAIR_COUNT - 1);
+        int i = cursor;
+        return strategy.calculateDistance(lats1[i], lngs1[i], lats2[i], lngs2[i]);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public double[] perCallFromPoint() {
+        double lat = lats1[0];
+        double lng = lngs1[0];
+        for (int i = 0; i < PAIR_COUNT; i++) {
+            out[i] = strategy.calculateDistance(lat, lng, lats2[i], lngs2[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT)
+    public double[] batchFromPoint() {
+        strategy.calculateDistances(lats1[0], lngs1[0], lats2, lngs2, out, PAIR_COUNT);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT - 1)
+    public double[] perCallTrack() {
+        for (int i = 0; i + 1 < PAIR_COUNT; i++) {
+            out[i] = strategy.calculateDistance(lats2[i], lngs2[i], lats2[i + 1], lngs2[i + 1]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PAIR_COUNT - 1)
+    public double[] batchTrack() {
+        strategy.calculateTrackDistances(lats2, lngs2, out, PAIR_COUNT);
+        return out;
+    }
+}
@@ -0,0 +1,150 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.CourirerTrackerServiceApplication;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End-to-end load test of {@code POST /api/v1/courier/location}. Each invocation is one round in
+ * which every simulated courier reports one position; {@code pings} is reported as pings per
+ * second. In-flight requests are capped on the client side so the courier count is not bounded
+ * by ephemeral ports or Tomcat's connection limit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class IngestLoadBenchmark {
+
+    private static final int MAX_IN_FLIGHT = 1024;
+
+    // Roughly the Istanbul metropolitan area
+    private static final double MIN_LAT = 40.80;
+    private static final double MIN_LNG = 28.50;
+    private static final double LAT_SPAN = 0.40;
+    private static final double LNG_SPAN = 0.90;
+
+    @Param({"1000", "10000", "50000"})
+    private int couriers;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    private ConfigurableApplicationContext context;
+    private HttpClient client;
+    private ExecutorService clientExecutor;
+    private URI endpoint;
+    private String[] courierIds;
+    private double[] lats;
+    private double[] lngs;
+    private LocalDateTime start;
+    private final AtomicLong round = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Pings {
+
+        public long pings;
+        public long failures;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pings = 0;
+            failures = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(CourirerTrackerServiceApplication.class)
+                .run("--server.port=0",
+                        "--spring.threads.virtual.enabled=" + "virtual".equals(threads),
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.migros.online=WARN");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        endpoint = URI.create("http://localhost:" + port + "/api/v1/courier/location");
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        Random random = new Random(42);
+        courierIds = new String[couriers];
+        lats = new double[couriers];
+        lngs = new double[couriers];
+        for (int i = 0; i < couriers; i++) {
+            courierIds[i] = new UUID(0x4000L, 0x8000000000000000L | i).toString();
+            lats[i] = MIN_LAT + random.nextDouble() * LAT_SPAN;
+            lngs[i] = MIN_LNG + random.nextDouble() * LNG_SPAN;
+        }
+        start = LocalDateTime.now().minusDays(1).withNano(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        clientExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public void ingestRound(Pings counters) throws InterruptedException {
+        String time = start.plusSeconds(round.incrementAndGet()).toString();
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        AtomicLong failures = new AtomicLong();
+
+        try (ExecutorService couriersExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < couriers; i++) {
+                int courier = i;
+                inFlight.acquire();
+                couriersExecutor.submit(() -> {
+                    try {
+                        HttpResponse<Void> response = client.send(request(courier, time), HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 201) {
+                            failures.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        counters.pings += couriers - failures.get();
+        counters.failures += failures.get();
+    }
+
+    private HttpRequest request(int courier, String time) {
+        // Small random walk per round so couriers keep moving
+        lats[courier] += (courier % 3 - 1) * 0.0001;
+        lngs[courier] += (courier % 5 - 2) * 0.0001;
+        String body = String.format(Locale.ROOT, "{\"courierId\":\"%s\",\"lat\":%.7f,\"lng\":%.7f,\"time\":\"%s\"}",
+                courierIds[courier], lats[courier], lngs[courier], time);
+        return HttpRequest.newBuilder(endpoint)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,88 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.CourirerTrackerServiceApplication;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.repository.CourierLocationRepository;
+import com.migros.online.service.courier.CourierLocationWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Time until a single location is acknowledged: the ingest transaction around
+ * {@link CourierLocationWriter#write} has committed. With {@code sync} that includes the
+ * {@code locationRepository.save} insert and its commit against in-memory H2; with
+ * {@code ingest-log} it is the id reservation and the append to the memory-mapped log, while the
+ * applier inserts in the background. Sampled, so the result shows the latency percentiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class IngestLogBenchmark {
+
+    private static final int COURIER_COUNT = 1_000;
+
+    @Param({"sync", "ingest-log"})
+    private String mode;
+
+    private Path logDirectory;
+    private ConfigurableApplicationContext context;
+    private CourierLocationWriter locationWriter;
+    private TransactionTemplate transactionTemplate;
+    private LocalDateTime start;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void startContext() throws IOException {
+        logDirectory = Files.createTempDirectory("ingest-log-benchmark");
+        context = new SpringApplicationBuilder(CourirerTrackerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN", "--logging.level.com.migros.online=WARN",
+                        "--courier-tracker.location-write.mode=" + mode,
+                        "--courier-tracker.location-write.log.directory=" + logDirectory);
+        locationWriter = context.getBean(CourierLocationWriter.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        start = LocalDateTime.now().minusDays(1).withNano(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearLocations() {
+        context.getBean(CourierLocationRepository.class).deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() throws IOException {
+        context.close();
+        try (Stream<Path> files = Files.walk(logDirectory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public CourierLocation acknowledge() {
+        long n = sequence++;
+        CourierLocation location = CourierLocation.builder()
+                .courierId("courier-" + (n % COURIER_COUNT))
+                .lat(40.99 + (n % 100) * 0.0001)
+                .lng(29.12)
+                .timestamp(start.plusSeconds(n / COURIER_COUNT))
+                .build();
+        return transactionTemplate.execute(status -> locationWriter.write(location));
+    }
+}
@@ -0,0 +1,116 @@
+package com.migros.online.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.migros.online.codec.CourierLocationBinaryCodec;
+import com.migros.online.dto.request.CourierLocationFrame;
+import com.migros.online.dto.request.CourierLocationRequest;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding one ingest batch from JSON (Jackson plus bean validation, as the JSON batch endpoint
+ * does) vs. from a {@link CourierLocationBinaryCodec} frame. Scores are locations per second;
+ * the {@code bytes} secondary score is input decoded per second, so bytes / score is the encoded
+ * size of one location.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationCodecBenchmark {
+
+    private static final TypeReference<List<CourierLocationRequest>> BATCH_TYPE = new TypeReference<>() {
+    };
+
+    @Param({"1", "100", "1000"})
+    private int batchSize;
+
+    private ObjectMapper objectMapper;
+    private ValidatorFactory validatorFactory;
+    private Validator validator;
+    private CourierLocationBinaryCodec codec;
+    private byte[] json;
+    private byte[] binary;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Payload {
+
+        public long bytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        codec = new CourierLocationBinaryCodec(ZoneId.systemDefault());
+
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<CourierLocationRequest> locations = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            locations.add(CourierLocationRequest.builder()
+                    .courierId(new UUID(0x4000L + random.nextInt(1000), 0x8000000000000000L | i).toString())
+                    .lat(Math.round((40.80 + random.nextDouble() * 0.40) * 1e7) / 1e7)
+                    .lng(Math.round((28.50 + random.nextDouble() * 0.90) * 1e7) / 1e7)
+                    .time(start.plusSeconds(i).plusNanos(random.nextInt(1000) * 1_000_000L))
+                    .build());
+        }
+        json = objectMapper.writeValueAsBytes(locations);
+        binary = codec.encode(locations);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void decodeJson(Payload payload, Blackhole blackhole) throws IOException {
+        for (int i = 0; i < 1000 / batchSize; i++) {
+            List<CourierLocationRequest> locations = objectMapper.readValue(json, BATCH_TYPE);
+            for (CourierLocationRequest location : locations) {
+                Set<ConstraintViolation<CourierLocationRequest>> violations = validator.validate(location);
+                blackhole.consume(violations);
+            }
+            blackhole.consume(locations);
+            payload.bytes += json.length;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1000)
+    public void decodeBinary(Payload payload, Blackhole blackhole) {
+        for (int i = 0; i < 1000 / batchSize; i++) {
+            CourierLocationFrame frame = codec.decode(ByteBuffer.wrap(binary));
+            blackhole.consume(frame);
+            payload.bytes += binary.length;
+        }
+    }
+}
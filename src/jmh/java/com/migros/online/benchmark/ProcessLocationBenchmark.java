@@ -0,0 +1,101 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.CourirerTrackerServiceApplication;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationResponse;
+import com.migros.online.repository.CourierLocationRepository;
+import com.migros.online.repository.StoreEntryRepository;
+import com.migros.online.service.courier.CourierLocationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link CourierLocationService#processLocation} end to end in a non-web application context
+ * backed by in-memory H2: distance tracking, persistence, latest-location cache, store proximity
+ * and store entry notification. Every tenth point is placed next to a pre-loaded store so the
+ * entry path is exercised as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ProcessLocationBenchmark {
+
+    private static final int POINT_COUNT = 4096;
+
+    // Roughly the Istanbul metropolitan area
+    private static final double MIN_LAT = 40.80;
+    private static final double MIN_LNG = 28.50;
+    private static final double LAT_SPAN = 0.40;
+    private static final double LNG_SPAN = 0.90;
+
+    // Ataşehir MMM Migros from stores.json
+    private static final double STORE_LAT = 40.9923307;
+    private static final double STORE_LNG = 29.1244229;
+
+    @Param({"1000"})
+    private int couriers;
+
+    private ConfigurableApplicationContext context;
+    private CourierLocationService locationService;
+    private String[] courierIds;
+    private double[] lats;
+    private double[] lngs;
+    private LocalDateTime start;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(CourirerTrackerServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--logging.level.root=WARN", "--logging.level.com.migros.online=WARN");
+        locationService = context.getBean(CourierLocationService.class);
+
+        Random random = new Random(42);
+        courierIds = new String[couriers];
+        for (int i = 0; i < couriers; i++) {
+            courierIds[i] = new UUID(0x4000L, 0x8000000000000000L | i).toString();
+        }
+        lats = new double[POINT_COUNT];
+        lngs = new double[POINT_COUNT];
+        for (int i = 0; i < POINT_COUNT; i++) {
+            boolean nearStore = i % 10 == 0;
+            lats[i] = nearStore ? STORE_LAT + random.nextDouble() * 0.0005 : MIN_LAT + random.nextDouble() * LAT_SPAN;
+            lngs[i] = nearStore ? STORE_LNG + random.nextDouble() * 0.0005 : MIN_LNG + random.nextDouble() * LNG_SPAN;
+        }
+        start = LocalDateTime.now().minusDays(1).withNano(0);
+    }
+
+    @TearDown(Level.Iteration)
+    public void clearTables() {
+        context.getBean(StoreEntryRepository.class).deleteAllInBatch();
+        context.getBean(CourierLocationRepository.class).deleteAllInBatch();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopContext() {
+        context.close();
+    }
+
+    @Benchmark
+    public CourierLocationResponse processLocation() {
+        long n = sequence++;
+        int point = (int) (n & (POINT_COUNT - 1));
+        // Each courier reports every couriers-th call, one second after its previous point
+        return locationService.processLocation(CourierLocationRequest.builder()
+                .courierId(courierIds[(int) (n % couriers)])
+                .lat(lats[point])
+                .lng(lngs[point])
+                .time(start.plusSeconds(n / couriers))
+                .build());
+    }
+}
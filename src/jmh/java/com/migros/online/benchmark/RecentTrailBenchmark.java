@@ -0,0 +1,81 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.service.courier.CourierRecentTrail;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recording one point into {@link CourierRecentTrail} and copying one courier's window out of it,
+ * with {@value #COURIER_COUNT} active couriers reporting round robin. Timestamps are created up
+ * front, so {@code gc.alloc.rate.norm} shows what the trail itself allocates per point.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecentTrailBenchmark {
+
+    private static final int COURIER_COUNT = 50_000;
+    private static final int ROUNDS = 65_536;
+    private static final Duration WINDOW = Duration.ofMinutes(5);
+
+    @Param({"64"})
+    private int pointsPerCourier;
+
+    private CourierRecentTrail trail;
+    private String[] courierIds;
+    private LocalDateTime[] timestamps;
+    private long[] epochMicros;
+    private double[] lats;
+    private double[] lngs;
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        CourierTrackerProperties properties = new CourierTrackerProperties();
+        properties.getRecentTrail().setMaxCouriers(COURIER_COUNT);
+        properties.getRecentTrail().setPointsPerCourier(pointsPerCourier);
+        trail = new CourierRecentTrail(new SimpleMeterRegistry(), properties);
+
+        courierIds = new String[COURIER_COUNT];
+        for (int i = 0; i < COURIER_COUNT; i++) {
+            courierIds[i] = "courier-" + i;
+        }
+        LocalDateTime start = LocalDateTime.now().minusDays(1).withNano(0);
+        timestamps = new LocalDateTime[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            timestamps[i] = start.plusSeconds(i * 5L);
+        }
+        // Every courier starts with a full trail
+        for (int round = 0; round < pointsPerCourier; round++) {
+            for (String courierId : courierIds) {
+                trail.record(courierId, 40.99, 29.12, timestamps[round]);
+            }
+        }
+        sequence = (long) pointsPerCourier * COURIER_COUNT;
+
+        epochMicros = new long[pointsPerCourier];
+        lats = new double[pointsPerCourier];
+        lngs = new double[pointsPerCourier];
+    }
+
+    @Benchmark
+    public void record() {
+        long n = sequence++;
+        trail.record(courierIds[(int) (n % COURIER_COUNT)], 40.99 + (n % 100) * 0.0001, 29.12,
+                timestamps[(int) ((n / COURIER_COUNT) % ROUNDS)]);
+    }
+
+    @Benchmark
+    public int copyRecent() {
+        long n = sequence++;
+        return trail.copyRecent(courierIds[(int) (n % COURIER_COUNT)], WINDOW, epochMicros, lats, lngs);
+    }
+}
@@ -0,0 +1,139 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.Store;
+import com.migros.online.service.courier.CourierLocationService;
+import com.migros.online.service.distance.DistanceCalculationStrategy;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import com.migros.online.service.distance.EuclideanDistanceStrategy;
+import com.migros.online.service.distance.HaversineDistanceStrategy;
+import com.migros.online.service.store.StoreProximityFilter;
+import com.migros.online.service.store.StoreProximityMatch;
+import com.migros.online.service.store.StoreSpatialIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StoreProximityBenchmark {
+
+    private static final double RADIUS_METERS = CourierLocationService.STORE_RADIUS_METERS;
+    private static final int QUERY_COUNT = 1024;
+
+    // Roughly the Istanbul metropolitan area
+    private static final double MIN_LAT = 40.80;
+    private static final double MIN_LNG = 28.50;
+    private static final double LAT_SPAN = 0.40;
+    private static final double LNG_SPAN = 0.90;
+
+    @Param({"10", "1000", "100000"})
+    private int storeCount;
+
+    @Param({"haversine", "euclidean"})
+    private String strategyName;
+
+    private List<Store> stores;
+    private double[] storeLats;
+    private double[] storeLngs;
+    private double[] distances;
+    private StoreSpatialIndex index;
+    private StoreProximityFilter filter;
+    private DistanceCalculationStrategy strategy;
+    private double[] queryLats;
+    private double[] queryLngs;
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        stores = new ArrayList<>(storeCount);
+        for (long i = 0; i < storeCount; i++) {
+            stores.add(Store.builder()
+                    .id(i)
+                    .name("Store " + i)
+                    .lat(MIN_LAT + random.nextDouble() * LAT_SPAN)
+                    .lng(MIN_LNG + random.nextDouble() * LNG_SPAN)
+                    .build());
+        }
+        storeLats = stores.stream().mapToDouble(Store::getLat).toArray();
+        storeLngs = stores.stream().mapToDouble(Store::getLng).toArray();
+        distances = new double[storeCount];
+        index = new StoreSpatialIndex(RADIUS_METERS);
+        index.rebuild(stores);
+        strategy = switch (strategyName) {
+            case "haversine" -> new HaversineDistanceStrategy();
+            case "euclidean" -> new EuclideanDistanceStrategy();
+            default -> throw new IllegalArgumentException("Unknown strategy: " + strategyName);
+        };
+        filter = new StoreProximityFilter(new DistanceCalculatorService(strategy),
+                new SimpleMeterRegistry(), new CourierTrackerProperties());
+
+        queryLats = new double[QUERY_COUNT];
+        queryLngs = new double[QUERY_COUNT];
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queryLats[i] = MIN_LAT + random.nextDouble() * LAT_SPAN;
+            queryLngs[i] = MIN_LNG + random.nextDouble() * LNG_SPAN;
+        }
+    }
+
+    @Benchmark
+    public void linearScan(Blackhole blackhole) {
+        int q = nextQuery();
+        double lat = queryLats[q];
+        double lng = queryLngs[q];
+        for (Store store : stores) {
+            if (strategy.calculateDistance(lat, lng, store.getLat(), store.getLng()) <= RADIUS_METERS) {
+                blackhole.consume(store);
+            }
+        }
+    }
+
+    @Benchmark
+    public void linearScanBatch(Blackhole blackhole) {
+        int q = nextQuery();
+        strategy.calculateDistances(queryLats[q], queryLngs[q], storeLats, storeLngs, distances, storeCount);
+        for (int i = 0; i < storeCount; i++) {
+            if (distances[i] <= RADIUS_METERS) {
+                blackhole.consume(stores.get(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void spatialIndex(Blackhole blackhole) {
+        int q = nextQuery();
+        double lat = queryLats[q];
+        double lng = queryLngs[q];
+        for (Store store : index.findCandidates(lat, lng, RADIUS_METERS)) {
+            if (strategy.calculateDistance(lat, lng, store.getLat(), store.getLng()) <= RADIUS_METERS) {
+                blackhole.consume(store);
+            }
+        }
+    }
+
+    @Benchmark
+    public void spatialIndexFiltered(Blackhole blackhole) {
+        int q = nextQuery();
+        double lat = queryLats[q];
+        double lng = queryLngs[q];
+        for (StoreProximityMatch match : filter.findWithinRadius(lat, lng, RADIUS_METERS,
+                index.findCandidates(lat, lng, RADIUS_METERS))) {
+            blackhole.consume(match.store());
+        }
+    }
+
+    private int nextQuery() {
+        cursor = (cursor + 1) & (QUERY_COUNT - 1);
+        return cursor;
+    }
+}
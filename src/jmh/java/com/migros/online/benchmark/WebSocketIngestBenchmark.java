@@ -0,0 +1,210 @@
+package com.migros.online.benchmark;
+
+import com.migros.online.CourirerTrackerServiceApplication;
+import com.migros.online.codec.CourierLocationBinaryCodec;
+import com.migros.online.config.WebSocketConfig;
+import com.migros.online.dto.request.CourierLocationRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.WebSocket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pings per second for couriers reporting one position at a time, either as a JSON
+ * {@code POST /api/v1/courier/location} per ping or as a binary frame on a WebSocket connection
+ * opened once per courier. Each invocation is one round in which every courier reports once and
+ * waits for its response or ack. Compare CPU with {@code -prof stack} or an external profiler;
+ * {@code payloadBytes} divided by {@code pings} is the request or message body size per ping.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class WebSocketIngestBenchmark {
+
+    private static final String AUTH_TOKEN = "benchmark-device-token";
+
+    @Param({"100", "1000"})
+    private int couriers;
+
+    @Param({"rest", "websocket"})
+    private String transport;
+
+    private final CourierLocationBinaryCodec codec = new CourierLocationBinaryCodec(ZoneId.systemDefault());
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private URI restEndpoint;
+    private String[] courierIds;
+    private AckListener[] listeners;
+    private WebSocket[] sockets;
+    private LocalDateTime start;
+    private final AtomicLong round = new AtomicLong();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Pings {
+
+        public long pings;
+        public long failures;
+        // Request and message bodies only; HTTP adds ~150 bytes of headers each way, WebSocket 6 bytes
+        public long payloadBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            pings = 0;
+            failures = 0;
+            payloadBytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(CourirerTrackerServiceApplication.class)
+                .run("--server.port=0",
+                        "--logging.level.root=WARN",
+                        "--logging.level.com.migros.online=WARN",
+                        "--courier-tracker.websocket.auth-token=" + AUTH_TOKEN);
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        restEndpoint = URI.create("http://localhost:" + port + "/api/v1/courier/location");
+
+        clientExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+
+        courierIds = new String[couriers];
+        listeners = new AckListener[couriers];
+        sockets = new WebSocket[couriers];
+        for (int i = 0; i < couriers; i++) {
+            courierIds[i] = new UUID(0x4000L, 0x8000000000000000L | i).toString();
+            if ("websocket".equals(transport)) {
+                listeners[i] = new AckListener();
+                sockets[i] = client.newWebSocketBuilder()
+                        .header("Authorization", "Bearer " + AUTH_TOKEN)
+                        .buildAsync(URI.create("ws://localhost:" + port + WebSocketConfig.INGEST_PATH
+                                + "?courierId=" + courierIds[i]), listeners[i])
+                        .join();
+            }
+        }
+        start = LocalDateTime.now().minusDays(1).withNano(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        for (WebSocket socket : sockets) {
+            if (socket != null) {
+                socket.sendClose(WebSocket.NORMAL_CLOSURE, "").join();
+            }
+        }
+        clientExecutor.close();
+        context.close();
+    }
+
+    @Benchmark
+    public void ingestRound(Pings counters) {
+        LocalDateTime time = start.plusSeconds(round.incrementAndGet());
+        AtomicLong failures = new AtomicLong();
+        AtomicLong payloadBytes = new AtomicLong();
+
+        try (ExecutorService couriersExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < couriers; i++) {
+                int courier = i;
+                couriersExecutor.submit(() -> {
+                    try {
+                        int sent = "websocket".equals(transport) ? sendFrame(courier, time) : post(courier, time);
+                        if (sent < 0) {
+                            failures.incrementAndGet();
+                        } else {
+                            payloadBytes.addAndGet(sent);
+                        }
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                    }
+                });
+            }
+        }
+        counters.pings += couriers - failures.get();
+        counters.failures += failures.get();
+        counters.payloadBytes += payloadBytes.get();
+    }
+
+    /**
+     * Body bytes sent, or -1 if the ping was not accepted.
+     */
+    private int post(int courier, LocalDateTime time) throws Exception {
+        byte[] body = json(courier, time).getBytes(StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder(restEndpoint)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 201 ? body.length : -1;
+    }
+
+    private int sendFrame(int courier, LocalDateTime time) {
+        CompletableFuture<String> ack = listeners[courier].expectAck();
+        byte[] frame = codec.encode(List.of(location(courier, time)));
+        sockets[courier].sendBinary(ByteBuffer.wrap(frame), true).join();
+        return ack.join().contains("\"error\"") ? -1 : frame.length;
+    }
+
+    private String json(int courier, LocalDateTime time) {
+        return String.format(Locale.ROOT, "{\"courierId\":\"%s\",\"lat\":%.7f,\"lng\":%.7f,\"time\":\"%s\"}",
+                courierIds[courier], 41.05, 29.02, time);
+    }
+
+    private CourierLocationRequest location(int courier, LocalDateTime time) {
+        return CourierLocationRequest.builder()
+                .courierId(courierIds[courier])
+                .lat(41.05)
+                .lng(29.02)
+                .time(time)
+                .build();
+    }
+
+    private static class AckListener implements WebSocket.Listener {
+
+        private final StringBuilder text = new StringBuilder();
+        private volatile CompletableFuture<String> pending;
+
+        CompletableFuture<String> expectAck() {
+            pending = new CompletableFuture<>();
+            return pending;
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            text.append(data);
+            if (last) {
+                pending.complete(text.toString());
+                text.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.migros.online.codec;
+
+import com.migros.online.dto.request.CourierLocationFrame;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.exception.InvalidLocationFrameException;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Binary encoding of a batch of location reports. All values are big-endian:
+ * <pre>
+ * header  (8 bytes)   short magic 0x434C ("CL"), byte version 1, byte reserved 0, int count
+ * record (32 bytes)   long courier id high bits, long courier id low bits,
+ *                     int lat * 10^7, int lng * 10^7, long epoch millis
+ * </pre>
+ * Timestamps are converted to the service's local date-time in {@code zone}, the same way JSON
+ * reports are interpreted. A frame is rejected as a whole if any record is out of range.
+ */
+public class CourierLocationBinaryCodec {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.courier-locations";
+    public static final int MAX_LOCATIONS_PER_FRAME = 1000;
+
+    static final short MAGIC = 0x434C;
+    static final byte VERSION = 1;
+    static final int HEADER_BYTES = 8;
+    static final int RECORD_BYTES = 32;
+    public static final int MAX_FRAME_BYTES = HEADER_BYTES + MAX_LOCATIONS_PER_FRAME * RECORD_BYTES;
+
+    private static final double FIXED_POINT_SCALE = 1e7;
+    private static final int MAX_LAT_FIXED = 90 * 10_000_000;
+    private static final int MAX_LNG_FIXED = 180 * 10_000_000;
+
+    private final ZoneId zone;
+
+    public CourierLocationBinaryCodec(ZoneId zone) {
+        this.zone = zone;
+    }
+
+    /**
+     * Same rule as the courier ID constraints on JSON reports: the nil UUID, or version 1 to 5
+     * with any variant but the reserved one.
+     */
+    public static boolean isValidCourierId(UUID courierId) {
+        if (courierId.getMostSignificantBits() == 0 && courierId.getLeastSignificantBits() == 0) {
+            return true;
+        }
+        return courierId.version() >= 1 && courierId.version() <= 5 && courierId.variant() != 7;
+    }
+
+    /**
+     * Rounds a coordinate to the 10^-7 degrees (about 1 cm) a record carries, so JSON reports are
+     * kept at the same precision as binary ones.
+     */
+    public static double roundCoordinate(double degrees) {
+        return Math.round(degrees * FIXED_POINT_SCALE) / FIXED_POINT_SCALE;
+    }
+
+    public CourierLocationFrame decode(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_BYTES) {
+            throw new InvalidLocationFrameException("Frame is shorter than its header");
+        }
+        if (buffer.getShort() != MAGIC) {
+            throw new InvalidLocationFrameException("Not a courier location frame");
+        }
+        byte version = buffer.get();
+        if (version != VERSION) {
+            throw new InvalidLocationFrameException("Unsupported frame version " + version);
+        }
+        buffer.get();
+        int count = buffer.getInt();
+        if (count < 1 || count > MAX_LOCATIONS_PER_FRAME) {
+            throw new InvalidLocationFrameException(
+                    "Frame must contain between 1 and " + MAX_LOCATIONS_PER_FRAME + " locations");
+        }
+        if (buffer.remaining() != count * RECORD_BYTES) {
+            throw new InvalidLocationFrameException("Frame length does not match its location count");
+        }
+
+        List<CourierLocationRequest> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long mostSignificantBits = buffer.getLong();
+            long leastSignificantBits = buffer.getLong();
+            int lat = buffer.getInt();
+            int lng = buffer.getInt();
+            long epochMillis = buffer.getLong();
+
+            UUID courierId = new UUID(mostSignificantBits, leastSignificantBits);
+            if (!isValidCourierId(courierId)) {
+                throw new InvalidLocationFrameException("Location " + i + ": courier ID must be a valid UUID");
+            }
+            if (lat < -MAX_LAT_FIXED || lat > MAX_LAT_FIXED) {
+                throw new InvalidLocationFrameException("Location " + i + ": latitude must be between -90 and 90");
+            }
+            if (lng < -MAX_LNG_FIXED || lng > MAX_LNG_FIXED) {
+                throw new InvalidLocationFrameException("Location " + i + ": longitude must be between -180 and 180");
+            }
+            locations.add(CourierLocationRequest.builder()
+                    .courierId(courierId.toString())
+                    .lat(lat / FIXED_POINT_SCALE)
+                    .lng(lng / FIXED_POINT_SCALE)
+                    .time(LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone))
+                    .build());
+        }
+        return new CourierLocationFrame(locations);
+    }
+
+    public byte[] encode(List<CourierLocationRequest> locations) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + locations.size() * RECORD_BYTES);
+        buffer.putShort(MAGIC)
+                .put(VERSION)
+                .put((byte) 0)
+                .putInt(locations.size());
+        for (CourierLocationRequest location : locations) {
+            UUID courierId = UUID.fromString(location.getCourierId());
+            buffer.putLong(courierId.getMostSignificantBits())
+                    .putLong(courierId.getLeastSignificantBits())
+                    .putInt((int) Math.round(location.getLat() * FIXED_POINT_SCALE))
+                    .putInt((int) Math.round(location.getLng() * FIXED_POINT_SCALE))
+                    .putLong(location.getTime().atZone(zone).toInstant().toEpochMilli());
+        }
+        return buffer.array();
+    }
+}
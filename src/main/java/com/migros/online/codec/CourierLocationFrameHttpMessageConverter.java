@@ -0,0 +1,54 @@
+package com.migros.online.codec;
+
+import com.migros.online.dto.request.CourierLocationFrame;
+import com.migros.online.exception.InvalidLocationFrameException;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.ZoneId;
+
+/**
+ * Reads {@link CourierLocationBinaryCodec} frames sent as {@value CourierLocationBinaryCodec#MEDIA_TYPE_VALUE}.
+ * Spring Boot registers converter beans next to the JSON converter.
+ */
+@Component
+public class CourierLocationFrameHttpMessageConverter extends AbstractHttpMessageConverter<CourierLocationFrame> {
+
+    private final CourierLocationBinaryCodec codec = new CourierLocationBinaryCodec(ZoneId.systemDefault());
+
+    public CourierLocationFrameHttpMessageConverter() {
+        super(MediaType.parseMediaType(CourierLocationBinaryCodec.MEDIA_TYPE_VALUE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return CourierLocationFrame.class == clazz;
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected CourierLocationFrame readInternal(Class<? extends CourierLocationFrame> clazz, HttpInputMessage inputMessage)
+            throws IOException {
+        byte[] body = inputMessage.getBody().readNBytes(CourierLocationBinaryCodec.MAX_FRAME_BYTES + 1);
+        if (body.length > CourierLocationBinaryCodec.MAX_FRAME_BYTES) {
+            throw new InvalidLocationFrameException("Frame exceeds " + CourierLocationBinaryCodec.MAX_FRAME_BYTES + " bytes");
+        }
+        return codec.decode(ByteBuffer.wrap(body));
+    }
+
+    @Override
+    protected void writeInternal(CourierLocationFrame frame, HttpOutputMessage outputMessage) {
+        // Unreachable: canWrite refuses every type, so Spring never selects this converter for a response
+        throw new HttpMessageNotWritableException("Location frames are only read");
+    }
+}
@@ -0,0 +1,271 @@
+package com.migros.online.codec;
+
+import com.migros.online.entity.CourierLocation;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Compressed encoding of one courier's points, in the spirit of Gorilla time series blocks. Each
+ * column is stored as the difference from a prediction, as a zig-zag varint:
+ * <pre>
+ * header       byte version 1, varint count
+ * per point    id          delta from the previous id
+ *              timestamp   delta-of-delta of epoch microseconds
+ *              lat         delta-of-delta of lat * 10^7, shifted left by 2;
+ *                          bit 1: raw double follows, bit 0: stationary-until follows
+ *              lng         delta-of-delta of lng * 10^7, shifted left by 1;
+ *                          bit 0: raw double follows
+ *              [raw lat]   8 bytes, if flagged
+ *              [raw lng]   8 bytes, if flagged
+ *              [until]     microseconds from timestamp to stationary-until, if flagged
+ * </pre>
+ * Ingest rounds coordinates to 10^-7 degrees, so every coordinate takes the fixed-point path. A
+ * coordinate that is not exactly a multiple of 10^-7 degrees, such as one stored before that
+ * rounding, is kept as a raw double, so decoding gives back the exact values that were encoded. Timestamps keep microsecond precision,
+ * the precision of the timestamp columns; {@code createdAt} is not kept. Points must be passed in
+ * timestamp order for the deltas to stay small.
+ */
+public final class TrackSegmentCodec {
+
+    static final byte VERSION = 1;
+
+    private static final double FIXED_POINT_SCALE = 1e7;
+    private static final long MAX_FIXED = 180 * 10_000_000L;
+
+    private TrackSegmentCodec() {
+    }
+
+    public static byte[] encode(List<CourierLocation> points) {
+        Output out = new Output(16 + points.size() * 10);
+        out.writeByte(VERSION);
+        out.writeVarLong(points.size());
+
+        long previousId = 0;
+        Prediction time = new Prediction();
+        Prediction lat = new Prediction();
+        Prediction lng = new Prediction();
+        for (CourierLocation point : points) {
+            long id = point.getId();
+            out.writeSignedVarLong(id - previousId);
+            previousId = id;
+
+            long micros = toEpochMicros(point.getTimestamp());
+            out.writeSignedVarLong(time.advance(micros));
+
+            long latFixed = toFixed(point.getLat());
+            long lngFixed = toFixed(point.getLng());
+            boolean rawLat = !isExact(latFixed, point.getLat());
+            boolean rawLng = !isExact(lngFixed, point.getLng());
+            boolean hasUntil = point.getStationaryUntil() != null;
+
+            long latResidual = lat.advance(latFixed);
+            long lngResidual = lng.advance(lngFixed);
+            out.writeVarLong(zigZag(rawLat ? 0 : latResidual) << 2 | (rawLat ? 2 : 0) | (hasUntil ? 1 : 0));
+            out.writeVarLong(zigZag(rawLng ? 0 : lngResidual) << 1 | (rawLng ? 1 : 0));
+            if (rawLat) {
+                out.writeLong(Double.doubleToRawLongBits(point.getLat()));
+            }
+            if (rawLng) {
+                out.writeLong(Double.doubleToRawLongBits(point.getLng()));
+            }
+            if (hasUntil) {
+                out.writeVarLong(toEpochMicros(point.getStationaryUntil()) - micros);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decodes points one at a time as the iterator advances, without materialising the segment.
+     */
+    public static Iterator<CourierLocation> decode(String courierId, byte[] data) {
+        return new Decoder(courierId, data);
+    }
+
+    public static long toEpochMicros(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1000;
+    }
+
+    public static LocalDateTime fromEpochMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1000,
+                ZoneOffset.UTC);
+    }
+
+    private static long toFixed(double value) {
+        double scaled = value * FIXED_POINT_SCALE;
+        return Double.isFinite(scaled) && Math.abs(scaled) <= MAX_FIXED ? Math.round(scaled) : 0;
+    }
+
+    private static boolean isExact(long fixed, double value) {
+        return fixed / FIXED_POINT_SCALE == value;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Predicts each value as the previous value plus the previous delta: the first value is
+     * stored as is, the second as a delta and the rest as delta-of-delta.
+     */
+    private static final class Prediction {
+
+        private long previous;
+        private long previousDelta;
+
+        private long advance(long value) {
+            long residual = value - (previous + previousDelta);
+            previousDelta = value - previous;
+            previous = value;
+            return residual;
+        }
+
+        private long resolve(long residual) {
+            long value = previous + previousDelta + residual;
+            previousDelta = value - previous;
+            previous = value;
+            return value;
+        }
+    }
+
+    private static final class Decoder implements Iterator<CourierLocation> {
+
+        private final String courierId;
+        private final byte[] data;
+        private final long count;
+        private int position;
+        private long decoded;
+
+        private long previousId;
+        private final Prediction time = new Prediction();
+        private final Prediction lat = new Prediction();
+        private final Prediction lng = new Prediction();
+
+        private Decoder(String courierId, byte[] data) {
+            this.courierId = courierId;
+            this.data = data;
+            if (data.length == 0 || data[0] != VERSION) {
+                throw new IllegalArgumentException("Unsupported track segment version");
+            }
+            this.position = 1;
+            this.count = readVarLong();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return decoded < count;
+        }
+
+        @Override
+        public CourierLocation next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            previousId += unZigZag(readVarLong());
+            long micros = time.resolve(unZigZag(readVarLong()));
+            long latHeader = readVarLong();
+            long lngHeader = readVarLong();
+            boolean rawLat = (latHeader & 2) != 0;
+            boolean hasUntil = (latHeader & 1) != 0;
+            boolean rawLng = (lngHeader & 1) != 0;
+            double latValue = readCoordinate(lat, latHeader >>> 2, rawLat);
+            double lngValue = readCoordinate(lng, lngHeader >>> 1, rawLng);
+            LocalDateTime until = hasUntil ? fromEpochMicros(micros + readVarLong()) : null;
+            decoded++;
+
+            return CourierLocation.builder()
+                    .id(previousId)
+                    .courierId(courierId)
+                    .lat(latValue)
+                    .lng(lngValue)
+                    .timestamp(fromEpochMicros(micros))
+                    .stationaryUntil(until)
+                    .build();
+        }
+
+        // A raw value moves the prediction the same way the encoder did, by its rounded fixed point
+        private double readCoordinate(Prediction prediction, long residual, boolean raw) {
+            if (!raw) {
+                return prediction.resolve(unZigZag(residual)) / FIXED_POINT_SCALE;
+            }
+            double value = Double.longBitsToDouble(readLong());
+            prediction.advance(toFixed(value));
+            return value;
+        }
+
+        private long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in track segment");
+        }
+
+        private long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = value << 8 | (readByte() & 0xFF);
+            }
+            return value;
+        }
+
+        private byte readByte() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Track segment is truncated");
+            }
+            return data[position++];
+        }
+    }
+
+    private static final class Output {
+
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeSignedVarLong(long value) {
+            writeVarLong(zigZag(value));
+        }
+
+        private void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeLong(long value) {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (value >>> shift));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+}
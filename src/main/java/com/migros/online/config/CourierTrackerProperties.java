@@ -0,0 +1,230 @@
+package com.migros.online.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "courier-tracker")
+public class CourierTrackerProperties {
+
+    private VirtualThreads virtualThreads = new VirtualThreads();
+
+    private LatestLocation latestLocation = new LatestLocation();
+
+    private ProcessingLanes processingLanes = new ProcessingLanes();
+
+    private ReorderBuffer reorderBuffer = new ReorderBuffer();
+
+    private StationarySuppression stationarySuppression = new StationarySuppression();
+
+    private LocationWrite locationWrite = new LocationWrite();
+
+    private TrackStorage trackStorage = new TrackStorage();
+
+    private RecentTrail recentTrail = new RecentTrail();
+
+    private StoreEntryDispatch storeEntryDispatch = new StoreEntryDispatch();
+
+    private StoreEntryPersistence storeEntryPersistence = new StoreEntryPersistence();
+
+    private StoreProximity storeProximity = new StoreProximity();
+
+    private Websocket websocket = new Websocket();
+
+    @Data
+    public static class VirtualThreads {
+
+        private Duration pinningThreshold = Duration.ofMillis(20);
+    }
+
+    @Data
+    public static class LatestLocation {
+
+        private long maxCouriers = 100_000;
+
+        private Duration idleTimeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class ProcessingLanes {
+
+        private boolean enabled = true;
+
+        // 0 uses one lane per available processor
+        private int count = 0;
+
+        private int queueCapacity = 10_000;
+
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class ReorderBuffer {
+
+        // Zero releases points immediately; late and duplicate points are still detected
+        private Duration latenessWindow = Duration.ZERO;
+
+        private int maxPointsPerCourier = 64;
+
+        private Duration idleTimeout = Duration.ofMinutes(30);
+
+        private Duration sweepInterval = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class StationarySuppression {
+
+        private boolean enabled = false;
+
+        private double radiusMeters = 10.0;
+
+        // A stationary period is closed and a new row stored after this long
+        private Duration maxDuration = Duration.ofMinutes(5);
+
+        private Duration idleTimeout = Duration.ofMinutes(30);
+    }
+
+    @Data
+    public static class LocationWrite {
+
+        private Mode mode = Mode.SYNC;
+
+        private int queueCapacity = 50_000;
+
+        private int batchSize = 500;
+
+        private Duration flushInterval = Duration.ofMillis(200);
+
+        private Duration offerTimeout = Duration.ofMillis(100);
+
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+        private Log log = new Log();
+
+        public enum Mode {
+            SYNC,
+            WRITE_BEHIND,
+            INGEST_LOG
+        }
+
+        @Data
+        public static class Log {
+
+            private Path directory = Path.of(System.getProperty("java.io.tmpdir"), "courier-tracker", "ingest-log");
+
+            private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+            // Ingest is rejected while this many segments are not yet applied
+            private int maxSegments = 16;
+
+            // Applied segments kept on disk before they are deleted
+            private int retainedSegments = 2;
+
+            // Flushes every append to disk, so acknowledged points also survive an OS crash
+            private boolean force = false;
+        }
+    }
+
+    @Data
+    public static class TrackStorage {
+
+        private Mode mode = Mode.ROWS;
+
+        // Segments hold one bucket of a courier's track; buckets are aligned to the epoch
+        private Duration bucket = Duration.ofHours(1);
+
+        // Must exceed the latest-location idle timeout and stationary-suppression max-duration + idle-timeout
+        private Duration sealAfter = Duration.ofHours(2);
+
+        private Duration sealInterval = Duration.ofMinutes(1);
+
+        // Rows per sealing transaction; a batch holds the courier's lane while it runs
+        private int sealBatchSize = 500;
+
+        public enum Mode {
+            ROWS,
+            SEGMENTS
+        }
+    }
+
+    @Data
+    public static class RecentTrail {
+
+        private boolean enabled = true;
+
+        // Off-heap memory is max-couriers * points-per-courier * 24 bytes, allocated at startup
+        private int maxCouriers = 50_000;
+
+        private int pointsPerCourier = 64;
+
+        // Default window of the trail endpoint
+        private Duration window = Duration.ofMinutes(5);
+    }
+
+    @Data
+    public static class StoreEntryDispatch {
+
+        private Mode mode = Mode.SYNC;
+
+        private int queueCapacity = 10_000;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+        private Path spillDirectory = Path.of(System.getProperty("java.io.tmpdir"), "courier-tracker", "spill");
+
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+        public enum Mode {
+            SYNC,
+            ASYNC
+        }
+
+        public enum OverflowPolicy {
+            BLOCK,
+            DROP_OLDEST,
+            SPILL
+        }
+    }
+
+    @Data
+    public static class StoreEntryPersistence {
+
+        private Mode mode = Mode.DIRECT;
+
+        private int queueCapacity = 10_000;
+
+        private int batchSize = 200;
+
+        private Duration flushInterval = Duration.ofMillis(500);
+
+        private Duration shutdownTimeout = Duration.ofSeconds(30);
+
+        public enum Mode {
+            DIRECT,
+            BATCHED
+        }
+    }
+
+    @Data
+    public static class StoreProximity {
+
+        private boolean equirectangularEstimate = true;
+    }
+
+    @Data
+    public static class Websocket {
+
+        private String authToken = "";
+
+        private List<String> allowedOriginPatterns = List.of();
+
+        private Duration idleTimeout = Duration.ofMinutes(5);
+    }
+}
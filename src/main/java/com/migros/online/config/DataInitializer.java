@@ -4,6 +4,7 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.migros.online.entity.Store;
 import com.migros.online.repository.StoreRepository;
+import com.migros.online.service.store.StoreSpatialIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
@@ -11,6 +12,7 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -23,11 +25,14 @@ public class DataInitializer implements CommandLineRunner {
 
     private final StoreRepository storeRepository;
     private final ObjectMapper objectMapper;
+    private final StoreSpatialIndex storeSpatialIndex;
 
     @Override
     public void run(String... args) throws Exception {
-        if (isNotEmpty(storeRepository.findAll())) {
+        List<Store> existingStores = storeRepository.findAll();
+        if (isNotEmpty(existingStores)) {
             log.info("Store list has already been initialized.Skipping initialization");
+            storeSpatialIndex.rebuild(existingStores);
             return;
         }
         log.info("Initializing store data from stores.json.");
@@ -41,6 +46,7 @@ public class DataInitializer implements CommandLineRunner {
                     }
             );
 
+            List<Store> stores = new ArrayList<>(storesData.size());
             for (Map<String, Object> storeData : storesData) {
                 String name = (String) storeData.get("name");
                 Double lat = ((Number) storeData.get("lat")).doubleValue();
@@ -50,9 +56,10 @@ public class DataInitializer implements CommandLineRunner {
                         .lat(lat)
                         .lng(lng)
                         .build();
-                storeRepository.save(store);
+                stores.add(store);
                 log.info("Loaded store: {} at ({}, {})", name, lat, lng);
             }
+            storeSpatialIndex.rebuild(storeRepository.saveAll(stores));
             log.info("Store data initialization complete.");
 
         } catch (Exception e) {
@@ -0,0 +1,40 @@
+package com.migros.online.config;
+
+import com.migros.online.service.courier.CourierLatestLocationCache;
+import com.migros.online.service.courier.CourierRecentTrail;
+import com.migros.online.service.courier.CourierTravelDistanceTracker;
+import com.migros.online.service.store.StoreEntryCooldownTracker;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Sizes of the in-memory per-courier tables. Queue depths are registered by the components
+     * that own the queues.
+     */
+    @Bean
+    public MeterBinder ingestStateMetrics(CourierLatestLocationCache latestLocationCache,
+                                          CourierRecentTrail recentTrail,
+                                          CourierTravelDistanceTracker travelDistanceTracker,
+                                          StoreEntryCooldownTracker cooldownTracker) {
+        return registry -> {
+            Gauge.builder("courier.latest_location.couriers", latestLocationCache, CourierLatestLocationCache::size)
+                    .description("Couriers held in the latest location table")
+                    .register(registry);
+            Gauge.builder("courier.recent_trail.couriers", recentTrail, CourierRecentTrail::getCourierCount)
+                    .description("Couriers with a recent trail in off-heap memory")
+                    .register(registry);
+            Gauge.builder("courier.travel_distance.couriers", travelDistanceTracker,
+                            CourierTravelDistanceTracker::getTrackedCourierCount)
+                    .description("Couriers with a running travel distance in memory")
+                    .register(registry);
+            Gauge.builder("store_entry.cooldown.entries", cooldownTracker, StoreEntryCooldownTracker::getTrackedEntryCount)
+                    .description("Courier and store pairs tracked for the re-entry cooldown")
+                    .register(registry);
+        };
+    }
+}
@@ -0,0 +1,24 @@
+package com.migros.online.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ThreadFactory;
+
+@Configuration
+public class ThreadingConfig {
+
+    /**
+     * Factory for the long-running worker threads (write-behind flushers, observer queues). Follows
+     * {@code spring.threads.virtual.enabled} so these run on virtual threads together with Tomcat.
+     */
+    @Bean
+    public ThreadFactory workerThreadFactory(Environment environment) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return Thread.ofVirtual().name("worker-virtual-", 0).factory();
+        }
+        return Thread.ofPlatform().name("worker-", 0).factory();
+    }
+}
@@ -0,0 +1,28 @@
+package com.migros.online.config;
+
+import com.migros.online.websocket.CourierHandshakeInterceptor;
+import com.migros.online.websocket.CourierIngestWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+@RequiredArgsConstructor
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    public static final String INGEST_PATH = "/ws/v1/courier/location";
+
+    private final CourierIngestWebSocketHandler ingestHandler;
+    private final CourierHandshakeInterceptor handshakeInterceptor;
+    private final CourierTrackerProperties properties;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(ingestHandler, INGEST_PATH)
+                .addInterceptors(handshakeInterceptor)
+                .setAllowedOriginPatterns(properties.getWebsocket().getAllowedOriginPatterns().toArray(String[]::new));
+    }
+}
@@ -1,19 +1,40 @@
 package com.migros.online.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.migros.online.codec.CourierLocationBinaryCodec;
+import com.migros.online.dto.request.CourierLocationFrame;
 import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationBatchResponse;
 import com.migros.online.dto.response.Response;
 import com.migros.online.dto.response.CourierLocationResponse;
+import com.migros.online.dto.response.CourierTrackPageResponse;
+import com.migros.online.dto.response.RecentTrailResponse;
 import com.migros.online.dto.response.TotalDistanceResponse;
+import com.migros.online.service.courier.CourierIngestService;
 import com.migros.online.service.courier.CourierLocationService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.UUID;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -23,18 +44,44 @@ import java.util.List;
 @Validated
 public class CourierLocationController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final int MAX_TRACK_PAGE_SIZE = 1000;
+
+    private final CourierIngestService ingestService;
     private final CourierLocationService locationService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ResponseEntity<Response<CourierLocationResponse>> reportLocation(
             @Valid @RequestBody CourierLocationRequest request) {
         log.info("Received location update for courier: {} at ({}, {})",
                 request.getCourierId(), request.getLat(), request.getLng());
-        CourierLocationResponse response = locationService.processLocation(request);
+        CourierLocationResponse response = ingestService.processLocation(request);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(Response.success("Location processed successfully", response));
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Response<CourierLocationBatchResponse>> reportLocations(
+            @RequestBody
+            @NotEmpty(message = "Batch must contain at least one location")
+            @Size(max = MAX_BATCH_SIZE, message = "Batch must not contain more than " + MAX_BATCH_SIZE + " locations")
+            List<@Valid CourierLocationRequest> requests) {
+        log.info("Received location batch with {} points", requests.size());
+        CourierLocationBatchResponse response = ingestService.processLocations(requests);
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(Response.success(batchMessage(response), response));
+    }
+
+    @PostMapping(value = "/batch", consumes = CourierLocationBinaryCodec.MEDIA_TYPE_VALUE)
+    public ResponseEntity<Response<CourierLocationBatchResponse>> reportLocationFrame(
+            @RequestBody CourierLocationFrame frame) {
+        log.info("Received binary location frame with {} points", frame.locations().size());
+        CourierLocationBatchResponse response = ingestService.processLocations(frame.locations());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(Response.success(batchMessage(response), response));
+    }
+
     @GetMapping("/courier/{courierId}/total-distance")
     public ResponseEntity<Response<TotalDistanceResponse>> getTotalTravelDistance(
             @PathVariable @UUID(message = "Courier ID must be a valid UUID") String courierId) {
@@ -52,6 +99,57 @@ public class CourierLocationController {
                 "Retrieved " + locations.size() + " locations", locations));
     }
 
+    @GetMapping("/courier/{courierId}/track")
+    public ResponseEntity<Response<CourierTrackPageResponse>> getCourierTrack(
+            @PathVariable @UUID(message = "Courier ID must be a valid UUID") String courierId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "500")
+            @Min(value = 1, message = "Limit must be at least 1")
+            @Max(value = MAX_TRACK_PAGE_SIZE, message = "Limit must not exceed " + MAX_TRACK_PAGE_SIZE)
+            int limit) {
+        log.info("Received request to get track page for courier: {}", courierId);
+        CourierTrackPageResponse page = locationService.getCourierTrack(courierId, from, to, cursor, limit);
+        return ResponseEntity.ok(Response.success(
+                "Retrieved " + page.getLocations().size() + " locations", page));
+    }
+
+    @GetMapping(value = "/courier/{courierId}/track/stream", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamCourierTrack(
+            @PathVariable @UUID(message = "Courier ID must be a valid UUID") String courierId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        log.info("Received request to stream track for courier: {}", courierId);
+        // Let the servlet buffer decide when to flush instead of flushing after every row
+        ObjectWriter rowWriter = objectMapper.writerFor(CourierLocationResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                generator.writeStartArray();
+                locationService.streamCourierTrack(courierId, from, to, location -> {
+                    try {
+                        rowWriter.writeValue(generator, location);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    @GetMapping("/courier/{courierId}/trail")
+    public ResponseEntity<Response<RecentTrailResponse>> getRecentTrail(
+            @PathVariable @UUID(message = "Courier ID must be a valid UUID") String courierId,
+            @RequestParam(required = false) Duration window) {
+        log.info("Received request to get recent trail for courier: {}", courierId);
+        RecentTrailResponse response = locationService.getRecentTrail(courierId, window);
+        return ResponseEntity.ok(Response.success(
+                "Retrieved " + response.getPoints().size() + " recent points", response));
+    }
+
     @GetMapping("/courier/{courierId}/latest")
     public ResponseEntity<Response<CourierLocationResponse>> getLatestLocation(
             @PathVariable @UUID(message = "Courier ID must be a valid UUID") String courierId) {
@@ -61,4 +159,11 @@ public class CourierLocationController {
                 .orElse(ResponseEntity.ok(Response.success("No locations recorded for this courier", null)));
     }
 
+    private static String batchMessage(CourierLocationBatchResponse response) {
+        if (response.getRejectedCouriers().isEmpty()) {
+            return "Processed " + response.getProcessedCount() + " locations";
+        }
+        return "Processed " + response.getProcessedCount() + " locations, "
+                + response.getRejectedCouriers().size() + " couriers rejected";
+    }
 }
@@ -1,15 +1,25 @@
 package com.migros.online.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.migros.online.dto.response.Response;
 import com.migros.online.dto.response.StoreEntryResponse;
 import com.migros.online.service.store.StoreEntryService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.UUID;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Slf4j
@@ -20,6 +30,7 @@ import java.util.List;
 public class StoreEntryController {
 
     private final StoreEntryService storeEntryService;
+    private final ObjectMapper objectMapper;
 
     @GetMapping
     public ResponseEntity<Response<List<StoreEntryResponse>>> getAllEntries() {
@@ -46,4 +57,29 @@ public class StoreEntryController {
         return ResponseEntity.ok(Response.success(
                 "Retrieved " + entries.size() + " entries for store " + storeId, entries));
     }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportEntries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long storeId) {
+        log.info("Received request to export store entries from {} to {} for store {}", from, to, storeId);
+        ObjectWriter rowWriter = objectMapper.writerFor(StoreEntryResponse.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // One entry per line, newline-terminated
+                generator.setRootValueSeparator(null);
+                storeEntryService.exportEntries(from, to, storeId, entry -> {
+                    try {
+                        rowWriter.writeValue(generator, entry);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
 }
@@ -0,0 +1,9 @@
+package com.migros.online.dto.request;
+
+import java.util.List;
+
+/**
+ * Locations decoded from one binary ingest frame.
+ */
+public record CourierLocationFrame(List<CourierLocationRequest> locations) {
+}
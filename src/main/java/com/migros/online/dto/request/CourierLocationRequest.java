@@ -4,6 +4,7 @@ import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,6 +21,8 @@ public class CourierLocationRequest {
 
     @NotBlank(message = "Courier ID is required")
     @UUID(message = "Courier ID must be a valid UUID")
+    // @UUID only rejects versions below its allowed range, so versions 6 to 15 are refused here
+    @Pattern(regexp = "(?!.{14}[6-9a-fA-F].{21}$).*", message = "Courier ID must be a valid UUID")
     private String courierId;
 
     @NotNull(message = "Latitude is required")
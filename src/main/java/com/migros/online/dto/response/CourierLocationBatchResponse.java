@@ -0,0 +1,25 @@
+package com.migros.online.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourierLocationBatchResponse {
+
+    private int processedCount;
+
+    private int courierCount;
+
+    private List<StoreEntryResponse> storeEntries;
+
+    // Couriers whose points were not stored because their part of the batch failed; resend them
+    @Builder.Default
+    private List<String> rejectedCouriers = List.of();
+}
@@ -1,5 +1,6 @@
 package com.migros.online.dto.response;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -23,5 +24,9 @@ public class CourierLocationResponse {
 
     private LocalDateTime timestamp;
 
+    // Last merged fix while the courier stayed within the stationary envelope
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private LocalDateTime stationaryUntil;
+
     private String message;
 }
@@ -0,0 +1,21 @@
+package com.migros.online.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourierTrackPageResponse {
+
+    private List<CourierLocationResponse> locations;
+
+    private String nextCursor;
+
+    private boolean hasMore;
+}
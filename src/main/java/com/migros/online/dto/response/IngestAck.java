@@ -0,0 +1,43 @@
+package com.migros.online.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Acknowledgement for one frame on the WebSocket ingest channel. {@code seq} counts frames per
+ * connection from 1; empty fields are left out so a plain ack stays a few bytes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class IngestAck {
+
+    private long seq;
+
+    private int accepted;
+
+    private List<StoreEntryNotice> storeEntries;
+
+    private String error;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class StoreEntryNotice {
+
+        private String storeName;
+
+        private LocalDateTime entryTime;
+
+        private Double distanceFromStore;
+    }
+}
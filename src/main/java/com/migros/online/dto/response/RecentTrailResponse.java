@@ -0,0 +1,36 @@
+package com.migros.online.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RecentTrailResponse {
+
+    private String courierId;
+
+    // Meters along the points, oldest first
+    private Double distance;
+
+    private List<Point> points;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class Point {
+
+        private Double lat;
+
+        private Double lng;
+
+        private LocalDateTime timestamp;
+    }
+}
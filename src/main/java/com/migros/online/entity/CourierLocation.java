@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class CourierLocation {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "courier_locations_seq")
+    @SequenceGenerator(name = "courier_locations_seq", sequenceName = "courier_locations_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "courier_id", nullable = false)
@@ -30,9 +31,19 @@ public class CourierLocation {
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
+    @Column(name = "stationary_until")
+    private LocalDateTime stationaryUntil;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /**
+     * Time of the newest fix this row stands for, including fixes merged into it.
+     */
+    public LocalDateTime getLastSeen() {
+        return stationaryUntil != null ? stationaryUntil : timestamp;
+    }
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,51 @@
+package com.migros.online.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * A courier's points of one time bucket, encoded with
+ * {@link com.migros.online.codec.TrackSegmentCodec}.
+ */
+@Entity
+@Table(name = "courier_track_segments")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CourierTrackSegment {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "courier_track_segments_seq")
+    @SequenceGenerator(name = "courier_track_segments_seq", sequenceName = "courier_track_segments_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "courier_id", nullable = false)
+    private String courierId;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(name = "first_timestamp", nullable = false)
+    private LocalDateTime firstTimestamp;
+
+    @Column(name = "last_timestamp", nullable = false)
+    private LocalDateTime lastTimestamp;
+
+    @Column(name = "point_count", nullable = false)
+    private Integer pointCount;
+
+    @Column(name = "data", nullable = false)
+    private byte[] data;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
 public class StoreEntry {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "store_entries_seq")
+    @SequenceGenerator(name = "store_entries_seq", sequenceName = "store_entries_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "courier_id", nullable = false)
@@ -0,0 +1,12 @@
+package com.migros.online.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class IngestBackpressureException extends RuntimeException {
+
+    public IngestBackpressureException(String message) {
+        super(message);
+    }
+}
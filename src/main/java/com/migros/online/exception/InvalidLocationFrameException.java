@@ -0,0 +1,12 @@
+package com.migros.online.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidLocationFrameException extends RuntimeException {
+
+    public InvalidLocationFrameException(String message) {
+        super(message);
+    }
+}
@@ -20,6 +20,7 @@ public interface CourierLocationMapper {
 
     @Mapping(target = "id", ignore = true)
     @Mapping(target = "timestamp", source = "time")
+    @Mapping(target = "stationaryUntil", ignore = true)
     @Mapping(target = "createdAt", ignore = true)
     CourierLocation toEntity(CourierLocationRequest request);
 }
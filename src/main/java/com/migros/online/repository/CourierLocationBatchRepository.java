@@ -0,0 +1,29 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.CourierLocation;
+
+import java.util.List;
+
+public interface CourierLocationBatchRepository {
+
+    /**
+     * Inserts the rows, keeping the id of a location that already has one and assigning ids to the rest.
+     */
+    void batchInsert(List<CourierLocation> locations);
+
+    /**
+     * Reserves ids from the location sequence for rows that are inserted later.
+     */
+    long[] allocateIds(int count);
+
+    /**
+     * Moves the location sequence past {@code id}, so ids reserved before the database was reset
+     * are not handed out again.
+     */
+    void advanceIdsPast(long id);
+
+    /**
+     * Writes {@code stationaryUntil} of already inserted rows, by id.
+     */
+    void updateStationaryUntil(List<CourierLocation> locations);
+}
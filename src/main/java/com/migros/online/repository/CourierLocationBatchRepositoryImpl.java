@@ -0,0 +1,67 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.CourierLocation;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class CourierLocationBatchRepositoryImpl implements CourierLocationBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+    // Must match the allocationSize of the entity's sequence generator
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final String INSERT_SQL = "INSERT INTO courier_locations " +
+            "(id, courier_id, latitude, longitude, timestamp, stationary_until, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String UPDATE_STATIONARY_UNTIL_SQL =
+            "UPDATE courier_locations SET stationary_until = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public CourierLocationBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = new SequenceIdAllocator(jdbcTemplate, "courier_locations_seq", ID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public void batchInsert(List<CourierLocation> locations) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        long[] ids = idAllocator.allocate((int) locations.stream().filter(location -> location.getId() == null).count());
+        int assigned = 0;
+        for (CourierLocation location : locations) {
+            if (location.getId() == null) {
+                location.setId(ids[assigned++]);
+            }
+            location.setCreatedAt(createdAt);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, locations, BATCH_SIZE, (ps, location) -> {
+            ps.setLong(1, location.getId());
+            ps.setString(2, location.getCourierId());
+            ps.setDouble(3, location.getLat());
+            ps.setDouble(4, location.getLng());
+            ps.setObject(5, location.getTimestamp());
+            ps.setObject(6, location.getStationaryUntil());
+            ps.setObject(7, createdAt);
+        });
+    }
+
+    @Override
+    public long[] allocateIds(int count) {
+        return idAllocator.allocate(count);
+    }
+
+    @Override
+    public void advanceIdsPast(long id) {
+        idAllocator.advancePast(id);
+    }
+
+    @Override
+    public void updateStationaryUntil(List<CourierLocation> locations) {
+        jdbcTemplate.batchUpdate(UPDATE_STATIONARY_UNTIL_SQL, locations, BATCH_SIZE, (ps, location) -> {
+            ps.setObject(1, location.getStationaryUntil());
+            ps.setLong(2, location.getId());
+        });
+    }
+}
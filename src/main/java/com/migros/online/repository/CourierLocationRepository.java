@@ -1,16 +1,49 @@
 package com.migros.online.repository;
 
 import com.migros.online.entity.CourierLocation;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface CourierLocationRepository extends JpaRepository<CourierLocation, Long> {
+public interface CourierLocationRepository extends JpaRepository<CourierLocation, Long>,
+        CourierLocationBatchRepository {
 
     List<CourierLocation> findByCourierIdOrderByTimestampAsc(String courierId);
 
-    Optional<CourierLocation> findTopByCourierIdOrderByTimestampDesc(String courierId);
+    /**
+     * Keyset page of a courier's track: rows strictly after ({@code afterTimestamp},
+     * {@code afterId}) and before {@code to}, in timestamp then id order.
+     */
+    @Query("SELECT cl FROM CourierLocation cl WHERE cl.courierId = :courierId AND cl.timestamp < :to " +
+            "AND (cl.timestamp > :afterTimestamp OR (cl.timestamp = :afterTimestamp AND cl.id > :afterId)) " +
+            "ORDER BY cl.timestamp ASC, cl.id ASC")
+    List<CourierLocation> findTrackPage(@Param("courierId") String courierId,
+                                        @Param("afterTimestamp") LocalDateTime afterTimestamp,
+                                        @Param("afterId") long afterId,
+                                        @Param("to") LocalDateTime to,
+                                        Pageable pageable);
+
+    Optional<CourierLocation> findTopByCourierIdAndTimestampLessThanEqualOrderByTimestampDesc(
+            String courierId, LocalDateTime timestamp);
+
+    Optional<CourierLocation> findTopByCourierIdAndTimestampGreaterThanOrderByTimestampAsc(
+            String courierId, LocalDateTime timestamp);
+
+    @Query("SELECT DISTINCT cl.courierId FROM CourierLocation cl WHERE cl.timestamp < :cutoff")
+    List<String> findCourierIdsWithLocationsBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT cl.id FROM CourierLocation cl WHERE cl.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    @Query("SELECT cl FROM CourierLocation cl WHERE cl.timestamp > :since AND cl.timestamp = " +
+            "(SELECT MAX(latest.timestamp) FROM CourierLocation latest WHERE latest.courierId = cl.courierId)")
+    List<CourierLocation> findLatestPerCourierSince(@Param("since") LocalDateTime since);
 }
@@ -0,0 +1,33 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.CourierTrackSegment;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface CourierTrackSegmentRepository extends JpaRepository<CourierTrackSegment, Long>,
+        CourierTrackSegmentStreamRepository {
+
+    Optional<CourierTrackSegment> findByCourierIdAndBucketStart(String courierId, LocalDateTime bucketStart);
+
+    /**
+     * Newest segment starting at or before {@code timestamp}; holds the courier's last sealed
+     * point at or before it, if any.
+     */
+    Optional<CourierTrackSegment> findFirstByCourierIdAndFirstTimestampLessThanEqualOrderByBucketStartDesc(
+            String courierId, LocalDateTime timestamp);
+
+    /**
+     * Oldest segment ending after {@code timestamp}; holds the courier's first sealed point after
+     * it, if any.
+     */
+    Optional<CourierTrackSegment> findFirstByCourierIdAndLastTimestampGreaterThanOrderByBucketStartAsc(
+            String courierId, LocalDateTime timestamp);
+
+    @Query("SELECT COALESCE(SUM(s.pointCount), 0) FROM CourierTrackSegment s")
+    long countPoints();
+}
@@ -0,0 +1,17 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.CourierTrackSegment;
+
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+public interface CourierTrackSegmentStreamRepository {
+
+    /**
+     * Hands the courier's segments with points in {@code [from, to)} to {@code consumer} in bucket
+     * order, one row at a time, until the consumer returns {@code false}. Must be called inside a
+     * transaction so drivers that only honour the fetch size with auto-commit disabled actually
+     * stream.
+     */
+    void streamSegments(String courierId, LocalDateTime from, LocalDateTime to, Predicate<CourierTrackSegment> consumer);
+}
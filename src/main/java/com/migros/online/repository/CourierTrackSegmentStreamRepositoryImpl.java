@@ -0,0 +1,45 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.CourierTrackSegment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+
+import java.time.LocalDateTime;
+import java.util.function.Predicate;
+
+public class CourierTrackSegmentStreamRepositoryImpl implements CourierTrackSegmentStreamRepository {
+
+    // Segments are large; fetch a few at a time
+    private static final int FETCH_SIZE = 16;
+    private static final String SEGMENTS_SQL = "SELECT id, courier_id, bucket_start, first_timestamp, last_timestamp, " +
+            "point_count, data, created_at FROM courier_track_segments " +
+            "WHERE courier_id = ? AND last_timestamp >= ? AND first_timestamp < ? ORDER BY bucket_start";
+
+    private final JdbcTemplate streamingTemplate;
+
+    public CourierTrackSegmentStreamRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    public void streamSegments(String courierId, LocalDateTime from, LocalDateTime to,
+                               Predicate<CourierTrackSegment> consumer) {
+        streamingTemplate.query(SEGMENTS_SQL, (ResultSetExtractor<Void>) rs -> {
+            boolean more = true;
+            while (more && rs.next()) {
+                more = consumer.test(CourierTrackSegment.builder()
+                        .id(rs.getLong("id"))
+                        .courierId(rs.getString("courier_id"))
+                        .bucketStart(rs.getObject("bucket_start", LocalDateTime.class))
+                        .firstTimestamp(rs.getObject("first_timestamp", LocalDateTime.class))
+                        .lastTimestamp(rs.getObject("last_timestamp", LocalDateTime.class))
+                        .pointCount(rs.getInt("point_count"))
+                        .data(rs.getBytes("data"))
+                        .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                        .build());
+            }
+            return null;
+        }, courierId, from, to);
+    }
+}
@@ -0,0 +1,36 @@
+package com.migros.online.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reserves ids for JDBC batch inserts from the same sequence the entity uses. Each sequence value
+ * is treated as the first id of a block of {@code allocationSize} ids, which is how Hibernate's
+ * pooled-lo optimizer reads it, so rows written here never collide with rows persisted via JPA.
+ */
+@RequiredArgsConstructor
+class SequenceIdAllocator {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String sequenceName;
+    private final int allocationSize;
+
+    long[] allocate(int count) {
+        long[] ids = new long[count];
+        int assigned = 0;
+        while (assigned < count) {
+            Long blockStart = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequenceName, Long.class);
+            for (int i = 0; i < allocationSize && assigned < count; i++) {
+                ids[assigned++] = blockStart + i;
+            }
+        }
+        return ids;
+    }
+
+    void advancePast(long id) {
+        Long blockStart = jdbcTemplate.queryForObject("SELECT NEXT VALUE FOR " + sequenceName, Long.class);
+        if (blockStart <= id) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequenceName + " RESTART WITH " + (id + 1));
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.StoreEntry;
+
+import java.util.List;
+
+public interface StoreEntryBatchRepository {
+
+    void batchInsert(List<StoreEntry> entries);
+}
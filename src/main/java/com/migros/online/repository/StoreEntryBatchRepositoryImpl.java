@@ -0,0 +1,43 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.StoreEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class StoreEntryBatchRepositoryImpl implements StoreEntryBatchRepository {
+
+    private static final int BATCH_SIZE = 500;
+    // Must match the allocationSize of the entity's sequence generator
+    private static final int ID_ALLOCATION_SIZE = 50;
+    private static final String INSERT_SQL = "INSERT INTO store_entries " +
+            "(id, courier_id, store_id, entry_time, distance_from_store, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SequenceIdAllocator idAllocator;
+
+    public StoreEntryBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.idAllocator = new SequenceIdAllocator(jdbcTemplate, "store_entries_seq", ID_ALLOCATION_SIZE);
+    }
+
+    @Override
+    public void batchInsert(List<StoreEntry> entries) {
+        LocalDateTime createdAt = LocalDateTime.now();
+        long[] ids = idAllocator.allocate(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            entries.get(i).setId(ids[i]);
+            entries.get(i).setCreatedAt(createdAt);
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, BATCH_SIZE, (ps, entry) -> {
+            ps.setLong(1, entry.getId());
+            ps.setString(2, entry.getCourierId());
+            ps.setLong(3, entry.getStore().getId());
+            ps.setObject(4, entry.getEntryTime());
+            ps.setObject(5, entry.getDistanceFromStore());
+            ps.setObject(6, createdAt);
+        });
+    }
+}
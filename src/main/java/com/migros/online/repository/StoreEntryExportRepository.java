@@ -0,0 +1,17 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.StoreEntry;
+
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+public interface StoreEntryExportRepository {
+
+    /**
+     * Reads store entries in {@code [from, to)}, optionally for one store, ordered by entry time
+     * and id from a forward-only cursor. Each entry carries a detached {@link com.migros.online.entity.Store}
+     * with its id and name filled in from a join. Null filters are not applied. Must be called
+     * inside a transaction.
+     */
+    void streamEntries(LocalDateTime from, LocalDateTime to, Long storeId, Consumer<StoreEntry> consumer);
+}
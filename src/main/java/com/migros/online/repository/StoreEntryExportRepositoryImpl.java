@@ -0,0 +1,58 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.Store;
+import com.migros.online.entity.StoreEntry;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class StoreEntryExportRepositoryImpl implements StoreEntryExportRepository {
+
+    private static final int FETCH_SIZE = 500;
+    private static final String SELECT_SQL = "SELECT se.id, se.courier_id, se.store_id, s.name AS store_name, " +
+            "se.entry_time, se.distance_from_store, se.created_at " +
+            "FROM store_entries se JOIN stores s ON s.id = se.store_id WHERE 1 = 1";
+
+    private final JdbcTemplate streamingTemplate;
+
+    public StoreEntryExportRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.streamingTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.streamingTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    @Override
+    public void streamEntries(LocalDateTime from, LocalDateTime to, Long storeId, Consumer<StoreEntry> consumer) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>(3);
+        if (from != null) {
+            sql.append(" AND se.entry_time >= ?");
+            args.add(from);
+        }
+        if (to != null) {
+            sql.append(" AND se.entry_time < ?");
+            args.add(to);
+        }
+        if (storeId != null) {
+            sql.append(" AND se.store_id = ?");
+            args.add(storeId);
+        }
+        sql.append(" ORDER BY se.entry_time, se.id");
+
+        streamingTemplate.query(sql.toString(), rs -> {
+            consumer.accept(StoreEntry.builder()
+                    .id(rs.getLong("id"))
+                    .courierId(rs.getString("courier_id"))
+                    .store(Store.builder()
+                            .id(rs.getLong("store_id"))
+                            .name(rs.getString("store_name"))
+                            .build())
+                    .entryTime(rs.getObject("entry_time", LocalDateTime.class))
+                    .distanceFromStore(rs.getObject("distance_from_store", Double.class))
+                    .createdAt(rs.getObject("created_at", LocalDateTime.class))
+                    .build());
+        }, args.toArray());
+    }
+}
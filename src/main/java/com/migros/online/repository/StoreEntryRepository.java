@@ -11,12 +11,15 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface StoreEntryRepository extends JpaRepository<StoreEntry, Long> {
+public interface StoreEntryRepository extends JpaRepository<StoreEntry, Long>,
+        StoreEntryBatchRepository, StoreEntryExportRepository {
 
     List<StoreEntry> findByCourierIdOrderByEntryTimeDesc(String courierId);
 
     List<StoreEntry> findByStoreOrderByEntryTimeDesc(Store store);
 
+    List<StoreEntry> findByEntryTimeAfter(LocalDateTime since);
+
 
     @Query("SELECT COUNT(se) > 0 FROM StoreEntry se WHERE se.courierId = :courierId " +
            "AND se.store = :store AND se.entryTime > :sinceTime")
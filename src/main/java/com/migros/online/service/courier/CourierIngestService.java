@@ -0,0 +1,101 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.codec.CourierLocationBinaryCodec;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationBatchResponse;
+import com.migros.online.dto.response.CourierLocationResponse;
+import com.migros.online.dto.response.StoreEntryResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Entry point for location writes. Routes each courier's points through its
+ * {@link CourierProcessingLanes lane}, so points of one courier are processed one after another
+ * in arrival order. A batch is split per lane, and each lane's part is processed in one
+ * transaction with the points of all its couriers, so a batch takes at most one transaction per
+ * lane. The parts commit independently: when some parts are accepted and others are not, the
+ * response lists the couriers whose points were not stored so the client can resend only those.
+ * A batch is only rejected as a whole when no part was accepted. Coordinates are rounded to the
+ * 10^-7 degrees of a binary frame here, so points are stored, compared and sealed at the same
+ * precision whichever way they arrived.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourierIngestService {
+
+    private final CourierLocationService locationService;
+    private final CourierProcessingLanes processingLanes;
+
+    public CourierLocationResponse processLocation(CourierLocationRequest request) {
+        roundCoordinates(request);
+        return processingLanes.execute(request.getCourierId(), () -> locationService.processLocation(request));
+    }
+
+    public CourierLocationBatchResponse processLocations(List<CourierLocationRequest> requests) {
+        Map<Integer, List<CourierLocationRequest>> byLane = new LinkedHashMap<>();
+        for (CourierLocationRequest request : requests) {
+            roundCoordinates(request);
+            byLane.computeIfAbsent(processingLanes.laneOf(request.getCourierId()), lane -> new ArrayList<>()).add(request);
+        }
+        if (byLane.size() == 1) {
+            return processingLanes.execute(requests.get(0).getCourierId(), () -> locationService.processLocations(requests));
+        }
+
+        log.debug("Splitting location batch of {} points across {} lanes", requests.size(), byLane.size());
+        List<List<CourierLocationRequest>> parts = new ArrayList<>(byLane.values());
+        List<CompletableFuture<CourierLocationBatchResponse>> results = new ArrayList<>(parts.size());
+        for (List<CourierLocationRequest> part : parts) {
+            try {
+                results.add(processingLanes.submit(part.get(0).getCourierId(),
+                        () -> locationService.processLocations(part)));
+            } catch (RuntimeException e) {
+                results.add(CompletableFuture.failedFuture(e));
+            }
+        }
+
+        int processedCount = 0;
+        int courierCount = 0;
+        List<StoreEntryResponse> storeEntries = new ArrayList<>();
+        Set<String> rejectedCouriers = new LinkedHashSet<>();
+        RuntimeException firstFailure = null;
+        boolean anyAccepted = false;
+        for (int i = 0; i < parts.size(); i++) {
+            try {
+                CourierLocationBatchResponse response = processingLanes.await(results.get(i));
+                processedCount += response.getProcessedCount();
+                courierCount += response.getCourierCount();
+                storeEntries.addAll(response.getStoreEntries());
+                anyAccepted = true;
+            } catch (RuntimeException e) {
+                log.warn("Part of location batch with {} points was not stored", parts.get(i).size(), e);
+                firstFailure = firstFailure != null ? firstFailure : e;
+                parts.get(i).forEach(request -> rejectedCouriers.add(request.getCourierId()));
+            }
+        }
+        // Nothing was stored, so the whole batch can be retried
+        if (!anyAccepted) {
+            throw firstFailure;
+        }
+        return CourierLocationBatchResponse.builder()
+                .processedCount(processedCount)
+                .courierCount(courierCount + rejectedCouriers.size())
+                .storeEntries(storeEntries)
+                .rejectedCouriers(List.copyOf(rejectedCouriers))
+                .build();
+    }
+
+    private static void roundCoordinates(CourierLocationRequest request) {
+        request.setLat(CourierLocationBinaryCodec.roundCoordinate(request.getLat()));
+        request.setLng(CourierLocationBinaryCodec.roundCoordinate(request.getLng()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.migros.online.service.courier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.repository.CourierLocationRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Last known position per courier, keyed by event time so a late report never replaces a newer
+ * fix. Couriers that stop reporting for the idle timeout are evicted and the table is capped at
+ * the configured number of couriers; the latest endpoint is served from here only.
+ */
+@Slf4j
+@Component
+public class CourierLatestLocationCache {
+
+    private final CourierLocationRepository locationRepository;
+    private final Duration idleTimeout;
+    private final Cache<String, CourierLocation> latestLocations;
+
+    public CourierLatestLocationCache(CourierLocationRepository locationRepository,
+                                      CourierTrackerProperties properties) {
+        CourierTrackerProperties.LatestLocation config = properties.getLatestLocation();
+        this.locationRepository = locationRepository;
+        this.idleTimeout = config.getIdleTimeout();
+        this.latestLocations = Caffeine.newBuilder()
+                .maximumSize(config.getMaxCouriers())
+                .expireAfterWrite(idleTimeout)
+                .build();
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now().minus(idleTimeout);
+        List<CourierLocation> recentLocations = locationRepository.findLatestPerCourierSince(since);
+        recentLocations.forEach(this::merge);
+        log.info("Latest location cache warmed up with {} couriers active since {}", recentLocations.size(), since);
+    }
+
+    public void update(CourierLocation location) {
+        CourierLocation previous = latestLocations.getIfPresent(location.getCourierId());
+        CourierLocation current = merge(location);
+        if (current == location) {
+            restoreOnRollback(location, previous);
+        }
+    }
+
+    public Optional<CourierLocation> get(String courierId) {
+        return Optional.ofNullable(latestLocations.getIfPresent(courierId));
+    }
+
+    public long size() {
+        return latestLocations.estimatedSize();
+    }
+
+    private CourierLocation merge(CourierLocation location) {
+        return latestLocations.asMap().merge(location.getCourierId(), location,
+                (existing, candidate) -> candidate.getLastSeen().isBefore(existing.getLastSeen()) ? existing : candidate);
+    }
+
+    private void restoreOnRollback(CourierLocation location, CourierLocation previous) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    if (previous == null) {
+                        latestLocations.asMap().remove(location.getCourierId(), location);
+                    } else {
+                        latestLocations.asMap().replace(location.getCourierId(), location, previous);
+                    }
+                }
+            }
+        });
+    }
+}
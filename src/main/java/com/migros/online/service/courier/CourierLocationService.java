@@ -1,128 +1,438 @@
 package com.migros.online.service.courier;
 
+import com.migros.online.codec.TrackSegmentCodec;
 import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationBatchResponse;
 import com.migros.online.dto.response.CourierLocationResponse;
+import com.migros.online.dto.response.CourierTrackPageResponse;
+import com.migros.online.dto.response.RecentTrailResponse;
+import com.migros.online.dto.response.StoreEntryResponse;
 import com.migros.online.dto.response.TotalDistanceResponse;
 import com.migros.online.entity.CourierLocation;
 import com.migros.online.entity.Store;
 import com.migros.online.mapper.CourierLocationMapper;
-import com.migros.online.repository.CourierLocationRepository;
-import com.migros.online.repository.StoreEntryRepository;
-import com.migros.online.repository.StoreRepository;
 import com.migros.online.service.distance.DistanceCalculatorService;
+import com.migros.online.service.store.StoreEntryCooldownTracker;
 import com.migros.online.service.store.StoreEntryNotificationService;
+import com.migros.online.service.store.StoreProximityFilter;
+import com.migros.online.service.store.StoreProximityMatch;
+import com.migros.online.service.store.StoreSpatialIndex;
 import com.migros.online.service.store.observer.StoreEntryEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class CourierLocationService {
 
-    private static final double STORE_RADIUS_METERS = 100.0;
-    private static final long REENTRY_COOLDOWN_SECONDS = 60;
+    public static final double STORE_RADIUS_METERS = 100.0;
+    public static final long REENTRY_COOLDOWN_SECONDS = 60;
 
-    private final CourierLocationRepository locationRepository;
-    private final StoreEntryRepository storeEntryRepository;
-    private final StoreRepository storeRepository;
-    private final DistanceCalculatorService distanceCalculatorService;
+    // Open ends of a track time range
+    static final LocalDateTime TRACK_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    static final LocalDateTime TRACK_END = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    private final StoreEntryCooldownTracker cooldownTracker;
+    private final StoreSpatialIndex storeSpatialIndex;
+    private final StoreProximityFilter storeProximityFilter;
     private final StoreEntryNotificationService notificationService;
     private final CourierLocationMapper locationMapper;
+    private final CourierTravelDistanceTracker travelDistanceTracker;
+    private final CourierLatestLocationCache latestLocationCache;
+    private final CourierLocationWriter locationWriter;
+    private final IngestMetrics ingestMetrics;
+    private final CourierReorderBuffer reorderBuffer;
+    private final StationaryPointSuppressor stationarySuppressor;
+    private final CourierTrackReader trackReader;
+    private final CourierRecentTrail recentTrail;
+    private final DistanceCalculatorService distanceCalculatorService;
 
     @Transactional
     public CourierLocationResponse processLocation(CourierLocationRequest request) {
         log.info("Processing location for courier: {} at ({}, {}) at time {}", 
                 request.getCourierId(), request.getLat(), request.getLng(), request.getTime());
 
-        String courierId = request.getCourierId();
-
+        ingestMetrics.pointsIngested(1);
 
-        CourierLocation newLocation = locationMapper.toEntity(request);
-        CourierLocation savedLocation = locationRepository.save(newLocation);
+        CourierReorderBuffer.Admission admission = reorderBuffer.admit(request);
+        if (admission.dropped()) {
+            return unsavedResponse(request, "Duplicate location ignored");
+        }
 
-        List<String> storeEntriesLogged = checkStoreProximity(courierId, request);
+        CourierLocation savedLocation = null;
+        boolean merged = false;
+        boolean duplicate = false;
+        List<String> storeEntriesLogged = new ArrayList<>();
+        for (CourierLocationRequest point : admission.points()) {
+            StoreScan scan = new StoreScan(point);
+            Optional<CourierLocation> stationary = mergeStationary(point, scan);
+            if (stationary.isPresent()) {
+                if (point == request) {
+                    savedLocation = stationary.get();
+                    merged = true;
+                }
+                continue;
+            }
+            Optional<CourierLocation> recorded = recordLocation(point);
+            if (recorded.isEmpty()) {
+                duplicate |= point == request;
+                continue;
+            }
+            CourierLocation saved = recorded.get();
+            List<StoreProximityMatch> matches = scan.matches();
+            stationarySuppressor.replaceAnchor(saved, storeIds(matches));
+            if (point == request) {
+                savedLocation = saved;
+            }
+            for (StoreEntryEvent event : registerStoreEntries(point.getCourierId(), point, matches)) {
+                storeEntriesLogged.add(event.getStore().getName());
+            }
+        }
+        if (duplicate) {
+            return unsavedResponse(request, "Duplicate location ignored");
+        }
+        if (savedLocation == null) {
+            return unsavedResponse(request, "Location accepted, waiting for earlier reports");
+        }
 
+        long start = System.nanoTime();
         CourierLocationResponse response = locationMapper.toResponse(savedLocation);
         
-        if (!storeEntriesLogged.isEmpty()) {
+        if (merged) {
+            response.setMessage("Location merged into stationary period");
+        } else if (!storeEntriesLogged.isEmpty()) {
             response.setMessage("Location recorded. Entered store radius: " + String.join(", ", storeEntriesLogged));
         } else {
             response.setMessage("Location recorded successfully");
         }
+        ingestMetrics.recordStage(IngestMetrics.Stage.RESPONSE_MAPPING, start);
 
         return response;
     }
 
-    private List<String> checkStoreProximity(String courierId, CourierLocationRequest request) {
-        List<String> enteredStores = new ArrayList<>();
-        List<Store> stores = storeRepository.findAll();
-
-        for (Store store : stores) {
-            double distance = distanceCalculatorService.calculateDistance(
-                    request.getLat(), request.getLng(),
-                    store.getLat(), store.getLng()
-            );
-
-            if (distance <= STORE_RADIUS_METERS) {
-                LocalDateTime cooldownThreshold = request.getTime().minusSeconds(REENTRY_COOLDOWN_SECONDS);
-                boolean recentEntry = storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter(
-                        courierId, store, cooldownThreshold);
-
-                if (!recentEntry) {
-                    log.info("Logging store entry for courier {} at store {}", 
-                            courierId, store.getName());
-
-                    StoreEntryEvent event = StoreEntryEvent.builder()
-                            .courierId(courierId)
-                            .store(store)
-                            .lat(request.getLat())
-                            .lng(request.getLng())
-                            .distanceFromStore(Math.round(distance * 100.0) / 100.0)
-                            .entryTime(request.getTime())
-                            .build();
-
-                    notificationService.notifyObservers(event);
-                    enteredStores.add(store.getName());
-                }
+    @Transactional
+    public CourierLocationBatchResponse processLocations(List<CourierLocationRequest> requests) {
+        log.info("Processing location batch of {} points", requests.size());
+
+        List<CourierLocationRequest> orderedRequests = requests.stream()
+                .sorted(Comparator.comparing(CourierLocationRequest::getCourierId)
+                        .thenComparing(CourierLocationRequest::getTime))
+                .toList();
+
+        ingestMetrics.pointsIngested(orderedRequests.size());
+
+        int dropped = 0;
+        List<CourierLocationRequest> releasedPoints = new ArrayList<>(orderedRequests.size());
+        for (CourierLocationRequest request : orderedRequests) {
+            CourierReorderBuffer.Admission admission = reorderBuffer.admit(request);
+            if (admission.dropped()) {
+                dropped++;
+            }
+            releasedPoints.addAll(admission.points());
+        }
+
+        int processedCount = orderedRequests.size() - dropped;
+        List<CourierLocationRequest> duplicates = new ArrayList<>();
+        List<StoreEntryResponse> storeEntries = processReleased(releasedPoints, duplicates);
+        if (!duplicates.isEmpty()) {
+            // Released points may include ones buffered by earlier requests
+            Set<CourierLocationRequest> batch = Collections.newSetFromMap(new IdentityHashMap<>());
+            batch.addAll(orderedRequests);
+            processedCount -= (int) duplicates.stream().filter(batch::contains).count();
+        }
+
+        int courierCount = (int) orderedRequests.stream()
+                .map(CourierLocationRequest::getCourierId)
+                .distinct()
+                .count();
+
+        return CourierLocationBatchResponse.builder()
+                .processedCount(processedCount)
+                .courierCount(courierCount)
+                .storeEntries(storeEntries)
+                .build();
+    }
+
+    /**
+     * Processes the courier's buffered points that have waited out the lateness window, or all of
+     * them when {@code all} is set. Returns the number of points processed.
+     */
+    @Transactional
+    public int releaseBufferedLocations(String courierId, boolean all) {
+        List<CourierLocationRequest> released = reorderBuffer.releaseExpired(courierId, all);
+        if (!released.isEmpty()) {
+            log.debug("Releasing {} buffered locations for courier {}", released.size(), courierId);
+            processReleased(released, new ArrayList<>());
+        }
+        return released.size();
+    }
+
+    // Late retries of stored points are left out and added to duplicates
+    private List<StoreEntryResponse> processReleased(List<CourierLocationRequest> releasedPoints,
+                                                     List<CourierLocationRequest> duplicates) {
+        List<CourierLocationRequest> points = new ArrayList<>(releasedPoints.size());
+        List<List<StoreProximityMatch>> pointMatches = new ArrayList<>(releasedPoints.size());
+        List<CourierLocation> newLocations = new ArrayList<>(releasedPoints.size());
+        for (CourierLocationRequest request : releasedPoints) {
+            StoreScan scan = new StoreScan(request);
+            if (mergeStationary(request, scan).isPresent()) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            boolean recorded = travelDistanceTracker.recordLocation(
+                    request.getCourierId(), request.getLat(), request.getLng(), request.getTime());
+            ingestMetrics.recordStage(IngestMetrics.Stage.TRAVEL_DISTANCE, start);
+            if (!recorded) {
+                reorderBuffer.countDropped();
+                duplicates.add(request);
+                continue;
+            }
+            points.add(request);
+
+            start = System.nanoTime();
+            CourierLocation location = locationMapper.toEntity(request);
+            newLocations.add(location);
+            ingestMetrics.recordStage(IngestMetrics.Stage.MAPPING, start);
+
+            List<StoreProximityMatch> matches = scan.matches();
+            pointMatches.add(matches);
+            stationarySuppressor.replaceAnchor(location, storeIds(matches));
+        }
+
+        long start = System.nanoTime();
+        locationWriter.writeAll(newLocations);
+        ingestMetrics.recordStage(IngestMetrics.Stage.LOCATION_WRITE, start);
+
+        for (CourierLocation location : newLocations) {
+            start = System.nanoTime();
+            latestLocationCache.update(location);
+            ingestMetrics.recordStage(IngestMetrics.Stage.LATEST_LOCATION, start);
+
+            start = System.nanoTime();
+            recentTrail.record(location.getCourierId(), location.getLat(), location.getLng(), location.getTimestamp());
+            ingestMetrics.recordStage(IngestMetrics.Stage.RECENT_TRAIL, start);
+        }
+
+        List<StoreEntryResponse> storeEntries = new ArrayList<>();
+        for (int i = 0; i < points.size(); i++) {
+            CourierLocationRequest request = points.get(i);
+            for (StoreEntryEvent event : registerStoreEntries(request.getCourierId(), request, pointMatches.get(i))) {
+                storeEntries.add(StoreEntryResponse.builder()
+                        .courierId(event.getCourierId())
+                        .storeName(event.getStore().getName())
+                        .entryTime(event.getEntryTime())
+                        .distanceFromStore(event.getDistanceFromStore())
+                        .build());
+            }
+        }
+        return storeEntries;
+    }
+
+    // A merged point only moves the stationary period of the courier's last row and its latest location.
+    // Points that are within a different set of store radii than that row are stored and scanned instead;
+    // the row's set was kept when it was stored, so only the new point is scanned.
+    private Optional<CourierLocation> mergeStationary(CourierLocationRequest request, StoreScan scan) {
+        Optional<CourierLocation> merged = stationarySuppressor.tryMerge(request,
+                anchorStoreIds -> anchorStoreIds.equals(storeIds(scan.matches())));
+        merged.ifPresent(latestLocationCache::update);
+        return merged;
+    }
+
+    // Empty for a late retry of a stored point
+    private Optional<CourierLocation> recordLocation(CourierLocationRequest request) {
+        long start = System.nanoTime();
+        boolean recorded = travelDistanceTracker.recordLocation(
+                request.getCourierId(), request.getLat(), request.getLng(), request.getTime());
+        ingestMetrics.recordStage(IngestMetrics.Stage.TRAVEL_DISTANCE, start);
+        if (!recorded) {
+            reorderBuffer.countDropped();
+            return Optional.empty();
+        }
+
+        start = System.nanoTime();
+        CourierLocation newLocation = locationMapper.toEntity(request);
+        ingestMetrics.recordStage(IngestMetrics.Stage.MAPPING, start);
+
+        start = System.nanoTime();
+        CourierLocation savedLocation = locationWriter.write(newLocation);
+        ingestMetrics.recordStage(IngestMetrics.Stage.LOCATION_WRITE, start);
+
+        start = System.nanoTime();
+        latestLocationCache.update(savedLocation);
+        ingestMetrics.recordStage(IngestMetrics.Stage.LATEST_LOCATION, start);
+
+        start = System.nanoTime();
+        recentTrail.record(savedLocation.getCourierId(), savedLocation.getLat(), savedLocation.getLng(),
+                savedLocation.getTimestamp());
+        ingestMetrics.recordStage(IngestMetrics.Stage.RECENT_TRAIL, start);
+        return Optional.of(savedLocation);
+    }
+
+    private static CourierLocationResponse unsavedResponse(CourierLocationRequest request, String message) {
+        return CourierLocationResponse.builder()
+                .courierId(request.getCourierId())
+                .lat(request.getLat())
+                .lng(request.getLng())
+                .timestamp(request.getTime())
+                .message(message)
+                .build();
+    }
+
+    private List<StoreProximityMatch> findStoresInRadius(double lat, double lng) {
+        long start = System.nanoTime();
+        List<Store> stores = storeSpatialIndex.findCandidates(lat, lng, STORE_RADIUS_METERS);
+        List<StoreProximityMatch> matches = storeProximityFilter.findWithinRadius(lat, lng, STORE_RADIUS_METERS, stores);
+        ingestMetrics.recordStage(IngestMetrics.Stage.STORE_SCAN, start);
+        return matches;
+    }
+
+    private static Set<Long> storeIds(List<StoreProximityMatch> matches) {
+        Set<Long> storeIds = new HashSet<>();
+        for (StoreProximityMatch match : matches) {
+            storeIds.add(match.store().getId());
+        }
+        return storeIds;
+    }
+
+    private List<StoreEntryEvent> registerStoreEntries(String courierId, CourierLocationRequest request,
+                                                       List<StoreProximityMatch> matches) {
+        List<StoreEntryEvent> storeEntries = new ArrayList<>();
+        for (StoreProximityMatch match : matches) {
+            Store store = match.store();
+            double distance = match.distance();
+
+            long start = System.nanoTime();
+            boolean newEntry = cooldownTracker.tryRegisterEntry(courierId, store, request.getTime());
+            ingestMetrics.recordStage(IngestMetrics.Stage.COOLDOWN_CHECK, start);
+
+            if (newEntry) {
+                log.info("Logging store entry for courier {} at store {}", 
+                        courierId, store.getName());
+
+                StoreEntryEvent event = StoreEntryEvent.builder()
+                        .courierId(courierId)
+                        .store(store)
+                        .lat(request.getLat())
+                        .lng(request.getLng())
+                        .distanceFromStore(Math.round(distance * 100.0) / 100.0)
+                        .entryTime(request.getTime())
+                        .build();
+
+                ingestMetrics.storeEntryDetected();
+                notificationService.notifyObservers(event);
+                storeEntries.add(event);
             }
         }
 
-        return enteredStores;
+        return storeEntries;
     }
 
     @Transactional(readOnly = true)
     public List<CourierLocationResponse> getCourierLocations(String courierId) {
-        List<CourierLocation> locations = locationRepository.findByCourierIdOrderByTimestampAsc(courierId);
-        return locationMapper.toResponseList(locations);
+        List<CourierLocationResponse> locations = new ArrayList<>();
+        trackReader.forEachLocation(courierId, location -> locations.add(locationMapper.toResponse(location)));
+        return locations;
     }
 
+    /**
+     * One page of a courier's track in {@code [from, to)}, ordered by timestamp then id. Pass the
+     * returned {@code nextCursor} to continue after the last row; open range ends may be null.
+     */
     @Transactional(readOnly = true)
+    public CourierTrackPageResponse getCourierTrack(String courierId, LocalDateTime from, LocalDateTime to,
+                                                    String cursor, int limit) {
+        CourierTrackCursor after = cursor != null
+                ? CourierTrackCursor.decode(cursor)
+                : new CourierTrackCursor(from != null ? from : TRACK_START, Long.MIN_VALUE);
+        if (from != null && after.timestamp().isBefore(from)) {
+            after = new CourierTrackCursor(from, Long.MIN_VALUE);
+        }
+
+        // One extra row tells whether another page exists
+        List<CourierLocation> rows = trackReader.findTrackPage(courierId, after.timestamp(), after.id(),
+                to != null ? to : TRACK_END, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        List<CourierLocation> page = hasMore ? rows.subList(0, limit) : rows;
+
+        return CourierTrackPageResponse.builder()
+                .locations(locationMapper.toResponseList(page))
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CourierTrackCursor.after(page.get(page.size() - 1)).encode() : null)
+                .build();
+    }
+
+    /**
+     * Hands a courier's track in {@code [from, to)} to {@code consumer} point by point, paging rows
+     * and decoding sealed segments as it goes. The connection stays open until the consumer has
+     * seen the last point.
+     */
+    @Transactional(readOnly = true)
+    public void streamCourierTrack(String courierId, LocalDateTime from, LocalDateTime to,
+                                   Consumer<CourierLocationResponse> consumer) {
+        trackReader.forEachLocation(courierId, from != null ? from : TRACK_START, to != null ? to : TRACK_END,
+                location -> consumer.accept(locationMapper.toResponse(location)));
+    }
+
     public Optional<CourierLocationResponse> getLatestLocation(String courierId) {
-        return locationRepository.findTopByCourierIdOrderByTimestampDesc(courierId)
+        return latestLocationCache.get(courierId)
                 .map(locationMapper::toResponse);
     }
 
+    /**
+     * The courier's points from the last {@code window} (the configured default when null) before
+     * its newest point, served from the in-memory recent trail only.
+     */
+    public RecentTrailResponse getRecentTrail(String courierId, Duration window) {
+        int capacity = recentTrail.getPointsPerCourier();
+        long[] epochMicros = new long[capacity];
+        double[] lats = new double[capacity];
+        double[] lngs = new double[capacity];
+        int count = recentTrail.copyRecent(courierId, window != null ? window : recentTrail.getDefaultWindow(),
+                epochMicros, lats, lngs);
+
+        double distance = 0;
+        if (count > 1) {
+            double[] legs = new double[count - 1];
+            distanceCalculatorService.calculateTrackDistances(lats, lngs, legs, count);
+            for (double leg : legs) {
+                distance += leg;
+            }
+        }
+
+        List<RecentTrailResponse.Point> points = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            points.add(RecentTrailResponse.Point.builder()
+                    .lat(lats[i])
+                    .lng(lngs[i])
+                    .timestamp(TrackSegmentCodec.fromEpochMicros(epochMicros[i]))
+                    .build());
+        }
+        return RecentTrailResponse.builder()
+                .courierId(courierId)
+                .distance(distance)
+                .points(points)
+                .build();
+    }
+
     @Transactional(readOnly = true)
     public TotalDistanceResponse getTotalTravelDistance(String courierId) {
-        List<CourierLocation> locations = locationRepository.findByCourierIdOrderByTimestampAsc(courierId);
-        
-        double totalDistance = 0.0;
-        for (int i = 1; i < locations.size(); i++) {
-            CourierLocation prev = locations.get(i - 1);
-            CourierLocation curr = locations.get(i);
-            totalDistance += distanceCalculatorService.calculateDistance(
-                    prev.getLat(), prev.getLng(),
-                    curr.getLat(), curr.getLng()
-            );
-        }
+        double totalDistance = travelDistanceTracker.getTotalDistance(courierId);
 
         String formattedDistance = formatDistance(totalDistance);
         
@@ -148,6 +458,24 @@ public class CourierLocationService {
 
     @Transactional(readOnly = true)
     public long getLocationCount() {
-        return locationRepository.count();
+        return trackReader.countLocations();
+    }
+
+    // Scans a point's store radii once, whether the stationary check or the entry check needs them first
+    private final class StoreScan {
+
+        private final CourierLocationRequest point;
+        private List<StoreProximityMatch> matches;
+
+        private StoreScan(CourierLocationRequest point) {
+            this.point = point;
+        }
+
+        private List<StoreProximityMatch> matches() {
+            if (matches == null) {
+                matches = findStoresInRadius(point.getLat(), point.getLng());
+            }
+            return matches;
+        }
     }
 }
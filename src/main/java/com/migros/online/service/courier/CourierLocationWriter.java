@@ -0,0 +1,21 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.entity.CourierLocation;
+
+import java.util.List;
+
+/**
+ * Persists accepted courier locations. The implementation is selected by
+ * {@code courier-tracker.location-write.mode}.
+ */
+public interface CourierLocationWriter {
+
+    CourierLocation write(CourierLocation location);
+
+    void writeAll(List<CourierLocation> locations);
+
+    /**
+     * Persists the {@code stationaryUntil} of locations handed to this writer earlier.
+     */
+    void updateStationaryUntil(List<CourierLocation> locations);
+}
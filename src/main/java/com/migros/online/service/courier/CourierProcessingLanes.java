@@ -0,0 +1,225 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.exception.IngestBackpressureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Fixed set of single-threaded lanes that courier work is sharded onto by courier id. All work
+ * for one courier runs on the same lane thread in submission order, so per-courier state is only
+ * ever written by one thread at a time and two pings of the same courier cannot interleave.
+ * Each lane has a bounded queue; when it stays full for {@code offer-timeout} the work is
+ * rejected with {@link IngestBackpressureException}. With {@code enabled: false} work runs on
+ * the calling thread.
+ */
+@Slf4j
+@Component
+public class CourierProcessingLanes {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final boolean enabled;
+    private final Duration offerTimeout;
+    private final Duration shutdownTimeout;
+    private final ThreadFactory threadFactory;
+    private final Lane[] lanes;
+
+    private final Timer waitTimer;
+    private final Counter rejectedTasks;
+
+    private volatile boolean running;
+
+    public CourierProcessingLanes(MeterRegistry meterRegistry,
+                                  ThreadFactory workerThreadFactory,
+                                  CourierTrackerProperties properties) {
+        CourierTrackerProperties.ProcessingLanes config = properties.getProcessingLanes();
+        this.enabled = config.isEnabled();
+        this.offerTimeout = config.getOfferTimeout();
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.threadFactory = workerThreadFactory;
+
+        int laneCount = config.getCount() > 0 ? config.getCount() : Runtime.getRuntime().availableProcessors();
+        this.lanes = new Lane[enabled ? laneCount : 0];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(i, new ArrayBlockingQueue<>(config.getQueueCapacity()));
+            Gauge.builder("courier.ingest.lane.queue.depth", lanes[i].queue, BlockingQueue::size)
+                    .description("Tasks waiting for the processing lane")
+                    .tag("lane", String.valueOf(i))
+                    .register(meterRegistry);
+        }
+        this.waitTimer = Timer.builder("courier.ingest.lane.wait")
+                .description("Time a task waited in its lane queue before running")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedTasks = Counter.builder("courier.ingest.lane.rejected")
+                .description("Tasks rejected because their lane queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        for (Lane lane : lanes) {
+            lane.worker = threadFactory.newThread(() -> runLane(lane));
+            lane.worker.setName("courier-lane-" + lane.index);
+            lane.worker.start();
+        }
+        log.info("Started {} courier processing lanes", lanes.length);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        for (Lane lane : lanes) {
+            if (lane.worker == null) {
+                continue;
+            }
+            lane.worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            if (lane.worker.isAlive()) {
+                log.error("Processing lane {} did not drain within {}, {} tasks not run",
+                        lane.index, shutdownTimeout, lane.queue.size());
+            }
+        }
+    }
+
+    /**
+     * Runs {@code task} on the courier's lane and waits for its result. Exceptions thrown by the
+     * task are rethrown to the caller unchanged.
+     */
+    public <T> T execute(String courierId, Supplier<T> task) {
+        return await(submit(courierId, task));
+    }
+
+    /**
+     * Waits for a task returned by {@link #submit} and rethrows its exception unchanged.
+     */
+    public <T> T await(CompletableFuture<T> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Queues {@code task} on the courier's lane without waiting. Work already running on that lane
+     * runs inline, so a lane never waits on itself.
+     */
+    public <T> CompletableFuture<T> submit(String courierId, Supplier<T> task) {
+        Lane lane = laneFor(courierId);
+        if (lane == null || Thread.currentThread() == lane.worker) {
+            try {
+                return CompletableFuture.completedFuture(task.get());
+            } catch (RuntimeException | Error e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        LaneTask laneTask = new LaneTask(() -> {
+            try {
+                result.complete(task.get());
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }, System.nanoTime());
+        offer(lane, laneTask);
+        return result;
+    }
+
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Lane index for the courier, or -1 when lanes are disabled.
+     */
+    public int laneOf(String courierId) {
+        if (lanes.length == 0) {
+            return -1;
+        }
+        int hash = courierId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    public int getQueueDepth(int lane) {
+        return lanes[lane].queue.size();
+    }
+
+    private Lane laneFor(String courierId) {
+        int index = laneOf(courierId);
+        return index < 0 ? null : lanes[index];
+    }
+
+    private void offer(Lane lane, LaneTask task) {
+        boolean accepted;
+        try {
+            accepted = running && lane.queue.offer(task, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepted = false;
+        }
+        if (!accepted) {
+            rejectedTasks.increment();
+            throw new IngestBackpressureException("Processing lane " + lane.index + " is full, retry later");
+        }
+    }
+
+    private void runLane(Lane lane) {
+        while (running || !lane.queue.isEmpty()) {
+            LaneTask next;
+            try {
+                next = lane.queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                next = lane.queue.poll();
+            }
+            if (next != null) {
+                waitTimer.record(System.nanoTime() - next.queuedAtNanos(), TimeUnit.NANOSECONDS);
+                next.work().run();
+            }
+        }
+    }
+
+    private static final class Lane {
+
+        private final int index;
+        private final BlockingQueue<LaneTask> queue;
+        private volatile Thread worker;
+
+        private Lane(int index, BlockingQueue<LaneTask> queue) {
+            this.index = index;
+            this.queue = queue;
+        }
+    }
+
+    private record LaneTask(Runnable work, long queuedAtNanos) {
+    }
+}
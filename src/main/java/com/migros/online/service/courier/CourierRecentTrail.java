@@ -0,0 +1,412 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.codec.TrackSegmentCodec;
+import com.migros.online.config.CourierTrackerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The most recent positions of each active courier, for speed checks, trail rendering and
+ * short-window distance without querying the database. Every courier gets a fixed slot of
+ * {@code points-per-courier} points in one off-heap buffer that is allocated once, and points are
+ * stored as primitives (epoch microseconds, lat, lng), so points themselves never reach the heap.
+ * A slot is kept in timestamp order; once it is full, the oldest point is overwritten. When all
+ * {@code max-couriers} slots are taken, the courier that reported least recently gives up its slot.
+ * Inside a transaction, changes are also appended to one undo log per transaction, which puts back
+ * the points that were replaced or overwritten if the transaction rolls back. Recording outside a
+ * transaction allocates nothing. Inside one, the first point costs the undo log, one small object,
+ * and Spring's bookkeeping for its synchronization; arrays are only added when the same
+ * transaction changes more points.
+ */
+@Slf4j
+@Component
+public class CourierRecentTrail {
+
+    // long epoch microseconds, double lat, double lng
+    private static final int POINT_BYTES = 24;
+    private static final int LOCK_STRIPES = 64;
+
+    private final boolean enabled;
+    private final int pointsPerCourier;
+    private final int maxCouriers;
+    private final Duration defaultWindow;
+    private final ByteBuffer points;
+    private final ConcurrentHashMap<String, Integer> slots = new ConcurrentHashMap<>();
+    private final String[] owners;
+    private final int[] heads;
+    private final int[] sizes;
+    private final long[] lastRecordedNanos;
+    private final ReentrantLock[] stripes = new ReentrantLock[LOCK_STRIPES];
+    private final ReentrantLock slotLock = new ReentrantLock();
+    private final Counter evictedCouriers;
+    private int allocatedSlots;
+
+    public CourierRecentTrail(MeterRegistry meterRegistry, CourierTrackerProperties properties) {
+        CourierTrackerProperties.RecentTrail config = properties.getRecentTrail();
+        this.enabled = config.isEnabled();
+        this.pointsPerCourier = config.getPointsPerCourier();
+        this.maxCouriers = enabled ? config.getMaxCouriers() : 0;
+        this.defaultWindow = config.getWindow();
+        long bytes = (long) maxCouriers * pointsPerCourier * POINT_BYTES;
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Recent trail of " + bytes + " bytes exceeds 2 GB, "
+                    + "lower max-couriers or points-per-courier");
+        }
+        this.points = ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+        this.owners = new String[maxCouriers];
+        this.heads = new int[maxCouriers];
+        this.sizes = new int[maxCouriers];
+        this.lastRecordedNanos = new long[maxCouriers];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.evictedCouriers = Counter.builder("courier.recent_trail.evicted")
+                .description("Couriers whose recent trail was dropped to make room for another courier")
+                .register(meterRegistry);
+        if (enabled) {
+            log.info("Recent trail holds {} points for up to {} couriers in {} MB off-heap",
+                    pointsPerCourier, maxCouriers, bytes >> 20);
+        }
+    }
+
+    public void record(String courierId, double lat, double lng, LocalDateTime timestamp) {
+        if (!enabled) {
+            return;
+        }
+        long epochMicros = TrackSegmentCodec.toEpochMicros(timestamp);
+        UndoLog undoLog = undoLog();
+        while (true) {
+            int slot = slotFor(courierId);
+            ReentrantLock lock = stripe(slot);
+            lock.lock();
+            try {
+                // The slot went to another courier after it was looked up
+                if (!courierId.equals(owners[slot])) {
+                    continue;
+                }
+                insert(slot, epochMicros, lat, lng, courierId, undoLog);
+                lastRecordedNanos[slot] = System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+            return;
+        }
+    }
+
+    /**
+     * Copies the courier's points from the last {@code window} before its newest point into the
+     * arrays, oldest first, and returns how many were copied. The arrays must hold
+     * {@link #getPointsPerCourier()} points.
+     */
+    public int copyRecent(String courierId, Duration window, long[] epochMicros, double[] lats, double[] lngs) {
+        Integer slot = slots.get(courierId);
+        if (slot == null) {
+            return 0;
+        }
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            if (!courierId.equals(owners[slot]) || sizes[slot] == 0) {
+                return 0;
+            }
+            int size = sizes[slot];
+            long since = timestampAt(slot, size - 1) - window.toNanos() / 1000;
+            int first = size - 1;
+            while (first > 0 && timestampAt(slot, first - 1) >= since) {
+                first--;
+            }
+            for (int i = first; i < size; i++) {
+                int offset = offset(slot, i);
+                epochMicros[i - first] = points.getLong(offset);
+                lats[i - first] = points.getDouble(offset + 8);
+                lngs[i - first] = points.getDouble(offset + 16);
+            }
+            return size - first;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getPointsPerCourier() {
+        return pointsPerCourier;
+    }
+
+    public Duration getDefaultWindow() {
+        return defaultWindow;
+    }
+
+    public int getCourierCount() {
+        return slots.size();
+    }
+
+    private int slotFor(String courierId) {
+        Integer slot = slots.get(courierId);
+        if (slot != null) {
+            return slot;
+        }
+        slotLock.lock();
+        try {
+            slot = slots.get(courierId);
+            if (slot != null) {
+                return slot;
+            }
+            int free = allocatedSlots < maxCouriers ? allocatedSlots++ : evictLeastRecent();
+            ReentrantLock lock = stripe(free);
+            lock.lock();
+            try {
+                owners[free] = courierId;
+                heads[free] = 0;
+                sizes[free] = 0;
+                lastRecordedNanos[free] = System.nanoTime();
+            } finally {
+                lock.unlock();
+            }
+            slots.put(courierId, free);
+            return free;
+        } finally {
+            slotLock.unlock();
+        }
+    }
+
+    // Called with the slot lock held; a full scan, only when a new courier finds every slot taken
+    private int evictLeastRecent() {
+        int oldest = 0;
+        for (int slot = 1; slot < maxCouriers; slot++) {
+            if (lastRecordedNanos[slot] - lastRecordedNanos[oldest] < 0) {
+                oldest = slot;
+            }
+        }
+        ReentrantLock lock = stripe(oldest);
+        lock.lock();
+        try {
+            slots.remove(owners[oldest], oldest);
+            owners[oldest] = null;
+        } finally {
+            lock.unlock();
+        }
+        evictedCouriers.increment();
+        return oldest;
+    }
+
+    // Keeps the slot in timestamp order; a point with the timestamp of a stored one replaces it
+    private void insert(int slot, long epochMicros, double lat, double lng, String courierId, UndoLog undoLog) {
+        int size = sizes[slot];
+        int index = size;
+        while (index > 0 && timestampAt(slot, index - 1) > epochMicros) {
+            index--;
+        }
+        if (index > 0 && timestampAt(slot, index - 1) == epochMicros) {
+            if (undoLog != null) {
+                int offset = offset(slot, index - 1);
+                undoLog.replaced(courierId, epochMicros, points.getDouble(offset + 8), points.getDouble(offset + 16));
+            }
+            write(slot, index - 1, epochMicros, lat, lng);
+            return;
+        }
+        if (size == pointsPerCourier) {
+            if (index == 0) {
+                // Older than every point kept
+                return;
+            }
+            if (undoLog != null) {
+                int offset = offset(slot, 0);
+                undoLog.insertedOverOldest(courierId, epochMicros,
+                        points.getLong(offset), points.getDouble(offset + 8), points.getDouble(offset + 16));
+            }
+            heads[slot] = (heads[slot] + 1) % pointsPerCourier;
+            index--;
+            size--;
+        } else if (undoLog != null) {
+            undoLog.inserted(courierId, epochMicros);
+        }
+        for (int i = size; i > index; i--) {
+            copy(slot, i - 1, i);
+        }
+        write(slot, index, epochMicros, lat, lng);
+        sizes[slot] = size + 1;
+    }
+
+    // Reverts one undo log entry; points of a courier that lost its slot since are gone anyway
+    private void undo(String courierId, int kind, long epochMicros, long oldMicros, double oldLat, double oldLng) {
+        Integer slot = slots.get(courierId);
+        if (slot == null) {
+            return;
+        }
+        ReentrantLock lock = stripe(slot);
+        lock.lock();
+        try {
+            if (!courierId.equals(owners[slot])) {
+                return;
+            }
+            int size = sizes[slot];
+            int index = 0;
+            while (index < size && timestampAt(slot, index) != epochMicros) {
+                index++;
+            }
+            if (index == size) {
+                return;
+            }
+            if (kind == UndoLog.REPLACED) {
+                write(slot, index, epochMicros, oldLat, oldLng);
+                return;
+            }
+            for (int i = index; i < size - 1; i++) {
+                copy(slot, i + 1, i);
+            }
+            sizes[slot] = size - 1;
+            if (kind == UndoLog.INSERTED_OVER_OLDEST) {
+                insert(slot, oldMicros, oldLat, oldLng, courierId, null);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private UndoLog undoLog() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        UndoLog undoLog = (UndoLog) TransactionSynchronizationManager.getResource(this);
+        if (undoLog == null) {
+            undoLog = new UndoLog();
+            TransactionSynchronizationManager.bindResource(this, undoLog);
+            TransactionSynchronizationManager.registerSynchronization(undoLog);
+        }
+        return undoLog;
+    }
+
+    private long timestampAt(int slot, int index) {
+        return points.getLong(offset(slot, index));
+    }
+
+    private void write(int slot, int index, long epochMicros, double lat, double lng) {
+        int offset = offset(slot, index);
+        points.putLong(offset, epochMicros);
+        points.putDouble(offset + 8, lat);
+        points.putDouble(offset + 16, lng);
+    }
+
+    private void copy(int slot, int from, int to) {
+        int source = offset(slot, from);
+        int target = offset(slot, to);
+        points.putLong(target, points.getLong(source));
+        points.putLong(target + 8, points.getLong(source + 8));
+        points.putLong(target + 16, points.getLong(source + 16));
+    }
+
+    // Byte offset of the index-th oldest point of the slot
+    private int offset(int slot, int index) {
+        return (slot * pointsPerCourier + (heads[slot] + index) % pointsPerCourier) * POINT_BYTES;
+    }
+
+    private ReentrantLock stripe(int slot) {
+        return stripes[slot % LOCK_STRIPES];
+    }
+
+    /**
+     * Changes made to the trail by one transaction. The first change is kept in fields, as most
+     * transactions record a single point; later ones go to parallel arrays created on the second
+     * change. Reverted newest first on rollback.
+     */
+    private final class UndoLog implements TransactionSynchronization {
+
+        private static final int INSERTED = 0;
+        private static final int INSERTED_OVER_OLDEST = 1;
+        private static final int REPLACED = 2;
+
+        private String firstCourierId;
+        private int firstKind;
+        private long firstEpochMicros;
+        private long firstOldMicros;
+        private double firstOldLat;
+        private double firstOldLng;
+
+        private String[] courierIds;
+        private int[] kinds;
+        private long[] epochMicros;
+        private long[] oldMicros;
+        private double[] oldLats;
+        private double[] oldLngs;
+        private int size;
+
+        private void inserted(String courierId, long micros) {
+            append(courierId, INSERTED, micros, 0, 0, 0);
+        }
+
+        private void insertedOverOldest(String courierId, long micros, long oldestMicros, double oldestLat, double oldestLng) {
+            append(courierId, INSERTED_OVER_OLDEST, micros, oldestMicros, oldestLat, oldestLng);
+        }
+
+        private void replaced(String courierId, long micros, double oldLat, double oldLng) {
+            append(courierId, REPLACED, micros, 0, oldLat, oldLng);
+        }
+
+        private void append(String courierId, int kind, long micros, long oldMicro, double oldLat, double oldLng) {
+            if (firstCourierId == null) {
+                firstCourierId = courierId;
+                firstKind = kind;
+                firstEpochMicros = micros;
+                firstOldMicros = oldMicro;
+                firstOldLat = oldLat;
+                firstOldLng = oldLng;
+                return;
+            }
+            if (courierIds == null) {
+                courierIds = new String[16];
+                kinds = new int[16];
+                epochMicros = new long[16];
+                oldMicros = new long[16];
+                oldLats = new double[16];
+                oldLngs = new double[16];
+            } else if (size == kinds.length) {
+                int capacity = size * 2;
+                courierIds = Arrays.copyOf(courierIds, capacity);
+                kinds = Arrays.copyOf(kinds, capacity);
+                epochMicros = Arrays.copyOf(epochMicros, capacity);
+                oldMicros = Arrays.copyOf(oldMicros, capacity);
+                oldLats = Arrays.copyOf(oldLats, capacity);
+                oldLngs = Arrays.copyOf(oldLngs, capacity);
+            }
+            courierIds[size] = courierId;
+            kinds[size] = kind;
+            epochMicros[size] = micros;
+            oldMicros[size] = oldMicro;
+            oldLats[size] = oldLat;
+            oldLngs[size] = oldLng;
+            size++;
+        }
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(CourierRecentTrail.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(CourierRecentTrail.this, this);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(CourierRecentTrail.this);
+            if (status == STATUS_ROLLED_BACK && firstCourierId != null) {
+                for (int i = size - 1; i >= 0; i--) {
+                    undo(courierIds[i], kinds[i], epochMicros[i], oldMicros[i], oldLats[i], oldLngs[i]);
+                }
+                undo(firstCourierId, firstKind, firstEpochMicros, firstOldMicros, firstOldLat, firstOldLng);
+            }
+        }
+    }
+}
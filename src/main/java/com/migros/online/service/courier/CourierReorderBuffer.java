@@ -0,0 +1,289 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.dto.request.CourierLocationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Per-courier reorder buffer in front of travel distance and store detection. Points are held
+ * for {@code lateness-window} of event time and released in event-time order once a point that
+ * much newer has arrived, once they have waited that long in wall-clock time, or when the
+ * courier's buffer is full. A point older than the last point already released for the courier
+ * is late: it skips the buffer and goes to the per-point correction path, which also refuses late
+ * retries of stored points. A point with the same event time and position as a buffered or the
+ * last released point is a duplicate retry and is dropped; JSON times have second precision, so
+ * a second fix in the same second at another position is kept. With a zero window points are
+ * released immediately and only late and duplicate points are told apart.
+ */
+@Slf4j
+@Component
+public class CourierReorderBuffer {
+
+    private static final Comparator<PointKey> KEY_ORDER = Comparator.comparing(PointKey::time)
+            .thenComparingDouble(PointKey::lat)
+            .thenComparingDouble(PointKey::lng);
+
+    private final Duration latenessWindow;
+    private final int maxPointsPerCourier;
+    private final Duration idleTimeout;
+
+    private final ConcurrentMap<String, CourierBuffer> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferedPoints = new AtomicInteger();
+
+    private final Counter reorderedPoints;
+    private final Counter latePoints;
+    private final Counter droppedPoints;
+
+    public CourierReorderBuffer(MeterRegistry meterRegistry, CourierTrackerProperties properties) {
+        CourierTrackerProperties.ReorderBuffer config = properties.getReorderBuffer();
+        this.latenessWindow = config.getLatenessWindow();
+        this.maxPointsPerCourier = config.getMaxPointsPerCourier();
+        this.idleTimeout = config.getIdleTimeout();
+
+        Gauge.builder("courier.reorder.buffered", bufferedPoints, AtomicInteger::get)
+                .description("Points held in reorder buffers")
+                .register(meterRegistry);
+        Gauge.builder("courier.reorder.couriers", buffers, Map::size)
+                .description("Couriers with reorder state")
+                .register(meterRegistry);
+        this.reorderedPoints = Counter.builder("courier.reorder.reordered")
+                .description("Points that arrived out of order within the lateness window")
+                .register(meterRegistry);
+        this.latePoints = Counter.builder("courier.reorder.late")
+                .description("Points older than the last released point, sent to the correction path")
+                .register(meterRegistry);
+        this.droppedPoints = Counter.builder("courier.reorder.dropped")
+                .description("Duplicate points dropped")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits one point. The returned points, in event-time order, are ready for processing now;
+     * the admitted point may be among them, or be held, or be dropped.
+     */
+    public Admission admit(CourierLocationRequest point) {
+        CourierBuffer buffer = lockBuffer(point.getCourierId());
+        LocalDateTime time = point.getTime();
+        PointKey key = new PointKey(time, point.getLat(), point.getLng());
+        try {
+            buffer.lastAccessNanos = System.nanoTime();
+            if (buffer.released != null && time.isBefore(buffer.released.time())) {
+                latePoints.increment();
+                log.debug("Late location for courier {} at {}, last released {}",
+                        point.getCourierId(), time, buffer.released.time());
+                return new Admission(List.of(point), false);
+            }
+            if (key.equals(buffer.released) || buffer.pending.containsKey(key)) {
+                droppedPoints.increment();
+                return new Admission(List.of(), true);
+            }
+            if (latenessWindow.isZero()) {
+                PointKey previous = buffer.released;
+                buffer.released = key;
+                restoreOnRollback(point.getCourierId(), buffer, List.of(point), previous);
+                return new Admission(List.of(point), false);
+            }
+
+            if (!buffer.pending.isEmpty() && time.isBefore(buffer.pending.lastKey().time())) {
+                reorderedPoints.increment();
+            }
+            buffer.pending.put(key, new Pending(point, System.nanoTime()));
+            bufferedPoints.incrementAndGet();
+            return new Admission(release(point.getCourierId(), buffer, false), false);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Releases the courier's points that have waited for the lateness window in wall-clock time,
+     * or all of them when {@code all} is set.
+     */
+    public List<CourierLocationRequest> releaseExpired(String courierId, boolean all) {
+        CourierBuffer buffer = buffers.get(courierId);
+        if (buffer == null) {
+            return List.of();
+        }
+        buffer.lock.lock();
+        try {
+            return release(courierId, buffer, all);
+        } finally {
+            buffer.lock.unlock();
+        }
+    }
+
+    /**
+     * Couriers holding points that are due for release, and forgets couriers that have neither
+     * buffered points nor reports within the idle timeout.
+     */
+    public List<String> couriersDueForRelease() {
+        long now = System.nanoTime();
+        List<String> due = new ArrayList<>();
+        buffers.forEach((courierId, buffer) -> {
+            buffer.lock.lock();
+            try {
+                if (buffer.pending.isEmpty()) {
+                    if (now - buffer.lastAccessNanos > idleTimeout.toNanos()) {
+                        buffers.remove(courierId, buffer);
+                    }
+                } else if (buffer.oldestArrivalNanos() <= now - latenessWindow.toNanos()) {
+                    due.add(courierId);
+                }
+            } finally {
+                buffer.lock.unlock();
+            }
+        });
+        return due;
+    }
+
+    public List<String> couriersWithBufferedPoints() {
+        List<String> couriers = new ArrayList<>();
+        buffers.forEach((courierId, buffer) -> {
+            buffer.lock.lock();
+            try {
+                if (!buffer.pending.isEmpty()) {
+                    couriers.add(courierId);
+                }
+            } finally {
+                buffer.lock.unlock();
+            }
+        });
+        return couriers;
+    }
+
+    /**
+     * Counts a duplicate that was only recognised after admission, such as a late retry of a
+     * stored point.
+     */
+    public void countDropped() {
+        droppedPoints.increment();
+    }
+
+    public Duration getLatenessWindow() {
+        return latenessWindow;
+    }
+
+    public int getBufferedPointCount() {
+        return bufferedPoints.get();
+    }
+
+    // Retries if the idle sweep removed the buffer between lookup and locking
+    private CourierBuffer lockBuffer(String courierId) {
+        while (true) {
+            CourierBuffer buffer = buffers.computeIfAbsent(courierId, id -> new CourierBuffer());
+            buffer.lock.lock();
+            if (buffers.get(courierId) == buffer) {
+                return buffer;
+            }
+            buffer.lock.unlock();
+        }
+    }
+
+    private List<CourierLocationRequest> release(String courierId, CourierBuffer buffer, boolean all) {
+        if (buffer.pending.isEmpty()) {
+            return List.of();
+        }
+        LocalDateTime watermark = buffer.pending.lastKey().time().minus(latenessWindow);
+        long arrivalCutoff = System.nanoTime() - latenessWindow.toNanos();
+        PointKey previous = buffer.released;
+
+        List<CourierLocationRequest> released = new ArrayList<>();
+        while (!buffer.pending.isEmpty()) {
+            Map.Entry<PointKey, Pending> oldest = buffer.pending.firstEntry();
+            boolean due = all
+                    || !oldest.getKey().time().isAfter(watermark)
+                    || buffer.pending.size() > maxPointsPerCourier
+                    || buffer.oldestArrivalNanos() <= arrivalCutoff;
+            if (!due) {
+                break;
+            }
+            buffer.pending.pollFirstEntry();
+            buffer.released = oldest.getKey();
+            released.add(oldest.getValue().point());
+        }
+        if (!released.isEmpty()) {
+            bufferedPoints.addAndGet(-released.size());
+            restoreOnRollback(courierId, buffer, released, previous);
+        }
+        return released;
+    }
+
+    private void restoreOnRollback(String courierId, CourierBuffer buffer,
+                                   List<CourierLocationRequest> released, PointKey previous) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                buffer.lock.lock();
+                try {
+                    buffer.released = previous;
+                    if (latenessWindow.isZero()) {
+                        return;
+                    }
+                    long now = System.nanoTime();
+                    for (CourierLocationRequest point : released) {
+                        PointKey key = new PointKey(point.getTime(), point.getLat(), point.getLng());
+                        if (buffer.pending.putIfAbsent(key, new Pending(point, now)) == null) {
+                            bufferedPoints.incrementAndGet();
+                        }
+                    }
+                    buffers.putIfAbsent(courierId, buffer);
+                } finally {
+                    buffer.lock.unlock();
+                }
+            }
+        });
+    }
+
+    /**
+     * Points of one admission ready for processing, in event-time order.
+     */
+    public record Admission(List<CourierLocationRequest> points, boolean dropped) {
+    }
+
+    private record Pending(CourierLocationRequest point, long arrivalNanos) {
+    }
+
+    // Identity of a report for duplicate detection; a retry repeats the time and the position
+    private record PointKey(LocalDateTime time, double lat, double lng) {
+    }
+
+    private static final class CourierBuffer {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final TreeMap<PointKey, Pending> pending = new TreeMap<>(KEY_ORDER);
+        private PointKey released;
+        private long lastAccessNanos = System.nanoTime();
+
+        private long oldestArrivalNanos() {
+            long oldest = Long.MAX_VALUE;
+            for (Pending point : pending.values()) {
+                oldest = Math.min(oldest, point.arrivalNanos());
+            }
+            return oldest;
+        }
+    }
+}
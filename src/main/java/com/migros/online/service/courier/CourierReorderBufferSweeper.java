@@ -0,0 +1,103 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.exception.IngestBackpressureException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Releases reorder buffers of couriers that stopped reporting, so held points do not wait for a
+ * newer point that may never come, and forgets idle couriers. Released points are processed on
+ * the courier's lane like any other point. On shutdown every buffer is released.
+ */
+@Slf4j
+@Component
+public class CourierReorderBufferSweeper {
+
+    private final CourierReorderBuffer reorderBuffer;
+    private final CourierProcessingLanes processingLanes;
+    private final CourierLocationService locationService;
+    private final ThreadFactory threadFactory;
+    private final Duration sweepInterval;
+
+    private volatile boolean running;
+    private Thread sweeper;
+
+    public CourierReorderBufferSweeper(CourierReorderBuffer reorderBuffer,
+                                       CourierProcessingLanes processingLanes,
+                                       CourierLocationService locationService,
+                                       ThreadFactory workerThreadFactory,
+                                       CourierTrackerProperties properties) {
+        this.reorderBuffer = reorderBuffer;
+        this.processingLanes = processingLanes;
+        this.locationService = locationService;
+        this.threadFactory = workerThreadFactory;
+        this.sweepInterval = properties.getReorderBuffer().getSweepInterval();
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        sweeper = threadFactory.newThread(this::run);
+        sweeper.setName("reorder-buffer-sweeper");
+        sweeper.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (sweeper != null) {
+            sweeper.interrupt();
+            sweeper.join(sweepInterval.toMillis() + 1000);
+        }
+        List<String> couriers = reorderBuffer.couriersWithBufferedPoints();
+        for (String courierId : couriers) {
+            try {
+                processingLanes.execute(courierId, () -> locationService.releaseBufferedLocations(courierId, true));
+            } catch (RuntimeException e) {
+                log.error("Failed to release buffered locations for courier {} on shutdown", courierId, e);
+            }
+        }
+        if (!couriers.isEmpty()) {
+            log.info("Released reorder buffers of {} couriers on shutdown", couriers.size());
+        }
+    }
+
+    void sweep() {
+        for (String courierId : reorderBuffer.couriersDueForRelease()) {
+            try {
+                processingLanes.submit(courierId, () -> locationService.releaseBufferedLocations(courierId, false))
+                        .whenComplete((released, failure) -> {
+                            if (failure != null) {
+                                log.error("Failed to release buffered locations for courier {}", courierId, failure);
+                            }
+                        });
+            } catch (IngestBackpressureException e) {
+                // Lane is busy; the points are still due on the next sweep
+                log.debug("Deferring reorder buffer release for courier {}: {}", courierId, e.getMessage());
+            }
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(sweepInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                sweep();
+            } catch (RuntimeException e) {
+                log.error("Reorder buffer sweep failed", e);
+            }
+        }
+    }
+}
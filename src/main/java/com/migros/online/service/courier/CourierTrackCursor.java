@@ -0,0 +1,42 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a courier's track, the (timestamp, id) of the last row of a page. Handed to clients
+ * as an opaque URL-safe token.
+ */
+record CourierTrackCursor(LocalDateTime timestamp, long id) {
+
+    private static final char SEPARATOR = '|';
+
+    static CourierTrackCursor after(CourierLocation location) {
+        return new CourierTrackCursor(location.getTimestamp(), location.getId());
+    }
+
+    String encode() {
+        String raw = timestamp.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static CourierTrackCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException("Malformed track cursor");
+            }
+            return new CourierTrackCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Malformed track cursor");
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.codec.TrackSegmentCodec;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.entity.CourierTrackSegment;
+import com.migros.online.repository.CourierLocationRepository;
+import com.migros.online.repository.CourierTrackSegmentRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Reads courier tracks across both storage forms: location rows and sealed
+ * {@link CourierTrackSegment segments}. Segments are decoded one point at a time and merged with
+ * rows read in keyset pages, in timestamp then id order, so a track is never materialised unless
+ * the caller collects it. Rows are read before segments and a point seen in both is emitted
+ * once, so a seal committing during the read does not duplicate points.
+ */
+@Component
+@RequiredArgsConstructor
+public class CourierTrackReader {
+
+    private static final int ROW_PAGE_SIZE = 500;
+
+    static final Comparator<CourierLocation> TRACK_ORDER = Comparator.comparing(CourierLocation::getTimestamp)
+            .thenComparing(CourierLocation::getId);
+
+    private final CourierLocationRepository locationRepository;
+    private final CourierTrackSegmentRepository segmentRepository;
+
+    /**
+     * Hands the courier's whole track to {@code consumer} in timestamp then id order.
+     */
+    public void forEachLocation(String courierId, Consumer<CourierLocation> consumer) {
+        forEachLocation(courierId, CourierLocationService.TRACK_START, CourierLocationService.TRACK_END, consumer);
+    }
+
+    /**
+     * Hands the courier's track in {@code [from, to)} to {@code consumer} in timestamp then id order.
+     */
+    public void forEachLocation(String courierId, LocalDateTime from, LocalDateTime to,
+                                Consumer<CourierLocation> consumer) {
+        merge(courierId, from, Long.MIN_VALUE, to, ROW_PAGE_SIZE, location -> {
+            consumer.accept(location);
+            return true;
+        });
+    }
+
+    /**
+     * Up to {@code limit} points strictly after ({@code afterTimestamp}, {@code afterId}) and
+     * before {@code to}, in timestamp then id order.
+     */
+    public List<CourierLocation> findTrackPage(String courierId, LocalDateTime afterTimestamp, long afterId,
+                                               LocalDateTime to, int limit) {
+        List<CourierLocation> page = new ArrayList<>(limit);
+        merge(courierId, afterTimestamp, afterId, to, limit, location -> {
+            page.add(location);
+            return page.size() < limit;
+        });
+        return page;
+    }
+
+    /**
+     * The courier's last point at or before {@code timestamp}.
+     */
+    public Optional<CourierLocation> findPrevious(String courierId, LocalDateTime timestamp) {
+        Optional<CourierLocation> row = locationRepository
+                .findTopByCourierIdAndTimestampLessThanEqualOrderByTimestampDesc(courierId, timestamp);
+        Optional<CourierLocation> sealed = segmentRepository
+                .findFirstByCourierIdAndFirstTimestampLessThanEqualOrderByBucketStartDesc(courierId, timestamp)
+                .flatMap(segment -> {
+                    CourierLocation last = null;
+                    for (Iterator<CourierLocation> points = decode(segment); points.hasNext(); ) {
+                        CourierLocation point = points.next();
+                        if (point.getTimestamp().isAfter(timestamp)) {
+                            break;
+                        }
+                        last = point;
+                    }
+                    return Optional.ofNullable(last);
+                });
+        if (row.isEmpty() || sealed.isEmpty()) {
+            return row.isPresent() ? row : sealed;
+        }
+        return sealed.get().getTimestamp().isAfter(row.get().getTimestamp()) ? sealed : row;
+    }
+
+    /**
+     * The courier's first point after {@code timestamp}.
+     */
+    public Optional<CourierLocation> findNext(String courierId, LocalDateTime timestamp) {
+        Optional<CourierLocation> row = locationRepository
+                .findTopByCourierIdAndTimestampGreaterThanOrderByTimestampAsc(courierId, timestamp);
+        Optional<CourierLocation> sealed = segmentRepository
+                .findFirstByCourierIdAndLastTimestampGreaterThanOrderByBucketStartAsc(courierId, timestamp)
+                .flatMap(segment -> {
+                    for (Iterator<CourierLocation> points = decode(segment); points.hasNext(); ) {
+                        CourierLocation point = points.next();
+                        if (point.getTimestamp().isAfter(timestamp)) {
+                            return Optional.of(point);
+                        }
+                    }
+                    return Optional.empty();
+                });
+        if (row.isEmpty() || sealed.isEmpty()) {
+            return row.isPresent() ? row : sealed;
+        }
+        return sealed.get().getTimestamp().isBefore(row.get().getTimestamp()) ? sealed : row;
+    }
+
+    public long countLocations() {
+        return locationRepository.count() + segmentRepository.countPoints();
+    }
+
+    /**
+     * Merges the rows after the keyset position with the decoded segment points until the sink
+     * returns {@code false}. The first page of rows is read before the segments.
+     */
+    private void merge(String courierId, LocalDateTime afterTimestamp, long afterId, LocalDateTime to,
+                       int rowPageSize, Predicate<CourierLocation> sink) {
+        RowCursor rows = new RowCursor(courierId, afterTimestamp, afterId, to, rowPageSize);
+        boolean[] stopped = {false};
+        segmentRepository.streamSegments(courierId, afterTimestamp, to, segment -> {
+            for (Iterator<CourierLocation> points = decode(segment); points.hasNext() && !stopped[0]; ) {
+                CourierLocation point = points.next();
+                if (!isAfter(point, afterTimestamp, afterId) || !point.getTimestamp().isBefore(to)) {
+                    continue;
+                }
+                while (!stopped[0] && rows.peek() != null && TRACK_ORDER.compare(rows.peek(), point) <= 0) {
+                    CourierLocation row = rows.next();
+                    // Sealed while this read was running
+                    if (!row.getId().equals(point.getId())) {
+                        stopped[0] = !sink.test(row);
+                    }
+                }
+                if (!stopped[0]) {
+                    stopped[0] = !sink.test(point);
+                }
+            }
+            return !stopped[0];
+        });
+        while (!stopped[0] && rows.peek() != null) {
+            stopped[0] = !sink.test(rows.next());
+        }
+    }
+
+    private static boolean isAfter(CourierLocation point, LocalDateTime timestamp, long id) {
+        return point.getTimestamp().isAfter(timestamp)
+                || (point.getTimestamp().isEqual(timestamp) && point.getId() > id);
+    }
+
+    private static Iterator<CourierLocation> decode(CourierTrackSegment segment) {
+        return TrackSegmentCodec.decode(segment.getCourierId(), segment.getData());
+    }
+
+    /**
+     * Reads location rows in keyset pages as the merge consumes them.
+     */
+    private final class RowCursor {
+
+        private final String courierId;
+        private final LocalDateTime to;
+        private final int pageSize;
+        private LocalDateTime afterTimestamp;
+        private long afterId;
+        private List<CourierLocation> page;
+        private int index;
+
+        private RowCursor(String courierId, LocalDateTime afterTimestamp, long afterId, LocalDateTime to, int pageSize) {
+            this.courierId = courierId;
+            this.afterTimestamp = afterTimestamp;
+            this.afterId = afterId;
+            this.to = to;
+            this.pageSize = pageSize;
+            fetch();
+        }
+
+        private CourierLocation peek() {
+            if (index == page.size() && page.size() == pageSize) {
+                fetch();
+            }
+            return index < page.size() ? page.get(index) : null;
+        }
+
+        private CourierLocation next() {
+            CourierLocation row = peek();
+            index++;
+            return row;
+        }
+
+        private void fetch() {
+            page = locationRepository.findTrackPage(courierId, afterTimestamp, afterId, to, PageRequest.ofSize(pageSize));
+            index = 0;
+            if (!page.isEmpty()) {
+                CourierLocation last = page.get(page.size() - 1);
+                afterTimestamp = last.getTimestamp();
+                afterId = last.getId();
+            }
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.codec.TrackSegmentCodec;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.entity.CourierTrackSegment;
+import com.migros.online.exception.IngestBackpressureException;
+import com.migros.online.repository.CourierLocationRepository;
+import com.migros.online.repository.CourierTrackSegmentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Seals location rows into compressed {@link CourierTrackSegment track segments} with
+ * {@code track-storage.mode: segments}. Every {@code seal-interval}, rows of buckets that ended
+ * more than {@code seal-after} ago are encoded into one segment per courier and bucket and
+ * deleted. Rows that arrive late for an already sealed bucket are merged into its segment on a
+ * later pass. Each courier is sealed on its processing lane, in transactions of at most
+ * {@code seal-batch-size} rows, so sealing never interleaves with the courier's ingest. Every batch
+ * is queued on the lane behind the work already waiting there, so ingest of the other couriers on
+ * that lane waits for one small batch at most, not for the whole backlog of the courier.
+ */
+@Slf4j
+@Component
+public class CourierTrackSealer {
+
+    private final CourierLocationRepository locationRepository;
+    private final CourierTrackSegmentRepository segmentRepository;
+    private final CourierProcessingLanes processingLanes;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadFactory threadFactory;
+    private final boolean enabled;
+    private final long bucketMicros;
+    private final Duration sealAfter;
+    private final Duration sealInterval;
+    private final int batchSize;
+
+    private final Timer sealTimer;
+    private final Counter sealedPoints;
+    private final Counter sealedBytes;
+
+    private volatile boolean running;
+    private volatile boolean stopping;
+    private Thread sealer;
+
+    public CourierTrackSealer(CourierLocationRepository locationRepository,
+                              CourierTrackSegmentRepository segmentRepository,
+                              CourierProcessingLanes processingLanes,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              ThreadFactory workerThreadFactory,
+                              CourierTrackerProperties properties) {
+        CourierTrackerProperties.TrackStorage config = properties.getTrackStorage();
+        if (config.getMode() == CourierTrackerProperties.TrackStorage.Mode.SEGMENTS) {
+            validate(config, properties);
+        }
+        this.locationRepository = locationRepository;
+        this.segmentRepository = segmentRepository;
+        this.processingLanes = processingLanes;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threadFactory = workerThreadFactory;
+        this.enabled = config.getMode() == CourierTrackerProperties.TrackStorage.Mode.SEGMENTS;
+        this.bucketMicros = config.getBucket().toNanos() / 1000;
+        this.sealAfter = config.getSealAfter();
+        this.sealInterval = config.getSealInterval();
+        this.batchSize = config.getSealBatchSize();
+
+        this.sealTimer = Timer.builder("courier.track.seal")
+                .description("Time to seal one batch of a courier's rows into segments")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.sealedPoints = Counter.builder("courier.track.sealed.points")
+                .description("Location rows moved into track segments")
+                .register(meterRegistry);
+        this.sealedBytes = Counter.builder("courier.track.sealed.bytes")
+                .description("Encoded size of the track segments written")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        sealer = threadFactory.newThread(this::run);
+        sealer.setName("track-sealer");
+        sealer.start();
+        log.info("Track sealer started (bucket {}, seal after {})", Duration.ofNanos(bucketMicros * 1000), sealAfter);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        stopping = true;
+        if (sealer != null) {
+            sealer.interrupt();
+            sealer.join(sealInterval.toMillis() + 1000);
+        }
+    }
+
+    // A row still open in memory must not be sealed, or a later update to it would be lost
+    private static void validate(CourierTrackerProperties.TrackStorage config, CourierTrackerProperties properties) {
+        if (config.getSealBatchSize() < 1) {
+            throw new IllegalArgumentException("track-storage.seal-batch-size must be positive");
+        }
+        Duration latestIdle = properties.getLatestLocation().getIdleTimeout();
+        if (config.getSealAfter().compareTo(latestIdle) <= 0) {
+            throw new IllegalArgumentException("track-storage.seal-after (" + config.getSealAfter()
+                    + ") must exceed latest-location.idle-timeout (" + latestIdle + ")");
+        }
+        CourierTrackerProperties.StationarySuppression stationary = properties.getStationarySuppression();
+        Duration stationaryOpen = stationary.getMaxDuration().plus(stationary.getIdleTimeout());
+        if (stationary.isEnabled() && config.getSealAfter().compareTo(stationaryOpen) <= 0) {
+            throw new IllegalArgumentException("track-storage.seal-after (" + config.getSealAfter()
+                    + ") must exceed stationary-suppression.max-duration + idle-timeout (" + stationaryOpen + ")");
+        }
+    }
+
+    /**
+     * Seals every bucket that ended before {@code now - seal-after}. Returns the number of rows sealed.
+     */
+    public long sealUpTo(LocalDateTime now) {
+        LocalDateTime cutoff = bucketStart(now.minus(sealAfter));
+        long sealed = 0;
+        for (String courierId : locationRepository.findCourierIdsWithLocationsBefore(cutoff)) {
+            try {
+                int batch;
+                do {
+                    batch = processingLanes.execute(courierId,
+                            () -> transactionTemplate.execute(status -> sealBatch(courierId, cutoff)));
+                    sealed += batch;
+                } while (batch == batchSize && !stopping);
+            } catch (IngestBackpressureException e) {
+                // Lane is busy; the rows are picked up on the next pass
+                log.debug("Deferring track seal for courier {}: {}", courierId, e.getMessage());
+            }
+        }
+        return sealed;
+    }
+
+    int sealBatch(String courierId, LocalDateTime cutoff) {
+        long start = System.nanoTime();
+        List<CourierLocation> rows = locationRepository.findTrackPage(courierId, CourierLocationService.TRACK_START,
+                Long.MIN_VALUE, cutoff, PageRequest.ofSize(batchSize));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Map<LocalDateTime, List<CourierLocation>> buckets = new LinkedHashMap<>();
+        for (CourierLocation row : rows) {
+            buckets.computeIfAbsent(bucketStart(row.getTimestamp()), bucket -> new ArrayList<>()).add(row);
+        }
+        for (Map.Entry<LocalDateTime, List<CourierLocation>> bucket : buckets.entrySet()) {
+            seal(courierId, bucket.getKey(), bucket.getValue());
+        }
+        locationRepository.deleteAllByIdInBatch(rows.stream().map(CourierLocation::getId).toList());
+
+        sealedPoints.increment(rows.size());
+        sealTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return rows.size();
+    }
+
+    private void seal(String courierId, LocalDateTime bucketStart, List<CourierLocation> rows) {
+        CourierTrackSegment segment = segmentRepository.findByCourierIdAndBucketStart(courierId, bucketStart)
+                .orElseGet(() -> CourierTrackSegment.builder().courierId(courierId).bucketStart(bucketStart).build());
+
+        List<CourierLocation> points = rows;
+        if (segment.getData() != null) {
+            points = new ArrayList<>(segment.getPointCount() + rows.size());
+            for (Iterator<CourierLocation> sealed = TrackSegmentCodec.decode(courierId, segment.getData()); sealed.hasNext(); ) {
+                points.add(sealed.next());
+            }
+            points.addAll(rows);
+            points.sort(CourierTrackReader.TRACK_ORDER);
+        }
+
+        byte[] data = TrackSegmentCodec.encode(points);
+        segment.setData(data);
+        segment.setPointCount(points.size());
+        segment.setFirstTimestamp(points.get(0).getTimestamp());
+        segment.setLastTimestamp(points.get(points.size() - 1).getTimestamp());
+        segmentRepository.save(segment);
+        sealedBytes.increment(data.length);
+    }
+
+    private LocalDateTime bucketStart(LocalDateTime time) {
+        long micros = TrackSegmentCodec.toEpochMicros(time);
+        return TrackSegmentCodec.fromEpochMicros(Math.floorDiv(micros, bucketMicros) * bucketMicros);
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                Thread.sleep(sealInterval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                long sealed = sealUpTo(LocalDateTime.now());
+                if (sealed > 0) {
+                    log.info("Sealed {} location rows into track segments", sealed);
+                }
+            } catch (RuntimeException e) {
+                log.error("Track seal pass failed", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,280 @@
+package com.migros.online.service.courier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Running total travel distance per courier. A courier's total is computed from its stored track
+ * the first time it is needed and is then updated per accepted point. Points must be recorded
+ * before they are persisted so the stored track only holds the points already accounted for.
+ * The stored track is streamed in chunks, so loading a long sealed track does not hold it in memory.
+ * Totals are held for at most {@code latest-location.max-couriers} couriers and dropped after its
+ * idle timeout; reading the total of a courier with no stored track does not keep a total.
+ * A late point is spliced between its nearest neighbours among the stored track and the last
+ * {@value #RECENT_POINTS} points recorded here, so neighbours still waiting in a write-behind or
+ * ingest log flush are found. Unflushed neighbours older than that are missed and the late leg is
+ * measured against the stored track only. A late point with the time and position of a neighbour
+ * is a retry of a point already recorded and is refused.
+ */
+@Slf4j
+@Component
+public class CourierTravelDistanceTracker {
+
+    private static final int LOAD_CHUNK_SIZE = 1024;
+    static final int RECENT_POINTS = 8;
+
+    private final CourierTrackReader trackReader;
+    private final DistanceCalculatorService distanceCalculatorService;
+    private final Cache<String, TravelState> states;
+
+    public CourierTravelDistanceTracker(CourierTrackReader trackReader,
+                                        DistanceCalculatorService distanceCalculatorService,
+                                        CourierTrackerProperties properties) {
+        CourierTrackerProperties.LatestLocation config = properties.getLatestLocation();
+        this.trackReader = trackReader;
+        this.distanceCalculatorService = distanceCalculatorService;
+        this.states = Caffeine.newBuilder()
+                .maximumSize(config.getMaxCouriers())
+                .expireAfterAccess(config.getIdleTimeout())
+                .build();
+    }
+
+    /**
+     * Adds the point to the courier's total. Returns {@code false} without counting it if the point
+     * is not newer than the last one and its time and position match a point already recorded.
+     */
+    public boolean recordLocation(String courierId, double lat, double lng, LocalDateTime timestamp) {
+        TravelState state = stateFor(courierId);
+        state.lock.lock();
+        try {
+            if (state.lastTimestamp == null) {
+                state.moveTo(lat, lng, timestamp);
+            } else if (timestamp.equals(state.lastTimestamp)
+                    && state.recent.contains(new TrackPoint(timestamp, lat, lng))) {
+                // A retry of a fix from the latest second that another fix of that second followed
+                return false;
+            } else if (!timestamp.isBefore(state.lastTimestamp)) {
+                state.totalDistance += distance(state.lastLat, state.lastLng, lat, lng);
+                state.moveTo(lat, lng, timestamp);
+            } else {
+                TrackPoint point = new TrackPoint(timestamp, lat, lng);
+                TrackPoint stored = trackReader.findPrevious(courierId, timestamp).map(TrackPoint::of).orElse(null);
+                TrackPoint recent = state.recentAtOrBefore(timestamp);
+                if (point.equals(stored) || point.equals(recent)) {
+                    log.debug("Duplicate late location for courier {} at {}", courierId, timestamp);
+                    return false;
+                }
+                state.totalDistance += outOfOrderDelta(courierId, state, later(stored, recent), point);
+            }
+            state.remember(new TrackPoint(timestamp, lat, lng));
+        } finally {
+            state.lock.unlock();
+        }
+        invalidateOnRollback(courierId);
+        return true;
+    }
+
+    public double getTotalDistance(String courierId) {
+        TravelState state = states.getIfPresent(courierId);
+        if (state == null) {
+            TravelState loaded = loadState(courierId);
+            if (loaded.lastTimestamp == null) {
+                return 0.0;
+            }
+            TravelState existing = states.asMap().putIfAbsent(courierId, loaded);
+            state = existing != null ? existing : loaded;
+        }
+        state.lock.lock();
+        try {
+            return state.totalDistance;
+        } finally {
+            state.lock.unlock();
+        }
+    }
+
+    public int getTrackedCourierCount() {
+        return (int) states.estimatedSize();
+    }
+
+    public void invalidate(String courierId) {
+        states.invalidate(courierId);
+    }
+
+    private double outOfOrderDelta(String courierId, TravelState state, TrackPoint previous, TrackPoint point) {
+        LocalDateTime timestamp = point.timestamp();
+        double lat = point.lat();
+        double lng = point.lng();
+        TrackPoint next = earlier(trackReader.findNext(courierId, timestamp).map(TrackPoint::of).orElse(null),
+                state.recentAfter(timestamp));
+
+        double delta = 0.0;
+        if (previous != null) {
+            delta += distance(previous.lat(), previous.lng(), lat, lng);
+        }
+        if (next != null) {
+            delta += distance(lat, lng, next.lat(), next.lng());
+        }
+        if (previous != null && next != null) {
+            delta -= distance(previous.lat(), previous.lng(), next.lat(), next.lng());
+        }
+        log.debug("Out-of-order location for courier {} at {} adjusted total by {} meters",
+                courierId, timestamp, delta);
+        return delta;
+    }
+
+    private static TrackPoint later(TrackPoint a, TrackPoint b) {
+        if (a == null || b == null) {
+            return a != null ? a : b;
+        }
+        return b.timestamp().isAfter(a.timestamp()) ? b : a;
+    }
+
+    private static TrackPoint earlier(TrackPoint a, TrackPoint b) {
+        if (a == null || b == null) {
+            return a != null ? a : b;
+        }
+        return b.timestamp().isBefore(a.timestamp()) ? b : a;
+    }
+
+    private TravelState stateFor(String courierId) {
+        TravelState state = states.getIfPresent(courierId);
+        if (state != null) {
+            return state;
+        }
+        TravelState loaded = loadState(courierId);
+        TravelState existing = states.asMap().putIfAbsent(courierId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private TravelState loadState(String courierId) {
+        TrackLoader loader = new TrackLoader();
+        trackReader.forEachLocation(courierId, loader);
+        loader.flush();
+        log.debug("Loaded travel distance for courier {} from {} stored locations", courierId, loader.loaded);
+        return loader.state;
+    }
+
+    private void invalidateOnRollback(String courierId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    invalidate(courierId);
+                }
+            }
+        });
+    }
+
+    private double distance(double lat1, double lng1, double lat2, double lng2) {
+        return distanceCalculatorService.calculateDistance(lat1, lng1, lat2, lng2);
+    }
+
+    private static final class TravelState {
+
+        // Not a monitor: the out-of-order path queries the database while holding it
+        private final ReentrantLock lock = new ReentrantLock();
+        private double totalDistance;
+        private double lastLat;
+        private double lastLng;
+        private LocalDateTime lastTimestamp;
+        // Last recorded points in timestamp order, some of them possibly not flushed yet
+        private final List<TrackPoint> recent = new ArrayList<>(RECENT_POINTS + 1);
+
+        private void moveTo(double lat, double lng, LocalDateTime timestamp) {
+            this.lastLat = lat;
+            this.lastLng = lng;
+            this.lastTimestamp = timestamp;
+        }
+
+        private void remember(TrackPoint point) {
+            int index = recent.size();
+            while (index > 0 && recent.get(index - 1).timestamp().isAfter(point.timestamp())) {
+                index--;
+            }
+            recent.add(index, point);
+            if (recent.size() > RECENT_POINTS) {
+                recent.remove(0);
+            }
+        }
+
+        private TrackPoint recentAtOrBefore(LocalDateTime timestamp) {
+            for (int i = recent.size() - 1; i >= 0; i--) {
+                if (!recent.get(i).timestamp().isAfter(timestamp)) {
+                    return recent.get(i);
+                }
+            }
+            return null;
+        }
+
+        private TrackPoint recentAfter(LocalDateTime timestamp) {
+            for (TrackPoint point : recent) {
+                if (point.timestamp().isAfter(timestamp)) {
+                    return point;
+                }
+            }
+            return null;
+        }
+    }
+
+    private record TrackPoint(LocalDateTime timestamp, double lat, double lng) {
+
+        private static TrackPoint of(CourierLocation location) {
+            return new TrackPoint(location.getTimestamp(), location.getLat(), location.getLng());
+        }
+    }
+
+    /**
+     * Sums leg distances of a streamed track a chunk at a time with the batch distance kernel. Each
+     * chunk starts with the last point of the previous one so the leg between chunks is counted.
+     */
+    private final class TrackLoader implements Consumer<CourierLocation> {
+
+        private final TravelState state = new TravelState();
+        private final double[] lats = new double[LOAD_CHUNK_SIZE];
+        private final double[] lngs = new double[LOAD_CHUNK_SIZE];
+        private final double[] legs = new double[LOAD_CHUNK_SIZE];
+        private int count;
+        private long loaded;
+
+        @Override
+        public void accept(CourierLocation location) {
+            if (count == LOAD_CHUNK_SIZE) {
+                flush();
+                lats[0] = lats[count - 1];
+                lngs[0] = lngs[count - 1];
+                count = 1;
+            }
+            lats[count] = location.getLat();
+            lngs[count] = location.getLng();
+            count++;
+            loaded++;
+            state.moveTo(location.getLat(), location.getLng(), location.getTimestamp());
+        }
+
+        private void flush() {
+            if (count < 2) {
+                return;
+            }
+            distanceCalculatorService.calculateTrackDistances(lats, lngs, legs, count);
+            for (int i = 0; i < count - 1; i++) {
+                state.totalDistance += legs[i];
+            }
+        }
+    }
+}
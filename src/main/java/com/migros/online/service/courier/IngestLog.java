@@ -0,0 +1,335 @@
+package com.migros.online.service.courier;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of byte records in fixed-size, memory-mapped segment files named after their
+ * sequence number. An append is a copy into the mapping, which the OS writes back on its own, so
+ * it survives a crash of the process; with {@code force} it is also flushed to disk. All values
+ * are big-endian:
+ * <pre>
+ * segment   int magic 0x43494C47 ("CILG"), int version 1, records; a zero length marks the end
+ * record    int payload length, int CRC32C of the payload, payload
+ * </pre>
+ * The position up to which records have been applied is kept in a {@code checkpoint} file.
+ * Opening the log scans the last segment and cuts it off at the first torn or corrupt record.
+ * Applied segments beyond the newest {@code retainedSegments} are deleted.
+ */
+@Slf4j
+public class IngestLog implements Closeable {
+
+    static final int MAGIC = 0x43494C47;
+    static final int VERSION = 1;
+    static final int SEGMENT_HEADER_BYTES = 8;
+    static final int RECORD_HEADER_BYTES = 8;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int retainedSegments;
+    private final boolean force;
+    private final ConcurrentSkipListMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Condition appended = appendLock.newCondition();
+
+    private volatile Position end;
+    private volatile Position applied;
+
+    public IngestLog(Path directory, int segmentSize, int retainedSegments, boolean force) {
+        if (segmentSize <= SEGMENT_HEADER_BYTES + RECORD_HEADER_BYTES) {
+            throw new IllegalArgumentException("Ingest log segment size is too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.retainedSegments = retainedSegments;
+        this.force = force;
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open ingest log in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends the records and returns the position after the last one. Records are written in
+     * order and become visible to {@link #read} together.
+     */
+    public Position append(List<byte[]> records) {
+        appendLock.lock();
+        try {
+            Position position = end;
+            MappedByteBuffer segment = segments.get(position.segment());
+            int start = position.offset();
+            for (byte[] record : records) {
+                int length = RECORD_HEADER_BYTES + record.length;
+                if (length > segmentSize - SEGMENT_HEADER_BYTES) {
+                    throw new IllegalArgumentException("Record of " + record.length + " bytes does not fit a segment");
+                }
+                if (position.offset() + length > segmentSize) {
+                    flush(segment, start, position.offset());
+                    position = roll(position.segment() + 1);
+                    segment = segments.get(position.segment());
+                    start = position.offset();
+                }
+                ByteBuffer buffer = segment.duplicate();
+                buffer.position(position.offset());
+                buffer.putInt(record.length).putInt(crc(record, 0, record.length)).put(record);
+                position = new Position(position.segment(), position.offset() + length);
+            }
+            flush(segment, start, position.offset());
+            end = position;
+            appended.signalAll();
+            return position;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Hands up to {@code maxRecords} records after {@code from} to {@code consumer} and returns the
+     * position after the last one. The buffers are only valid during the call.
+     */
+    public Position read(Position from, int maxRecords, Consumer<ByteBuffer> consumer) {
+        Position limit = end;
+        Position position = from;
+        int read = 0;
+        while (read < maxRecords && position.compareTo(limit) < 0) {
+            MappedByteBuffer segment = segments.get(position.segment());
+            int length = position.offset() + RECORD_HEADER_BYTES <= segmentSize ? segment.getInt(position.offset()) : 0;
+            if (length == 0) {
+                position = new Position(position.segment() + 1, SEGMENT_HEADER_BYTES);
+                continue;
+            }
+            int payloadStart = position.offset() + RECORD_HEADER_BYTES;
+            if (!isIntact(segment, position.offset(), length)) {
+                // Only written records are read, so this is damage on disk; the segment is skipped
+                log.error("Corrupt record in ingest log segment {} at offset {}, skipping the rest of the segment",
+                        position.segment(), position.offset());
+                position = new Position(position.segment() + 1, SEGMENT_HEADER_BYTES);
+                continue;
+            }
+            consumer.accept(segment.slice(payloadStart, length).asReadOnlyBuffer());
+            position = new Position(position.segment(), payloadStart + length);
+            read++;
+        }
+        return position.compareTo(limit) > 0 ? limit : position;
+    }
+
+    /**
+     * Waits up to {@code timeout} for records after {@code position}. Returns whether there are any.
+     */
+    public boolean awaitAppend(Position position, Duration timeout) throws InterruptedException {
+        long remaining = timeout.toNanos();
+        appendLock.lock();
+        try {
+            while (end.compareTo(position) <= 0) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = appended.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    /**
+     * Records that everything before {@code position} has been applied and deletes the applied
+     * segments that are no longer retained.
+     */
+    public void markApplied(Position position) {
+        try {
+            Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            Files.write(temporary, ByteBuffer.allocate(12).putLong(position.segment()).putInt(position.offset()).array());
+            Files.move(temporary, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE);
+            applied = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write ingest log checkpoint", e);
+        }
+        for (Long segment : List.copyOf(segments.headMap(position.segment() - retainedSegments).keySet())) {
+            // The mapping is released once it is no longer referenced
+            segments.remove(segment);
+            try {
+                Files.deleteIfExists(segmentPath(segment));
+            } catch (IOException e) {
+                log.warn("Failed to delete applied ingest log segment {}", segment, e);
+            }
+        }
+    }
+
+    public Position getEnd() {
+        return end;
+    }
+
+    public Position getApplied() {
+        return applied;
+    }
+
+    /**
+     * Segments holding records that have not been applied yet.
+     */
+    public int getPendingSegments() {
+        return applied.compareTo(end) >= 0 ? 0 : (int) (end.segment() - applied.segment() + 1);
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        appendLock.lock();
+        try {
+            segments.get(end.segment()).force();
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void open() throws IOException {
+        List<Long> existing = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+                    .sorted()
+                    .forEach(existing::add);
+        }
+        for (Long segment : existing) {
+            MappedByteBuffer buffer = map(segmentPath(segment), StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                throw new IOException("Not an ingest log segment: " + segmentPath(segment));
+            }
+            segments.put(segment, buffer);
+        }
+
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (Files.exists(checkpoint)) {
+            ByteBuffer stored = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+            applied = new Position(stored.getLong(), stored.getInt());
+        }
+
+        if (segments.isEmpty()) {
+            long first = applied != null ? applied.segment() : 0;
+            end = roll(first);
+        } else {
+            end = recoverEnd(segments.lastKey());
+        }
+        if (applied == null || applied.compareTo(firstPosition()) < 0) {
+            applied = firstPosition();
+        }
+        if (applied.compareTo(end) > 0) {
+            applied = end;
+        }
+        log.info("Opened ingest log in {} ({} segments, applied up to {}, end at {})",
+                directory, segments.size(), applied, end);
+    }
+
+    // Finds the end of the last segment and zeroes whatever follows it, so a torn record is never read
+    private Position recoverEnd(long segment) {
+        MappedByteBuffer buffer = segments.get(segment);
+        int offset = SEGMENT_HEADER_BYTES;
+        while (offset + RECORD_HEADER_BYTES <= segmentSize) {
+            int length = buffer.getInt(offset);
+            if (length == 0 || !isIntact(buffer, offset, length)) {
+                break;
+            }
+            offset += RECORD_HEADER_BYTES + length;
+        }
+        if (offset + RECORD_HEADER_BYTES <= segmentSize && buffer.getInt(offset) != 0) {
+            log.warn("Truncating torn record in ingest log segment {} at offset {}", segment, offset);
+        }
+        for (int i = offset; i < segmentSize; i++) {
+            buffer.put(i, (byte) 0);
+        }
+        buffer.force();
+        return new Position(segment, offset);
+    }
+
+    private Position roll(long segment) {
+        try {
+            MappedByteBuffer buffer = map(segmentPath(segment),
+                    StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            buffer.putInt(0, MAGIC).putInt(4, VERSION);
+            buffer.force(0, SEGMENT_HEADER_BYTES);
+            segments.put(segment, buffer);
+            return new Position(segment, SEGMENT_HEADER_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create ingest log segment " + segment, e);
+        }
+    }
+
+    private MappedByteBuffer map(Path path, StandardOpenOption... options) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private void flush(MappedByteBuffer segment, int from, int to) {
+        if (force && to > from) {
+            segment.force(from, to - from);
+        }
+    }
+
+    private Position firstPosition() {
+        return new Position(segments.firstKey(), SEGMENT_HEADER_BYTES);
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%020d%s", segment, SEGMENT_SUFFIX));
+    }
+
+    private boolean isIntact(MappedByteBuffer segment, int offset, int length) {
+        int payloadStart = offset + RECORD_HEADER_BYTES;
+        return length > 0 && length <= segmentSize - payloadStart
+                && crc(segment.slice(payloadStart, length)) == segment.getInt(offset + 4);
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    private static int crc(ByteBuffer buffer) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A position in the log: a segment and a byte offset within it.
+     */
+    public record Position(long segment, int offset) implements Comparable<Position> {
+
+        @Override
+        public int compareTo(Position other) {
+            int bySegment = Long.compare(segment, other.segment);
+            return bySegment != 0 ? bySegment : Integer.compare(offset, other.offset);
+        }
+    }
+}
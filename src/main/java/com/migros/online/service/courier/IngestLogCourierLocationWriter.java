@@ -0,0 +1,396 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.codec.TrackSegmentCodec;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.exception.IngestBackpressureException;
+import com.migros.online.repository.CourierLocationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Acknowledges accepted locations once they are appended to the {@link IngestLog} and applies
+ * them to the database from a single applier thread, one transaction per batch of up to
+ * {@code batch-size} records or whatever arrived within {@code flush-interval}. Ids are reserved
+ * when a location is accepted, so stationary-until updates can be logged against them before
+ * the row exists. Records are only appended once the ingest transaction has committed.
+ * <p>
+ * On start, records after the checkpoint are applied before the service takes traffic. A batch
+ * that committed without its checkpoint is applied again, so replayed rows that already exist
+ * are skipped. Locations are not visible to history queries until applied. When more than
+ * {@code max-segments} segments are waiting, ingest is rejected.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "courier-tracker.location-write", name = "mode", havingValue = "ingest-log")
+public class IngestLogCourierLocationWriter implements CourierLocationWriter {
+
+    private static final byte LOCATION_RECORD = 1;
+    private static final byte STATIONARY_UNTIL_RECORD = 2;
+    private static final long NO_STATIONARY_UNTIL = Long.MIN_VALUE;
+    // Matches the allocation size of the location id sequence, so each reservation is one query
+    private static final int ID_BLOCK_SIZE = 50;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5000;
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+
+    private final CourierLocationRepository locationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadFactory threadFactory;
+    private final IngestLog ingestLog;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+    private final int maxSegments;
+
+    private final ReentrantLock idLock = new ReentrantLock();
+    private long[] reservedIds = new long[0];
+    private int nextReservedId;
+
+    private final Timer appendTimer;
+    private final Timer applyTimer;
+    private final Counter appliedRecords;
+    private final Counter replayedRecords;
+    private final Counter rejectedRows;
+
+    private volatile boolean running;
+    private Thread applier;
+
+    public IngestLogCourierLocationWriter(CourierLocationRepository locationRepository,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry,
+                                          ThreadFactory workerThreadFactory,
+                                          CourierTrackerProperties properties) {
+        CourierTrackerProperties.LocationWrite config = properties.getLocationWrite();
+        CourierTrackerProperties.LocationWrite.Log logConfig = config.getLog();
+        this.locationRepository = locationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threadFactory = workerThreadFactory;
+        this.batchSize = config.getBatchSize();
+        this.flushInterval = config.getFlushInterval();
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.maxSegments = logConfig.getMaxSegments();
+        this.ingestLog = new IngestLog(logConfig.getDirectory(), (int) logConfig.getSegmentSize().toBytes(),
+                logConfig.getRetainedSegments(), logConfig.isForce());
+
+        Gauge.builder("courier.location.ingest_log.pending.segments", ingestLog, IngestLog::getPendingSegments)
+                .description("Ingest log segments holding records not yet applied")
+                .register(meterRegistry);
+        this.appendTimer = Timer.builder("courier.location.ingest_log.append")
+                .description("Time to append accepted locations to the ingest log")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.applyTimer = Timer.builder("courier.location.ingest_log.apply")
+                .description("Time to apply one batch of ingest log records to the database")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.appliedRecords = Counter.builder("courier.location.ingest_log.applied")
+                .description("Ingest log records applied to the database")
+                .register(meterRegistry);
+        this.replayedRecords = Counter.builder("courier.location.ingest_log.replayed")
+                .description("Ingest log records applied on start")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("courier.location.ingest_log.rejected")
+                .description("Locations rejected because too many log segments were pending")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        replay();
+        running = true;
+        applier = threadFactory.newThread(this::runApplier);
+        applier.setName("location-ingest-log");
+        applier.start();
+        log.info("Ingest log location writer started (batch size {}, flush interval {})", batchSize, flushInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (applier != null) {
+            applier.join(shutdownTimeout.toMillis());
+            if (applier.isAlive()) {
+                log.error("Ingest log applier did not finish within {}, remaining records are replayed on the next start",
+                        shutdownTimeout);
+            } else {
+                log.info("Ingest log location writer stopped");
+            }
+        }
+        ingestLog.close();
+    }
+
+    @Override
+    public CourierLocation write(CourierLocation location) {
+        writeAll(List.of(location));
+        return location;
+    }
+
+    @Override
+    public void writeAll(List<CourierLocation> locations) {
+        if (locations.isEmpty()) {
+            return;
+        }
+        checkCapacity(locations.size());
+        assignIds(locations);
+        // Encoded now: later changes to the locations are logged as their own records
+        List<byte[]> records = new ArrayList<>(locations.size());
+        for (CourierLocation location : locations) {
+            records.add(encodeLocation(location));
+        }
+        appendAfterCommit(records);
+    }
+
+    @Override
+    public void updateStationaryUntil(List<CourierLocation> locations) {
+        List<byte[]> records = new ArrayList<>(locations.size());
+        for (CourierLocation location : locations) {
+            // Without an id the row is not logged yet and its record will carry the new value
+            if (location.getId() != null) {
+                records.add(encodeStationaryUntil(location));
+            }
+        }
+        if (!records.isEmpty()) {
+            appendAfterCommit(records);
+        }
+    }
+
+    private void checkCapacity(int count) {
+        if (ingestLog.getPendingSegments() > maxSegments) {
+            rejectedRows.increment(count);
+            throw new IngestBackpressureException("Location ingest log is behind, retry later");
+        }
+    }
+
+    private void assignIds(List<CourierLocation> locations) {
+        idLock.lock();
+        try {
+            for (CourierLocation location : locations) {
+                if (location.getId() != null) {
+                    continue;
+                }
+                if (nextReservedId == reservedIds.length) {
+                    reservedIds = locationRepository.allocateIds(ID_BLOCK_SIZE);
+                    nextReservedId = 0;
+                }
+                location.setId(reservedIds[nextReservedId++]);
+            }
+        } finally {
+            idLock.unlock();
+        }
+    }
+
+    private void appendAfterCommit(List<byte[]> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(records);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(records);
+            }
+        });
+    }
+
+    private void append(List<byte[]> records) {
+        long start = System.nanoTime();
+        ingestLog.append(records);
+        appendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void replay() {
+        if (ingestLog.getApplied().compareTo(ingestLog.getEnd()) >= 0) {
+            return;
+        }
+        long replayed = 0;
+        long maxId = 0;
+        while (ingestLog.getApplied().compareTo(ingestLog.getEnd()) < 0) {
+            Batch batch = new Batch();
+            IngestLog.Position next = ingestLog.read(ingestLog.getApplied(), batchSize, batch::add);
+            apply(batch, next, true);
+            replayed += batch.records;
+            maxId = Math.max(maxId, batch.maxId);
+        }
+        // The database may have been reset since these ids were reserved
+        locationRepository.advanceIdsPast(maxId);
+        replayedRecords.increment(replayed);
+        log.info("Replayed {} ingest log records", replayed);
+    }
+
+    private void runApplier() {
+        while (running || ingestLog.getApplied().compareTo(ingestLog.getEnd()) < 0) {
+            Batch batch = new Batch();
+            IngestLog.Position next;
+            try {
+                next = collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                continue;
+            }
+            if (batch.records > 0 && !applyWithRetry(batch, next)) {
+                return;
+            }
+        }
+    }
+
+    private IngestLog.Position collectBatch(Batch batch) throws InterruptedException {
+        IngestLog.Position position = ingestLog.getApplied();
+        if (!ingestLog.awaitAppend(position, flushInterval)) {
+            return position;
+        }
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (true) {
+            position = ingestLog.read(position, batchSize - batch.records, batch::add);
+            long remaining = deadline - System.nanoTime();
+            if (batch.records >= batchSize || remaining <= 0 || !running
+                    || !ingestLog.awaitAppend(position, Duration.ofNanos(remaining))) {
+                return position;
+            }
+        }
+    }
+
+    // The log keeps the records, so a failing batch is retried until it applies or the writer stops
+    private boolean applyWithRetry(Batch batch, IngestLog.Position next) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // An attempt may have committed before its checkpoint failed
+                apply(batch, next, attempt > 1);
+                return true;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    log.error("Applying {} ingest log records failed during shutdown, they are replayed on the next start",
+                            batch.records, e);
+                    return false;
+                }
+                log.warn("Applying {} ingest log records failed (attempt {}), retrying", batch.records, attempt, e);
+                try {
+                    Thread.sleep(Math.min(RETRY_BACKOFF_MILLIS * attempt, MAX_RETRY_BACKOFF_MILLIS));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies the batch and moves the checkpoint to {@code next}. With {@code skipExisting}, rows
+     * that already exist, from a batch that committed before its checkpoint was written, are only
+     * updated.
+     */
+    private void apply(Batch batch, IngestLog.Position next, boolean skipExisting) {
+        applyTimer.record(() -> transactionTemplate.executeWithoutResult(status -> {
+            if (skipExisting && !batch.inserts.isEmpty()) {
+                for (Long id : locationRepository.findExistingIds(batch.inserts.keySet())) {
+                    CourierLocation existing = batch.inserts.remove(id);
+                    if (existing.getStationaryUntil() != null) {
+                        batch.updates.add(existing);
+                    }
+                }
+            }
+            if (!batch.inserts.isEmpty()) {
+                locationRepository.batchInsert(new ArrayList<>(batch.inserts.values()));
+            }
+            if (!batch.updates.isEmpty()) {
+                locationRepository.updateStationaryUntil(batch.updates);
+            }
+        }));
+        ingestLog.markApplied(next);
+        appliedRecords.increment(batch.records);
+    }
+
+    private static byte[] encodeLocation(CourierLocation location) {
+        byte[] courierId = location.getCourierId().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(1 + 8 + 2 + courierId.length + 8 + 8 + 8 + 8)
+                .put(LOCATION_RECORD)
+                .putLong(location.getId())
+                .putShort((short) courierId.length)
+                .put(courierId)
+                .putDouble(location.getLat())
+                .putDouble(location.getLng())
+                .putLong(TrackSegmentCodec.toEpochMicros(location.getTimestamp()))
+                .putLong(location.getStationaryUntil() != null
+                        ? TrackSegmentCodec.toEpochMicros(location.getStationaryUntil()) : NO_STATIONARY_UNTIL)
+                .array();
+    }
+
+    private static byte[] encodeStationaryUntil(CourierLocation location) {
+        return ByteBuffer.allocate(1 + 8 + 8)
+                .put(STATIONARY_UNTIL_RECORD)
+                .putLong(location.getId())
+                .putLong(TrackSegmentCodec.toEpochMicros(location.getStationaryUntil()))
+                .array();
+    }
+
+    /**
+     * Records read from the log, decoded into rows to insert and stationary-until updates. An
+     * update of a row inserted in the same batch is folded into the insert.
+     */
+    private static final class Batch {
+
+        private final Map<Long, CourierLocation> inserts = new LinkedHashMap<>();
+        private final List<CourierLocation> updates = new ArrayList<>();
+        private int records;
+        private long maxId;
+
+        private void add(ByteBuffer record) {
+            records++;
+            byte type = record.get();
+            long id = record.getLong();
+            maxId = Math.max(maxId, id);
+            if (type == LOCATION_RECORD) {
+                byte[] courierId = new byte[record.getShort()];
+                record.get(courierId);
+                CourierLocation location = CourierLocation.builder()
+                        .id(id)
+                        .courierId(new String(courierId, StandardCharsets.UTF_8))
+                        .lat(record.getDouble())
+                        .lng(record.getDouble())
+                        .timestamp(TrackSegmentCodec.fromEpochMicros(record.getLong()))
+                        .build();
+                long until = record.getLong();
+                if (until != NO_STATIONARY_UNTIL) {
+                    location.setStationaryUntil(TrackSegmentCodec.fromEpochMicros(until));
+                }
+                inserts.put(id, location);
+            } else if (type == STATIONARY_UNTIL_RECORD) {
+                LocalDateTime until = TrackSegmentCodec.fromEpochMicros(record.getLong());
+                CourierLocation inserted = inserts.get(id);
+                if (inserted != null) {
+                    inserted.setStationaryUntil(until);
+                } else {
+                    updates.add(CourierLocation.builder().id(id).stationaryUntil(until).build());
+                }
+            } else {
+                log.error("Skipping ingest log record of unknown type {}", type);
+            }
+        }
+    }
+}
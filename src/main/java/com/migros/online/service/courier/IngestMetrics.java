@@ -0,0 +1,65 @@
+package com.migros.online.service.courier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for the stages of location ingest plus ingest counters. Stage timers publish percentile
+ * histograms and are tagged by stage only; courier ids are never used as tags.
+ */
+@Component
+public class IngestMetrics {
+
+    public enum Stage {
+        MAPPING,
+        TRAVEL_DISTANCE,
+        LOCATION_WRITE,
+        LATEST_LOCATION,
+        RECENT_TRAIL,
+        STORE_SCAN,
+        COOLDOWN_CHECK,
+        RESPONSE_MAPPING
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Counter pointsIngested;
+    private final Counter storeEntriesDetected;
+
+    public IngestMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("courier.ingest.stage")
+                    .description("Time spent in one stage of location ingest")
+                    .tag("stage", stage.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        this.pointsIngested = Counter.builder("courier.ingest.points")
+                .description("Location points accepted for ingest")
+                .register(meterRegistry);
+        this.storeEntriesDetected = Counter.builder("courier.ingest.store_entries")
+                .description("Store entries detected during ingest")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records the time since {@code startNanos} (from {@link System#nanoTime()}) for the stage.
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void pointsIngested(int count) {
+        pointsIngested.increment(count);
+    }
+
+    public void storeEntryDetected() {
+        storeEntriesDetected.increment();
+    }
+}
@@ -0,0 +1,156 @@
+package com.migros.online.service.courier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Merges fixes of a courier that has not moved into the last stored row instead of storing them.
+ * A fix within {@code radius} of the courier's last stored row, newer than everything merged so
+ * far and less than {@code max-duration} after that row, only moves the row's
+ * {@code stationaryUntil} forward. Merged fixes skip the travel distance and the store scan, so
+ * the total distance stays the length of the stored track. The stores whose radius held the row
+ * are kept with it, and callers pass a condition on them that keeps a fix out of the merge when it
+ * would be seen differently than the row, such as inside a store radius the row is outside of.
+ * Each new {@code stationaryUntil} goes to the location writer in the merging transaction, so a
+ * merged fix is as durable as a stored one would have been.
+ */
+@Component
+public class StationaryPointSuppressor {
+
+    private final DistanceCalculatorService distanceCalculatorService;
+    private final CourierLocationWriter locationWriter;
+    private final boolean enabled;
+    private final double radiusMeters;
+    private final Duration maxDuration;
+    private final Cache<String, Anchor> anchors;
+
+    private final Counter suppressedPoints;
+
+    public StationaryPointSuppressor(DistanceCalculatorService distanceCalculatorService,
+                                     CourierLocationWriter locationWriter,
+                                     MeterRegistry meterRegistry,
+                                     CourierTrackerProperties properties) {
+        CourierTrackerProperties.StationarySuppression config = properties.getStationarySuppression();
+        this.distanceCalculatorService = distanceCalculatorService;
+        this.locationWriter = locationWriter;
+        this.enabled = config.isEnabled();
+        this.radiusMeters = config.getRadiusMeters();
+        this.maxDuration = config.getMaxDuration();
+        this.anchors = Caffeine.newBuilder()
+                .maximumSize(properties.getLatestLocation().getMaxCouriers())
+                .expireAfterAccess(config.getIdleTimeout())
+                .build();
+
+        this.suppressedPoints = Counter.builder("courier.stationary.suppressed")
+                .description("Fixes merged into the previous stored location instead of being stored")
+                .register(meterRegistry);
+    }
+
+    public Optional<CourierLocation> tryMerge(CourierLocationRequest point) {
+        return tryMerge(point, storeIds -> true);
+    }
+
+    /**
+     * Merges {@code point} into the courier's last stored row if it is within the stationary
+     * envelope and {@code mergeable} accepts the ids of the stores around that row, persists the
+     * row's new {@code stationaryUntil} and returns the row; empty if the point has to be stored.
+     */
+    public Optional<CourierLocation> tryMerge(CourierLocationRequest point, Predicate<Set<Long>> mergeable) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Anchor anchor = anchors.getIfPresent(point.getCourierId());
+        if (anchor == null) {
+            return Optional.empty();
+        }
+        CourierLocation row = anchor.row();
+        if (!point.getTime().isAfter(row.getLastSeen())
+                || point.getTime().isAfter(row.getTimestamp().plus(maxDuration))
+                || distanceCalculatorService.calculateDistance(row.getLat(), row.getLng(),
+                        point.getLat(), point.getLng()) > radiusMeters
+                || !mergeable.test(anchor.storeIds())) {
+            return Optional.empty();
+        }
+
+        LocalDateTime previous = row.getStationaryUntil();
+        row.setStationaryUntil(point.getTime());
+        restoreOnRollback(row, previous);
+        locationWriter.updateStationaryUntil(List.of(row));
+        suppressedPoints.increment();
+        return Optional.of(row);
+    }
+
+    public void replaceAnchor(CourierLocation stored) {
+        replaceAnchor(stored, Set.of());
+    }
+
+    /**
+     * Makes {@code stored}, within the radius of the stores in {@code storeIds}, the courier's
+     * last stored row. Rows older than the current one are ignored.
+     */
+    public void replaceAnchor(CourierLocation stored, Set<Long> storeIds) {
+        if (!enabled) {
+            return;
+        }
+        Anchor previous = anchors.getIfPresent(stored.getCourierId());
+        if (previous != null && stored.getTimestamp().isBefore(previous.row().getLastSeen())) {
+            return;
+        }
+        Anchor anchor = new Anchor(stored, storeIds);
+        anchors.put(stored.getCourierId(), anchor);
+        restoreOnRollback(anchor, previous);
+    }
+
+    private void restoreOnRollback(CourierLocation row, LocalDateTime previousUntil) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    row.setStationaryUntil(previousUntil);
+                }
+            }
+        });
+    }
+
+    private void restoreOnRollback(Anchor stored, Anchor previous) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        String courierId = stored.row().getCourierId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                if (previous == null) {
+                    anchors.asMap().remove(courierId, stored);
+                } else {
+                    anchors.asMap().replace(courierId, stored, previous);
+                }
+            }
+        });
+    }
+
+    private record Anchor(CourierLocation row, Set<Long> storeIds) {
+    }
+}
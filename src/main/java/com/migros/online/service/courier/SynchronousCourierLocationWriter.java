@@ -0,0 +1,38 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.repository.CourierLocationRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "courier-tracker.location-write", name = "mode", havingValue = "sync", matchIfMissing = true)
+public class SynchronousCourierLocationWriter implements CourierLocationWriter {
+
+    private final CourierLocationRepository locationRepository;
+
+    @Override
+    public CourierLocation write(CourierLocation location) {
+        return locationRepository.save(location);
+    }
+
+    @Override
+    public void writeAll(List<CourierLocation> locations) {
+        locationRepository.batchInsert(locations);
+    }
+
+    @Override
+    public void updateStationaryUntil(List<CourierLocation> locations) {
+        // A row without an id is inserted later in this transaction and carries the new value
+        List<CourierLocation> inserted = locations.stream()
+                .filter(location -> location.getId() != null)
+                .toList();
+        if (!inserted.isEmpty()) {
+            locationRepository.updateStationaryUntil(inserted);
+        }
+    }
+}
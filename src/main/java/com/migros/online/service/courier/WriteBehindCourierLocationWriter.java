@@ -0,0 +1,291 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.exception.IngestBackpressureException;
+import com.migros.online.repository.CourierLocationRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues accepted locations in memory and persists them from a single flusher thread, one
+ * transaction per batch of up to {@code batch-size} rows or whatever arrived within
+ * {@code flush-interval}. Capacity is reserved before the ingest transaction commits, so a full
+ * queue rejects the request instead of dropping rows; rows are only queued once the ingest
+ * transaction has committed. Locations are not visible to history queries until flushed.
+ * Stationary-until updates are applied after each flushed batch; a location that has not been
+ * inserted yet carries its new value in the insert instead. A failing batch is retried until it is
+ * persisted and keeps its queue capacity meanwhile, so ingest is rejected while the database is
+ * down; only a batch still failing at shutdown is lost.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "courier-tracker.location-write", name = "mode", havingValue = "write-behind")
+public class WriteBehindCourierLocationWriter implements CourierLocationWriter {
+
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5000;
+
+    private final CourierLocationRepository locationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadFactory threadFactory;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final Duration shutdownTimeout;
+
+    private final LinkedBlockingQueue<CourierLocation> queue = new LinkedBlockingQueue<>();
+    private final ConcurrentLinkedQueue<CourierLocation> stationaryUpdates = new ConcurrentLinkedQueue<>();
+    private final Semaphore capacity;
+
+    private final Timer flushTimer;
+    private final Counter flushedRows;
+    private final Counter failedRows;
+    private final Counter rejectedRows;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public WriteBehindCourierLocationWriter(CourierLocationRepository locationRepository,
+                                            PlatformTransactionManager transactionManager,
+                                            MeterRegistry meterRegistry,
+                                            ThreadFactory workerThreadFactory,
+                                            CourierTrackerProperties properties) {
+        CourierTrackerProperties.LocationWrite config = properties.getLocationWrite();
+        this.locationRepository = locationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threadFactory = workerThreadFactory;
+        this.batchSize = config.getBatchSize();
+        this.flushInterval = config.getFlushInterval();
+        this.offerTimeout = config.getOfferTimeout();
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.capacity = new Semaphore(config.getQueueCapacity());
+
+        Gauge.builder("courier.location.write_behind.queue.depth", queue, LinkedBlockingQueue::size)
+                .description("Locations waiting to be flushed")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("courier.location.write_behind.flush")
+                .description("Time to persist one write-behind batch")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.flushedRows = Counter.builder("courier.location.write_behind.flushed")
+                .description("Locations persisted by the flusher")
+                .register(meterRegistry);
+        this.failedRows = Counter.builder("courier.location.write_behind.failed")
+                .description("Locations lost because their flush was still failing at shutdown")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("courier.location.write_behind.rejected")
+                .description("Locations rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = threadFactory.newThread(this::runFlusher);
+        flusher.setName("location-write-behind");
+        flusher.start();
+        log.info("Write-behind location writer started (capacity {}, batch size {}, flush interval {})",
+                capacity.availablePermits(), batchSize, flushInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+        flusher.join(shutdownTimeout.toMillis());
+        if (flusher.isAlive()) {
+            log.error("Write-behind flusher did not finish within {}, {} locations not persisted",
+                    shutdownTimeout, queue.size());
+        } else {
+            log.info("Write-behind location writer stopped");
+        }
+    }
+
+    @Override
+    public CourierLocation write(CourierLocation location) {
+        enqueue(List.of(location));
+        return location;
+    }
+
+    @Override
+    public void writeAll(List<CourierLocation> locations) {
+        enqueue(locations);
+    }
+
+    @Override
+    public void updateStationaryUntil(List<CourierLocation> locations) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stationaryUpdates.addAll(locations);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stationaryUpdates.addAll(locations);
+            }
+        });
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void enqueue(List<CourierLocation> locations) {
+        reserve(locations.size());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            queue.addAll(locations);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    queue.addAll(locations);
+                } else {
+                    capacity.release(locations.size());
+                }
+            }
+        });
+    }
+
+    private void reserve(int count) {
+        boolean acquired;
+        try {
+            acquired = capacity.tryAcquire(count, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            rejectedRows.increment(count);
+            throw new IngestBackpressureException("Location write queue is full, retry later");
+        }
+    }
+
+    private void runFlusher() {
+        List<CourierLocation> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+            flushStationaryUpdates();
+        }
+        flushStationaryUpdates();
+    }
+
+    private void collectBatch(List<CourierLocation> batch) throws InterruptedException {
+        CourierLocation first = queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            CourierLocation next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<CourierLocation> batch) {
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    flushTimer.record(() -> transactionTemplate.executeWithoutResult(
+                            status -> locationRepository.batchInsert(batch)));
+                    flushedRows.increment(batch.size());
+                    return;
+                } catch (RuntimeException e) {
+                    if (!running) {
+                        failedRows.increment(batch.size());
+                        log.error("Dropping {} locations whose flush failed during shutdown", batch.size(), e);
+                        return;
+                    }
+                    log.warn("Flush of {} locations failed (attempt {}), retrying", batch.size(), attempt, e);
+                    if (!sleepBeforeRetry(attempt)) {
+                        failedRows.increment(batch.size());
+                        log.error("Dropping {} locations, flusher interrupted while retrying", batch.size());
+                        return;
+                    }
+                }
+            }
+        } finally {
+            capacity.release(batch.size());
+        }
+    }
+
+    private void flushStationaryUpdates() {
+        if (stationaryUpdates.isEmpty()) {
+            return;
+        }
+        // A row extended by several fixes since the last flush is updated once
+        Set<CourierLocation> pending = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<CourierLocation> updates = new ArrayList<>();
+        CourierLocation next;
+        while ((next = stationaryUpdates.poll()) != null) {
+            // Without an id the row is still queued and its insert carries the new value
+            if (next.getId() != null && pending.add(next)) {
+                updates.add(next);
+            }
+        }
+        if (updates.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> locationRepository.updateStationaryUntil(updates));
+        } catch (RuntimeException e) {
+            log.error("Failed to update stationary period of {} locations", updates.size(), e);
+        }
+    }
+
+    private boolean sleepBeforeRetry(int attempt) {
+        try {
+            Thread.sleep(Math.min(RETRY_BACKOFF_MILLIS * attempt, MAX_RETRY_BACKOFF_MILLIS));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
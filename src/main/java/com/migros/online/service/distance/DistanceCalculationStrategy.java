@@ -5,4 +5,26 @@ public interface DistanceCalculationStrategy {
     double calculateDistance(double lat1, double lng1, double lat2, double lng2);
 
     String getStrategyName();
+
+    /**
+     * Distances in meters from ({@code lat}, {@code lng}) to the first {@code count} points of the
+     * coordinate arrays, written to {@code out[0..count)}. Implementations may vectorize; this
+     * default is the scalar loop.
+     */
+    default void calculateDistances(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        for (int i = 0; i < count; i++) {
+            out[i] = calculateDistance(lat, lng, lats[i], lngs[i]);
+        }
+    }
+
+    /**
+     * Distances in meters between consecutive points of a track of {@code count} points:
+     * {@code out[i]} is the leg from point {@code i} to point {@code i + 1}, for
+     * {@code i < count - 1}.
+     */
+    default void calculateTrackDistances(double[] lats, double[] lngs, double[] out, int count) {
+        for (int i = 0; i + 1 < count; i++) {
+            out[i] = calculateDistance(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
+        }
+    }
 }
@@ -28,4 +28,12 @@ public class DistanceCalculatorService {
     public double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
         return strategy.calculateDistance(lat1, lng1, lat2, lng2);
     }
+
+    public void calculateDistances(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        strategy.calculateDistances(lat, lng, lats, lngs, out, count);
+    }
+
+    public void calculateTrackDistances(double[] lats, double[] lngs, double[] out, int count) {
+        strategy.calculateTrackDistances(lats, lngs, out, count);
+    }
 }
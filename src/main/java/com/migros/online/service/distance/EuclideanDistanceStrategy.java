@@ -5,10 +5,37 @@ import org.springframework.stereotype.Component;
 @Component
 public class EuclideanDistanceStrategy implements DistanceCalculationStrategy {
 
-    private static final double METERS_PER_DEGREE_LAT = 111320.0;
+    static final double METERS_PER_DEGREE_LAT = 111320.0;
 
     @Override
     public double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
+        return euclidean(lat1, lng1, lat2, lng2);
+    }
+
+    @Override
+    public void calculateDistances(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        if (VectorSupport.isAvailable()) {
+            VectorDistanceKernels.euclidean(lat, lng, lats, lngs, out, count);
+        } else {
+            DistanceCalculationStrategy.super.calculateDistances(lat, lng, lats, lngs, out, count);
+        }
+    }
+
+    @Override
+    public void calculateTrackDistances(double[] lats, double[] lngs, double[] out, int count) {
+        if (VectorSupport.isAvailable()) {
+            VectorDistanceKernels.euclideanTrack(lats, lngs, out, count);
+        } else {
+            DistanceCalculationStrategy.super.calculateTrackDistances(lats, lngs, out, count);
+        }
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "Euclidean";
+    }
+
+    static double euclidean(double lat1, double lng1, double lat2, double lng2) {
         double avgLat = Math.toRadians((lat1 + lat2) / 2);
         
         double metersPerDegreeLng = METERS_PER_DEGREE_LAT * Math.cos(avgLat);
@@ -18,9 +45,4 @@ public class EuclideanDistanceStrategy implements DistanceCalculationStrategy {
         
         return Math.sqrt(deltaLatMeters * deltaLatMeters + deltaLngMeters * deltaLngMeters);
     }
-
-    @Override
-    public String getStrategyName() {
-        return "Euclidean";
-    }
 }
@@ -5,10 +5,37 @@ import org.springframework.stereotype.Component;
 @Component
 public class HaversineDistanceStrategy implements DistanceCalculationStrategy {
 
-    private static final double EARTH_RADIUS_METERS = 6371000.0;
+    static final double EARTH_RADIUS_METERS = 6371000.0;
 
     @Override
     public double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
+        return haversine(lat1, lng1, lat2, lng2);
+    }
+
+    @Override
+    public void calculateDistances(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        if (VectorSupport.isAvailable()) {
+            VectorDistanceKernels.haversine(lat, lng, lats, lngs, out, count);
+        } else {
+            DistanceCalculationStrategy.super.calculateDistances(lat, lng, lats, lngs, out, count);
+        }
+    }
+
+    @Override
+    public void calculateTrackDistances(double[] lats, double[] lngs, double[] out, int count) {
+        if (VectorSupport.isAvailable()) {
+            VectorDistanceKernels.haversineTrack(lats, lngs, out, count);
+        } else {
+            DistanceCalculationStrategy.super.calculateTrackDistances(lats, lngs, out, count);
+        }
+    }
+
+    @Override
+    public String getStrategyName() {
+        return "Haversine";
+    }
+
+    static double haversine(double lat1, double lng1, double lat2, double lng2) {
         double dLat = Math.toRadians(lat2 - lat1);
         double dLng = Math.toRadians(lng2 - lng1);
 
@@ -20,9 +47,4 @@ public class HaversineDistanceStrategy implements DistanceCalculationStrategy {
 
         return EARTH_RADIUS_METERS * c;
     }
-
-    @Override
-    public String getStrategyName() {
-        return "Haversine";
-    }
 }
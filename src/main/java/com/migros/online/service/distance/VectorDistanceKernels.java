@@ -0,0 +1,101 @@
+package com.migros.online.service.distance;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * SIMD versions of the Haversine and Euclidean formulas over struct-of-arrays coordinates. Each
+ * loop handles full vectors and finishes the tail with the strategy's scalar formula. Only
+ * reference this class after {@link VectorSupport#isAvailable()} returned true.
+ */
+final class VectorDistanceKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+    private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+    private static final double HALF_DEGREES_TO_RADIANS = DEGREES_TO_RADIANS / 2;
+
+    private VectorDistanceKernels() {
+    }
+
+    static int laneCount() {
+        return SPECIES.length();
+    }
+
+    static void haversine(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        double cosLat = Math.cos(lat * DEGREES_TO_RADIANS);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, lngs, i);
+            DoubleVector cosLat2 = lat2.mul(DEGREES_TO_RADIANS).lanewise(VectorOperators.COS).mul(cosLat);
+            haversine(lat2.sub(lat), lng2.sub(lng), cosLat2).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = HaversineDistanceStrategy.haversine(lat, lng, lats[i], lngs[i]);
+        }
+    }
+
+    static void haversineTrack(double[] lats, double[] lngs, double[] out, int count) {
+        int legs = Math.max(0, count - 1);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(legs); i < bound; i += SPECIES.length()) {
+            DoubleVector lat1 = DoubleVector.fromArray(SPECIES, lats, i);
+            DoubleVector lng1 = DoubleVector.fromArray(SPECIES, lngs, i);
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i + 1);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, lngs, i + 1);
+            DoubleVector cosProduct = lat1.mul(DEGREES_TO_RADIANS).lanewise(VectorOperators.COS)
+                    .mul(lat2.mul(DEGREES_TO_RADIANS).lanewise(VectorOperators.COS));
+            haversine(lat2.sub(lat1), lng2.sub(lng1), cosProduct).intoArray(out, i);
+        }
+        for (; i < legs; i++) {
+            out[i] = HaversineDistanceStrategy.haversine(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
+        }
+    }
+
+    static void euclidean(double lat, double lng, double[] lats, double[] lngs, double[] out, int count) {
+        int i = 0;
+        for (int bound = SPECIES.loopBound(count); i < bound; i += SPECIES.length()) {
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, lngs, i);
+            euclidean(lat2.add(lat), lat2.sub(lat), lng2.sub(lng)).intoArray(out, i);
+        }
+        for (; i < count; i++) {
+            out[i] = EuclideanDistanceStrategy.euclidean(lat, lng, lats[i], lngs[i]);
+        }
+    }
+
+    static void euclideanTrack(double[] lats, double[] lngs, double[] out, int count) {
+        int legs = Math.max(0, count - 1);
+        int i = 0;
+        for (int bound = SPECIES.loopBound(legs); i < bound; i += SPECIES.length()) {
+            DoubleVector lat1 = DoubleVector.fromArray(SPECIES, lats, i);
+            DoubleVector lng1 = DoubleVector.fromArray(SPECIES, lngs, i);
+            DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i + 1);
+            DoubleVector lng2 = DoubleVector.fromArray(SPECIES, lngs, i + 1);
+            euclidean(lat1.add(lat2), lat2.sub(lat1), lng2.sub(lng1)).intoArray(out, i);
+        }
+        for (; i < legs; i++) {
+            out[i] = EuclideanDistanceStrategy.euclidean(lats[i], lngs[i], lats[i + 1], lngs[i + 1]);
+        }
+    }
+
+    // deltas in degrees; cosProduct = cos(lat1) * cos(lat2)
+    private static DoubleVector haversine(DoubleVector dLat, DoubleVector dLng, DoubleVector cosProduct) {
+        DoubleVector sinHalfDLat = dLat.mul(HALF_DEGREES_TO_RADIANS).lanewise(VectorOperators.SIN);
+        DoubleVector sinHalfDLng = dLng.mul(HALF_DEGREES_TO_RADIANS).lanewise(VectorOperators.SIN);
+        DoubleVector a = sinHalfDLat.mul(sinHalfDLat).add(cosProduct.mul(sinHalfDLng).mul(sinHalfDLng));
+        DoubleVector c = a.sqrt().lanewise(VectorOperators.ATAN2, a.neg().add(1.0).sqrt()).mul(2.0);
+        return c.mul(HaversineDistanceStrategy.EARTH_RADIUS_METERS);
+    }
+
+    // latSum = lat1 + lat2 in degrees; deltas in degrees
+    private static DoubleVector euclidean(DoubleVector latSum, DoubleVector dLat, DoubleVector dLng) {
+        DoubleVector metersPerDegreeLng = latSum.mul(HALF_DEGREES_TO_RADIANS)
+                .lanewise(VectorOperators.COS)
+                .mul(EuclideanDistanceStrategy.METERS_PER_DEGREE_LAT);
+        DoubleVector deltaLatMeters = dLat.mul(EuclideanDistanceStrategy.METERS_PER_DEGREE_LAT);
+        DoubleVector deltaLngMeters = dLng.mul(metersPerDegreeLng);
+        return deltaLatMeters.mul(deltaLatMeters).add(deltaLngMeters.mul(deltaLngMeters)).sqrt();
+    }
+}
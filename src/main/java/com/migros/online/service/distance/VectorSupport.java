@@ -0,0 +1,31 @@
+package com.migros.online.service.distance;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Whether the batch distance methods can use {@link VectorDistanceKernels}. The Vector API is an
+ * incubator module in Java 21 and is only resolved when the JVM is started with
+ * {@code --add-modules jdk.incubator.vector}; without it the strategies fall back to their scalar
+ * loops and the kernel class is never loaded.
+ */
+@Slf4j
+final class VectorSupport {
+
+    private static final boolean AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+            && !Boolean.getBoolean("courier-tracker.distance.scalar");
+
+    static {
+        if (AVAILABLE) {
+            log.info("Batch distance calculations use the Vector API ({} lanes)", VectorDistanceKernels.laneCount());
+        } else {
+            log.info("Batch distance calculations use the scalar fallback");
+        }
+    }
+
+    private VectorSupport() {
+    }
+
+    static boolean isAvailable() {
+        return AVAILABLE;
+    }
+}
@@ -0,0 +1,235 @@
+package com.migros.online.service.store;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.migros.online.config.CourierTrackerProperties.StoreEntryDispatch;
+import com.migros.online.config.CourierTrackerProperties.StoreEntryDispatch.OverflowPolicy;
+import com.migros.online.service.store.observer.StoreEntryEvent;
+import com.migros.online.service.store.observer.StoreEntryObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue and worker thread for a single observer, so a slow observer only delays its own
+ * events. When the queue is full the overflow policy decides whether the publisher blocks, the
+ * oldest queued event is dropped, or the event is appended to a spill file that the worker
+ * replays once the queue has drained (and on the next start if it is left over).
+ */
+@Slf4j
+class ObserverDispatchQueue {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final StoreEntryObserver observer;
+    private final OverflowPolicy overflowPolicy;
+    private final ObjectMapper objectMapper;
+    private final ThreadFactory threadFactory;
+    private final BlockingQueue<DispatchedEvent> queue;
+    private final Path spillFile;
+    private final Path replayFile;
+    private final ReentrantLock spillLock = new ReentrantLock();
+
+    private final Timer lagTimer;
+    private final Timer handleTimer;
+    private final Counter droppedEvents;
+    private final Counter spilledEvents;
+    private final Counter failedEvents;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    ObserverDispatchQueue(StoreEntryObserver observer, StoreEntryDispatch config,
+                          MeterRegistry meterRegistry, ObjectMapper objectMapper, ThreadFactory threadFactory) {
+        String observerName = observer.getObserverName();
+        this.observer = observer;
+        this.overflowPolicy = config.getOverflowPolicy();
+        this.objectMapper = objectMapper;
+        this.threadFactory = threadFactory;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.spillFile = config.getSpillDirectory().resolve(observerName + ".ndjson");
+        this.replayFile = config.getSpillDirectory().resolve(observerName + ".ndjson.replay");
+
+        Gauge.builder("store_entry.dispatch.queue.depth", queue, BlockingQueue::size)
+                .description("Store entry events waiting for the observer")
+                .tag("observer", observerName)
+                .register(meterRegistry);
+        this.lagTimer = Timer.builder("store_entry.dispatch.lag")
+                .description("Time from publishing a store entry event until the observer handled it")
+                .tag("observer", observerName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.handleTimer = StoreEntryNotificationService.observerTimer(observerName, meterRegistry);
+        this.droppedEvents = Counter.builder("store_entry.dispatch.dropped")
+                .tag("observer", observerName)
+                .register(meterRegistry);
+        this.spilledEvents = Counter.builder("store_entry.dispatch.spilled")
+                .tag("observer", observerName)
+                .register(meterRegistry);
+        this.failedEvents = Counter.builder("store_entry.dispatch.failed")
+                .tag("observer", observerName)
+                .register(meterRegistry);
+    }
+
+    void start() {
+        running = true;
+        worker = threadFactory.newThread(this::run);
+        worker.setName("store-entry-" + observer.getObserverName());
+        worker.start();
+    }
+
+    void shutdown(Duration timeout) throws InterruptedException {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        worker.join(timeout.toMillis());
+        if (worker.isAlive()) {
+            log.error("Observer {} did not drain within {}, {} events not delivered",
+                    observer.getObserverName(), timeout, queue.size());
+        }
+    }
+
+    void publish(StoreEntryEvent event) {
+        DispatchedEvent dispatched = new DispatchedEvent(event, System.currentTimeMillis());
+        if (queue.offer(dispatched)) {
+            return;
+        }
+        switch (overflowPolicy) {
+            case BLOCK -> putBlocking(dispatched);
+            case DROP_OLDEST -> {
+                while (!queue.offer(dispatched)) {
+                    if (queue.poll() != null) {
+                        droppedEvents.increment();
+                    }
+                }
+            }
+            case SPILL -> spill(dispatched);
+        }
+    }
+
+    int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void putBlocking(DispatchedEvent dispatched) {
+        try {
+            queue.put(dispatched);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            droppedEvents.increment();
+            log.warn("Interrupted while waiting to publish to observer {}, event dropped", observer.getObserverName());
+        }
+    }
+
+    private void run() {
+        replaySpill();
+        while (running || !queue.isEmpty()) {
+            DispatchedEvent next;
+            try {
+                next = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                next = queue.poll();
+            }
+            if (next != null) {
+                deliver(next);
+            } else if (running) {
+                replaySpill();
+            }
+        }
+    }
+
+    private void deliver(DispatchedEvent dispatched) {
+        long start = System.nanoTime();
+        try {
+            observer.onStoreEntry(dispatched.event());
+        } catch (Exception e) {
+            failedEvents.increment();
+            log.error("Observer {} failed to process event: {}", observer.getObserverName(), e.getMessage(), e);
+        }
+        handleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        lagTimer.record(System.currentTimeMillis() - dispatched.publishedAtMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void spill(DispatchedEvent dispatched) {
+        try {
+            String line = objectMapper.writeValueAsString(dispatched);
+            spillLock.lock();
+            try {
+                Files.createDirectories(spillFile.getParent());
+                try (BufferedWriter writer = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                    writer.write(line);
+                    writer.newLine();
+                }
+            } finally {
+                spillLock.unlock();
+            }
+            spilledEvents.increment();
+        } catch (IOException e) {
+            droppedEvents.increment();
+            log.error("Failed to spill event for observer {}, event dropped", observer.getObserverName(), e);
+        }
+    }
+
+    private void replaySpill() {
+        if (overflowPolicy != OverflowPolicy.SPILL) {
+            return;
+        }
+        try {
+            spillLock.lock();
+            try {
+                if (!Files.exists(replayFile)) {
+                    if (!Files.exists(spillFile)) {
+                        return;
+                    }
+                    Files.move(spillFile, replayFile, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                spillLock.unlock();
+            }
+            int replayed = 0;
+            try (BufferedReader reader = Files.newBufferedReader(replayFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    try {
+                        deliver(objectMapper.readValue(line, DispatchedEvent.class));
+                        replayed++;
+                    } catch (JsonProcessingException e) {
+                        failedEvents.increment();
+                        log.error("Skipping unreadable spilled event for observer {}", observer.getObserverName(), e);
+                    }
+                }
+            }
+            Files.delete(replayFile);
+            log.info("Replayed {} spilled events for observer {}", replayed, observer.getObserverName());
+        } catch (IOException e) {
+            log.error("Failed to replay spilled events for observer {}", observer.getObserverName(), e);
+        }
+    }
+
+    record DispatchedEvent(StoreEntryEvent event, long publishedAtMillis) {
+    }
+}
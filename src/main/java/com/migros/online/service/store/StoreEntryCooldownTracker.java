@@ -0,0 +1,197 @@
+package com.migros.online.service.store;
+
+import com.migros.online.entity.Store;
+import com.migros.online.entity.StoreEntry;
+import com.migros.online.repository.StoreEntryRepository;
+import com.migros.online.service.courier.CourierLocationService;
+import com.migros.online.service.store.observer.BatchingPersistenceStoreEntryObserver;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Last store entry time per (courier, store), kept for the re-entry cooldown plus a grace period
+ * for late reports. Expiry runs on a one-second hashed timing wheel that is advanced by the
+ * callers themselves, so memory is bounded by the entries logged within the retention window.
+ * Reports older than the retention window fall back to the store_entries query, together with
+ * the entries still queued by the batching persistence observer.
+ */
+@Slf4j
+@Component
+public class StoreEntryCooldownTracker {
+
+    private static final long LATE_REPORT_GRACE_SECONDS = 300;
+
+    private final StoreEntryRepository storeEntryRepository;
+    private final ObjectProvider<BatchingPersistenceStoreEntryObserver> batchingObserver;
+    private final Clock clock;
+    private final long cooldownSeconds;
+    private final long retentionSeconds;
+
+    private final ConcurrentMap<CooldownKey, LocalDateTime> lastEntries = new ConcurrentHashMap<>();
+    private final Set<CooldownKey>[] wheel;
+    private final ReentrantLock advanceLock = new ReentrantLock();
+    private volatile long currentTick;
+
+    @Autowired
+    public StoreEntryCooldownTracker(StoreEntryRepository storeEntryRepository,
+                                     ObjectProvider<BatchingPersistenceStoreEntryObserver> batchingObserver) {
+        this(storeEntryRepository, batchingObserver, Clock.systemDefaultZone(),
+                CourierLocationService.REENTRY_COOLDOWN_SECONDS, LATE_REPORT_GRACE_SECONDS);
+    }
+
+    @SuppressWarnings("unchecked")
+    StoreEntryCooldownTracker(StoreEntryRepository storeEntryRepository,
+                              ObjectProvider<BatchingPersistenceStoreEntryObserver> batchingObserver,
+                              Clock clock, long cooldownSeconds, long lateReportGraceSeconds) {
+        this.storeEntryRepository = storeEntryRepository;
+        this.batchingObserver = batchingObserver;
+        this.clock = clock;
+        this.cooldownSeconds = cooldownSeconds;
+        this.retentionSeconds = cooldownSeconds + lateReportGraceSeconds;
+        this.wheel = new Set[(int) retentionSeconds + 2];
+        for (int i = 0; i < wheel.length; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.currentTick = toTick(LocalDateTime.now(clock));
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        LocalDateTime since = LocalDateTime.now(clock).minusSeconds(retentionSeconds);
+        List<StoreEntry> recentEntries = storeEntryRepository.findByEntryTimeAfter(since);
+        for (StoreEntry entry : recentEntries) {
+            CooldownKey key = new CooldownKey(entry.getCourierId(), entry.getStore().getId());
+            LocalDateTime last = lastEntries.merge(key, entry.getEntryTime(),
+                    (existing, candidate) -> candidate.isAfter(existing) ? candidate : existing);
+            schedule(key, last);
+        }
+        log.info("Store entry cooldown tracker warmed up with {} entries since {}", recentEntries.size(), since);
+    }
+
+    /**
+     * Atomically checks the cooldown for the courier at the store and, if it has lapsed, records
+     * {@code entryTime} as the new last entry. Returns {@code true} when the entry should be logged.
+     */
+    public boolean tryRegisterEntry(String courierId, Store store, LocalDateTime entryTime) {
+        advance();
+        LocalDateTime threshold = entryTime.minusSeconds(cooldownSeconds);
+
+        if (toTick(threshold) < currentTick - retentionSeconds) {
+            BatchingPersistenceStoreEntryObserver observer = batchingObserver.getIfAvailable();
+            if (observer != null && observer.hasPendingEntry(courierId, store.getId(), threshold)) {
+                return false;
+            }
+            return !storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter(courierId, store, threshold);
+        }
+
+        CooldownKey key = new CooldownKey(courierId, store.getId());
+        LocalDateTime[] previous = new LocalDateTime[1];
+        boolean[] registered = new boolean[1];
+        lastEntries.compute(key, (k, last) -> {
+            if (last != null && last.isAfter(threshold)) {
+                return last;
+            }
+            previous[0] = last;
+            registered[0] = true;
+            return entryTime;
+        });
+
+        if (registered[0]) {
+            schedule(key, entryTime);
+            restoreOnRollback(key, entryTime, previous[0]);
+        }
+        return registered[0];
+    }
+
+    public int getTrackedEntryCount() {
+        return lastEntries.size();
+    }
+
+    private void restoreOnRollback(CooldownKey key, LocalDateTime entryTime, LocalDateTime previous) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    if (previous == null) {
+                        lastEntries.remove(key, entryTime);
+                    } else {
+                        lastEntries.replace(key, entryTime, previous);
+                    }
+                }
+            }
+        });
+    }
+
+    private void schedule(CooldownKey key, LocalDateTime entryTime) {
+        long expiryTick = expiryTick(entryTime);
+        long tick = currentTick;
+        if (expiryTick <= tick) {
+            lastEntries.remove(key, entryTime);
+            return;
+        }
+        long slotTick = Math.min(expiryTick, tick + wheel.length - 1);
+        wheel[(int) Math.floorMod(slotTick, (long) wheel.length)].add(key);
+    }
+
+    private void advance() {
+        long now = toTick(LocalDateTime.now(clock));
+        if (now <= currentTick || !advanceLock.tryLock()) {
+            return;
+        }
+        try {
+            long from = currentTick;
+            if (now <= from) {
+                return;
+            }
+            currentTick = now;
+            long steps = Math.min(now - from, wheel.length);
+            for (long tick = from + 1; tick <= from + steps; tick++) {
+                expireSlot(wheel[(int) Math.floorMod(tick, (long) wheel.length)], now);
+            }
+        } finally {
+            advanceLock.unlock();
+        }
+    }
+
+    private void expireSlot(Set<CooldownKey> slot, long now) {
+        Iterator<CooldownKey> iterator = slot.iterator();
+        while (iterator.hasNext()) {
+            CooldownKey key = iterator.next();
+            iterator.remove();
+            LocalDateTime remaining = lastEntries.computeIfPresent(key,
+                    (k, last) -> expiryTick(last) <= now ? null : last);
+            if (remaining != null) {
+                schedule(key, remaining);
+            }
+        }
+    }
+
+    private long expiryTick(LocalDateTime entryTime) {
+        return toTick(entryTime) + retentionSeconds + 1;
+    }
+
+    private static long toTick(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private record CooldownKey(String courierId, Long storeId) {
+    }
+}
@@ -1,35 +1,85 @@
 package com.migros.online.service.store;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.config.CourierTrackerProperties.StoreEntryDispatch;
 import com.migros.online.service.store.observer.StoreEntryEvent;
 import com.migros.online.service.store.observer.StoreEntryObserver;
 import com.migros.online.service.store.observer.StoreEntrySubject;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Fans store entry events out to the registered observers. In {@code sync} mode observers run on
+ * the ingest thread inside its transaction. In {@code async} mode each observer gets its own
+ * {@link ObserverDispatchQueue} and events are only published once the ingest transaction commits.
+ */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class StoreEntryNotificationService implements StoreEntrySubject {
 
-    private final List<StoreEntryObserver> observers = new ArrayList<>();
+    private final List<StoreEntryObserver> observers = new CopyOnWriteArrayList<>();
+    private final Map<StoreEntryObserver, ObserverDispatchQueue> dispatchQueues = new ConcurrentHashMap<>();
+    private final Map<StoreEntryObserver, Timer> observerTimers = new ConcurrentHashMap<>();
     private final List<StoreEntryObserver> availableObservers;
+    private final StoreEntryDispatch dispatchConfig;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final ThreadFactory workerThreadFactory;
+
+    public StoreEntryNotificationService(List<StoreEntryObserver> availableObservers,
+                                         CourierTrackerProperties properties,
+                                         MeterRegistry meterRegistry,
+                                         ObjectMapper objectMapper,
+                                         ThreadFactory workerThreadFactory) {
+        this.availableObservers = availableObservers;
+        this.dispatchConfig = properties.getStoreEntryDispatch();
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        this.workerThreadFactory = workerThreadFactory;
+    }
 
     @PostConstruct
     public void init() {
-        log.info("Initializing StoreEntryNotificationService with {} observers", availableObservers.size());
+        log.info("Initializing StoreEntryNotificationService with {} observers in {} mode",
+                availableObservers.size(), dispatchConfig.getMode());
         for (StoreEntryObserver observer : availableObservers) {
             registerObserver(observer);
         }
     }
 
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ObserverDispatchQueue dispatchQueue : dispatchQueues.values()) {
+            dispatchQueue.shutdown(dispatchConfig.getShutdownTimeout());
+        }
+        dispatchQueues.clear();
+    }
+
     @Override
     public void registerObserver(StoreEntryObserver observer) {
         if (!observers.contains(observer)) {
+            if (isAsync()) {
+                ObserverDispatchQueue dispatchQueue =
+                        new ObserverDispatchQueue(observer, dispatchConfig, meterRegistry, objectMapper, workerThreadFactory);
+                dispatchQueue.start();
+                dispatchQueues.put(observer, dispatchQueue);
+            } else {
+                observerTimers.put(observer, observerTimer(observer.getObserverName(), meterRegistry));
+            }
             observers.add(observer);
             log.info("Registered observer: {}", observer.getObserverName());
         }
@@ -38,6 +88,15 @@ public class StoreEntryNotificationService implements StoreEntrySubject {
     @Override
     public void removeObserver(StoreEntryObserver observer) {
         if (observers.remove(observer)) {
+            observerTimers.remove(observer);
+            ObserverDispatchQueue dispatchQueue = dispatchQueues.remove(observer);
+            if (dispatchQueue != null) {
+                try {
+                    dispatchQueue.shutdown(dispatchConfig.getShutdownTimeout());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
             log.info("Removed observer: {}", observer.getObserverName());
         }
     }
@@ -49,23 +108,61 @@ public class StoreEntryNotificationService implements StoreEntrySubject {
                 event.getCourierId(),
                 event.getStore().getName());
 
+        if (!isAsync()) {
+            notifySynchronously(event);
+        } else if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(event);
+                }
+            });
+        } else {
+            publish(event);
+        }
+    }
+
+    public int getObserverCount() {
+        return observers.size();
+    }
+
+    public List<String> getObserverNames() {
+        return observers.stream()
+                .map(StoreEntryObserver::getObserverName)
+                .toList();
+    }
+
+    private void notifySynchronously(StoreEntryEvent event) {
         for (StoreEntryObserver observer : observers) {
+            long start = System.nanoTime();
             try {
                 observer.onStoreEntry(event);
             } catch (Exception e) {
                 log.error("Observer {} failed to process event: {}", 
                         observer.getObserverName(), e.getMessage(), e);
             }
+            Timer timer = observerTimers.get(observer);
+            if (timer != null) {
+                timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
         }
     }
 
-    public int getObserverCount() {
-        return observers.size();
+    private void publish(StoreEntryEvent event) {
+        for (ObserverDispatchQueue dispatchQueue : dispatchQueues.values()) {
+            dispatchQueue.publish(event);
+        }
     }
 
-    public List<String> getObserverNames() {
-        return observers.stream()
-                .map(StoreEntryObserver::getObserverName)
-                .toList();
+    static Timer observerTimer(String observerName, MeterRegistry meterRegistry) {
+        return Timer.builder("store_entry.observer")
+                .description("Time an observer took to handle one store entry event")
+                .tag("observer", observerName)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    private boolean isAsync() {
+        return dispatchConfig.getMode() == StoreEntryDispatch.Mode.ASYNC;
     }
 }
@@ -12,7 +12,9 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
@@ -44,6 +46,18 @@ public class StoreEntryService {
         return storeEntryMapper.toResponseList(entries);
     }
 
+    /**
+     * Hands store entries in {@code [from, to)}, optionally for a single store, to
+     * {@code consumer} in entry time order straight from a database cursor. Store names come from
+     * the same query. Null filters are not applied.
+     */
+    @Transactional(readOnly = true)
+    public void exportEntries(LocalDateTime from, LocalDateTime to, Long storeId,
+                              Consumer<StoreEntryResponse> consumer) {
+        storeEntryRepository.streamEntries(from, to, storeId,
+                entry -> consumer.accept(storeEntryMapper.toResponse(entry)));
+    }
+
     @Transactional(readOnly = true)
     public long getEntryCountByCourier(String courierId) {
         return storeEntryRepository.countByCourierId(courierId);
@@ -0,0 +1,127 @@
+package com.migros.online.service.store;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.Store;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Narrows spatial index candidates down to the stores within the radius. Candidates outside the
+ * lat/lng bounding box of the radius are rejected first, then (if enabled) those whose
+ * equirectangular estimate is clearly beyond it; only the survivors go through the exact
+ * distance strategy. Rejections are counted per stage in {@code store_proximity.rejected}.
+ */
+@Component
+public class StoreProximityFilter {
+
+    private static final double EARTH_RADIUS_METERS = 6371000.0;
+
+    // Covers the estimate's error against Haversine and Euclidean at store radius scale
+    private static final double ESTIMATE_MARGIN = 1.01;
+
+    private final DistanceCalculatorService distanceCalculatorService;
+    private final boolean equirectangularEstimate;
+
+    private final Counter candidates;
+    private final Counter boundingBoxRejections;
+    private final Counter estimateRejections;
+    private final Counter exactRejections;
+
+    public StoreProximityFilter(DistanceCalculatorService distanceCalculatorService,
+                                MeterRegistry meterRegistry,
+                                CourierTrackerProperties properties) {
+        this.distanceCalculatorService = distanceCalculatorService;
+        this.equirectangularEstimate = properties.getStoreProximity().isEquirectangularEstimate();
+
+        this.candidates = Counter.builder("store_proximity.candidates")
+                .description("Stores returned by the spatial index for proximity checks")
+                .register(meterRegistry);
+        this.boundingBoxRejections = rejectionCounter("bounding_box", meterRegistry);
+        this.estimateRejections = rejectionCounter("equirectangular", meterRegistry);
+        this.exactRejections = rejectionCounter("exact", meterRegistry);
+    }
+
+    public List<StoreProximityMatch> findWithinRadius(double lat, double lng, double radiusMeters, List<Store> stores) {
+        int candidateCount = stores.size();
+        if (candidateCount == 0) {
+            return Collections.emptyList();
+        }
+        candidates.increment(candidateCount);
+
+        double angularDistance = radiusMeters / EARTH_RADIUS_METERS;
+        double deltaLat = Math.toDegrees(angularDistance);
+        double deltaLng = longitudeDelta(lat, angularDistance);
+        double metersPerDegreeLat = Math.toRadians(EARTH_RADIUS_METERS);
+        double metersPerDegreeLng = metersPerDegreeLat * Math.cos(Math.toRadians(lat));
+        double maxEstimateSquared = radiusMeters * ESTIMATE_MARGIN * radiusMeters * ESTIMATE_MARGIN;
+
+        Store[] survivors = new Store[candidateCount];
+        double[] lats = new double[candidateCount];
+        double[] lngs = new double[candidateCount];
+        int count = 0;
+        int outsideBox = 0;
+        int outsideEstimate = 0;
+        for (Store store : stores) {
+            double dLat = Math.abs(store.getLat() - lat);
+            double dLng = Math.abs(store.getLng() - lng);
+            if (dLng > 180.0) {
+                dLng = 360.0 - dLng;
+            }
+            if (dLat > deltaLat || dLng > deltaLng) {
+                outsideBox++;
+                continue;
+            }
+            if (equirectangularEstimate) {
+                double y = dLat * metersPerDegreeLat;
+                double x = dLng * metersPerDegreeLng;
+                if (x * x + y * y > maxEstimateSquared) {
+                    outsideEstimate++;
+                    continue;
+                }
+            }
+            survivors[count] = store;
+            lats[count] = store.getLat();
+            lngs[count] = store.getLng();
+            count++;
+        }
+        boundingBoxRejections.increment(outsideBox);
+        estimateRejections.increment(outsideEstimate);
+        if (count == 0) {
+            return Collections.emptyList();
+        }
+
+        double[] distances = new double[count];
+        distanceCalculatorService.calculateDistances(lat, lng, lats, lngs, distances, count);
+
+        List<StoreProximityMatch> matches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (distances[i] <= radiusMeters) {
+                matches.add(new StoreProximityMatch(survivors[i], distances[i]));
+            }
+        }
+        exactRejections.increment(count - matches.size());
+        return matches;
+    }
+
+    private static Counter rejectionCounter(String stage, MeterRegistry meterRegistry) {
+        return Counter.builder("store_proximity.rejected")
+                .description("Proximity candidates rejected, by filter stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    // Widest longitude offset of the radius circle; the whole range near the poles
+    private static double longitudeDelta(double lat, double angularDistance) {
+        double sinRatio = Math.sin(angularDistance) / Math.cos(Math.toRadians(lat));
+        if (Math.abs(lat) >= 90.0 || sinRatio >= 1.0) {
+            return 180.0;
+        }
+        return Math.toDegrees(Math.asin(sinRatio));
+    }
+}
@@ -0,0 +1,6 @@
+package com.migros.online.service.store;
+
+import com.migros.online.entity.Store;
+
+public record StoreProximityMatch(Store store, double distance) {
+}
@@ -0,0 +1,107 @@
+package com.migros.online.service.store;
+
+import com.migros.online.entity.Store;
+import com.migros.online.service.courier.CourierLocationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Uniform lat/lng grid over the store list. Cells are sized to the proximity radius so a
+ * lookup only touches the handful of cells overlapping the query circle's bounding box.
+ * Callers still apply the exact distance check to the returned candidates.
+ */
+@Slf4j
+@Component
+public class StoreSpatialIndex {
+
+    private static final double EARTH_RADIUS_METERS = 6371000.0;
+    private static final double METERS_PER_DEGREE = EARTH_RADIUS_METERS * Math.PI / 180.0;
+    private static final double BOUNDING_BOX_MARGIN = 1.01;
+
+    private final double cellSizeDegrees;
+    private final int lngCellCount;
+
+    private volatile Map<Long, List<Store>> cells = Collections.emptyMap();
+    private volatile int storeCount;
+
+    public StoreSpatialIndex() {
+        this(CourierLocationService.STORE_RADIUS_METERS);
+    }
+
+    public StoreSpatialIndex(double cellSizeMeters) {
+        if (cellSizeMeters <= 0) {
+            throw new IllegalArgumentException("Cell size must be positive");
+        }
+        this.cellSizeDegrees = cellSizeMeters / METERS_PER_DEGREE;
+        this.lngCellCount = (int) Math.ceil(360.0 / cellSizeDegrees);
+    }
+
+    public void rebuild(List<Store> stores) {
+        Map<Long, List<Store>> grid = new HashMap<>();
+        for (Store store : stores) {
+            long key = cellKey(latCell(store.getLat()), lngCell(store.getLng()));
+            grid.computeIfAbsent(key, k -> new ArrayList<>()).add(store);
+        }
+        grid.replaceAll((key, bucket) -> List.copyOf(bucket));
+        this.cells = grid;
+        this.storeCount = stores.size();
+        log.info("Store spatial index built with {} stores in {} cells", stores.size(), grid.size());
+    }
+
+    public List<Store> findCandidates(double lat, double lng, double radiusMeters) {
+        Map<Long, List<Store>> grid = this.cells;
+        if (grid.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        double angularDistance = radiusMeters / EARTH_RADIUS_METERS;
+        double deltaLat = Math.toDegrees(angularDistance) * BOUNDING_BOX_MARGIN;
+        double deltaLng = longitudeDelta(lat, angularDistance) * BOUNDING_BOX_MARGIN;
+
+        int minLatCell = latCell(Math.max(-90.0, lat - deltaLat));
+        int maxLatCell = latCell(Math.min(90.0, lat + deltaLat));
+        int firstLngCell = (int) Math.floor((lng - deltaLng + 180.0) / cellSizeDegrees);
+        int lngSpan = Math.min(lngCellCount, (int) Math.floor((lng + deltaLng + 180.0) / cellSizeDegrees) - firstLngCell + 1);
+
+        List<Store> candidates = new ArrayList<>();
+        for (int latCell = minLatCell; latCell <= maxLatCell; latCell++) {
+            for (int i = 0; i < lngSpan; i++) {
+                List<Store> bucket = grid.get(cellKey(latCell, Math.floorMod(firstLngCell + i, lngCellCount)));
+                if (bucket != null) {
+                    candidates.addAll(bucket);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    public int size() {
+        return storeCount;
+    }
+
+    private double longitudeDelta(double lat, double angularDistance) {
+        double sinRatio = Math.sin(angularDistance) / Math.cos(Math.toRadians(lat));
+        if (Math.abs(lat) >= 90.0 || sinRatio >= 1.0) {
+            return 180.0;
+        }
+        return Math.toDegrees(Math.asin(sinRatio));
+    }
+
+    private int latCell(double lat) {
+        return (int) Math.floor((lat + 90.0) / cellSizeDegrees);
+    }
+
+    private int lngCell(double lng) {
+        return Math.floorMod((int) Math.floor((lng + 180.0) / cellSizeDegrees), lngCellCount);
+    }
+
+    private static long cellKey(int latCell, int lngCell) {
+        return ((long) latCell << 32) | (lngCell & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,235 @@
+package com.migros.online.service.store.observer;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.StoreEntry;
+import com.migros.online.repository.StoreEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists store entries in JDBC batches instead of one transaction per event. Entries are
+ * queued once the publishing transaction commits and written by a flusher thread when
+ * {@code batch-size} entries have accumulated or {@code flush-interval} has passed. The queue is
+ * drained before the application context closes. The cooldown tracker has already registered a
+ * queued entry, so the courier will not trigger it again: a failing batch is retried until it is
+ * written, and once the queue is full, publishing blocks. Entries stay visible through
+ * {@link #hasPendingEntry} until they are written, for the cooldown check of late reports.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "courier-tracker.store-entry-persistence", name = "mode", havingValue = "batched")
+public class BatchingPersistenceStoreEntryObserver implements StoreEntryObserver {
+
+    private static final long RETRY_BACKOFF_MILLIS = 100;
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 5000;
+
+    private final StoreEntryRepository storeEntryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadFactory threadFactory;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration shutdownTimeout;
+
+    private final BlockingQueue<StoreEntry> queue;
+    // Queued and in-flight entries; StoreEntry has identity equality
+    private final Set<StoreEntry> pending = ConcurrentHashMap.newKeySet();
+
+    private final Timer flushTimer;
+    private final Counter failedEntries;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public BatchingPersistenceStoreEntryObserver(StoreEntryRepository storeEntryRepository,
+                                                 PlatformTransactionManager transactionManager,
+                                                 MeterRegistry meterRegistry,
+                                                 ThreadFactory workerThreadFactory,
+                                                 CourierTrackerProperties properties) {
+        CourierTrackerProperties.StoreEntryPersistence config = properties.getStoreEntryPersistence();
+        this.storeEntryRepository = storeEntryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.threadFactory = workerThreadFactory;
+        this.batchSize = config.getBatchSize();
+        this.flushInterval = config.getFlushInterval();
+        this.shutdownTimeout = config.getShutdownTimeout();
+        this.queue = new LinkedBlockingQueue<>(config.getQueueCapacity());
+
+        Gauge.builder("store_entry.persistence.queue.depth", queue, BlockingQueue::size)
+                .description("Store entries waiting to be written")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("store_entry.persistence.flush")
+                .description("Time to write one batch of store entries")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.failedEntries = Counter.builder("store_entry.persistence.failed")
+                .description("Store entries lost because their flush was still failing at shutdown")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = threadFactory.newThread(this::runFlusher);
+        flusher.setName("store-entry-persistence");
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (flusher == null) {
+            return;
+        }
+        flusher.join(shutdownTimeout.toMillis());
+        if (flusher.isAlive()) {
+            log.error("Store entry flusher did not finish within {}, {} entries not persisted",
+                    shutdownTimeout, queue.size());
+        }
+    }
+
+    @Override
+    public void onStoreEntry(StoreEntryEvent event) {
+        StoreEntry entry = StoreEntry.builder()
+                .courierId(event.getCourierId())
+                .store(event.getStore())
+                .entryTime(event.getEntryTime())
+                .distanceFromStore(event.getDistanceFromStore())
+                .build();
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(entry);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                enqueue(entry);
+            }
+        });
+    }
+
+    @Override
+    public String getObserverName() {
+        return "PersistenceObserver";
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * Whether an entry of the courier at the store after {@code after} is queued or being
+     * written, and therefore not yet visible to store_entries queries.
+     */
+    public boolean hasPendingEntry(String courierId, Long storeId, LocalDateTime after) {
+        for (StoreEntry entry : pending) {
+            if (entry.getCourierId().equals(courierId) && entry.getStore().getId().equals(storeId)
+                    && entry.getEntryTime().isAfter(after)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void enqueue(StoreEntry entry) {
+        pending.add(entry);
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.remove(entry);
+            failedEntries.increment();
+            log.error("Interrupted while queueing store entry for courier {}, entry dropped", entry.getCourierId());
+        }
+    }
+
+    private void runFlusher() {
+        List<StoreEntry> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void collectBatch(List<StoreEntry> batch) throws InterruptedException {
+        StoreEntry first = queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + flushInterval.toNanos();
+        while (batch.size() < batchSize) {
+            queue.drainTo(batch, batchSize - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= batchSize || remaining <= 0 || !running) {
+                return;
+            }
+            StoreEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    private void flush(List<StoreEntry> batch) {
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    flushTimer.record(() -> transactionTemplate.executeWithoutResult(
+                            status -> storeEntryRepository.batchInsert(batch)));
+                    log.debug("Persisted {} store entries", batch.size());
+                    return;
+                } catch (RuntimeException e) {
+                    if (!running) {
+                        failedEntries.increment(batch.size());
+                        log.error("Dropping {} store entries whose flush failed during shutdown", batch.size(), e);
+                        return;
+                    }
+                    log.warn("Flush of {} store entries failed (attempt {}), retrying", batch.size(), attempt, e);
+                    try {
+                        Thread.sleep(Math.min(RETRY_BACKOFF_MILLIS * attempt, MAX_RETRY_BACKOFF_MILLIS));
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        failedEntries.increment(batch.size());
+                        log.error("Dropping {} store entries, flusher interrupted while retrying", batch.size());
+                        return;
+                    }
+                }
+            }
+        } finally {
+            batch.forEach(pending::remove);
+        }
+    }
+}
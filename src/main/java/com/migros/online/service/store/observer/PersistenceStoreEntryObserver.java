@@ -1,17 +1,18 @@
 package com.migros.online.service.store.observer;
 
-import com.migros.online.entity.Store;
 import com.migros.online.entity.StoreEntry;
 import com.migros.online.repository.StoreEntryRepository;
 import com.migros.online.repository.StoreRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "courier-tracker.store-entry-persistence", name = "mode", havingValue = "direct", matchIfMissing = true)
 public class PersistenceStoreEntryObserver implements StoreEntryObserver {
 
     private final StoreEntryRepository storeEntryRepository;
@@ -20,12 +21,9 @@ public class PersistenceStoreEntryObserver implements StoreEntryObserver {
     @Override
     @Transactional
     public void onStoreEntry(StoreEntryEvent event) {
-        Store store = storeRepository.findById(event.getStore().getId())
-                .orElseThrow(() -> new RuntimeException("Store not found"));
-        
         StoreEntry entry = StoreEntry.builder()
                 .courierId(event.getCourierId())
-                .store(store)
+                .store(storeRepository.getReferenceById(event.getStore().getId()))
                 .entryTime(event.getEntryTime())
                 .distanceFromStore(event.getDistanceFromStore())
                 .build();
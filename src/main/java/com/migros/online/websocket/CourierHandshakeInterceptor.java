@@ -0,0 +1,90 @@
+package com.migros.online.websocket;
+
+import com.migros.online.codec.CourierLocationBinaryCodec;
+import com.migros.online.config.CourierTrackerProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Authenticates a device once, when its ingest connection is opened. The courier id is taken from
+ * the {@code courierId} query parameter and bound to the session; every frame on the connection
+ * must be for that courier. The request must also carry {@code courier-tracker.websocket.auth-token}
+ * as a bearer token; while no token is configured every connection is refused.
+ */
+@Slf4j
+@Component
+public class CourierHandshakeInterceptor implements HandshakeInterceptor {
+
+    static final String COURIER_ID_ATTRIBUTE = "courierId";
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final byte[] authToken;
+
+    public CourierHandshakeInterceptor(CourierTrackerProperties properties) {
+        String token = properties.getWebsocket().getAuthToken();
+        this.authToken = token == null || token.isEmpty() ? null : token.getBytes(StandardCharsets.UTF_8);
+        if (authToken == null) {
+            log.warn("No WebSocket auth token configured, ingest connections will be refused");
+        }
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        if (authToken == null || !hasValidToken(request)) {
+            log.warn("Rejected ingest connection from {}: missing or invalid token", request.getRemoteAddress());
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+
+        String courierId = request instanceof ServletServerHttpRequest servletRequest
+                ? servletRequest.getServletRequest().getParameter(COURIER_ID_ATTRIBUTE)
+                : null;
+        UUID parsed = parseCourierId(courierId);
+        if (parsed == null) {
+            response.setStatusCode(HttpStatus.BAD_REQUEST);
+            return false;
+        }
+        attributes.put(COURIER_ID_ATTRIBUTE, parsed.toString());
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private boolean hasValidToken(ServerHttpRequest request) {
+        String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        byte[] presented = header.substring(BEARER_PREFIX.length()).getBytes(StandardCharsets.UTF_8);
+        return MessageDigest.isEqual(authToken, presented);
+    }
+
+    private static UUID parseCourierId(String courierId) {
+        if (courierId == null) {
+            return null;
+        }
+        try {
+            UUID parsed = UUID.fromString(courierId);
+            return CourierLocationBinaryCodec.isValidCourierId(parsed) ? parsed : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
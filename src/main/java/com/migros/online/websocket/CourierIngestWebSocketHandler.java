@@ -0,0 +1,131 @@
+package com.migros.online.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.migros.online.codec.CourierLocationBinaryCodec;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.dto.request.CourierLocationFrame;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationBatchResponse;
+import com.migros.online.dto.response.IngestAck;
+import com.migros.online.exception.IngestBackpressureException;
+import com.migros.online.exception.InvalidLocationFrameException;
+import com.migros.online.service.courier.CourierIngestService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.BinaryWebSocketHandler;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived ingest channel for courier devices. Each binary message is a
+ * {@link CourierLocationBinaryCodec} frame for the courier the connection was opened for; it goes
+ * through {@link CourierIngestService#processLocations} like the REST batch endpoint and is
+ * answered with an {@link IngestAck} text message. A malformed frame or a frame for another
+ * courier closes the connection; a full write queue is reported in the ack and the device may
+ * resend.
+ */
+@Slf4j
+@Component
+public class CourierIngestWebSocketHandler extends BinaryWebSocketHandler {
+
+    private static final String SEQUENCE_ATTRIBUTE = "ingestSequence";
+
+    private final CourierIngestService ingestService;
+    private final ObjectMapper objectMapper;
+    private final CourierLocationBinaryCodec codec = new CourierLocationBinaryCodec(ZoneId.systemDefault());
+    private final Duration idleTimeout;
+    private final AtomicInteger openSessions = new AtomicInteger();
+
+    public CourierIngestWebSocketHandler(CourierIngestService ingestService,
+                                         ObjectMapper objectMapper,
+                                         MeterRegistry meterRegistry,
+                                         CourierTrackerProperties properties) {
+        this.ingestService = ingestService;
+        this.objectMapper = objectMapper;
+        this.idleTimeout = properties.getWebsocket().getIdleTimeout();
+        Gauge.builder("courier.ingest.websocket.sessions", openSessions, AtomicInteger::get)
+                .description("Open WebSocket ingest connections")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        session.getAttributes().put(SEQUENCE_ATTRIBUTE, new AtomicLong());
+        // The container default of 8 KB would split a full frame across messages
+        session.setBinaryMessageSizeLimit(CourierLocationBinaryCodec.MAX_FRAME_BYTES);
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session container = nativeSession.getNativeSession(Session.class);
+            if (container != null) {
+                container.setMaxIdleTimeout(idleTimeout.toMillis());
+            }
+        }
+        openSessions.incrementAndGet();
+        log.debug("Ingest connection opened for courier {}", courierId(session));
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        openSessions.decrementAndGet();
+        log.debug("Ingest connection closed for courier {}: {}", courierId(session), status);
+    }
+
+    @Override
+    protected void handleBinaryMessage(WebSocketSession session, BinaryMessage message) throws IOException {
+        long seq = ((AtomicLong) session.getAttributes().get(SEQUENCE_ATTRIBUTE)).incrementAndGet();
+
+        CourierLocationFrame frame;
+        try {
+            frame = codec.decode(message.getPayload());
+        } catch (InvalidLocationFrameException e) {
+            log.warn("Closing ingest connection for courier {}: {}", courierId(session), e.getMessage());
+            session.close(CloseStatus.BAD_DATA.withReason(e.getMessage()));
+            return;
+        }
+        String courierId = courierId(session);
+        for (CourierLocationRequest location : frame.locations()) {
+            if (!courierId.equals(location.getCourierId())) {
+                log.warn("Closing ingest connection for courier {}: frame for courier {}", courierId, location.getCourierId());
+                session.close(CloseStatus.POLICY_VIOLATION.withReason("Frame contains locations for another courier"));
+                return;
+            }
+        }
+
+        IngestAck ack;
+        try {
+            CourierLocationBatchResponse response = ingestService.processLocations(frame.locations());
+            ack = IngestAck.builder()
+                    .seq(seq)
+                    .accepted(response.getProcessedCount())
+                    .storeEntries(response.getStoreEntries().stream()
+                            .map(entry -> IngestAck.StoreEntryNotice.builder()
+                                    .storeName(entry.getStoreName())
+                                    .entryTime(entry.getEntryTime())
+                                    .distanceFromStore(entry.getDistanceFromStore())
+                                    .build())
+                            .toList())
+                    .build();
+        } catch (IngestBackpressureException e) {
+            ack = IngestAck.builder()
+                    .seq(seq)
+                    .error(e.getMessage())
+                    .build();
+        }
+        session.sendMessage(new TextMessage(objectMapper.writeValueAsBytes(ack)));
+    }
+
+    private static String courierId(WebSocketSession session) {
+        return (String) session.getAttributes().get(CourierHandshakeInterceptor.COURIER_ID_ATTRIBUTE);
+    }
+}
@@ -0,0 +1,40 @@
+-- Schema as previously generated by Hibernate from the entity mappings
+
+CREATE SEQUENCE stores_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE courier_locations_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE store_entries_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE stores (
+    id         BIGINT       NOT NULL,
+    name       VARCHAR(255) NOT NULL,
+    latitude   FLOAT(53)    NOT NULL,
+    longitude  FLOAT(53)    NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_stores PRIMARY KEY (id)
+);
+
+CREATE TABLE courier_locations (
+    id         BIGINT       NOT NULL,
+    courier_id VARCHAR(255) NOT NULL,
+    latitude   FLOAT(53)    NOT NULL,
+    longitude  FLOAT(53)    NOT NULL,
+    timestamp  TIMESTAMP(6) NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_courier_locations PRIMARY KEY (id)
+);
+
+CREATE TABLE store_entries (
+    id                  BIGINT       NOT NULL,
+    courier_id          VARCHAR(255) NOT NULL,
+    store_id            BIGINT       NOT NULL,
+    entry_time          TIMESTAMP(6) NOT NULL,
+    distance_from_store FLOAT(53),
+    created_at          TIMESTAMP(6) NOT NULL,
+    CONSTRAINT pk_store_entries PRIMARY KEY (id)
+);
+
+-- Named index for entries by store; created first so the foreign key uses it instead of
+-- an index of its own
+CREATE INDEX idx_store_entries_store ON store_entries (store_id);
+
+ALTER TABLE store_entries ADD CONSTRAINT fk_store_entries_store FOREIGN KEY (store_id) REFERENCES stores (id);
@@ -0,0 +1,20 @@
+-- Composite indexes for the repository queries on the ingest and read paths.
+-- Column order follows each query: equality columns first, then the range/sort column,
+-- then id as the keyset tie-breaker. Entries by store use idx_store_entries_store from V1,
+-- which also backs the store_id foreign key. QueryPlanTest fails if a query stops using them.
+
+-- Track reads, keyset pages, neighbour lookups for out-of-order points,
+-- and the per-courier MAX(timestamp) subquery
+CREATE INDEX idx_courier_locations_courier_timestamp ON courier_locations (courier_id, timestamp, id);
+
+-- Cache warm-up: locations reported since a cutoff
+CREATE INDEX idx_courier_locations_timestamp ON courier_locations (timestamp);
+
+-- Re-entry cooldown check and per-courier counts
+CREATE INDEX idx_store_entries_courier_store_time ON store_entries (courier_id, store_id, entry_time);
+
+-- Per-courier entry history, newest first
+CREATE INDEX idx_store_entries_courier_time ON store_entries (courier_id, entry_time);
+
+-- Time-range reads and export
+CREATE INDEX idx_store_entries_entry_time ON store_entries (entry_time, id);
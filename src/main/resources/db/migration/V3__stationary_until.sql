@@ -0,0 +1,3 @@
+-- End of a stationary period: later fixes within the suppression envelope of this row are
+-- merged into it instead of being stored. NULL when no fix was merged.
+ALTER TABLE courier_locations ADD COLUMN stationary_until TIMESTAMP(6);
@@ -0,0 +1,20 @@
+-- Sealed courier tracks: one row per courier and time bucket holding the bucket's points in the
+-- compressed TrackSegmentCodec format. Rows are moved here from courier_locations once their
+-- bucket is older than courier-tracker.track-storage.seal-after.
+
+CREATE SEQUENCE courier_track_segments_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE courier_track_segments (
+    id              BIGINT         NOT NULL,
+    courier_id      VARCHAR(255)   NOT NULL,
+    bucket_start    TIMESTAMP(6)   NOT NULL,
+    first_timestamp TIMESTAMP(6)   NOT NULL,
+    last_timestamp  TIMESTAMP(6)   NOT NULL,
+    point_count     INTEGER        NOT NULL,
+    data            VARBINARY      NOT NULL,
+    created_at      TIMESTAMP(6)   NOT NULL,
+    CONSTRAINT pk_courier_track_segments PRIMARY KEY (id)
+);
+
+-- Segment lookup when sealing, and track reads and neighbour lookups in bucket order
+CREATE UNIQUE INDEX idx_courier_track_segments_courier_bucket ON courier_track_segments (courier_id, bucket_start);
@@ -0,0 +1,53 @@
+package com.migros.online;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@DisplayName("Prometheus Endpoint Integration Tests")
+class PrometheusEndpointTest {
+
+    private static final String COURIER_ID = "3f1c2a9e-5b7d-4c1e-9a2f-6d8e4b0c7a15";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    @DisplayName("Should expose ingest metrics without courier tags")
+    void shouldExposeIngestMetricsWithoutCourierTags() throws Exception {
+        String body = """
+                {"courierId":"%s","lat":40.9923307,"lng":29.1244229,"time":"%s"}
+                """.formatted(COURIER_ID, LocalDateTime.now().withNano(0));
+        mockMvc.perform(post("/api/v1/courier/location")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue(scrape.contains("courier_ingest_stage_seconds_bucket{"), "stage histogram");
+        assertTrue(scrape.contains("stage=\"store_scan\""), "store scan stage");
+        assertTrue(scrape.contains("courier_ingest_points_total"), "points counter");
+        assertTrue(scrape.contains("courier_ingest_store_entries_total"), "store entries counter");
+        assertTrue(scrape.contains("store_entry_observer_seconds_count{"), "observer timer");
+        assertTrue(scrape.contains("courier_latest_location_couriers"), "latest location gauge");
+        assertFalse(scrape.contains(COURIER_ID), "courier id must not appear in metrics");
+    }
+}
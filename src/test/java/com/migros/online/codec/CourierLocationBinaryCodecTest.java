@@ -0,0 +1,155 @@
+package com.migros.online.codec;
+
+import com.migros.online.dto.request.CourierLocationFrame;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.exception.InvalidLocationFrameException;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CourierLocationBinaryCodec Unit Tests")
+class CourierLocationBinaryCodecTest {
+
+    private static final String COURIER_ID = "550e8400-e29b-41d4-a716-446655440000";
+
+    private final CourierLocationBinaryCodec codec = new CourierLocationBinaryCodec(ZoneId.of("Europe/Istanbul"));
+
+    @Test
+    @DisplayName("Should round-trip locations at 7 decimal places and millisecond precision")
+    void shouldRoundTripLocations() {
+        List<CourierLocationRequest> locations = List.of(
+                location(40.9923307, 29.1244229, LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_000_000)),
+                location(-89.9999999, -179.9999999, LocalDateTime.of(1999, 12, 31, 23, 59, 59)));
+
+        CourierLocationFrame frame = codec.decode(ByteBuffer.wrap(codec.encode(locations)));
+
+        assertEquals(locations, frame.locations());
+    }
+
+    @Test
+    @DisplayName("Should encode each location in 32 bytes after an 8 byte header")
+    void shouldEncodeCompactly() {
+        byte[] encoded = codec.encode(Collections.nCopies(100, location(40.99, 29.12, LocalDateTime.of(2024, 5, 1, 12, 0))));
+
+        assertEquals(8 + 100 * 32, encoded.length);
+    }
+
+    @Test
+    @DisplayName("Should interpret timestamps in the configured zone")
+    void shouldInterpretTimestampsInConfiguredZone() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 12, 0);
+        byte[] encoded = codec.encode(List.of(location(40.99, 29.12, time)));
+
+        long epochMillis = ByteBuffer.wrap(encoded).getLong(8 + 24);
+
+        assertEquals(time.toInstant(ZoneOffset.ofHours(3)).toEpochMilli(), epochMillis);
+    }
+
+    @Test
+    @DisplayName("Should reject frame with wrong magic")
+    void shouldRejectWrongMagic() {
+        byte[] encoded = codec.encode(List.of(location(40.99, 29.12, LocalDateTime.now())));
+        encoded[0] = '{';
+
+        InvalidLocationFrameException ex = assertThrows(InvalidLocationFrameException.class,
+                () -> codec.decode(ByteBuffer.wrap(encoded)));
+        assertEquals("Not a courier location frame", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should reject truncated frame")
+    void shouldRejectTruncatedFrame() {
+        byte[] encoded = codec.encode(List.of(location(40.99, 29.12, LocalDateTime.now())));
+
+        assertThrows(InvalidLocationFrameException.class,
+                () -> codec.decode(ByteBuffer.wrap(encoded, 0, encoded.length - 1)));
+        assertThrows(InvalidLocationFrameException.class,
+                () -> codec.decode(ByteBuffer.wrap(encoded, 0, 4)));
+    }
+
+    @Test
+    @DisplayName("Should reject empty and oversized frames")
+    void shouldRejectEmptyAndOversizedFrames() {
+        List<CourierLocationRequest> tooMany = IntStream.range(0, CourierLocationBinaryCodec.MAX_LOCATIONS_PER_FRAME + 1)
+                .mapToObj(i -> location(40.99, 29.12, LocalDateTime.now()))
+                .toList();
+
+        assertThrows(InvalidLocationFrameException.class,
+                () -> codec.decode(ByteBuffer.wrap(codec.encode(Collections.emptyList()))));
+        assertThrows(InvalidLocationFrameException.class,
+                () -> codec.decode(ByteBuffer.wrap(codec.encode(tooMany))));
+    }
+
+    @Test
+    @DisplayName("Should reject out of range coordinates")
+    void shouldRejectOutOfRangeCoordinates() {
+        byte[] encoded = codec.encode(List.of(location(40.99, 29.12, LocalDateTime.now())));
+        ByteBuffer.wrap(encoded).putInt(8 + 16, 900_000_001);
+
+        InvalidLocationFrameException ex = assertThrows(InvalidLocationFrameException.class,
+                () -> codec.decode(ByteBuffer.wrap(encoded)));
+        assertEquals("Location 0: latitude must be between -90 and 90", ex.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should reject version 0 courier IDs")
+    void shouldRejectVersionZeroCourierIds() {
+        byte[] encoded = codec.encode(List.of(location(40.99, 29.12, LocalDateTime.now())));
+        ByteBuffer.wrap(encoded).putLong(8, 0x1234_5678_9ABC_0DEFL);
+
+        assertThrows(InvalidLocationFrameException.class, () -> codec.decode(ByteBuffer.wrap(encoded)));
+    }
+
+    @Test
+    @DisplayName("Should accept and reject the same courier IDs as JSON validation")
+    void shouldMatchJsonCourierIdValidation() {
+        try (ValidatorFactory validatorFactory = Validation.buildDefaultValidatorFactory()) {
+            Validator validator = validatorFactory.getValidator();
+            List<String> courierIds = List.of(
+                    COURIER_ID,
+                    "00000000-0000-0000-0000-000000000000",
+                    "550e8400-e29b-11d4-a716-446655440000",
+                    "550e8400-e29b-61d4-a716-446655440000",
+                    "550e8400-e29b-f1d4-a716-446655440000",
+                    "550e8400-e29b-41d4-0716-446655440000",
+                    "550e8400-e29b-41d4-c716-446655440000",
+                    "550e8400-e29b-41d4-e716-446655440000");
+
+            for (String courierId : courierIds) {
+                CourierLocationRequest request = location(40.99, 29.12, LocalDateTime.now());
+                request.setCourierId(courierId);
+                boolean validAsJson = validator.validateProperty(request, "courierId").isEmpty();
+
+                byte[] encoded = codec.encode(List.of(request));
+                if (validAsJson) {
+                    CourierLocationFrame frame = assertDoesNotThrow(() -> codec.decode(ByteBuffer.wrap(encoded)), courierId);
+                    assertEquals(courierId, frame.locations().get(0).getCourierId());
+                } else {
+                    assertThrows(InvalidLocationFrameException.class, () -> codec.decode(ByteBuffer.wrap(encoded)),
+                            courierId);
+                }
+            }
+        }
+    }
+
+    private static CourierLocationRequest location(double lat, double lng, LocalDateTime time) {
+        return CourierLocationRequest.builder()
+                .courierId(COURIER_ID)
+                .lat(lat)
+                .lng(lng)
+                .time(time)
+                .build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.migros.online.codec;
+
+import com.migros.online.entity.CourierLocation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TrackSegmentCodec Unit Tests")
+class TrackSegmentCodecTest {
+
+    private static final String COURIER_ID = "550e8400-e29b-41d4-a716-446655440000";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Test
+    @DisplayName("Should round-trip points exactly")
+    void shouldRoundTripPointsExactly() {
+        List<CourierLocation> points = List.of(
+                point(1001L, 40.9923307, 29.1244229, START, null),
+                point(1050L, 40.9923310, 29.1244201, START.plusSeconds(5).plusNanos(123_456_000), START.plusSeconds(40)),
+                // Not a multiple of 10^-7 degrees: kept as a raw double
+                point(1049L, 40.12345678901, -0.1, START.plusSeconds(10), null),
+                point(2000L, -89.9999999, -179.9999999, START.plusSeconds(11), null),
+                point(2001L, 0.0, 180.0, LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000), null));
+
+        assertTrackEquals(points, decodeAll(TrackSegmentCodec.encode(points)));
+    }
+
+    @Test
+    @DisplayName("Should round-trip an empty segment")
+    void shouldRoundTripEmptySegment() {
+        assertFalse(TrackSegmentCodec.decode(COURIER_ID, TrackSegmentCodec.encode(List.of())).hasNext());
+    }
+
+    @Test
+    @DisplayName("Should store a realistic track in at least 5x fewer bytes than its rows")
+    void shouldCompressRealisticTrackAtLeastFiveFold() {
+        List<CourierLocation> track = realisticTrack(720);
+
+        byte[] encoded = TrackSegmentCodec.encode(track);
+
+        assertAtLeastFiveFold(encoded, track.size());
+        assertTrackEquals(track, decodeAll(encoded));
+    }
+
+    @Test
+    @DisplayName("Should store a track of full-precision coordinates in 5x fewer bytes once ingest has rounded them")
+    void shouldCompressFullPrecisionTrackRoundedAtIngest() {
+        List<CourierLocation> reported = realisticTrack(720, value -> value);
+        List<CourierLocation> ingested = reported.stream()
+                .map(location -> point(location.getId(), CourierLocationBinaryCodec.roundCoordinate(location.getLat()),
+                        CourierLocationBinaryCodec.roundCoordinate(location.getLng()), location.getTimestamp(),
+                        location.getStationaryUntil()))
+                .toList();
+
+        byte[] encoded = TrackSegmentCodec.encode(ingested);
+
+        assertAtLeastFiveFold(encoded, ingested.size());
+        List<CourierLocation> decoded = decodeAll(encoded);
+        assertTrackEquals(ingested, decoded);
+        // Rounding moves a coordinate by at most half of 10^-7 degrees, about 6 mm
+        for (int i = 0; i < reported.size(); i++) {
+            assertEquals(reported.get(i).getLat(), decoded.get(i).getLat(), 0.5e-7);
+            assertEquals(reported.get(i).getLng(), decoded.get(i).getLng(), 0.5e-7);
+        }
+    }
+
+    @Test
+    @DisplayName("Should decode points lazily")
+    void shouldDecodePointsLazily() {
+        List<CourierLocation> track = realisticTrack(100);
+        byte[] encoded = TrackSegmentCodec.encode(track);
+
+        Iterator<CourierLocation> points = TrackSegmentCodec.decode(COURIER_ID, Arrays.copyOf(encoded, 40));
+
+        // The first points decode from the prefix; the truncation only shows when it is reached
+        assertEquals(track.get(0).getTimestamp(), points.next().getTimestamp());
+        assertThrows(IllegalArgumentException.class, () -> {
+            while (points.hasNext()) {
+                points.next();
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Should reject data of an unknown version")
+    void shouldRejectUnknownVersion() {
+        assertThrows(IllegalArgumentException.class, () -> TrackSegmentCodec.decode(COURIER_ID, new byte[]{9, 0}));
+    }
+
+    @Test
+    @DisplayName("Should convert epoch microseconds both ways")
+    void shouldConvertEpochMicros() {
+        LocalDateTime time = LocalDateTime.of(2024, 5, 1, 12, 0, 0, 123_456_000);
+
+        assertEquals(time, TrackSegmentCodec.fromEpochMicros(TrackSegmentCodec.toEpochMicros(time)));
+        assertEquals(0L, TrackSegmentCodec.toEpochMicros(LocalDateTime.of(1970, 1, 1, 0, 0)));
+    }
+
+    private static List<CourierLocation> realisticTrack(int size) {
+        return realisticTrack(size, CourierLocationBinaryCodec::roundCoordinate);
+    }
+
+    // One fix about every 5 seconds at millisecond precision, moving at roughly 8 m/s with turns
+    // and stops, with ids interleaved with about 200 other couriers; coordinate() sets the precision
+    private static List<CourierLocation> realisticTrack(int size, DoubleUnaryOperator coordinate) {
+        Random random = new Random(42);
+        List<CourierLocation> track = new ArrayList<>(size);
+        long id = 1_000_000;
+        LocalDateTime time = START;
+        double lat = 40.9923307;
+        double lng = 29.1244229;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < size; i++) {
+            boolean stopped = i % 120 > 100;
+            if (!stopped) {
+                heading += random.nextGaussian() * 0.2;
+                lat += Math.cos(heading) * 40 / 111_000;
+                lng += Math.sin(heading) * 40 / 84_000;
+            }
+            LocalDateTime until = stopped && i % 120 == 101 ? time.plusSeconds(60) : null;
+            track.add(point(id, coordinate.applyAsDouble(lat), coordinate.applyAsDouble(lng), time, until));
+            id += 200 + random.nextInt(41) - 20;
+            time = time.plusNanos((5000 + random.nextInt(201) - 100) * 1_000_000L);
+        }
+        return track;
+    }
+
+    private static void assertAtLeastFiveFold(byte[] encoded, int points) {
+        // Column payload of a row: id, courier id, lat, lng, timestamp, created_at; no row or index overhead
+        int rowBytes = 8 + COURIER_ID.getBytes(StandardCharsets.UTF_8).length + 8 + 8 + 8 + 8;
+        double bytesPerPoint = (double) encoded.length / points;
+        assertTrue(rowBytes / bytesPerPoint >= 5.0,
+                () -> String.format("%.2f bytes per point against %d per row", bytesPerPoint, rowBytes));
+    }
+
+    private static List<CourierLocation> decodeAll(byte[] data) {
+        List<CourierLocation> points = new ArrayList<>();
+        TrackSegmentCodec.decode(COURIER_ID, data).forEachRemaining(points::add);
+        return points;
+    }
+
+    private static void assertTrackEquals(List<CourierLocation> expected, List<CourierLocation> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            CourierLocation want = expected.get(i);
+            CourierLocation got = actual.get(i);
+            assertEquals(want.getId(), got.getId(), "id of point " + i);
+            assertEquals(COURIER_ID, got.getCourierId());
+            assertEquals(want.getLat(), got.getLat(), "lat of point " + i);
+            assertEquals(want.getLng(), got.getLng(), "lng of point " + i);
+            assertEquals(want.getTimestamp(), got.getTimestamp(), "timestamp of point " + i);
+            assertEquals(want.getStationaryUntil(), got.getStationaryUntil(), "stationary until of point " + i);
+        }
+    }
+
+    private static CourierLocation point(long id, double lat, double lng, LocalDateTime timestamp, LocalDateTime until) {
+        return CourierLocation.builder()
+                .id(id)
+                .courierId(COURIER_ID)
+                .lat(lat)
+                .lng(lng)
+                .timestamp(timestamp)
+                .stationaryUntil(until)
+                .build();
+    }
+}
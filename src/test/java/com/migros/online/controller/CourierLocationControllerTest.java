@@ -2,9 +2,15 @@ package com.migros.online.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.migros.online.codec.CourierLocationBinaryCodec;
 import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationBatchResponse;
 import com.migros.online.dto.response.CourierLocationResponse;
+import com.migros.online.dto.response.CourierTrackPageResponse;
+import com.migros.online.dto.response.RecentTrailResponse;
+import com.migros.online.dto.response.StoreEntryResponse;
 import com.migros.online.dto.response.TotalDistanceResponse;
+import com.migros.online.service.courier.CourierIngestService;
 import com.migros.online.service.courier.CourierLocationService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -14,15 +20,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -37,6 +50,9 @@ class CourierLocationControllerTest {
     @MockBean
     private CourierLocationService locationService;
 
+    @MockBean
+    private CourierIngestService ingestService;
+
     private ObjectMapper objectMapper;
     private CourierLocationRequest testRequest;
     private CourierLocationResponse testResponse;
@@ -69,7 +85,7 @@ class CourierLocationControllerTest {
     @Test
     @DisplayName("Should report location successfully")
     void shouldReportLocationSuccessfully() throws Exception {
-        when(locationService.processLocation(any(CourierLocationRequest.class))).thenReturn(testResponse);
+        when(ingestService.processLocation(any(CourierLocationRequest.class))).thenReturn(testResponse);
 
         mockMvc.perform(post("/api/v1/courier/location")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -79,7 +95,7 @@ class CourierLocationControllerTest {
                 .andExpect(jsonPath("$.message").value("Location processed successfully"))
                 .andExpect(jsonPath("$.data.courierId").value(TEST_COURIER_ID));
 
-        verify(locationService).processLocation(any(CourierLocationRequest.class));
+        verify(ingestService).processLocation(any(CourierLocationRequest.class));
     }
 
     @Test
@@ -153,6 +169,58 @@ class CourierLocationControllerTest {
                 .andExpect(jsonPath("$.data", hasSize(0)));
     }
 
+    @Test
+    @DisplayName("Should get track page with time range and cursor")
+    void shouldGetTrackPage() throws Exception {
+        CourierTrackPageResponse page = CourierTrackPageResponse.builder()
+                .locations(List.of(testResponse))
+                .nextCursor("next-cursor")
+                .hasMore(true)
+                .build();
+        when(locationService.getCourierTrack(eq(TEST_COURIER_ID), eq(LocalDateTime.of(2024, 5, 1, 12, 0)),
+                isNull(), eq("cursor"), eq(100))).thenReturn(page);
+
+        mockMvc.perform(get("/api/v1/courier/location/courier/" + TEST_COURIER_ID + "/track")
+                        .param("from", "2024-05-01T12:00:00")
+                        .param("cursor", "cursor")
+                        .param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.locations", hasSize(1)))
+                .andExpect(jsonPath("$.data.nextCursor").value("next-cursor"))
+                .andExpect(jsonPath("$.data.hasMore").value(true));
+    }
+
+    @Test
+    @DisplayName("Should return 400 when track page limit is too large")
+    void shouldReturn400WhenTrackLimitIsTooLarge() throws Exception {
+        mockMvc.perform(get("/api/v1/courier/location/courier/" + TEST_COURIER_ID + "/track")
+                        .param("limit", "5000"))
+                .andExpect(status().isBadRequest());
+
+        verify(locationService, never()).getCourierTrack(any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    @DisplayName("Should stream track as JSON array")
+    void shouldStreamTrackAsJsonArray() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<CourierLocationResponse> consumer = invocation.getArgument(3);
+            consumer.accept(testResponse);
+            consumer.accept(testResponse);
+            return null;
+        }).when(locationService).streamCourierTrack(eq(TEST_COURIER_ID), isNull(), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/courier/location/courier/" + TEST_COURIER_ID + "/track/stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].courierId").value(TEST_COURIER_ID));
+    }
+
     @Test
     @DisplayName("Should get latest location")
     void shouldGetLatestLocation() throws Exception {
@@ -175,6 +243,41 @@ class CourierLocationControllerTest {
                 .andExpect(jsonPath("$.message").value("No locations recorded for this courier"));
     }
 
+    @Test
+    @DisplayName("Should get recent trail for the requested window")
+    void shouldGetRecentTrail() throws Exception {
+        RecentTrailResponse trail = RecentTrailResponse.builder()
+                .courierId(TEST_COURIER_ID)
+                .distance(110.0)
+                .points(List.of(
+                        new RecentTrailResponse.Point(40.991, 29.12, LocalDateTime.of(2024, 5, 1, 12, 0)),
+                        new RecentTrailResponse.Point(40.992, 29.12, LocalDateTime.of(2024, 5, 1, 12, 0, 10))))
+                .build();
+        when(locationService.getRecentTrail(TEST_COURIER_ID, Duration.ofMinutes(2))).thenReturn(trail);
+
+        mockMvc.perform(get("/api/v1/courier/location/courier/" + TEST_COURIER_ID + "/trail")
+                        .param("window", "PT2M"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.message").value("Retrieved 2 recent points"))
+                .andExpect(jsonPath("$.data.distance").value(110.0))
+                .andExpect(jsonPath("$.data.points", hasSize(2)))
+                .andExpect(jsonPath("$.data.points[1].lat").value(40.992));
+    }
+
+    @Test
+    @DisplayName("Should use default window when none is given")
+    void shouldGetRecentTrailWithDefaultWindow() throws Exception {
+        when(locationService.getRecentTrail(TEST_COURIER_ID, null)).thenReturn(RecentTrailResponse.builder()
+                .courierId(TEST_COURIER_ID)
+                .distance(0.0)
+                .points(List.of())
+                .build());
+
+        mockMvc.perform(get("/api/v1/courier/location/courier/" + TEST_COURIER_ID + "/trail"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.points", hasSize(0)));
+    }
+
     @Test
     @DisplayName("Should get total travel distance")
     void shouldGetTotalTravelDistance() throws Exception {
@@ -222,7 +325,7 @@ class CourierLocationControllerTest {
                 .message("Location recorded. Entered store radius: Ataşehir MMM Migros")
                 .build();
 
-        when(locationService.processLocation(any(CourierLocationRequest.class))).thenReturn(responseWithEntry);
+        when(ingestService.processLocation(any(CourierLocationRequest.class))).thenReturn(responseWithEntry);
 
         mockMvc.perform(post("/api/v1/courier/location")
                         .contentType(MediaType.APPLICATION_JSON)
@@ -248,5 +351,96 @@ class CourierLocationControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.data", hasSize(3)));
     }
-}
 
+    @Test
+    @DisplayName("Should report location batch successfully")
+    void shouldReportLocationBatchSuccessfully() throws Exception {
+        CourierLocationBatchResponse batchResponse = CourierLocationBatchResponse.builder()
+                .processedCount(2)
+                .courierCount(1)
+                .storeEntries(List.of(StoreEntryResponse.builder()
+                        .courierId(TEST_COURIER_ID)
+                        .storeName("Ataşehir MMM Migros")
+                        .build()))
+                .build();
+        when(ingestService.processLocations(anyList())).thenReturn(batchResponse);
+
+        mockMvc.perform(post("/api/v1/courier/location/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testRequest, testRequest))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.message").value("Processed 2 locations"))
+                .andExpect(jsonPath("$.data.processedCount").value(2))
+                .andExpect(jsonPath("$.data.storeEntries[0].storeName").value("Ataşehir MMM Migros"));
+
+        verify(ingestService).processLocations(anyList());
+    }
+
+    @Test
+    @DisplayName("Should return 400 when batch contains an invalid location")
+    void shouldReturn400WhenBatchContainsInvalidLocation() throws Exception {
+        CourierLocationRequest invalidRequest = CourierLocationRequest.builder()
+                .courierId(TEST_COURIER_ID)
+                .lat(100.0)
+                .lng(29.1244229)
+                .time(LocalDateTime.now())
+                .build();
+
+        mockMvc.perform(post("/api/v1/courier/location/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(testRequest, invalidRequest))))
+                .andExpect(status().isBadRequest());
+
+        verify(ingestService, never()).processLocations(anyList());
+    }
+
+    @Test
+    @DisplayName("Should return 400 when batch is empty")
+    void shouldReturn400WhenBatchIsEmpty() throws Exception {
+        mockMvc.perform(post("/api/v1/courier/location/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest());
+
+        verify(ingestService, never()).processLocations(anyList());
+    }
+
+    @Test
+    @DisplayName("Should report binary location frame through the batch path")
+    void shouldReportBinaryLocationFrame() throws Exception {
+        CourierLocationBatchResponse batchResponse = CourierLocationBatchResponse.builder()
+                .processedCount(2)
+                .courierCount(1)
+                .storeEntries(Collections.emptyList())
+                .build();
+        when(ingestService.processLocations(anyList())).thenReturn(batchResponse);
+        CourierLocationBinaryCodec codec = new CourierLocationBinaryCodec(ZoneId.systemDefault());
+        CourierLocationRequest request = CourierLocationRequest.builder()
+                .courierId(TEST_COURIER_ID)
+                .lat(40.9923307)
+                .lng(29.1244229)
+                .time(LocalDateTime.of(2024, 5, 1, 12, 0, 0, 250_000_000))
+                .build();
+
+        mockMvc.perform(post("/api/v1/courier/location/batch")
+                        .contentType(CourierLocationBinaryCodec.MEDIA_TYPE_VALUE)
+                        .content(codec.encode(List.of(request, request))))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.processedCount").value(2));
+
+        verify(ingestService).processLocations(List.of(request, request));
+    }
+
+    @Test
+    @DisplayName("Should return 400 for malformed binary frame")
+    void shouldReturn400ForMalformedBinaryFrame() throws Exception {
+        mockMvc.perform(post("/api/v1/courier/location/batch")
+                        .contentType(CourierLocationBinaryCodec.MEDIA_TYPE_VALUE)
+                        .content(new byte[]{0x43, 0x4C, 1, 0, 0, 0, 0, 1, 0, 0}))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Frame length does not match its location count"));
+
+        verify(ingestService, never()).processLocations(anyList());
+    }
+}
@@ -9,14 +9,23 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -149,5 +158,32 @@ class StoreEntryControllerTest {
                 .andExpect(jsonPath("$.data", hasSize(2)))
                 .andExpect(jsonPath("$.message").value(containsString("2 entries")));
     }
-}
 
+    @Test
+    @DisplayName("Should export entries as newline-delimited JSON")
+    void shouldExportEntriesAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<StoreEntryResponse> consumer = invocation.getArgument(3);
+            consumer.accept(testResponse);
+            consumer.accept(testResponse);
+            return null;
+        }).when(storeEntryService).exportEntries(eq(LocalDateTime.of(2024, 5, 1, 0, 0)),
+                eq(LocalDateTime.of(2024, 5, 2, 0, 0)), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/store-entries/export")
+                        .param("from", "2024-05-01T00:00:00")
+                        .param("to", "2024-05-02T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(body.endsWith("\n"));
+        assertTrue(lines[0].startsWith("{") && lines[0].contains("\"storeName\":\"Ataşehir MMM Migros\""));
+    }
+}
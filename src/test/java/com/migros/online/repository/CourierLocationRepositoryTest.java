@@ -0,0 +1,170 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.CourierLocation;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("CourierLocationRepository Integration Tests")
+class CourierLocationRepositoryTest {
+
+    private static final String TEST_COURIER_ID = "550e8400-e29b-41d4-a716-446655440000";
+
+    @Autowired
+    private CourierLocationRepository locationRepository;
+
+    @Test
+    @DisplayName("Should batch insert locations and assign generated ids")
+    void shouldBatchInsertLocationsAndAssignGeneratedIds() {
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        List<CourierLocation> locations = new ArrayList<>();
+        for (int i = 0; i < 1200; i++) {
+            locations.add(CourierLocation.builder()
+                    .courierId(TEST_COURIER_ID)
+                    .lat(40.99 + i * 0.0001)
+                    .lng(29.12)
+                    .timestamp(start.plusSeconds(i))
+                    .build());
+        }
+
+        locationRepository.batchInsert(locations);
+
+        assertTrue(locations.stream().allMatch(location -> location.getId() != null));
+        assertEquals(1200, locations.stream().map(CourierLocation::getId).distinct().count());
+
+        List<CourierLocation> stored = locationRepository.findByCourierIdOrderByTimestampAsc(TEST_COURIER_ID);
+        assertEquals(1200, stored.size());
+        assertEquals(locations.get(0).getId(), stored.get(0).getId());
+        assertNotNull(stored.get(0).getCreatedAt());
+    }
+
+    @Test
+    @DisplayName("Should update stationary period of inserted locations")
+    void shouldUpdateStationaryUntil() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<CourierLocation> locations = List.of(
+                location(TEST_COURIER_ID, now),
+                location(TEST_COURIER_ID, now.plusMinutes(1)));
+        locationRepository.batchInsert(locations);
+
+        locations.get(0).setStationaryUntil(now.plusSeconds(45));
+        locationRepository.updateStationaryUntil(List.of(locations.get(0)));
+
+        List<CourierLocation> stored = locationRepository.findByCourierIdOrderByTimestampAsc(TEST_COURIER_ID);
+        assertEquals(now.plusSeconds(45), stored.get(0).getStationaryUntil());
+        assertNull(stored.get(1).getStationaryUntil());
+    }
+
+    @Test
+    @DisplayName("Should keep reserved ids when batch inserting")
+    void shouldKeepReservedIdsWhenBatchInserting() {
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        long[] reserved = locationRepository.allocateIds(2);
+        CourierLocation withId = location(TEST_COURIER_ID, now);
+        withId.setId(reserved[1]);
+        CourierLocation withoutId = location(TEST_COURIER_ID, now.plusSeconds(1));
+
+        locationRepository.batchInsert(List.of(withId, withoutId));
+
+        assertEquals(reserved[1], withId.getId());
+        assertNotNull(withoutId.getId());
+        assertNotEquals(reserved[0], withoutId.getId());
+        assertEquals(List.of(withId.getId()),
+                locationRepository.findExistingIds(List.of(withId.getId(), reserved[0])));
+    }
+
+    @Test
+    @DisplayName("Should not hand out ids at or below an id advanced past")
+    void shouldAdvanceIdsPast() {
+        long[] reserved = locationRepository.allocateIds(1);
+
+        locationRepository.advanceIdsPast(reserved[0] + 1000);
+
+        assertTrue(locationRepository.allocateIds(1)[0] > reserved[0] + 1000);
+    }
+
+    @Test
+    @DisplayName("Should find latest location per courier active since cutoff")
+    void shouldFindLatestLocationPerCourierSinceCutoff() {
+        LocalDateTime now = LocalDateTime.now();
+        locationRepository.saveAll(List.of(
+                location(TEST_COURIER_ID, now.minusMinutes(10)),
+                location(TEST_COURIER_ID, now.minusMinutes(2)),
+                location("idle-courier", now.minusHours(2))));
+
+        List<CourierLocation> latest = locationRepository.findLatestPerCourierSince(now.minusMinutes(30));
+
+        assertEquals(1, latest.size());
+        assertEquals(TEST_COURIER_ID, latest.get(0).getCourierId());
+        assertEquals(now.minusMinutes(2), latest.get(0).getTimestamp());
+    }
+
+    @Test
+    @DisplayName("Should not reuse ids between JPA saves and batch inserts")
+    void shouldNotReuseIdsBetweenJpaSavesAndBatchInserts() {
+        LocalDateTime now = LocalDateTime.now();
+        List<CourierLocation> all = new ArrayList<>();
+        for (int round = 0; round < 3; round++) {
+            List<CourierLocation> jpa = List.of(location(TEST_COURIER_ID, now), location(TEST_COURIER_ID, now));
+            all.addAll(locationRepository.saveAllAndFlush(jpa));
+
+            List<CourierLocation> batch = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                batch.add(location(TEST_COURIER_ID, now.plusSeconds(i)));
+            }
+            locationRepository.batchInsert(batch);
+            all.addAll(batch);
+        }
+
+        assertEquals(all.size(), all.stream().map(CourierLocation::getId).distinct().count());
+        assertEquals(all.size(), locationRepository.count());
+    }
+
+    @Test
+    @DisplayName("Should page track by timestamp and id without skipping equal timestamps")
+    void shouldPageTrackByTimestampAndId() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<CourierLocation> locations = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            // Pairs of points share a timestamp so the id tie-breaker matters
+            locations.add(location(TEST_COURIER_ID, start.plusSeconds(i / 2)));
+        }
+        locations.add(location("other-courier", start));
+        locationRepository.batchInsert(locations);
+
+        List<Long> seen = new ArrayList<>();
+        LocalDateTime afterTimestamp = start;
+        long afterId = Long.MIN_VALUE;
+        List<CourierLocation> page;
+        do {
+            page = locationRepository.findTrackPage(TEST_COURIER_ID, afterTimestamp, afterId,
+                    start.plusSeconds(4), PageRequest.ofSize(3));
+            page.forEach(location -> seen.add(location.getId()));
+            if (!page.isEmpty()) {
+                afterTimestamp = page.get(page.size() - 1).getTimestamp();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 3);
+
+        List<Long> expected = locations.subList(0, 8).stream().map(CourierLocation::getId).toList();
+        assertEquals(expected, seen);
+    }
+
+    private static CourierLocation location(String courierId, LocalDateTime timestamp) {
+        return CourierLocation.builder()
+                .courierId(courierId)
+                .lat(40.99)
+                .lng(29.12)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -0,0 +1,319 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.entity.Store;
+import com.migros.online.entity.StoreEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Guards the indexes from the V1, V2 and V4 migrations: each hot repository method is run against a
+ * populated schema, and the SQL and parameters it sent are explained and must use the expected
+ * index instead of a table scan.
+ */
+@DataJpaTest
+@DisplayName("Query Plan Regression Tests")
+class QueryPlanTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private CourierLocationRepository locationRepository;
+
+    @Autowired
+    private CourierTrackSegmentRepository segmentRepository;
+
+    @Autowired
+    private StoreEntryRepository storeEntryRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    private Store store;
+
+    @BeforeEach
+    void populate() {
+        List<Store> stores = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            stores.add(storeRepository.saveAndFlush(Store.builder().name("Store " + i).lat(40.99 + i * 0.01).lng(29.12).build()));
+        }
+        store = stores.get(0);
+        List<CourierLocation> locations = new ArrayList<>();
+        List<StoreEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            locations.add(CourierLocation.builder()
+                    .courierId("courier-" + (i % 50))
+                    .lat(40.99)
+                    .lng(29.12)
+                    .timestamp(START.plusSeconds(i))
+                    .build());
+            entries.add(StoreEntry.builder()
+                    .courierId("courier-" + (i % 50))
+                    .store(Store.builder().id(stores.get(i % stores.size()).getId()).build())
+                    .entryTime(START.plusSeconds(i))
+                    .distanceFromStore(42.0)
+                    .build());
+        }
+        locationRepository.batchInsert(locations);
+        storeEntryRepository.batchInsert(entries);
+    }
+
+    @Test
+    @DisplayName("Courier track query should use courier/timestamp index")
+    void courierTrackShouldUseCourierTimestampIndex() {
+        assertUsesIndex("idx_courier_locations_courier_timestamp",
+                () -> locationRepository.findByCourierIdOrderByTimestampAsc("courier-1"));
+    }
+
+    @Test
+    @DisplayName("Keyset track page should use courier/timestamp index")
+    void keysetTrackPageShouldUseCourierTimestampIndex() {
+        assertUsesIndex("idx_courier_locations_courier_timestamp",
+                () -> locationRepository.findTrackPage("courier-1", START.plusMinutes(10), 10L,
+                        START.plusHours(1), PageRequest.ofSize(500)));
+    }
+
+    @Test
+    @DisplayName("Previous and next point lookups should use courier/timestamp index")
+    void neighbourLookupsShouldUseCourierTimestampIndex() {
+        assertUsesIndex("idx_courier_locations_courier_timestamp",
+                () -> locationRepository.findTopByCourierIdAndTimestampLessThanEqualOrderByTimestampDesc(
+                        "courier-1", START.plusMinutes(10)));
+        assertUsesIndex("idx_courier_locations_courier_timestamp",
+                () -> locationRepository.findTopByCourierIdAndTimestampGreaterThanOrderByTimestampAsc(
+                        "courier-1", START.plusMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("Latest location per courier should use timestamp and courier/timestamp indexes")
+    void latestPerCourierShouldUseIndexes() {
+        String plan = assertNoTableScan(() -> locationRepository.findLatestPerCourierSince(START.plusMinutes(30)));
+        assertTrue(plan.contains("IDX_COURIER_LOCATIONS_TIMESTAMP"), plan);
+        assertTrue(plan.contains("IDX_COURIER_LOCATIONS_COURIER_TIMESTAMP"), plan);
+    }
+
+    @Test
+    @DisplayName("Couriers with rows to seal should use timestamp index")
+    void couriersToSealShouldUseTimestampIndex() {
+        assertUsesIndex("idx_courier_locations_timestamp",
+                () -> locationRepository.findCourierIdsWithLocationsBefore(START.plusMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("Track segment reads and neighbour lookups should use courier/bucket index")
+    void trackSegmentReadsShouldUseCourierBucketIndex() {
+        assertUsesIndex("idx_courier_track_segments_courier_bucket",
+                () -> segmentRepository.streamSegments("courier-1", START.plusMinutes(10), START.plusHours(1),
+                        segment -> true));
+        assertUsesIndex("idx_courier_track_segments_courier_bucket",
+                () -> segmentRepository.findFirstByCourierIdAndFirstTimestampLessThanEqualOrderByBucketStartDesc(
+                        "courier-1", START.plusMinutes(10)));
+        assertUsesIndex("idx_courier_track_segments_courier_bucket",
+                () -> segmentRepository.findFirstByCourierIdAndLastTimestampGreaterThanOrderByBucketStartAsc(
+                        "courier-1", START.plusMinutes(10)));
+        assertUsesIndex("idx_courier_track_segments_courier_bucket",
+                () -> segmentRepository.findByCourierIdAndBucketStart("courier-1", START));
+    }
+
+    @Test
+    @DisplayName("Re-entry cooldown check should use courier/store/time index")
+    void cooldownCheckShouldUseCourierStoreTimeIndex() {
+        assertUsesIndex("idx_store_entries_courier_store_time",
+                () -> storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter(
+                        "courier-1", store, START.plusMinutes(10)));
+    }
+
+    @Test
+    @DisplayName("Entries by courier should use a courier-leading index")
+    void entriesByCourierShouldUseCourierIndex() {
+        assertUsesIndex("idx_store_entries_courier_time",
+                () -> storeEntryRepository.findByCourierIdOrderByEntryTimeDesc("courier-1"));
+        assertNoTableScan(() -> storeEntryRepository.countByCourierId("courier-1"));
+    }
+
+    @Test
+    @DisplayName("Entries by store should use the store foreign key index")
+    void entriesByStoreShouldUseStoreIndex() {
+        assertUsesIndex("idx_store_entries_store",
+                () -> storeEntryRepository.findByStoreOrderByEntryTimeDesc(store));
+        assertUsesIndex("idx_store_entries_store",
+                () -> storeEntryRepository.streamEntries(null, null, store.getId(), entry -> {
+                }));
+    }
+
+    @Test
+    @DisplayName("Entry time range and export should use entry time index")
+    void entryTimeRangeShouldUseEntryTimeIndex() {
+        assertUsesIndex("idx_store_entries_entry_time",
+                () -> storeEntryRepository.findByEntryTimeAfter(START.plusMinutes(30)));
+        assertUsesIndex("idx_store_entries_entry_time",
+                () -> storeEntryRepository.streamEntries(START.plusMinutes(10), START.plusMinutes(20), null, entry -> {
+                }));
+    }
+
+    private void assertUsesIndex(String index, Runnable query) {
+        String plan = assertNoTableScan(query);
+        assertTrue(plan.contains(index.toUpperCase()), () -> "Expected " + index + " in plan:\n" + plan);
+    }
+
+    /**
+     * Runs the query, then explains the last SELECT it sent with the parameters it bound.
+     */
+    private String assertNoTableScan(Runnable query) {
+        SqlCapturingDataSource capture = (SqlCapturingDataSource) dataSource;
+        capture.clear();
+        query.run();
+        CapturedStatement statement = capture.lastSelect();
+        assertNotNull(statement, "Query sent no SELECT");
+
+        String plan = jdbcTemplate.query(connection -> {
+            PreparedStatement explain = connection.prepareStatement("EXPLAIN " + statement.sql());
+            statement.bind(explain);
+            return explain;
+        }, rs -> rs.next() ? rs.getString(1) : null);
+        assertNotNull(plan);
+        assertFalse(plan.contains("tableScan"), () -> "Full table scan in plan:\n" + plan);
+        return plan;
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+
+        @Bean
+        static BeanPostProcessor sqlCapturingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource target && !(bean instanceof SqlCapturingDataSource)
+                            ? new SqlCapturingDataSource(target)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Records the SQL of every prepared statement and the parameters bound to it.
+     */
+    static class SqlCapturingDataSource extends DelegatingDataSource {
+
+        private final List<CapturedStatement> statements = Collections.synchronizedList(new ArrayList<>());
+
+        SqlCapturingDataSource(DataSource target) {
+            super(target);
+        }
+
+        void clear() {
+            statements.clear();
+        }
+
+        CapturedStatement lastSelect() {
+            synchronized (statements) {
+                for (int i = statements.size() - 1; i >= 0; i--) {
+                    if (isSelect(statements.get(i).sql())) {
+                        return statements.get(i);
+                    }
+                }
+            }
+            return null;
+        }
+
+        // Hibernate prefixes its statements with the JPQL as a comment
+        private static boolean isSelect(String sql) {
+            String statement = sql.strip();
+            while (statement.startsWith("/*")) {
+                statement = statement.substring(statement.indexOf("*/") + 2).strip();
+            }
+            return statement.regionMatches(true, 0, "select", 0, 6);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return capturing(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return capturing(super.getConnection(username, password));
+        }
+
+        private Connection capturing(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        Object result = invoke(connection, method, args);
+                        if (method.getName().equals("prepareStatement") && args[0] instanceof String sql) {
+                            CapturedStatement statement = new CapturedStatement(sql, new ArrayList<>());
+                            statements.add(statement);
+                            return recording((PreparedStatement) result, statement);
+                        }
+                        return result;
+                    });
+        }
+
+        private static PreparedStatement recording(PreparedStatement target, CapturedStatement statement) {
+            return (PreparedStatement) Proxy.newProxyInstance(SqlCapturingDataSource.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    (proxy, method, args) -> {
+                        // Parameter setters take the parameter index first
+                        if (method.getName().startsWith("set") && args != null && args.length >= 2
+                                && method.getParameterTypes()[0] == int.class) {
+                            statement.bindings().add(new Binding(method, args));
+                        }
+                        return invoke(target, method, args);
+                    });
+        }
+
+        private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    record Binding(Method setter, Object[] args) {
+    }
+
+    record CapturedStatement(String sql, List<Binding> bindings) {
+
+        void bind(PreparedStatement statement) throws SQLException {
+            for (Binding binding : bindings) {
+                try {
+                    binding.setter().invoke(statement, binding.args());
+                } catch (ReflectiveOperationException e) {
+                    throw new SQLException("Could not replay " + binding.setter().getName(), e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.migros.online.repository;
+
+import com.migros.online.entity.Store;
+import com.migros.online.entity.StoreEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@DisplayName("StoreEntryRepository Integration Tests")
+class StoreEntryRepositoryTest {
+
+    @Autowired
+    private StoreEntryRepository storeEntryRepository;
+
+    @Autowired
+    private StoreRepository storeRepository;
+
+    @Test
+    @DisplayName("Should batch insert store entries")
+    void shouldBatchInsertStoreEntries() {
+        Store store = storeRepository.saveAndFlush(Store.builder().name("Ataşehir MMM Migros").lat(40.9923307).lng(29.1244229).build());
+        LocalDateTime start = LocalDateTime.now().minusHours(1);
+        List<StoreEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 750; i++) {
+            entries.add(StoreEntry.builder()
+                    .courierId("courier-" + (i % 10))
+                    .store(Store.builder().id(store.getId()).build())
+                    .entryTime(start.plusSeconds(i))
+                    .distanceFromStore(42.0)
+                    .build());
+        }
+
+        storeEntryRepository.batchInsert(entries);
+
+        assertEquals(750, storeEntryRepository.count());
+        assertEquals(75, storeEntryRepository.countByCourierId("courier-3"));
+        assertEquals(store.getId(), storeEntryRepository.findByStoreOrderByEntryTimeDesc(store).get(0).getStore().getId());
+    }
+
+    @Test
+    @DisplayName("Should stream entries in time range with store names")
+    void shouldStreamEntriesInTimeRangeWithStoreNames() {
+        Store atasehir = storeRepository.saveAndFlush(Store.builder().name("Ataşehir MMM Migros").lat(40.9923307).lng(29.1244229).build());
+        Store novada = storeRepository.saveAndFlush(Store.builder().name("Novada MMM Migros").lat(40.986106).lng(29.1161293).build());
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 0, 0);
+        List<StoreEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 48; i++) {
+            entries.add(StoreEntry.builder()
+                    .courierId("courier-" + (i % 4))
+                    .store(Store.builder().id((i % 2 == 0 ? atasehir : novada).getId()).build())
+                    .entryTime(start.plusHours(i))
+                    .distanceFromStore(42.0)
+                    .build());
+        }
+        storeEntryRepository.batchInsert(entries);
+
+        List<StoreEntry> day = new ArrayList<>();
+        storeEntryRepository.streamEntries(start, start.plusDays(1), null, day::add);
+        List<StoreEntry> novadaDay = new ArrayList<>();
+        storeEntryRepository.streamEntries(start, start.plusDays(1), novada.getId(), novadaDay::add);
+
+        assertEquals(24, day.size());
+        assertEquals(start, day.get(0).getEntryTime());
+        assertEquals("Ataşehir MMM Migros", day.get(0).getStore().getName());
+        assertEquals(12, novadaDay.size());
+        assertTrue(novadaDay.stream().allMatch(entry -> "Novada MMM Migros".equals(entry.getStore().getName())));
+    }
+}
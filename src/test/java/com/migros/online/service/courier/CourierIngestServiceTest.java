@@ -0,0 +1,191 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationBatchResponse;
+import com.migros.online.dto.response.CourierLocationResponse;
+import com.migros.online.dto.response.StoreEntryResponse;
+import com.migros.online.exception.IngestBackpressureException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CourierIngestService Unit Tests")
+class CourierIngestServiceTest {
+
+    private static final String COURIER_A = "550e8400-e29b-41d4-a716-446655440000";
+    private static final String COURIER_B = "550e8400-e29b-41d4-a716-446655440001";
+
+    @Mock
+    private CourierLocationService locationService;
+
+    private CourierProcessingLanes processingLanes;
+    private CourierIngestService ingestService;
+
+    @BeforeEach
+    void setUp() {
+        CourierTrackerProperties properties = new CourierTrackerProperties();
+        properties.getProcessingLanes().setCount(4);
+        processingLanes = new CourierProcessingLanes(new SimpleMeterRegistry(), Thread.ofPlatform().factory(), properties);
+        processingLanes.start();
+        ingestService = new CourierIngestService(locationService, processingLanes);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        processingLanes.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should process single location on the courier's lane")
+    void shouldProcessSingleLocationOnCourierLane() {
+        CourierLocationRequest request = request(COURIER_A, 0);
+        String[] thread = new String[1];
+        when(locationService.processLocation(request)).thenAnswer(invocation -> {
+            thread[0] = Thread.currentThread().getName();
+            return CourierLocationResponse.builder().courierId(COURIER_A).build();
+        });
+
+        CourierLocationResponse response = ingestService.processLocation(request);
+
+        assertEquals(COURIER_A, response.getCourierId());
+        assertEquals("courier-lane-" + processingLanes.laneOf(COURIER_A), thread[0]);
+    }
+
+    @Test
+    @DisplayName("Should round coordinates to the precision of a binary frame")
+    void shouldRoundCoordinatesToBinaryFramePrecision() {
+        CourierLocationRequest request = request(COURIER_A, 0);
+        request.setLat(40.99233071234567);
+        request.setLng(29.12442289999999);
+        CourierLocationRequest batched = request(COURIER_A, 1);
+        batched.setLat(-40.99233075);
+
+        ingestService.processLocation(request);
+        ingestService.processLocations(List.of(batched));
+
+        assertEquals(40.9923307, request.getLat());
+        assertEquals(29.1244229, request.getLng());
+        assertEquals(-40.9923307, batched.getLat());
+    }
+
+    @Test
+    @DisplayName("Should process single-courier batch as one call")
+    void shouldProcessSingleCourierBatchAsOneCall() {
+        List<CourierLocationRequest> requests = List.of(request(COURIER_A, 0), request(COURIER_A, 1));
+        CourierLocationBatchResponse expected = batchResponse(2, List.of());
+        when(locationService.processLocations(requests)).thenReturn(expected);
+
+        assertSame(expected, ingestService.processLocations(requests));
+        verify(locationService).processLocations(requests);
+    }
+
+    @Test
+    @DisplayName("Should split mixed batch per lane and merge results")
+    void shouldSplitMixedBatchPerLane() {
+        String courierC = courierOnLane(processingLanes.laneOf(COURIER_A));
+        CourierLocationRequest a1 = request(COURIER_A, 0);
+        CourierLocationRequest b1 = request(courierB(), 0);
+        CourierLocationRequest c1 = request(courierC, 0);
+        CourierLocationRequest a2 = request(COURIER_A, 1);
+        StoreEntryResponse entry = StoreEntryResponse.builder().courierId(courierB()).storeName("Ataşehir MMM Migros").build();
+        when(locationService.processLocations(List.of(a1, c1, a2))).thenReturn(batchResponse(3, 2, List.of()));
+        when(locationService.processLocations(List.of(b1))).thenReturn(batchResponse(1, 1, List.of(entry)));
+
+        CourierLocationBatchResponse response = ingestService.processLocations(List.of(a1, b1, c1, a2));
+
+        assertEquals(4, response.getProcessedCount());
+        assertEquals(3, response.getCourierCount());
+        assertEquals(List.of(entry), response.getStoreEntries());
+        assertTrue(response.getRejectedCouriers().isEmpty());
+        verify(locationService, times(2)).processLocations(anyList());
+    }
+
+    @Test
+    @DisplayName("Should report couriers of a failed part instead of failing the accepted batch")
+    void shouldReportCouriersOfFailedPart() {
+        String courierB = courierB();
+        when(locationService.processLocations(anyList())).thenAnswer(invocation -> {
+            List<CourierLocationRequest> part = invocation.getArgument(0);
+            if (part.get(0).getCourierId().equals(courierB)) {
+                throw new IngestBackpressureException("Processing lane is full, retry later");
+            }
+            return batchResponse(part.size(), 1, List.of());
+        });
+
+        CourierLocationBatchResponse response = ingestService.processLocations(
+                List.of(request(COURIER_A, 0), request(courierB, 0), request(courierB, 1)));
+
+        assertEquals(1, response.getProcessedCount());
+        assertEquals(2, response.getCourierCount());
+        assertEquals(List.of(courierB), response.getRejectedCouriers());
+    }
+
+    @Test
+    @DisplayName("Should propagate failure when no part was accepted")
+    void shouldPropagateFailureWhenNoPartAccepted() {
+        when(locationService.processLocations(anyList())).thenThrow(new IllegalStateException("Database unavailable"));
+
+        assertThrows(IllegalStateException.class,
+                () -> ingestService.processLocations(List.of(request(COURIER_A, 0), request(courierB(), 0))));
+        verify(locationService, never()).processLocation(any());
+    }
+
+    // A courier on a different lane than COURIER_A
+    private String courierB() {
+        return processingLanes.laneOf(COURIER_B) != processingLanes.laneOf(COURIER_A)
+                ? COURIER_B : courierOnOtherLane(COURIER_A);
+    }
+
+    private String courierOnLane(int lane) {
+        for (int i = 2; ; i++) {
+            String candidate = String.format("550e8400-e29b-41d4-a716-%012d", i);
+            if (processingLanes.laneOf(candidate) == lane) {
+                return candidate;
+            }
+        }
+    }
+
+    private String courierOnOtherLane(String courierId) {
+        for (int i = 2; ; i++) {
+            String candidate = String.format("550e8400-e29b-41d4-a716-%012d", i);
+            if (processingLanes.laneOf(candidate) != processingLanes.laneOf(courierId)) {
+                return candidate;
+            }
+        }
+    }
+
+    private static CourierLocationBatchResponse batchResponse(int processed, List<StoreEntryResponse> entries) {
+        return batchResponse(processed, 1, entries);
+    }
+
+    private static CourierLocationBatchResponse batchResponse(int processed, int couriers, List<StoreEntryResponse> entries) {
+        return CourierLocationBatchResponse.builder()
+                .processedCount(processed)
+                .courierCount(couriers)
+                .storeEntries(entries)
+                .build();
+    }
+    private static CourierLocationRequest request(String courierId, int offsetSeconds) {
+        return CourierLocationRequest.builder()
+                .courierId(courierId)
+                .lat(40.99)
+                .lng(29.12)
+                .time(LocalDateTime.of(2024, 5, 1, 12, 0).plusSeconds(offsetSeconds))
+                .build();
+    }
+}
@@ -0,0 +1,99 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.repository.CourierLocationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CourierLatestLocationCache Unit Tests")
+class CourierLatestLocationCacheTest {
+
+    private static final String COURIER_ID = "test-courier-1";
+
+    @Mock
+    private CourierLocationRepository locationRepository;
+
+    private CourierLatestLocationCache cache;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        cache = new CourierLatestLocationCache(locationRepository, new CourierTrackerProperties());
+        start = LocalDateTime.of(2024, 5, 1, 12, 0);
+    }
+
+    @Test
+    @DisplayName("Should return empty for unknown courier")
+    void shouldReturnEmptyForUnknownCourier() {
+        assertTrue(cache.get("unknown-courier").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep newest location by event time")
+    void shouldKeepNewestLocationByEventTime() {
+        CourierLocation newer = location(1L, start.plusMinutes(5));
+        CourierLocation older = location(2L, start);
+
+        cache.update(newer);
+        cache.update(older);
+
+        Optional<CourierLocation> latest = cache.get(COURIER_ID);
+        assertTrue(latest.isPresent());
+        assertEquals(1L, latest.get().getId());
+    }
+
+    @Test
+    @DisplayName("Should replace location with a newer fix")
+    void shouldReplaceLocationWithNewerFix() {
+        cache.update(location(1L, start));
+        cache.update(location(2L, start.plusSeconds(10)));
+
+        assertEquals(2L, cache.get(COURIER_ID).orElseThrow().getId());
+    }
+
+    @Test
+    @DisplayName("Should warm up from latest stored location per courier")
+    void shouldWarmUpFromLatestStoredLocations() {
+        when(locationRepository.findLatestPerCourierSince(any())).thenReturn(List.of(location(7L, start)));
+
+        cache.warmUp();
+
+        assertEquals(7L, cache.get(COURIER_ID).orElseThrow().getId());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should handle warm up with no recent locations")
+    void shouldHandleWarmUpWithNoRecentLocations() {
+        when(locationRepository.findLatestPerCourierSince(any())).thenReturn(Collections.emptyList());
+
+        cache.warmUp();
+
+        assertEquals(0, cache.size());
+    }
+
+    private static CourierLocation location(Long id, LocalDateTime timestamp) {
+        return CourierLocation.builder()
+                .id(id)
+                .courierId(COURIER_ID)
+                .lat(40.99)
+                .lng(29.12)
+                .timestamp(timestamp)
+                .build();
+    }
+}
@@ -1,35 +1,54 @@
 package com.migros.online.service.courier;
 
+import com.migros.online.codec.TrackSegmentCodec;
+import com.migros.online.config.CourierTrackerProperties;
 import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.CourierLocationBatchResponse;
 import com.migros.online.dto.response.CourierLocationResponse;
+import com.migros.online.dto.response.CourierTrackPageResponse;
+import com.migros.online.dto.response.RecentTrailResponse;
 import com.migros.online.dto.response.TotalDistanceResponse;
 import com.migros.online.entity.CourierLocation;
 import com.migros.online.entity.Store;
+import com.migros.online.exception.InvalidCursorException;
 import com.migros.online.mapper.CourierLocationMapper;
-import com.migros.online.repository.CourierLocationRepository;
-import com.migros.online.repository.StoreEntryRepository;
-import com.migros.online.repository.StoreRepository;
 import com.migros.online.service.distance.DistanceCalculatorService;
+import com.migros.online.service.store.StoreEntryCooldownTracker;
 import com.migros.online.service.store.StoreEntryNotificationService;
+import com.migros.online.service.store.StoreProximityFilter;
+import com.migros.online.service.store.StoreProximityMatch;
+import com.migros.online.service.store.StoreSpatialIndex;
 import com.migros.online.service.store.observer.StoreEntryEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -37,16 +56,13 @@ import static org.mockito.Mockito.*;
 class CourierLocationServiceTest {
 
     @Mock
-    private CourierLocationRepository locationRepository;
+    private StoreEntryCooldownTracker cooldownTracker;
 
     @Mock
-    private StoreEntryRepository storeEntryRepository;
+    private StoreSpatialIndex storeSpatialIndex;
 
     @Mock
-    private StoreRepository storeRepository;
-
-    @Mock
-    private DistanceCalculatorService distanceCalculatorService;
+    private StoreProximityFilter storeProximityFilter;
 
     @Mock
     private StoreEntryNotificationService notificationService;
@@ -54,6 +70,35 @@ class CourierLocationServiceTest {
     @Mock
     private CourierLocationMapper locationMapper;
 
+    @Mock
+    private CourierTravelDistanceTracker travelDistanceTracker;
+
+    @Mock
+    private CourierLatestLocationCache latestLocationCache;
+
+    @Mock
+    private CourierLocationWriter locationWriter;
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Spy
+    private IngestMetrics ingestMetrics = new IngestMetrics(meterRegistry);
+
+    @Spy
+    private CourierReorderBuffer reorderBuffer = new CourierReorderBuffer(meterRegistry, new CourierTrackerProperties());
+
+    @Mock
+    private StationaryPointSuppressor stationarySuppressor;
+
+    @Mock
+    private CourierTrackReader trackReader;
+
+    @Mock
+    private CourierRecentTrail recentTrail;
+
+    @Mock
+    private DistanceCalculatorService distanceCalculatorService;
+
     @InjectMocks
     private CourierLocationService courierLocationService;
 
@@ -64,6 +109,9 @@ class CourierLocationServiceTest {
 
     @BeforeEach
     void setUp() {
+        lenient().when(travelDistanceTracker.recordLocation(anyString(), anyDouble(), anyDouble(), any()))
+                .thenReturn(true);
+
         testRequest = CourierLocationRequest.builder()
                 .courierId("test-courier-1")
                 .lat(40.9923307)
@@ -99,60 +147,27 @@ class CourierLocationServiceTest {
     @DisplayName("Should process location and save to repository")
     void shouldProcessLocationAndSaveToRepository() {
         when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
-        when(locationRepository.save(testLocation)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
         when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
-        when(storeRepository.findAll()).thenReturn(Collections.emptyList());
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.emptyList());
 
         CourierLocationResponse response = courierLocationService.processLocation(testRequest);
 
         assertNotNull(response);
         assertEquals("Location recorded successfully", response.getMessage());
-        verify(locationRepository).save(testLocation);
-    }
-
-    @Test
-    @DisplayName("Should calculate distance from previous location when computing total distance")
-    void shouldCalculateDistanceFromPreviousLocation() {
-        CourierLocation location1 = CourierLocation.builder()
-                .id(1L)
-                .courierId("test-courier-1")
-                .lat(40.99)
-                .lng(29.12)
-                .timestamp(LocalDateTime.now().minusMinutes(5))
-                .build();
-
-        CourierLocation location2 = CourierLocation.builder()
-                .id(2L)
-                .courierId("test-courier-1")
-                .lat(40.9923307)
-                .lng(29.1244229)
-                .timestamp(LocalDateTime.now())
-                .build();
-
-        when(locationRepository.findByCourierIdOrderByTimestampAsc("test-courier-1"))
-                .thenReturn(Arrays.asList(location1, location2));
-        when(distanceCalculatorService.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(500.0);
-
-        courierLocationService.getTotalTravelDistance("test-courier-1");
-
-        verify(distanceCalculatorService).calculateDistance(
-                location1.getLat(), location1.getLng(),
-                location2.getLat(), location2.getLng()
-        );
+        verify(locationWriter).write(testLocation);
     }
 
     @Test
     @DisplayName("Should detect store entry when within 100 meters")
     void shouldDetectStoreEntryWhenWithin100Meters() {
         when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
-        when(locationRepository.save(testLocation)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
         when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
-        when(storeRepository.findAll()).thenReturn(Collections.singletonList(testStore));
-        when(distanceCalculatorService.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(50.0); // Within 100m radius
-        when(storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter(anyString(), any(), any()))
-                .thenReturn(false);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.singletonList(testStore));
+        stubMatches(new StoreProximityMatch(testStore, 50.0)); // Within 100m radius
+        when(cooldownTracker.tryRegisterEntry(anyString(), any(), any()))
+                .thenReturn(true);
 
         CourierLocationResponse response = courierLocationService.processLocation(testRequest);
 
@@ -164,11 +179,10 @@ class CourierLocationServiceTest {
     @DisplayName("Should not log store entry when outside 100 meters")
     void shouldNotLogStoreEntryWhenOutside100Meters() {
         when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
-        when(locationRepository.save(testLocation)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
         when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
-        when(storeRepository.findAll()).thenReturn(Collections.singletonList(testStore));
-        when(distanceCalculatorService.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(150.0); // Outside 100m radius
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.singletonList(testStore));
+        stubMatches(); // Outside 100m radius
 
         CourierLocationResponse response = courierLocationService.processLocation(testRequest);
 
@@ -180,13 +194,12 @@ class CourierLocationServiceTest {
     @DisplayName("Should respect reentry cooldown period")
     void shouldRespectReentryCooldownPeriod() {
         when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
-        when(locationRepository.save(testLocation)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
         when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
-        when(storeRepository.findAll()).thenReturn(Collections.singletonList(testStore));
-        when(distanceCalculatorService.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(50.0);
-        when(storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter(anyString(), any(), any()))
-                .thenReturn(true); // Recent entry exists
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.singletonList(testStore));
+        stubMatches(new StoreProximityMatch(testStore, 50.0));
+        when(cooldownTracker.tryRegisterEntry(anyString(), any(), any()))
+                .thenReturn(false); // Cooldown still active
 
         CourierLocationResponse response = courierLocationService.processLocation(testRequest);
 
@@ -194,14 +207,126 @@ class CourierLocationServiceTest {
         verify(notificationService, never()).notifyObservers(any(StoreEntryEvent.class));
     }
 
+    @Test
+    @DisplayName("Should ignore retried location with the same time")
+    void shouldIgnoreDuplicateLocation() {
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.emptyList());
+
+        courierLocationService.processLocation(testRequest);
+        CourierLocationResponse response = courierLocationService.processLocation(testRequest);
+
+        assertEquals("Duplicate location ignored", response.getMessage());
+        assertNull(response.getId());
+        verify(locationWriter, times(1)).write(any());
+        verify(travelDistanceTracker, times(1)).recordLocation(anyString(), anyDouble(), anyDouble(), any());
+        assertEquals(1.0, meterRegistry.get("courier.reorder.dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should ignore late retry of a location stored before a newer one")
+    void shouldIgnoreLateRetryOfStoredLocation() {
+        CourierLocationRequest newer = CourierLocationRequest.builder()
+                .courierId(testRequest.getCourierId())
+                .lat(40.99)
+                .lng(29.12)
+                .time(testRequest.getTime().plusSeconds(10))
+                .build();
+        CourierLocation newerLocation = CourierLocation.builder().id(2L).courierId(newer.getCourierId())
+                .lat(newer.getLat()).lng(newer.getLng()).timestamp(newer.getTime()).build();
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationMapper.toEntity(newer)).thenReturn(newerLocation);
+        when(locationWriter.write(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(locationMapper.toResponse(any(CourierLocation.class))).thenReturn(testResponse);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.emptyList());
+        courierLocationService.processLocation(testRequest);
+        courierLocationService.processLocation(newer);
+        when(travelDistanceTracker.recordLocation(testRequest.getCourierId(), testRequest.getLat(),
+                testRequest.getLng(), testRequest.getTime())).thenReturn(false);
+
+        CourierLocationResponse response = courierLocationService.processLocation(testRequest);
+
+        assertEquals("Duplicate location ignored", response.getMessage());
+        verify(locationWriter, times(2)).write(any());
+        assertEquals(1.0, meterRegistry.get("courier.reorder.late").counter().count());
+        assertEquals(1.0, meterRegistry.get("courier.reorder.dropped").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should merge stationary location into previous row without storing it")
+    void shouldMergeStationaryLocationIntoPreviousRow() {
+        testLocation.setStationaryUntil(testRequest.getTime());
+        when(stationarySuppressor.tryMerge(eq(testRequest), any())).thenReturn(Optional.of(testLocation));
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+
+        CourierLocationResponse response = courierLocationService.processLocation(testRequest);
+
+        assertEquals("Location merged into stationary period", response.getMessage());
+        verify(latestLocationCache).update(testLocation);
+        verify(locationWriter, never()).write(any());
+        verify(travelDistanceTracker, never()).recordLocation(anyString(), anyDouble(), anyDouble(), any());
+        verify(storeSpatialIndex, never()).findCandidates(anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Should store and scan a stationary fix that moved into a store radius")
+    void shouldStoreStationaryFixThatEnteredStoreRadius() {
+        // The last row is 105 m from the store, the new fix 97 m
+        CourierLocation anchor = CourierLocation.builder()
+                .id(7L)
+                .courierId("test-courier-1")
+                .lat(testStore.getLat() + 105 / 111_195.0)
+                .lng(testStore.getLng())
+                .timestamp(testRequest.getTime().minusSeconds(30))
+                .build();
+        testRequest.setLat(testStore.getLat() + 97 / 111_195.0);
+        testRequest.setLng(testStore.getLng());
+        // The last row was outside every store radius when it was stored
+        when(stationarySuppressor.tryMerge(eq(testRequest), any())).thenAnswer(invocation ->
+                invocation.<Predicate<Set<Long>>>getArgument(1).test(Set.of())
+                        ? Optional.of(anchor) : Optional.empty());
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of(testStore));
+        when(storeProximityFilter.findWithinRadius(eq(testRequest.getLat()), anyDouble(), anyDouble(), anyList()))
+                .thenReturn(List.of(new StoreProximityMatch(testStore, 97.0)));
+        when(cooldownTracker.tryRegisterEntry(anyString(), any(), any())).thenReturn(true);
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+
+        CourierLocationResponse response = courierLocationService.processLocation(testRequest);
+
+        assertTrue(response.getMessage().contains("Ataşehir"));
+        verify(locationWriter).write(testLocation);
+        verify(notificationService).notifyObservers(any(StoreEntryEvent.class));
+        verify(storeSpatialIndex, times(1)).findCandidates(anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Should keep the stores around a stored row for the next stationary check")
+    void shouldKeepStoresOfStoredRowForNextStationaryCheck() {
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of(testStore));
+        when(storeProximityFilter.findWithinRadius(anyDouble(), anyDouble(), anyDouble(), anyList()))
+                .thenReturn(List.of(new StoreProximityMatch(testStore, 40.0)));
+
+        courierLocationService.processLocation(testRequest);
+
+        verify(stationarySuppressor).replaceAnchor(testLocation, Set.of(testStore.getId()));
+        verify(storeSpatialIndex, times(1)).findCandidates(anyDouble(), anyDouble(), anyDouble());
+    }
+
     @Test
     @DisplayName("Should get courier locations")
     void shouldGetCourierLocations() {
-        List<CourierLocation> locations = Arrays.asList(testLocation);
-        List<CourierLocationResponse> responses = Arrays.asList(testResponse);
-
-        when(locationRepository.findByCourierIdOrderByTimestampAsc("test-courier-1")).thenReturn(locations);
-        when(locationMapper.toResponseList(locations)).thenReturn(responses);
+        doAnswer(invocation -> {
+            invocation.<Consumer<CourierLocation>>getArgument(1).accept(testLocation);
+            return null;
+        }).when(trackReader).forEachLocation(eq("test-courier-1"), any());
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
 
         List<CourierLocationResponse> result = courierLocationService.getCourierLocations("test-courier-1");
 
@@ -212,8 +337,7 @@ class CourierLocationServiceTest {
     @Test
     @DisplayName("Should get latest location")
     void shouldGetLatestLocation() {
-        when(locationRepository.findTopByCourierIdOrderByTimestampDesc("test-courier-1"))
-                .thenReturn(Optional.of(testLocation));
+        when(latestLocationCache.get("test-courier-1")).thenReturn(Optional.of(testLocation));
         when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
 
         Optional<CourierLocationResponse> result = courierLocationService.getLatestLocation("test-courier-1");
@@ -225,43 +349,122 @@ class CourierLocationServiceTest {
     @Test
     @DisplayName("Should return empty when no latest location found")
     void shouldReturnEmptyWhenNoLatestLocationFound() {
-        when(locationRepository.findTopByCourierIdOrderByTimestampDesc("unknown-courier"))
-                .thenReturn(Optional.empty());
+        when(latestLocationCache.get("unknown-courier")).thenReturn(Optional.empty());
 
         Optional<CourierLocationResponse> result = courierLocationService.getLatestLocation("unknown-courier");
 
         assertTrue(result.isEmpty());
+        verifyNoInteractions(trackReader);
     }
 
     @Test
-    @DisplayName("Should calculate total travel distance")
-    void shouldCalculateTotalTravelDistance() {
-        CourierLocation location1 = CourierLocation.builder()
-                .id(1L).courierId("test-courier-1").lat(40.99).lng(29.12).timestamp(LocalDateTime.now().minusMinutes(10)).build();
-        CourierLocation location2 = CourierLocation.builder()
-                .id(2L).courierId("test-courier-1").lat(40.98).lng(29.11).timestamp(LocalDateTime.now().minusMinutes(5)).build();
-        CourierLocation location3 = CourierLocation.builder()
-                .id(3L).courierId("test-courier-1").lat(40.97).lng(29.10).timestamp(LocalDateTime.now()).build();
+    @DisplayName("Should update latest location cache with saved location")
+    void shouldUpdateLatestLocationCacheWithSavedLocation() {
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.emptyList());
+
+        courierLocationService.processLocation(testRequest);
+
+        verify(latestLocationCache).update(testLocation);
+    }
 
-        List<CourierLocation> locations = Arrays.asList(location1, location2, location3);
+    @Test
+    @DisplayName("Should record saved location in recent trail")
+    void shouldRecordSavedLocationInRecentTrail() {
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.emptyList());
 
-        when(locationRepository.findByCourierIdOrderByTimestampAsc("test-courier-1")).thenReturn(locations);
-        when(distanceCalculatorService.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(500.0); // 500m between each point
+        courierLocationService.processLocation(testRequest);
+
+        verify(recentTrail).record("test-courier-1", testLocation.getLat(), testLocation.getLng(),
+                testLocation.getTimestamp());
+    }
+
+    @Test
+    @DisplayName("Should build recent trail from the copied points")
+    void shouldBuildRecentTrailFromCopiedPoints() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        Duration window = Duration.ofMinutes(2);
+        when(recentTrail.getPointsPerCourier()).thenReturn(8);
+        when(recentTrail.copyRecent(eq("test-courier-1"), eq(window), any(), any(), any())).thenAnswer(invocation -> {
+            long[] epochMicros = invocation.getArgument(2);
+            double[] lats = invocation.getArgument(3);
+            double[] lngs = invocation.getArgument(4);
+            for (int i = 0; i < 3; i++) {
+                epochMicros[i] = TrackSegmentCodec.toEpochMicros(start.plusSeconds(i * 10L));
+                lats[i] = 40.99 + i * 0.001;
+                lngs[i] = 29.12;
+            }
+            return 3;
+        });
+        doAnswer(invocation -> {
+            double[] legs = invocation.getArgument(2);
+            legs[0] = 110.0;
+            legs[1] = 112.0;
+            return null;
+        }).when(distanceCalculatorService).calculateTrackDistances(any(), any(), any(), eq(3));
+
+        RecentTrailResponse trail = courierLocationService.getRecentTrail("test-courier-1", window);
+
+        assertEquals(222.0, trail.getDistance());
+        assertEquals(3, trail.getPoints().size());
+        assertEquals(start, trail.getPoints().get(0).getTimestamp());
+        assertEquals(40.992, trail.getPoints().get(2).getLat(), 1e-9);
+        verifyNoInteractions(trackReader);
+    }
+
+    @Test
+    @DisplayName("Should use configured window when none is given")
+    void shouldUseConfiguredWindowForRecentTrail() {
+        when(recentTrail.getPointsPerCourier()).thenReturn(8);
+        when(recentTrail.getDefaultWindow()).thenReturn(Duration.ofMinutes(5));
+
+        RecentTrailResponse trail = courierLocationService.getRecentTrail("unknown-courier", null);
+
+        verify(recentTrail).copyRecent(eq("unknown-courier"), eq(Duration.ofMinutes(5)), any(), any(), any());
+        assertTrue(trail.getPoints().isEmpty());
+        assertEquals(0.0, trail.getDistance());
+        verifyNoInteractions(distanceCalculatorService);
+    }
+
+    @Test
+    @DisplayName("Should record location in travel distance tracker before saving")
+    void shouldRecordLocationInTravelDistanceTrackerBeforeSaving() {
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.emptyList());
+
+        courierLocationService.processLocation(testRequest);
+
+        InOrder inOrder = inOrder(travelDistanceTracker, locationWriter);
+        inOrder.verify(travelDistanceTracker).recordLocation(
+                testRequest.getCourierId(), testRequest.getLat(), testRequest.getLng(), testRequest.getTime());
+        inOrder.verify(locationWriter).write(testLocation);
+    }
+
+    @Test
+    @DisplayName("Should calculate total travel distance")
+    void shouldCalculateTotalTravelDistance() {
+        when(travelDistanceTracker.getTotalDistance("test-courier-1")).thenReturn(1000.0);
 
         TotalDistanceResponse result = courierLocationService.getTotalTravelDistance("test-courier-1");
 
         assertNotNull(result);
         assertEquals("test-courier-1", result.getCourierId());
-        assertEquals(1000.0, result.getTotalDistance()); // 2 segments * 500m
-        verify(distanceCalculatorService, times(2)).calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+        assertEquals(1000.0, result.getTotalDistance());
+        assertEquals("1.00 km", result.getFormattedDistance());
+        verifyNoInteractions(trackReader);
     }
 
     @Test
     @DisplayName("Should return zero distance when no locations")
     void shouldReturnZeroDistanceWhenNoLocations() {
-        when(locationRepository.findByCourierIdOrderByTimestampAsc("test-courier-1"))
-                .thenReturn(Collections.emptyList());
+        when(travelDistanceTracker.getTotalDistance("test-courier-1")).thenReturn(0.0);
 
         TotalDistanceResponse result = courierLocationService.getTotalTravelDistance("test-courier-1");
 
@@ -271,29 +474,19 @@ class CourierLocationServiceTest {
     }
 
     @Test
-    @DisplayName("Should return zero distance when single location")
-    void shouldReturnZeroDistanceWhenSingleLocation() {
-        when(locationRepository.findByCourierIdOrderByTimestampAsc("test-courier-1"))
-                .thenReturn(Collections.singletonList(testLocation));
+    @DisplayName("Should format distance in meters when < 1000m")
+    void shouldFormatDistanceInMetersWhenLessThan1000m() {
+        when(travelDistanceTracker.getTotalDistance("test-courier-1")).thenReturn(500.0);
 
         TotalDistanceResponse result = courierLocationService.getTotalTravelDistance("test-courier-1");
 
-        assertNotNull(result);
-        assertEquals(0.0, result.getTotalDistance());
+        assertEquals("500.00 m", result.getFormattedDistance());
     }
 
     @Test
     @DisplayName("Should format distance in kilometers when >= 1000m")
     void shouldFormatDistanceInKilometersWhenGreaterThanOrEqual1000m() {
-        CourierLocation location1 = CourierLocation.builder()
-                .id(1L).courierId("test-courier-1").lat(40.99).lng(29.12).timestamp(LocalDateTime.now().minusMinutes(10)).build();
-        CourierLocation location2 = CourierLocation.builder()
-                .id(2L).courierId("test-courier-1").lat(40.98).lng(29.11).timestamp(LocalDateTime.now()).build();
-
-        when(locationRepository.findByCourierIdOrderByTimestampAsc("test-courier-1"))
-                .thenReturn(Arrays.asList(location1, location2));
-        when(distanceCalculatorService.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(1500.0);
+        when(travelDistanceTracker.getTotalDistance("test-courier-1")).thenReturn(1500.0);
 
         TotalDistanceResponse result = courierLocationService.getTotalTravelDistance("test-courier-1");
 
@@ -303,7 +496,7 @@ class CourierLocationServiceTest {
     @Test
     @DisplayName("Should get location count")
     void shouldGetLocationCount() {
-        when(locationRepository.count()).thenReturn(10L);
+        when(trackReader.countLocations()).thenReturn(10L);
 
         long count = courierLocationService.getLocationCount();
 
@@ -314,13 +507,12 @@ class CourierLocationServiceTest {
     @DisplayName("Should create store entry event with correct data")
     void shouldCreateStoreEntryEventWithCorrectData() {
         when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
-        when(locationRepository.save(testLocation)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
         when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
-        when(storeRepository.findAll()).thenReturn(Collections.singletonList(testStore));
-        when(distanceCalculatorService.calculateDistance(anyDouble(), anyDouble(), anyDouble(), anyDouble()))
-                .thenReturn(50.0);
-        when(storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter(anyString(), any(), any()))
-                .thenReturn(false);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.singletonList(testStore));
+        stubMatches(new StoreProximityMatch(testStore, 50.0));
+        when(cooldownTracker.tryRegisterEntry(anyString(), any(), any()))
+                .thenReturn(true);
 
         courierLocationService.processLocation(testRequest);
 
@@ -333,6 +525,27 @@ class CourierLocationServiceTest {
         assertEquals(50.0, capturedEvent.getDistanceFromStore());
     }
 
+    @Test
+    @DisplayName("Should record ingest stage timers and counters")
+    void shouldRecordIngestStageTimersAndCounters() {
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
+        when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.singletonList(testStore));
+        stubMatches(new StoreProximityMatch(testStore, 50.0));
+        when(cooldownTracker.tryRegisterEntry(anyString(), any(), any()))
+                .thenReturn(true);
+
+        courierLocationService.processLocation(testRequest);
+
+        assertEquals(1.0, meterRegistry.get("courier.ingest.points").counter().count());
+        assertEquals(1.0, meterRegistry.get("courier.ingest.store_entries").counter().count());
+        for (String stage : List.of("travel_distance", "mapping", "location_write", "latest_location",
+                "store_scan", "cooldown_check", "response_mapping")) {
+            assertEquals(1, meterRegistry.get("courier.ingest.stage").tag("stage", stage).timer().count(), stage);
+        }
+    }
+
     @Test
     @DisplayName("Should handle multiple stores proximity check")
     void shouldHandleMultipleStoresProximityCheck() {
@@ -344,20 +557,13 @@ class CourierLocationServiceTest {
                 .build();
 
         when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
-        when(locationRepository.save(testLocation)).thenReturn(testLocation);
+        when(locationWriter.write(testLocation)).thenReturn(testLocation);
         when(locationMapper.toResponse(testLocation)).thenReturn(testResponse);
-        when(storeRepository.findAll()).thenReturn(Arrays.asList(testStore, store2));
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Arrays.asList(testStore, store2));
         // First store is within range, second is not
-        when(distanceCalculatorService.calculateDistance(
-                testRequest.getLat(), testRequest.getLng(),
-                testStore.getLat(), testStore.getLng()))
-                .thenReturn(50.0);
-        when(distanceCalculatorService.calculateDistance(
-                testRequest.getLat(), testRequest.getLng(),
-                store2.getLat(), store2.getLng()))
-                .thenReturn(15000.0);
-        when(storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter(anyString(), eq(testStore), any()))
-                .thenReturn(false);
+        stubMatches(new StoreProximityMatch(testStore, 50.0));
+        when(cooldownTracker.tryRegisterEntry(anyString(), eq(testStore), any()))
+                .thenReturn(true);
 
         CourierLocationResponse response = courierLocationService.processLocation(testRequest);
 
@@ -365,5 +571,109 @@ class CourierLocationServiceTest {
         assertFalse(response.getMessage().contains("Beylikdüzü"));
         verify(notificationService, times(1)).notifyObservers(any(StoreEntryEvent.class));
     }
-}
 
+    @Test
+    @DisplayName("Should persist batch once and detect entries in timestamp order per courier")
+    void shouldPersistBatchOnceAndDetectEntriesInTimestampOrderPerCourier() {
+        LocalDateTime now = LocalDateTime.now();
+        CourierLocationRequest late = CourierLocationRequest.builder()
+                .courierId("test-courier-1").lat(40.9923307).lng(29.1244229).time(now).build();
+        CourierLocationRequest early = CourierLocationRequest.builder()
+                .courierId("test-courier-1").lat(40.99).lng(29.12).time(now.minusMinutes(5)).build();
+        CourierLocationRequest otherCourier = CourierLocationRequest.builder()
+                .courierId("test-courier-2").lat(41.05).lng(29.02).time(now.minusMinutes(10)).build();
+
+        when(locationMapper.toEntity(any(CourierLocationRequest.class))).thenReturn(testLocation);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.emptyList());
+
+        CourierLocationBatchResponse response = courierLocationService.processLocations(List.of(late, otherCourier, early));
+
+        assertEquals(3, response.getProcessedCount());
+        assertEquals(2, response.getCourierCount());
+        assertEquals(3.0, meterRegistry.get("courier.ingest.points").counter().count());
+        assertTrue(response.getStoreEntries().isEmpty());
+        verify(locationWriter).writeAll(anyList());
+        verify(locationWriter, never()).write(any());
+
+        InOrder inOrder = inOrder(storeSpatialIndex);
+        inOrder.verify(storeSpatialIndex).findCandidates(early.getLat(), early.getLng(), CourierLocationService.STORE_RADIUS_METERS);
+        inOrder.verify(storeSpatialIndex).findCandidates(late.getLat(), late.getLng(), CourierLocationService.STORE_RADIUS_METERS);
+        inOrder.verify(storeSpatialIndex).findCandidates(otherCourier.getLat(), otherCourier.getLng(), CourierLocationService.STORE_RADIUS_METERS);
+    }
+
+    @Test
+    @DisplayName("Should report store entries detected in batch")
+    void shouldReportStoreEntriesDetectedInBatch() {
+        when(locationMapper.toEntity(testRequest)).thenReturn(testLocation);
+        when(storeSpatialIndex.findCandidates(anyDouble(), anyDouble(), anyDouble())).thenReturn(Collections.singletonList(testStore));
+        stubMatches(new StoreProximityMatch(testStore, 50.0));
+        when(cooldownTracker.tryRegisterEntry(anyString(), any(), any()))
+                .thenReturn(true);
+
+        CourierLocationBatchResponse response = courierLocationService.processLocations(List.of(testRequest));
+
+        assertEquals(1, response.getStoreEntries().size());
+        assertEquals("Ataşehir MMM Migros", response.getStoreEntries().get(0).getStoreName());
+        assertEquals(50.0, response.getStoreEntries().get(0).getDistanceFromStore());
+        verify(notificationService).notifyObservers(any(StoreEntryEvent.class));
+    }
+
+    @Test
+    @DisplayName("Should return track page with cursor when more rows exist")
+    void shouldReturnTrackPageWithCursorWhenMoreRowsExist() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<CourierLocation> rows = List.of(
+                trackPoint(1L, start), trackPoint(2L, start), trackPoint(3L, start.plusSeconds(1)));
+        when(trackReader.findTrackPage("test-courier-1", start, Long.MIN_VALUE, CourierLocationService.TRACK_END, 3))
+                .thenReturn(rows);
+        when(locationMapper.toResponseList(anyList())).thenAnswer(invocation -> invocation.<List<CourierLocation>>getArgument(0)
+                .stream().map(location -> CourierLocationResponse.builder().id(location.getId()).build()).toList());
+
+        CourierTrackPageResponse page = courierLocationService.getCourierTrack("test-courier-1", start, null, null, 2);
+
+        assertTrue(page.isHasMore());
+        assertEquals(List.of(1L, 2L), page.getLocations().stream().map(CourierLocationResponse::getId).toList());
+        CourierTrackCursor next = CourierTrackCursor.decode(page.getNextCursor());
+        assertEquals(start, next.timestamp());
+        assertEquals(2L, next.id());
+    }
+
+    @Test
+    @DisplayName("Should continue track after cursor position")
+    void shouldContinueTrackAfterCursorPosition() {
+        LocalDateTime start = LocalDateTime.of(2024, 5, 1, 12, 0);
+        String cursor = new CourierTrackCursor(start, 2L).encode();
+        when(trackReader.findTrackPage("test-courier-1", start, 2L, CourierLocationService.TRACK_END, 3))
+                .thenReturn(List.of(trackPoint(3L, start)));
+        when(locationMapper.toResponseList(anyList())).thenReturn(List.of(CourierLocationResponse.builder().id(3L).build()));
+
+        CourierTrackPageResponse page = courierLocationService.getCourierTrack("test-courier-1", null, null, cursor, 2);
+
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+        assertEquals(1, page.getLocations().size());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed track cursor")
+    void shouldRejectMalformedTrackCursor() {
+        assertThrows(InvalidCursorException.class, () ->
+                courierLocationService.getCourierTrack("test-courier-1", null, null, "not-a-cursor", 10));
+        verify(trackReader, never()).findTrackPage(anyString(), any(), anyLong(), any(), anyInt());
+    }
+
+    private static CourierLocation trackPoint(long id, LocalDateTime timestamp) {
+        return CourierLocation.builder()
+                .id(id)
+                .courierId("test-courier-1")
+                .lat(40.99)
+                .lng(29.12)
+                .timestamp(timestamp)
+                .build();
+    }
+
+    private void stubMatches(StoreProximityMatch... matches) {
+        when(storeProximityFilter.findWithinRadius(anyDouble(), anyDouble(), anyDouble(), anyList()))
+                .thenReturn(List.of(matches));
+    }
+}
@@ -0,0 +1,165 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.exception.IngestBackpressureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CourierProcessingLanes Unit Tests")
+class CourierProcessingLanesTest {
+
+    private static final String COURIER_ID = "550e8400-e29b-41d4-a716-446655440000";
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackerProperties properties;
+    private CourierProcessingLanes lanes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CourierTrackerProperties();
+        properties.getProcessingLanes().setCount(4);
+        properties.getProcessingLanes().setOfferTimeout(Duration.ofMillis(10));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (lanes != null) {
+            lanes.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should run one courier's tasks on one thread in submission order")
+    void shouldRunCourierTasksInOrderOnOneThread() {
+        lanes = startLanes();
+        List<Integer> order = new ArrayList<>();
+        List<String> threads = new ArrayList<>();
+
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            int task = i;
+            results.add(lanes.submit(COURIER_ID, () -> {
+                order.add(task);
+                threads.add(Thread.currentThread().getName());
+                return task;
+            }));
+        }
+        results.forEach(lanes::await);
+
+        assertEquals(1000, order.size());
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, order.get(i));
+        }
+        assertEquals(1, threads.stream().distinct().count());
+        assertEquals("courier-lane-" + lanes.laneOf(COURIER_ID), threads.get(0));
+    }
+
+    @Test
+    @DisplayName("Should spread couriers over all lanes")
+    void shouldSpreadCouriersOverAllLanes() {
+        lanes = startLanes();
+        int[] couriersPerLane = new int[lanes.getLaneCount()];
+
+        for (int i = 0; i < 1000; i++) {
+            couriersPerLane[lanes.laneOf(UUID.randomUUID().toString())]++;
+        }
+
+        for (int count : couriersPerLane) {
+            assertTrue(count > 150, "Lane received only " + count + " of 1000 couriers");
+        }
+    }
+
+    @Test
+    @DisplayName("Should rethrow task exception to caller")
+    void shouldRethrowTaskException() {
+        lanes = startLanes();
+
+        IllegalStateException thrown = assertThrows(IllegalStateException.class,
+                () -> lanes.execute(COURIER_ID, () -> {
+                    throw new IllegalStateException("boom");
+                }));
+        assertEquals("boom", thrown.getMessage());
+        assertEquals(42, lanes.execute(COURIER_ID, () -> 42));
+    }
+
+    @Test
+    @DisplayName("Should run nested work for the same lane inline")
+    void shouldRunNestedWorkInline() {
+        lanes = startLanes();
+
+        int result = lanes.execute(COURIER_ID, () -> lanes.execute(COURIER_ID, () -> 7));
+
+        assertEquals(7, result);
+    }
+
+    @Test
+    @DisplayName("Should reject work when lane queue is full")
+    void shouldRejectWorkWhenLaneQueueIsFull() throws InterruptedException {
+        properties.getProcessingLanes().setQueueCapacity(1);
+        lanes = startLanes();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> blocker = lanes.submit(COURIER_ID, () -> {
+            running.countDown();
+            awaitQuietly(release);
+            return null;
+        });
+        assertTrue(running.await(2, TimeUnit.SECONDS));
+        CompletableFuture<Integer> queued = lanes.submit(COURIER_ID, () -> 1);
+
+        assertThrows(IngestBackpressureException.class, () -> lanes.submit(COURIER_ID, () -> 2));
+        int lane = lanes.laneOf(COURIER_ID);
+        assertEquals(1, lanes.getQueueDepth(lane));
+        assertEquals(1.0, meterRegistry.get("courier.ingest.lane.queue.depth")
+                .tag("lane", String.valueOf(lane)).gauge().value());
+        assertEquals(1.0, meterRegistry.get("courier.ingest.lane.rejected").counter().count());
+
+        release.countDown();
+        lanes.await(blocker);
+        assertEquals(1, lanes.await(queued));
+    }
+
+    @Test
+    @DisplayName("Should run work on caller thread when disabled")
+    void shouldRunOnCallerThreadWhenDisabled() {
+        properties.getProcessingLanes().setEnabled(false);
+        lanes = startLanes();
+
+        String thread = lanes.execute(COURIER_ID, () -> Thread.currentThread().getName());
+
+        assertEquals(Thread.currentThread().getName(), thread);
+        assertEquals(0, lanes.getLaneCount());
+        assertEquals(-1, lanes.laneOf(COURIER_ID));
+    }
+
+    private CourierProcessingLanes startLanes() {
+        CourierProcessingLanes started = new CourierProcessingLanes(
+                meterRegistry, Thread.ofPlatform().factory(), properties);
+        started.start();
+        return started;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
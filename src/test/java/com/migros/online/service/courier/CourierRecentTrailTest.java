@@ -0,0 +1,309 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.codec.TrackSegmentCodec;
+import com.migros.online.config.CourierTrackerProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CourierRecentTrail Unit Tests")
+class CourierRecentTrailTest {
+
+    private static final String COURIER_ID = "test-courier-1";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackerProperties properties;
+    private CourierRecentTrail trail;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CourierTrackerProperties();
+        properties.getRecentTrail().setMaxCouriers(4);
+        properties.getRecentTrail().setPointsPerCourier(4);
+        trail = new CourierRecentTrail(meterRegistry, properties);
+    }
+
+    @Test
+    @DisplayName("Should return no points for unknown courier")
+    void shouldReturnNoPointsForUnknownCourier() {
+        assertTrue(recent("unknown-courier", Duration.ofHours(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return points oldest first")
+    void shouldReturnPointsOldestFirst() {
+        trail.record(COURIER_ID, 40.991, 29.12, START);
+        trail.record(COURIER_ID, 40.993, 29.12, START.plusSeconds(20));
+        trail.record(COURIER_ID, 40.992, 29.12, START.plusSeconds(10));
+
+        List<Point> points = recent(COURIER_ID, Duration.ofHours(1));
+
+        assertEquals(List.of(START, START.plusSeconds(10), START.plusSeconds(20)),
+                points.stream().map(Point::timestamp).toList());
+        assertEquals(40.992, points.get(1).lat());
+    }
+
+    @Test
+    @DisplayName("Should replace point with the same timestamp")
+    void shouldReplacePointWithSameTimestamp() {
+        trail.record(COURIER_ID, 40.991, 29.12, START);
+        trail.record(COURIER_ID, 40.995, 29.13, START);
+
+        assertEquals(List.of(new Point(START, 40.995, 29.13)), recent(COURIER_ID, Duration.ofHours(1)));
+    }
+
+    @Test
+    @DisplayName("Should overwrite oldest points when the slot is full")
+    void shouldOverwriteOldestPointsWhenFull() {
+        for (int i = 0; i < 6; i++) {
+            trail.record(COURIER_ID, 40.99 + i * 0.001, 29.12, START.plusSeconds(i * 10L));
+        }
+        // Older than every point kept
+        trail.record(COURIER_ID, 40.98, 29.12, START.minusSeconds(10));
+
+        assertEquals(IntStream.range(2, 6).mapToObj(i -> START.plusSeconds(i * 10L)).toList(),
+                recent(COURIER_ID, Duration.ofHours(1)).stream().map(Point::timestamp).toList());
+    }
+
+    @Test
+    @DisplayName("Should only return points within the window before the newest point")
+    void shouldFilterByWindow() {
+        for (int i = 0; i < 4; i++) {
+            trail.record(COURIER_ID, 40.99, 29.12, START.plusMinutes(i));
+        }
+
+        assertEquals(List.of(START.plusMinutes(2), START.plusMinutes(3)),
+                recent(COURIER_ID, Duration.ofMinutes(1)).stream().map(Point::timestamp).toList());
+    }
+
+    @Test
+    @DisplayName("Should evict the courier that reported least recently when all slots are taken")
+    void shouldEvictLeastRecentCourier() {
+        for (int i = 0; i < 4; i++) {
+            trail.record("courier-" + i, 40.99, 29.12, START);
+        }
+        trail.record("courier-0", 40.99, 29.12, START.plusSeconds(10));
+
+        trail.record("courier-4", 40.99, 29.12, START);
+
+        assertTrue(recent("courier-1", Duration.ofHours(1)).isEmpty());
+        assertEquals(2, recent("courier-0", Duration.ofHours(1)).size());
+        assertEquals(1, recent("courier-4", Duration.ofHours(1)).size());
+        assertEquals(4, trail.getCourierCount());
+        assertEquals(1.0, meterRegistry.get("courier.recent_trail.evicted").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should remove points recorded in a transaction that rolls back")
+    void shouldRemovePointOnRollback() {
+        trail.record(COURIER_ID, 40.991, 29.12, START);
+
+        inRolledBackTransaction(() -> trail.record(COURIER_ID, 40.992, 29.12, START.plusSeconds(10)));
+
+        assertEquals(List.of(new Point(START, 40.991, 29.12)), recent(COURIER_ID, Duration.ofHours(1)));
+    }
+
+    @Test
+    @DisplayName("Should restore replaced and overwritten points on rollback")
+    void shouldRestoreReplacedPointsOnRollback() {
+        List<Point> committed = IntStream.range(0, 4)
+                .mapToObj(i -> new Point(START.plusSeconds(i * 10L), 40.99 + i * 0.001, 29.12))
+                .toList();
+        committed.forEach(point -> trail.record(COURIER_ID, point.lat(), point.lng(), point.timestamp()));
+
+        inRolledBackTransaction(() -> {
+            trail.record(COURIER_ID, 40.995, 29.13, START.plusSeconds(10));
+            trail.record(COURIER_ID, 40.996, 29.13, START.plusSeconds(40));
+            trail.record(COURIER_ID, 40.997, 29.13, START.plusSeconds(10));
+        });
+
+        assertEquals(committed, recent(COURIER_ID, Duration.ofHours(1)));
+    }
+
+    @Test
+    @DisplayName("Should register one synchronization per transaction")
+    void shouldRegisterOneSynchronizationPerTransaction() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            for (int i = 0; i < 10; i++) {
+                trail.record(COURIER_ID, 40.99, 29.12, START.plusSeconds(i));
+                trail.record("test-courier-2", 40.99, 29.12, START.plusSeconds(i));
+            }
+
+            assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(TransactionSynchronizationManager.getResourceMap().isEmpty());
+        assertEquals(4, recent(COURIER_ID, Duration.ofHours(1)).size());
+    }
+
+    @Test
+    @DisplayName("Should record nothing when disabled")
+    void shouldRecordNothingWhenDisabled() {
+        properties.getRecentTrail().setEnabled(false);
+        trail = new CourierRecentTrail(meterRegistry, properties);
+
+        trail.record(COURIER_ID, 40.991, 29.12, START);
+
+        assertTrue(recent(COURIER_ID, Duration.ofHours(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not allocate on the heap when recording points of 50k couriers")
+    void shouldNotAllocateWhenRecording() {
+        int couriers = 50_000;
+        properties.getRecentTrail().setMaxCouriers(couriers);
+        properties.getRecentTrail().setPointsPerCourier(8);
+        trail = new CourierRecentTrail(meterRegistry, properties);
+        String[] courierIds = IntStream.range(0, couriers).mapToObj(i -> "courier-" + i).toArray(String[]::new);
+        LocalDateTime[] timestamps = IntStream.range(0, 24).mapToObj(i -> START.plusSeconds(i * 5L))
+                .toArray(LocalDateTime[]::new);
+        // Fills every slot and lets the JIT compile the recording path
+        for (int round = 0; round < 12; round++) {
+            recordRound(courierIds, timestamps[round]);
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int round = 12; round < timestamps.length; round++) {
+            recordRound(courierIds, timestamps[round]);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // Classes mocked elsewhere in this JVM are instrumented by Mockito, which costs every call of
+        // their methods an allocation; take away what the same number of trivial calls allocates
+        long sink = 0;
+        before = threads.getCurrentThreadAllocatedBytes();
+        for (int call = 0; call < (timestamps.length - 12) * couriers; call++) {
+            sink += trail.getPointsPerCourier();
+        }
+        long instrumentation = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // 600k recorded points; a single object per point would be over 9 MB
+        assertTrue(allocated - instrumentation < 64 * 1024,
+                "allocated " + allocated + " bytes, " + instrumentation + " by instrumentation");
+        assertTrue(sink > 0);
+        assertEquals(8, recent("courier-49999", Duration.ofHours(1)).size());
+    }
+
+    @Test
+    @DisplayName("Should allocate only a small undo log per transaction recording one point")
+    void shouldAllocateSmallUndoLogPerTransaction() {
+        properties.getRecentTrail().setMaxCouriers(1000);
+        trail = new CourierRecentTrail(meterRegistry, properties);
+        TransactionTemplate transactions = new TransactionTemplate(new NoOpTransactionManager());
+        String[] courierIds = IntStream.range(0, 1000).mapToObj(i -> "courier-" + i).toArray(String[]::new);
+        int rounds = 100;
+        long[] sink = {0};
+        // Lets the JIT compile both loops before measuring
+        recordInTransactions(transactions, courierIds, rounds, sink);
+        emptyTransactions(transactions, courierIds.length * rounds, sink);
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        recordInTransactions(transactions, courierIds, rounds, sink);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        // The transactions themselves, and one trivial call on the trail as in the test above
+        before = threads.getCurrentThreadAllocatedBytes();
+        emptyTransactions(transactions, courierIds.length * rounds, sink);
+        long baseline = threads.getCurrentThreadAllocatedBytes() - before;
+
+        long perTransaction = (allocated - baseline) / (courierIds.length * rounds);
+        // Mostly Spring's bookkeeping for the registered synchronization; undo arrays created up
+        // front would add another ~650 bytes
+        assertTrue(perTransaction < 1024, "allocated " + perTransaction + " bytes per transaction");
+        assertTrue(sink[0] > 0);
+    }
+
+    private static void inRolledBackTransaction(Runnable work) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            work.run();
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private void recordInTransactions(TransactionTemplate transactions, String[] courierIds, int rounds, long[] sink) {
+        for (int round = 0; round < rounds; round++) {
+            LocalDateTime timestamp = START.plusSeconds(round);
+            for (String courierId : courierIds) {
+                transactions.executeWithoutResult(status -> trail.record(courierId, 40.99, 29.12, timestamp));
+            }
+        }
+        sink[0] += trail.getCourierCount();
+    }
+
+    private void emptyTransactions(TransactionTemplate transactions, int count, long[] sink) {
+        for (int i = 0; i < count; i++) {
+            transactions.executeWithoutResult(status -> sink[0] += trail.getPointsPerCourier());
+        }
+    }
+
+    private void recordRound(String[] courierIds, LocalDateTime timestamp) {
+        for (int i = 0; i < courierIds.length; i++) {
+            trail.record(courierIds[i], 40.99 + (i % 100) * 0.0001, 29.12, timestamp);
+        }
+    }
+
+    private List<Point> recent(String courierId, Duration window) {
+        int capacity = trail.getPointsPerCourier();
+        long[] epochMicros = new long[capacity];
+        double[] lats = new double[capacity];
+        double[] lngs = new double[capacity];
+        int count = trail.copyRecent(courierId, window, epochMicros, lats, lngs);
+        return IntStream.range(0, count)
+                .mapToObj(i -> new Point(TrackSegmentCodec.fromEpochMicros(epochMicros[i]),
+                        lats[i], lngs[i]))
+                .toList();
+    }
+
+    // Runs the synchronization callbacks of a real transaction without a resource behind it
+    private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+
+    private record Point(LocalDateTime timestamp, double lat, double lng) {
+    }
+}
@@ -0,0 +1,83 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.dto.request.CourierLocationRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CourierReorderBufferSweeper Unit Tests")
+class CourierReorderBufferSweeperTest {
+
+    private static final String COURIER_ID = "test-courier-1";
+
+    @Mock
+    private CourierLocationService locationService;
+
+    private CourierReorderBuffer reorderBuffer;
+    private CourierProcessingLanes processingLanes;
+    private CourierReorderBufferSweeper sweeper;
+
+    @BeforeEach
+    void setUp() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        CourierTrackerProperties properties = new CourierTrackerProperties();
+        properties.getProcessingLanes().setCount(2);
+        properties.getReorderBuffer().setLatenessWindow(Duration.ofMillis(50));
+        properties.getReorderBuffer().setSweepInterval(Duration.ofMillis(20));
+        reorderBuffer = new CourierReorderBuffer(meterRegistry, properties);
+        processingLanes = new CourierProcessingLanes(meterRegistry, Thread.ofPlatform().factory(), properties);
+        processingLanes.start();
+        sweeper = new CourierReorderBufferSweeper(
+                reorderBuffer, processingLanes, locationService, Thread.ofPlatform().factory(), properties);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        processingLanes.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should release buffers of couriers that stopped reporting")
+    void shouldReleaseBuffersOfQuietCouriers() throws InterruptedException {
+        when(locationService.releaseBufferedLocations(COURIER_ID, false))
+                .thenAnswer(invocation -> reorderBuffer.releaseExpired(COURIER_ID, false).size());
+        sweeper.start();
+
+        reorderBuffer.admit(point());
+
+        verify(locationService, timeout(2000)).releaseBufferedLocations(COURIER_ID, false);
+        sweeper.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should release all buffers on shutdown")
+    void shouldReleaseAllBuffersOnShutdown() throws InterruptedException {
+        reorderBuffer.admit(point());
+
+        sweeper.shutdown();
+
+        verify(locationService).releaseBufferedLocations(COURIER_ID, true);
+    }
+
+    private static CourierLocationRequest point() {
+        return CourierLocationRequest.builder()
+                .courierId(COURIER_ID)
+                .lat(40.99)
+                .lng(29.12)
+                .time(LocalDateTime.of(2024, 5, 1, 12, 0))
+                .build();
+    }
+}
@@ -0,0 +1,219 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.dto.request.CourierLocationRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CourierReorderBuffer Unit Tests")
+class CourierReorderBufferTest {
+
+    private static final String COURIER_ID = "test-courier-1";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackerProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CourierTrackerProperties();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should pass points through immediately with zero window")
+    void shouldPassPointsThroughWithZeroWindow() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ZERO);
+        CourierLocationRequest point = point(0);
+
+        CourierReorderBuffer.Admission admission = buffer.admit(point);
+
+        assertEquals(List.of(point), admission.points());
+        assertFalse(admission.dropped());
+        assertEquals(0, buffer.getBufferedPointCount());
+    }
+
+    @Test
+    @DisplayName("Should send points older than the last released point to the correction path")
+    void shouldSendLatePointsToCorrectionPath() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ZERO);
+        buffer.admit(point(10));
+        CourierLocationRequest late = point(5);
+
+        CourierReorderBuffer.Admission admission = buffer.admit(late);
+
+        assertEquals(List.of(late), admission.points());
+        assertEquals(1.0, counter("courier.reorder.late"));
+    }
+
+    @Test
+    @DisplayName("Should drop retried point with the same event time")
+    void shouldDropDuplicatePoint() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ofSeconds(10));
+        buffer.admit(point(0));
+        buffer.admit(point(20));
+
+        assertTrue(buffer.admit(point(0)).dropped());
+        assertTrue(buffer.admit(point(20)).dropped());
+        assertEquals(2.0, counter("courier.reorder.dropped"));
+        assertEquals(0.0, counter("courier.reorder.late"));
+    }
+
+    @Test
+    @DisplayName("Should keep a second fix in the same second at another position")
+    void shouldKeepSameSecondFixAtAnotherPosition() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ZERO);
+        buffer.admit(point(0));
+        CourierLocationRequest moved = point(0);
+        moved.setLat(40.991);
+
+        CourierReorderBuffer.Admission admission = buffer.admit(moved);
+
+        assertEquals(List.of(moved), admission.points());
+        assertFalse(admission.dropped());
+        assertTrue(buffer.admit(moved).dropped());
+    }
+
+    @Test
+    @DisplayName("Should buffer fixes of the same second at different positions")
+    void shouldBufferSameSecondFixesAtDifferentPositions() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ofSeconds(10));
+        CourierLocationRequest moved = point(0);
+        moved.setLng(29.121);
+
+        buffer.admit(point(0));
+        assertFalse(buffer.admit(moved).dropped());
+        assertTrue(buffer.admit(point(0)).dropped());
+
+        assertEquals(2, buffer.releaseExpired(COURIER_ID, true).size());
+    }
+
+    @Test
+    @DisplayName("Should hold points for the window and release them in event-time order")
+    void shouldReleasePointsInEventTimeOrder() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ofSeconds(10));
+
+        assertTrue(buffer.admit(point(0)).points().isEmpty());
+        assertTrue(buffer.admit(point(6)).points().isEmpty());
+        assertTrue(buffer.admit(point(3)).points().isEmpty());
+        List<CourierLocationRequest> released = buffer.admit(point(14)).points();
+
+        assertEquals(List.of(START, START.plusSeconds(3)), times(released));
+        assertEquals(2, buffer.getBufferedPointCount());
+        assertEquals(1.0, counter("courier.reorder.reordered"));
+        assertEquals(2.0, meterRegistry.get("courier.reorder.buffered").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Should release oldest point when the courier's buffer is full")
+    void shouldReleaseOldestPointWhenBufferIsFull() {
+        properties.getReorderBuffer().setMaxPointsPerCourier(2);
+        CourierReorderBuffer buffer = newBuffer(Duration.ofMinutes(5));
+
+        buffer.admit(point(2));
+        buffer.admit(point(1));
+        List<CourierLocationRequest> released = buffer.admit(point(3)).points();
+
+        assertEquals(List.of(START.plusSeconds(1)), times(released));
+    }
+
+    @Test
+    @DisplayName("Should release points that waited for the window in wall-clock time")
+    void shouldReleasePointsAfterWallClockWindow() throws InterruptedException {
+        CourierReorderBuffer buffer = newBuffer(Duration.ofMillis(100));
+        buffer.admit(point(0));
+        assertTrue(buffer.couriersDueForRelease().isEmpty());
+
+        Thread.sleep(150);
+
+        assertEquals(List.of(COURIER_ID), buffer.couriersDueForRelease());
+        assertEquals(List.of(START), times(buffer.releaseExpired(COURIER_ID, false)));
+        assertEquals(0, buffer.getBufferedPointCount());
+    }
+
+    @Test
+    @DisplayName("Should release everything when asked to")
+    void shouldReleaseEverything() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ofMinutes(5));
+        buffer.admit(point(2));
+        buffer.admit(point(1));
+
+        assertEquals(List.of(COURIER_ID), buffer.couriersWithBufferedPoints());
+        assertEquals(List.of(START.plusSeconds(1), START.plusSeconds(2)), times(buffer.releaseExpired(COURIER_ID, true)));
+        assertTrue(buffer.couriersWithBufferedPoints().isEmpty());
+        assertTrue(buffer.admit(point(0)).points().contains(point(0)));
+    }
+
+    @Test
+    @DisplayName("Should forget idle couriers without buffered points")
+    void shouldForgetIdleCouriers() {
+        properties.getReorderBuffer().setIdleTimeout(Duration.ZERO);
+        CourierReorderBuffer buffer = newBuffer(Duration.ZERO);
+        buffer.admit(point(10));
+
+        buffer.couriersDueForRelease();
+
+        assertEquals(0.0, meterRegistry.get("courier.reorder.couriers").gauge().value());
+        assertEquals(0.0, counter("courier.reorder.late"));
+        buffer.admit(point(5));
+        assertEquals(0.0, counter("courier.reorder.late"));
+    }
+
+    @Test
+    @DisplayName("Should put released points back when the transaction rolls back")
+    void shouldRestoreReleasedPointsOnRollback() {
+        CourierReorderBuffer buffer = newBuffer(Duration.ofSeconds(10));
+        buffer.admit(point(0));
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertEquals(1, buffer.admit(point(20)).points().size());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertEquals(2, buffer.getBufferedPointCount());
+        assertEquals(List.of(START, START.plusSeconds(20)), times(buffer.releaseExpired(COURIER_ID, true)));
+    }
+
+    private CourierReorderBuffer newBuffer(Duration latenessWindow) {
+        properties.getReorderBuffer().setLatenessWindow(latenessWindow);
+        return new CourierReorderBuffer(meterRegistry, properties);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private static List<LocalDateTime> times(List<CourierLocationRequest> points) {
+        return points.stream().map(CourierLocationRequest::getTime).toList();
+    }
+
+    private static CourierLocationRequest point(int offsetSeconds) {
+        return CourierLocationRequest.builder()
+                .courierId(COURIER_ID)
+                .lat(40.99)
+                .lng(29.12)
+                .time(START.plusSeconds(offsetSeconds))
+                .build();
+    }
+}
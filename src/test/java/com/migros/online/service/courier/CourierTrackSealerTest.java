@@ -0,0 +1,238 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.entity.CourierTrackSegment;
+import com.migros.online.repository.CourierLocationRepository;
+import com.migros.online.repository.CourierTrackSegmentRepository;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import com.migros.online.service.distance.HaversineDistanceStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Seal batches commit in their own transactions, as they do in production
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("CourierTrackSealer Integration Tests")
+class CourierTrackSealerTest {
+
+    private static final String COURIER_ID = "test-courier-1";
+    private static final String OTHER_COURIER_ID = "test-courier-2";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Autowired
+    private CourierLocationRepository locationRepository;
+
+    @Autowired
+    private CourierTrackSegmentRepository segmentRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackSealer sealer;
+    private CourierTrackReader reader;
+    private DistanceCalculatorService distanceCalculatorService;
+
+    @BeforeEach
+    void setUp() {
+        CourierTrackerProperties properties = new CourierTrackerProperties();
+        properties.getProcessingLanes().setEnabled(false);
+        properties.getTrackStorage().setMode(CourierTrackerProperties.TrackStorage.Mode.SEGMENTS);
+        properties.getTrackStorage().setBucket(Duration.ofHours(1));
+        properties.getTrackStorage().setSealAfter(Duration.ofHours(2));
+        properties.getTrackStorage().setSealBatchSize(100);
+
+        meterRegistry = new SimpleMeterRegistry();
+        CourierProcessingLanes lanes = new CourierProcessingLanes(meterRegistry, Thread::new, properties);
+        sealer = new CourierTrackSealer(locationRepository, segmentRepository, lanes, transactionManager,
+                meterRegistry, Thread::new, properties);
+        reader = new CourierTrackReader(locationRepository, segmentRepository);
+        distanceCalculatorService = new DistanceCalculatorService(new HaversineDistanceStrategy());
+    }
+
+    @AfterEach
+    void tearDown() {
+        segmentRepository.deleteAllInBatch();
+        locationRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Should seal buckets older than seal-after and read the same track back")
+    void shouldSealOldBucketsAndReadSameTrack() {
+        List<CourierLocation> original = storeTrack(COURIER_ID, 480);
+        storeTrack(OTHER_COURIER_ID, 10);
+        double distanceBefore = totalDistance();
+
+        // Cutoff START + 3h: the first three hourly buckets of the 4 hour track are sealed
+        long sealed = sealer.sealUpTo(START.plusHours(5));
+
+        assertEquals(370, sealed);
+        assertEquals(4, segmentRepository.count());
+        assertEquals(120, locationRepository.findByCourierIdOrderByTimestampAsc(COURIER_ID).size());
+        assertTrackEquals(original, readTrack(COURIER_ID));
+        assertEquals(490, reader.countLocations());
+        assertEquals(distanceBefore, totalDistance(), 1e-6);
+        assertEquals(370.0, meterRegistry.get("courier.track.sealed.points").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should merge rows that arrive late for a sealed bucket into its segment")
+    void shouldMergeLateRowsIntoSealedSegment() {
+        List<CourierLocation> original = storeTrack(COURIER_ID, 480);
+        sealer.sealUpTo(START.plusHours(5));
+
+        CourierLocation late = location(COURIER_ID, 40.9, 29.1, START.plusMinutes(30).plusSeconds(1));
+        locationRepository.batchInsert(List.of(late));
+        sealer.sealUpTo(START.plusHours(5));
+
+        CourierTrackSegment segment = segmentRepository.findByCourierIdAndBucketStart(COURIER_ID, START).orElseThrow();
+        assertEquals(121, segment.getPointCount());
+        assertEquals(3, segmentRepository.count());
+
+        List<CourierLocation> expected = new ArrayList<>(original);
+        expected.add(late);
+        expected.sort(Comparator.comparing(CourierLocation::getTimestamp));
+        assertTrackEquals(expected, readTrack(COURIER_ID));
+    }
+
+    @Test
+    @DisplayName("Should page through sealed and unsealed points without gaps")
+    void shouldPageAcrossSealedAndUnsealedPoints() {
+        List<CourierLocation> original = storeTrack(COURIER_ID, 480);
+        sealer.sealUpTo(START.plusHours(5));
+
+        List<CourierLocation> paged = new ArrayList<>();
+        LocalDateTime afterTimestamp = CourierLocationService.TRACK_START;
+        long afterId = Long.MIN_VALUE;
+        List<CourierLocation> page;
+        do {
+            page = reader.findTrackPage(COURIER_ID, afterTimestamp, afterId, CourierLocationService.TRACK_END, 70);
+            paged.addAll(page);
+            if (!page.isEmpty()) {
+                afterTimestamp = page.get(page.size() - 1).getTimestamp();
+                afterId = page.get(page.size() - 1).getId();
+            }
+        } while (page.size() == 70);
+
+        assertTrackEquals(original, paged);
+    }
+
+    @Test
+    @DisplayName("Should read a time range spanning sealed and unsealed points")
+    void shouldReadRangeAcrossSealedAndUnsealedPoints() {
+        List<CourierLocation> original = storeTrack(COURIER_ID, 480);
+        sealer.sealUpTo(START.plusHours(5));
+        LocalDateTime from = START.plusMinutes(150);
+        LocalDateTime to = START.plusMinutes(200);
+
+        List<CourierLocation> range = new ArrayList<>();
+        reader.forEachLocation(COURIER_ID, from, to, range::add);
+
+        assertTrackEquals(original.stream()
+                .filter(location -> !location.getTimestamp().isBefore(from) && location.getTimestamp().isBefore(to))
+                .toList(), range);
+    }
+
+    @Test
+    @DisplayName("Should find neighbours across the sealed boundary")
+    void shouldFindNeighboursAcrossSealedBoundary() {
+        List<CourierLocation> original = storeTrack(COURIER_ID, 480);
+        sealer.sealUpTo(START.plusHours(5));
+        // Last sealed point is at 2:59:30, first unsealed at 3:00:00
+        LocalDateTime between = START.plusHours(3).minusSeconds(10);
+
+        assertEquals(original.get(359).getId(), reader.findPrevious(COURIER_ID, between).orElseThrow().getId());
+        assertEquals(original.get(360).getId(), reader.findNext(COURIER_ID, between).orElseThrow().getId());
+        assertEquals(original.get(10).getId(), reader.findPrevious(COURIER_ID, START.plusSeconds(310)).orElseThrow().getId());
+        assertTrue(reader.findPrevious(COURIER_ID, START.minusSeconds(1)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should refuse a seal-after that a stationary period can outlast")
+    void shouldRefuseSealAfterShorterThanStationaryPeriod() {
+        CourierTrackerProperties properties = new CourierTrackerProperties();
+        properties.getTrackStorage().setMode(CourierTrackerProperties.TrackStorage.Mode.SEGMENTS);
+        properties.getTrackStorage().setSealAfter(Duration.ofMinutes(40));
+        properties.getStationarySuppression().setEnabled(true);
+        properties.getStationarySuppression().setMaxDuration(Duration.ofMinutes(15));
+        properties.getStationarySuppression().setIdleTimeout(Duration.ofMinutes(30));
+        CourierProcessingLanes lanes = new CourierProcessingLanes(meterRegistry, Thread::new, properties);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> new CourierTrackSealer(locationRepository, segmentRepository, lanes, transactionManager,
+                        meterRegistry, Thread::new, properties));
+        assertTrue(error.getMessage().contains("stationary-suppression"));
+
+        properties.getStationarySuppression().setEnabled(false);
+        assertDoesNotThrow(() -> new CourierTrackSealer(locationRepository, segmentRepository, lanes,
+                transactionManager, meterRegistry, Thread::new, properties));
+    }
+
+    @Test
+    @DisplayName("Should not seal buckets newer than seal-after")
+    void shouldNotSealRecentBuckets() {
+        storeTrack(COURIER_ID, 100);
+
+        assertEquals(0, sealer.sealUpTo(START.plusHours(2)));
+        assertEquals(0, segmentRepository.count());
+    }
+
+    // One point every 30 seconds, every tenth with a stationary period
+    private List<CourierLocation> storeTrack(String courierId, int size) {
+        List<CourierLocation> track = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            CourierLocation location = location(courierId, 40.9923307 + i * 0.0001, 29.1244229 - (i % 13) * 0.0001,
+                    START.plusSeconds(30L * i));
+            if (i % 10 == 0) {
+                location.setStationaryUntil(location.getTimestamp().plusSeconds(20));
+            }
+            track.add(location);
+        }
+        locationRepository.batchInsert(track);
+        return track;
+    }
+
+    private List<CourierLocation> readTrack(String courierId) {
+        List<CourierLocation> track = new ArrayList<>();
+        reader.forEachLocation(courierId, track::add);
+        return track;
+    }
+
+    private double totalDistance() {
+        return new CourierTravelDistanceTracker(reader, distanceCalculatorService, new CourierTrackerProperties()).getTotalDistance(COURIER_ID);
+    }
+
+    private static void assertTrackEquals(List<CourierLocation> expected, List<CourierLocation> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getId(), actual.get(i).getId(), "id of point " + i);
+            assertEquals(expected.get(i).getLat(), actual.get(i).getLat(), "lat of point " + i);
+            assertEquals(expected.get(i).getLng(), actual.get(i).getLng(), "lng of point " + i);
+            assertEquals(expected.get(i).getTimestamp(), actual.get(i).getTimestamp(), "timestamp of point " + i);
+            assertEquals(expected.get(i).getStationaryUntil(), actual.get(i).getStationaryUntil(),
+                    "stationary until of point " + i);
+        }
+    }
+
+    private static CourierLocation location(String courierId, double lat, double lng, LocalDateTime timestamp) {
+        return CourierLocation.builder().courierId(courierId).lat(lat).lng(lng).timestamp(timestamp).build();
+    }
+}
@@ -0,0 +1,274 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import com.migros.online.service.distance.EuclideanDistanceStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("CourierTravelDistanceTracker Unit Tests")
+class CourierTravelDistanceTrackerTest {
+
+    private static final String COURIER_ID = "test-courier-1";
+    private static final double DELTA = 1e-6;
+
+    @Mock
+    private CourierTrackReader trackReader;
+
+    private DistanceCalculatorService distanceCalculatorService;
+    private CourierTravelDistanceTracker tracker;
+    private LocalDateTime start;
+
+    @BeforeEach
+    void setUp() {
+        distanceCalculatorService = new DistanceCalculatorService(new EuclideanDistanceStrategy());
+        tracker = new CourierTravelDistanceTracker(trackReader, distanceCalculatorService, new CourierTrackerProperties());
+        start = LocalDateTime.of(2024, 5, 1, 12, 0);
+    }
+
+    @Test
+    @DisplayName("Should return zero distance when courier has no locations")
+    void shouldReturnZeroDistanceWhenNoLocations() {
+        stubTrack(Collections.emptyList());
+
+        assertEquals(0.0, tracker.getTotalDistance(COURIER_ID));
+    }
+
+    @Test
+    @DisplayName("Should return zero distance when courier has a single location")
+    void shouldReturnZeroDistanceWhenSingleLocation() {
+        stubTrack(Collections.singletonList(location(40.99, 29.12, start)));
+
+        assertEquals(0.0, tracker.getTotalDistance(COURIER_ID));
+    }
+
+    @Test
+    @DisplayName("Should sum stored track once and then answer from memory")
+    void shouldSumStoredTrackOnceAndThenAnswerFromMemory() {
+        List<CourierLocation> track = Arrays.asList(
+                location(40.99, 29.12, start),
+                location(40.98, 29.11, start.plusMinutes(5)),
+                location(40.97, 29.10, start.plusMinutes(10)));
+        stubTrack(track);
+
+        double expected = pathLength(track);
+        assertEquals(expected, tracker.getTotalDistance(COURIER_ID), DELTA);
+        assertEquals(expected, tracker.getTotalDistance(COURIER_ID), DELTA);
+
+        verify(trackReader, times(1)).forEachLocation(eq(COURIER_ID), any());
+    }
+
+    @Test
+    @DisplayName("Should count legs across load chunks of a long stored track")
+    void shouldCountLegsAcrossLoadChunks() {
+        List<CourierLocation> track = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            track.add(location(40.99 + i * 1e-4, 29.12 - (i % 7) * 1e-4, start.plusSeconds(i)));
+        }
+        stubTrack(track);
+
+        assertEquals(pathLength(track), tracker.getTotalDistance(COURIER_ID), DELTA);
+    }
+
+    @Test
+    @DisplayName("Should add distance from last point for in-order locations")
+    void shouldAddDistanceFromLastPointForInOrderLocations() {
+        stubTrack(Collections.emptyList());
+
+        tracker.recordLocation(COURIER_ID, 40.99, 29.12, start);
+        tracker.recordLocation(COURIER_ID, 40.98, 29.11, start.plusMinutes(5));
+        tracker.recordLocation(COURIER_ID, 40.97, 29.10, start.plusMinutes(10));
+
+        double expected = pathLength(Arrays.asList(
+                location(40.99, 29.12, start),
+                location(40.98, 29.11, start.plusMinutes(5)),
+                location(40.97, 29.10, start.plusMinutes(10))));
+        assertEquals(expected, tracker.getTotalDistance(COURIER_ID), DELTA);
+        verify(trackReader, never()).findNext(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should splice out-of-order location between its stored neighbours")
+    void shouldSpliceOutOfOrderLocationBetweenNeighbours() {
+        List<CourierLocation> stored = new ArrayList<>();
+        stubTrack(Collections.emptyList());
+
+        CourierLocation first = location(40.99, 29.12, start);
+        CourierLocation third = location(40.97, 29.10, start.plusMinutes(10));
+        tracker.recordLocation(COURIER_ID, first.getLat(), first.getLng(), first.getTimestamp());
+        stored.add(first);
+        tracker.recordLocation(COURIER_ID, third.getLat(), third.getLng(), third.getTimestamp());
+        stored.add(third);
+
+        CourierLocation late = location(40.95, 29.15, start.plusMinutes(5));
+        when(trackReader.findPrevious(COURIER_ID, late.getTimestamp()))
+                .thenReturn(Optional.of(first));
+        when(trackReader.findNext(COURIER_ID, late.getTimestamp()))
+                .thenReturn(Optional.of(third));
+
+        tracker.recordLocation(COURIER_ID, late.getLat(), late.getLng(), late.getTimestamp());
+        stored.add(late);
+        stored.sort(Comparator.comparing(CourierLocation::getTimestamp));
+
+        assertEquals(pathLength(stored), tracker.getTotalDistance(COURIER_ID), DELTA);
+    }
+
+    @Test
+    @DisplayName("Should splice out-of-order location between neighbours that are not flushed yet")
+    void shouldSpliceOutOfOrderLocationBetweenUnflushedNeighbours() {
+        stubTrack(Collections.emptyList());
+
+        CourierLocation first = location(40.99, 29.12, start);
+        CourierLocation third = location(40.97, 29.10, start.plusMinutes(10));
+        CourierLocation late = location(40.95, 29.15, start.plusMinutes(5));
+        tracker.recordLocation(COURIER_ID, first.getLat(), first.getLng(), first.getTimestamp());
+        tracker.recordLocation(COURIER_ID, third.getLat(), third.getLng(), third.getTimestamp());
+        tracker.recordLocation(COURIER_ID, late.getLat(), late.getLng(), late.getTimestamp());
+
+        assertEquals(pathLength(List.of(first, late, third)), tracker.getTotalDistance(COURIER_ID), DELTA);
+    }
+
+    @Test
+    @DisplayName("Should use stored neighbour for unflushed points older than the recent window")
+    void shouldUseStoredNeighbourBeyondRecentWindow() {
+        stubTrack(Collections.emptyList());
+
+        List<CourierLocation> recorded = new ArrayList<>();
+        for (int i = 0; i <= CourierTravelDistanceTracker.RECENT_POINTS; i++) {
+            CourierLocation point = location(40.99 + i * 1e-3, 29.12, start.plusMinutes(i * 10L));
+            tracker.recordLocation(COURIER_ID, point.getLat(), point.getLng(), point.getTimestamp());
+            recorded.add(point);
+        }
+        CourierLocation late = location(40.95, 29.15, start.plusMinutes(5));
+        when(trackReader.findPrevious(COURIER_ID, late.getTimestamp())).thenReturn(Optional.of(recorded.get(0)));
+        double before = tracker.getTotalDistance(COURIER_ID);
+
+        tracker.recordLocation(COURIER_ID, late.getLat(), late.getLng(), late.getTimestamp());
+
+        CourierLocation oldestRecent = recorded.get(1);
+        double expectedDelta = distanceCalculatorService.calculateDistance(recorded.get(0).getLat(), recorded.get(0).getLng(),
+                late.getLat(), late.getLng())
+                + distanceCalculatorService.calculateDistance(late.getLat(), late.getLng(),
+                oldestRecent.getLat(), oldestRecent.getLng())
+                - distanceCalculatorService.calculateDistance(recorded.get(0).getLat(), recorded.get(0).getLng(),
+                oldestRecent.getLat(), oldestRecent.getLng());
+        assertEquals(before + expectedDelta, tracker.getTotalDistance(COURIER_ID), DELTA);
+    }
+
+    @Test
+    @DisplayName("Should not keep a total for a courier with no stored track on read")
+    void shouldNotKeepTotalForUnknownCourierOnRead() {
+        stubTrack(Collections.emptyList());
+
+        assertEquals(0.0, tracker.getTotalDistance(COURIER_ID));
+        assertEquals(0.0, tracker.getTotalDistance(COURIER_ID));
+
+        assertEquals(0, tracker.getTrackedCourierCount());
+        verify(trackReader, times(2)).forEachLocation(eq(COURIER_ID), any());
+    }
+
+    @Test
+    @DisplayName("Should refuse late retry of a stored or unflushed point")
+    void shouldRefuseLateRetryOfRecordedPoint() {
+        stubTrack(Collections.emptyList());
+        CourierLocation stored = location(40.99, 29.12, start);
+        CourierLocation unflushed = location(40.98, 29.11, start.plusMinutes(5));
+        tracker.recordLocation(COURIER_ID, stored.getLat(), stored.getLng(), stored.getTimestamp());
+        tracker.recordLocation(COURIER_ID, unflushed.getLat(), unflushed.getLng(), unflushed.getTimestamp());
+        tracker.recordLocation(COURIER_ID, 40.97, 29.10, start.plusMinutes(10));
+        when(trackReader.findPrevious(eq(COURIER_ID), any())).thenReturn(Optional.of(stored));
+        double before = tracker.getTotalDistance(COURIER_ID);
+
+        assertFalse(tracker.recordLocation(COURIER_ID, stored.getLat(), stored.getLng(), stored.getTimestamp()));
+        assertFalse(tracker.recordLocation(COURIER_ID, unflushed.getLat(), unflushed.getLng(), unflushed.getTimestamp()));
+        assertTrue(tracker.recordLocation(COURIER_ID, 40.95, 29.15, unflushed.getTimestamp()));
+
+        assertNotEquals(before, tracker.getTotalDistance(COURIER_ID));
+        verify(trackReader, times(1)).findNext(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should refuse retry of a fix from the latest second but keep another fix of that second")
+    void shouldRefuseRetryWithinLatestSecond() {
+        stubTrack(Collections.emptyList());
+
+        assertTrue(tracker.recordLocation(COURIER_ID, 40.99, 29.12, start));
+        assertTrue(tracker.recordLocation(COURIER_ID, 40.98, 29.11, start));
+        assertFalse(tracker.recordLocation(COURIER_ID, 40.99, 29.12, start));
+
+        assertEquals(distanceCalculatorService.calculateDistance(40.99, 29.12, 40.98, 29.11),
+                tracker.getTotalDistance(COURIER_ID), DELTA);
+    }
+
+    @Test
+    @DisplayName("Should prepend location older than the whole stored track")
+    void shouldPrependLocationOlderThanStoredTrack() {
+        CourierLocation first = location(40.99, 29.12, start);
+        stubTrack(List.of(first));
+
+        CourierLocation earlier = location(40.98, 29.11, start.minusMinutes(5));
+        when(trackReader.findPrevious(COURIER_ID, earlier.getTimestamp()))
+                .thenReturn(Optional.empty());
+        when(trackReader.findNext(COURIER_ID, earlier.getTimestamp()))
+                .thenReturn(Optional.of(first));
+
+        tracker.recordLocation(COURIER_ID, earlier.getLat(), earlier.getLng(), earlier.getTimestamp());
+
+        assertEquals(pathLength(List.of(earlier, first)), tracker.getTotalDistance(COURIER_ID), DELTA);
+    }
+
+    @Test
+    @DisplayName("Should reload from storage after invalidation")
+    void shouldReloadFromStorageAfterInvalidation() {
+        stubTrack(Collections.emptyList());
+        tracker.recordLocation(COURIER_ID, 40.99, 29.12, start);
+
+        tracker.invalidate(COURIER_ID);
+        tracker.getTotalDistance(COURIER_ID);
+
+        verify(trackReader, times(2)).forEachLocation(eq(COURIER_ID), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubTrack(List<CourierLocation> track) {
+        doAnswer(invocation -> {
+            track.forEach(invocation.getArgument(1, Consumer.class));
+            return null;
+        }).when(trackReader).forEachLocation(eq(COURIER_ID), any(Consumer.class));
+    }
+
+    private double pathLength(List<CourierLocation> track) {
+        double total = 0.0;
+        for (int i = 1; i < track.size(); i++) {
+            total += distanceCalculatorService.calculateDistance(
+                    track.get(i - 1).getLat(), track.get(i - 1).getLng(),
+                    track.get(i).getLat(), track.get(i).getLng());
+        }
+        return total;
+    }
+
+    private static CourierLocation location(double lat, double lng, LocalDateTime timestamp) {
+        return CourierLocation.builder().courierId(COURIER_ID).lat(lat).lng(lng).timestamp(timestamp).build();
+    }
+}
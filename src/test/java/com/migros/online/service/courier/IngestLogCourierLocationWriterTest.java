@@ -0,0 +1,270 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.exception.IngestBackpressureException;
+import com.migros.online.repository.CourierLocationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("IngestLogCourierLocationWriter Unit Tests")
+class IngestLogCourierLocationWriterTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @Mock
+    private CourierLocationRepository locationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    private Path directory;
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackerProperties properties;
+    private List<IngestLogCourierLocationWriter> writers;
+    private List<List<CourierLocation>> insertedBatches;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CourierTrackerProperties();
+        properties.getLocationWrite().setBatchSize(3);
+        properties.getLocationWrite().setFlushInterval(Duration.ofMillis(50));
+        properties.getLocationWrite().getLog().setDirectory(directory);
+        properties.getLocationWrite().getLog().setSegmentSize(DataSize.ofKilobytes(64));
+        writers = new ArrayList<>();
+        insertedBatches = new CopyOnWriteArrayList<>();
+
+        AtomicLong sequence = new AtomicLong(1);
+        lenient().when(locationRepository.allocateIds(anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(0);
+            return LongStream.range(0, count).map(i -> sequence.getAndIncrement()).toArray();
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (IngestLogCourierLocationWriter writer : writers) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should apply appended locations in batches of configured size")
+    void shouldApplyAppendedLocationsInBatches() {
+        recordInserts();
+        properties.getLocationWrite().setFlushInterval(Duration.ofSeconds(5));
+        IngestLogCourierLocationWriter writer = newWriter();
+        writer.start();
+
+        List<CourierLocation> locations = locations(6);
+        writer.writeAll(locations);
+
+        verify(locationRepository, timeout(2000).times(2)).batchInsert(anyList());
+        assertEquals(List.of(1L, 2L, 3L), ids(insertedBatches.get(0)));
+        assertEquals(List.of(4L, 5L, 6L), ids(insertedBatches.get(1)));
+        assertEquals(locations.get(4).getTimestamp(), insertedBatches.get(1).get(1).getTimestamp());
+        assertEquals(locations.get(4).getCourierId(), insertedBatches.get(1).get(1).getCourierId());
+    }
+
+    @Test
+    @DisplayName("Should assign ids when a location is accepted")
+    void shouldAssignIdsWhenAccepted() {
+        IngestLogCourierLocationWriter writer = newWriter();
+
+        CourierLocation saved = writer.write(location(0));
+
+        assertEquals(1L, saved.getId());
+        verify(locationRepository, never()).batchInsert(anyList());
+    }
+
+    @Test
+    @DisplayName("Should replay records that were not applied before the previous shutdown")
+    void shouldReplayRecordsNotAppliedBefore() throws InterruptedException {
+        recordInserts();
+        IngestLogCourierLocationWriter crashed = newWriter();
+        crashed.writeAll(locations(4));
+        crashed.shutdown();
+        writers.remove(crashed);
+
+        IngestLogCourierLocationWriter restarted = newWriter();
+        restarted.start();
+
+        assertEquals(List.of(List.of(1L, 2L, 3L), List.of(4L)), insertedBatches.stream().map(this::ids).toList());
+        verify(locationRepository).advanceIdsPast(4L);
+        assertEquals(4.0, meterRegistry.get("courier.location.ingest_log.replayed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should skip replayed rows that were already applied")
+    void shouldSkipReplayedRowsAlreadyApplied() throws InterruptedException {
+        recordInserts();
+        when(locationRepository.findExistingIds(anyCollection())).thenReturn(List.of(1L, 2L));
+        IngestLogCourierLocationWriter crashed = newWriter();
+        crashed.writeAll(locations(3));
+        crashed.shutdown();
+        writers.remove(crashed);
+
+        newWriter().start();
+
+        assertEquals(List.of(List.of(3L)), insertedBatches.stream().map(this::ids).toList());
+    }
+
+    @Test
+    @DisplayName("Should not replay records that were applied")
+    void shouldNotReplayAppliedRecords() throws InterruptedException {
+        IngestLogCourierLocationWriter writer = newWriter();
+        writer.start();
+        writer.writeAll(locations(3));
+        verify(locationRepository, timeout(2000)).batchInsert(anyList());
+        writer.shutdown();
+        writers.remove(writer);
+
+        newWriter().start();
+
+        verify(locationRepository, times(1)).batchInsert(anyList());
+        verify(locationRepository, never()).findExistingIds(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should fold a stationary update into the insert of the same batch")
+    void shouldFoldStationaryUpdateIntoPendingInsert() throws InterruptedException {
+        recordInserts();
+        IngestLogCourierLocationWriter crashed = newWriter();
+        CourierLocation anchor = crashed.write(location(0));
+        anchor.setStationaryUntil(anchor.getTimestamp().plusSeconds(40));
+        crashed.updateStationaryUntil(List.of(anchor));
+        crashed.shutdown();
+        writers.remove(crashed);
+
+        newWriter().start();
+
+        assertEquals(anchor.getStationaryUntil(), insertedBatches.get(0).get(0).getStationaryUntil());
+        verify(locationRepository, never()).updateStationaryUntil(anyList());
+    }
+
+    @Test
+    @DisplayName("Should leave a stationary update of a row not logged yet to its insert")
+    void shouldLeaveStationaryUpdateOfUnloggedRowToItsInsert() throws InterruptedException {
+        recordInserts();
+        IngestLogCourierLocationWriter crashed = newWriter();
+        CourierLocation anchor = location(0);
+        anchor.setStationaryUntil(anchor.getTimestamp().plusSeconds(40));
+        crashed.updateStationaryUntil(List.of(anchor));
+        crashed.writeAll(List.of(anchor));
+        crashed.shutdown();
+        writers.remove(crashed);
+
+        newWriter().start();
+
+        assertEquals(anchor.getStationaryUntil(), insertedBatches.get(0).get(0).getStationaryUntil());
+        verify(locationRepository, never()).updateStationaryUntil(anyList());
+    }
+
+    @Test
+    @DisplayName("Should apply stationary updates of rows applied earlier")
+    @SuppressWarnings("unchecked")
+    void shouldApplyStationaryUpdatesOfAppliedRows() {
+        IngestLogCourierLocationWriter writer = newWriter();
+        writer.start();
+        CourierLocation anchor = writer.write(location(0));
+        verify(locationRepository, timeout(2000)).batchInsert(anyList());
+
+        anchor.setStationaryUntil(anchor.getTimestamp().plusSeconds(40));
+        writer.updateStationaryUntil(List.of(anchor));
+
+        ArgumentCaptor<List<CourierLocation>> updates = ArgumentCaptor.forClass(List.class);
+        verify(locationRepository, timeout(2000)).updateStationaryUntil(updates.capture());
+        assertEquals(anchor.getId(), updates.getValue().get(0).getId());
+        assertEquals(anchor.getStationaryUntil(), updates.getValue().get(0).getStationaryUntil());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed batch without inserting rows twice")
+    void shouldRetryFailedBatch() {
+        doThrow(new RuntimeException("db down")).doNothing().when(locationRepository).batchInsert(anyList());
+        IngestLogCourierLocationWriter writer = newWriter();
+        writer.start();
+
+        writer.write(location(0));
+
+        verify(locationRepository, timeout(2000).times(2)).batchInsert(anyList());
+        verify(locationRepository).findExistingIds(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should reject writes when too many segments are pending")
+    void shouldRejectWritesWhenTooManySegmentsPending() {
+        properties.getLocationWrite().getLog().setSegmentSize(DataSize.ofBytes(256));
+        properties.getLocationWrite().getLog().setMaxSegments(1);
+        IngestLogCourierLocationWriter writer = newWriter();
+
+        assertThrows(IngestBackpressureException.class, () -> {
+            for (int i = 0; i < 100; i++) {
+                writer.write(location(i));
+            }
+        });
+        assertEquals(1.0, meterRegistry.get("courier.location.ingest_log.rejected").counter().count());
+    }
+
+    private IngestLogCourierLocationWriter newWriter() {
+        IngestLogCourierLocationWriter writer = new IngestLogCourierLocationWriter(locationRepository, transactionManager,
+                meterRegistry, Thread::new, properties);
+        writers.add(writer);
+        return writer;
+    }
+
+    private void recordInserts() {
+        doAnswer(invocation -> {
+            insertedBatches.add(List.copyOf(invocation.getArgument(0)));
+            return null;
+        }).when(locationRepository).batchInsert(anyList());
+    }
+
+    private List<Long> ids(List<CourierLocation> locations) {
+        return locations.stream().map(CourierLocation::getId).toList();
+    }
+
+    private static List<CourierLocation> locations(int count) {
+        return IntStream.range(0, count).mapToObj(IngestLogCourierLocationWriterTest::location).toList();
+    }
+
+    private static CourierLocation location(int i) {
+        return CourierLocation.builder()
+                .courierId("courier-" + (i % 2))
+                .lat(40.99 + i * 0.0001)
+                .lng(29.12)
+                .timestamp(START.plusSeconds(i))
+                .build();
+    }
+}
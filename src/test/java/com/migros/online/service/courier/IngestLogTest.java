@@ -0,0 +1,183 @@
+package com.migros.online.service.courier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("IngestLog Unit Tests")
+class IngestLogTest {
+
+    // Room for two 12-byte records per segment
+    private static final int SMALL_SEGMENT = IngestLog.SEGMENT_HEADER_BYTES + 2 * (IngestLog.RECORD_HEADER_BYTES + 12);
+
+    @TempDir
+    private Path directory;
+
+    private IngestLog ingestLog;
+
+    @AfterEach
+    void tearDown() {
+        if (ingestLog != null) {
+            ingestLog.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read appended records in order")
+    void shouldReadAppendedRecordsInOrder() {
+        ingestLog = new IngestLog(directory, 4096, 1, false);
+
+        ingestLog.append(List.of(record("first"), record("second")));
+        IngestLog.Position end = ingestLog.append(List.of(record("third")));
+
+        List<String> read = new ArrayList<>();
+        IngestLog.Position next = ingestLog.read(ingestLog.getApplied(), 10, buffer -> read.add(text(buffer)));
+        assertEquals(List.of("first", "second", "third"), read);
+        assertEquals(end, next);
+        assertEquals(end, ingestLog.getEnd());
+    }
+
+    @Test
+    @DisplayName("Should read no more than the requested number of records")
+    void shouldReadRequestedNumberOfRecords() {
+        ingestLog = new IngestLog(directory, 4096, 1, false);
+        ingestLog.append(List.of(record("first"), record("second"), record("third")));
+
+        List<String> read = new ArrayList<>();
+        IngestLog.Position next = ingestLog.read(ingestLog.getApplied(), 2, buffer -> read.add(text(buffer)));
+        ingestLog.read(next, 2, buffer -> read.add(text(buffer)));
+
+        assertEquals(List.of("first", "second", "third"), read);
+    }
+
+    @Test
+    @DisplayName("Should roll to a new segment when the current one is full")
+    void shouldRollSegmentsWhenFull() {
+        ingestLog = new IngestLog(directory, SMALL_SEGMENT, 1, false);
+
+        for (int i = 0; i < 5; i++) {
+            ingestLog.append(List.of(record("record-" + pad(i))));
+        }
+
+        assertEquals(3, ingestLog.getSegmentCount());
+        assertEquals(3, ingestLog.getPendingSegments());
+        assertEquals(List.of("record-0000", "record-0001", "record-0002", "record-0003", "record-0004"), readAll());
+    }
+
+    @Test
+    @DisplayName("Should resume from the checkpoint after reopening")
+    void shouldResumeFromCheckpointAfterReopening() {
+        ingestLog = new IngestLog(directory, SMALL_SEGMENT, 1, false);
+        IngestLog.Position afterFirst = ingestLog.append(List.of(record("record-0000")));
+        ingestLog.append(List.of(record("record-0001"), record("record-0002")));
+        IngestLog.Position end = ingestLog.getEnd();
+        ingestLog.markApplied(afterFirst);
+        ingestLog.close();
+
+        ingestLog = new IngestLog(directory, SMALL_SEGMENT, 1, false);
+
+        assertEquals(afterFirst, ingestLog.getApplied());
+        assertEquals(end, ingestLog.getEnd());
+        assertEquals(List.of("record-0001", "record-0002"), readAll());
+    }
+
+    @Test
+    @DisplayName("Should cut off a torn record when reopening")
+    void shouldCutOffTornRecordWhenReopening() throws IOException {
+        ingestLog = new IngestLog(directory, 4096, 1, false);
+        IngestLog.Position afterFirst = ingestLog.append(List.of(record("intact")));
+        ingestLog.append(List.of(record("torn")));
+        ingestLog.close();
+        // Damage the last byte of the second record's payload
+        try (FileChannel channel = FileChannel.open(segmentFiles().get(0), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{'X'}),
+                    afterFirst.offset() + IngestLog.RECORD_HEADER_BYTES + "torn".length() - 1);
+        }
+
+        ingestLog = new IngestLog(directory, 4096, 1, false);
+        ingestLog.append(List.of(record("appended")));
+
+        assertEquals(List.of("intact", "appended"), readAll());
+    }
+
+    @Test
+    @DisplayName("Should delete applied segments beyond the retained count")
+    void shouldDeleteAppliedSegmentsBeyondRetention() throws IOException {
+        ingestLog = new IngestLog(directory, SMALL_SEGMENT, 1, false);
+        for (int i = 0; i < 8; i++) {
+            ingestLog.append(List.of(record("record-" + pad(i))));
+        }
+        assertEquals(4, segmentFiles().size());
+
+        ingestLog.markApplied(ingestLog.getEnd());
+
+        // The segment being written and one applied segment before it
+        assertEquals(2, segmentFiles().size());
+        assertEquals(2, ingestLog.getSegmentCount());
+        assertEquals(0, ingestLog.getPendingSegments());
+        assertTrue(readAll().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should wait for records to be appended")
+    void shouldWaitForAppend() throws InterruptedException {
+        ingestLog = new IngestLog(directory, 4096, 1, false);
+        IngestLog.Position start = ingestLog.getEnd();
+
+        assertFalse(ingestLog.awaitAppend(start, Duration.ofMillis(20)));
+
+        Thread appender = new Thread(() -> ingestLog.append(List.of(record("late"))));
+        appender.start();
+        assertTrue(ingestLog.awaitAppend(start, Duration.ofSeconds(5)));
+        appender.join();
+    }
+
+    @Test
+    @DisplayName("Should reject a record larger than a segment")
+    void shouldRejectOversizedRecord() {
+        ingestLog = new IngestLog(directory, SMALL_SEGMENT, 1, false);
+
+        assertThrows(IllegalArgumentException.class, () -> ingestLog.append(List.of(new byte[SMALL_SEGMENT])));
+    }
+
+    private List<String> readAll() {
+        List<String> read = new ArrayList<>();
+        ingestLog.read(ingestLog.getApplied(), Integer.MAX_VALUE, buffer -> read.add(text(buffer)));
+        return read;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).sorted().toList();
+        }
+    }
+
+    private static String pad(int i) {
+        return String.format("%04d", i);
+    }
+
+    private static byte[] record(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,229 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import com.migros.online.service.distance.HaversineDistanceStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("StationaryPointSuppressor Unit Tests")
+class StationaryPointSuppressorTest {
+
+    private static final String COURIER_ID = "test-courier-1";
+    private static final LocalDateTime START = LocalDateTime.of(2024, 5, 1, 12, 0);
+    private static final double LAT = 40.9923307;
+    private static final double LNG = 29.1244229;
+    // About 5.5 meters of latitude
+    private static final double NEARBY = 0.00005;
+    // About 110 meters of latitude
+    private static final double FAR = 0.001;
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackerProperties properties;
+    private CourierLocationWriter locationWriter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CourierTrackerProperties();
+        properties.getStationarySuppression().setEnabled(true);
+        locationWriter = mock(CourierLocationWriter.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should merge fix within radius into the last stored row")
+    void shouldMergeFixWithinRadius() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(0, LAT);
+        suppressor.replaceAnchor(anchor);
+
+        Optional<CourierLocation> merged = suppressor.tryMerge(point(30, LAT + NEARBY));
+
+        assertSame(anchor, merged.orElseThrow());
+        assertEquals(START.plusSeconds(30), anchor.getStationaryUntil());
+        assertEquals(START.plusSeconds(30), anchor.getLastSeen());
+        assertEquals(1.0, meterRegistry.get("courier.stationary.suppressed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should write each extended stationary period through the location writer")
+    void shouldWriteEachExtensionThroughLocationWriter() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(0, LAT);
+        suppressor.replaceAnchor(anchor);
+        List<LocalDateTime> written = new ArrayList<>();
+        doAnswer(invocation -> written.add(invocation.<List<CourierLocation>>getArgument(0).get(0).getStationaryUntil()))
+                .when(locationWriter).updateStationaryUntil(List.of(anchor));
+
+        suppressor.tryMerge(point(10, LAT));
+        suppressor.tryMerge(point(20, LAT));
+
+        assertEquals(List.of(START.plusSeconds(10), START.plusSeconds(20)), written);
+    }
+
+    @Test
+    @DisplayName("Should not merge fix the caller's condition on the row's stores rejects")
+    void shouldNotMergeFixRejectedByCondition() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(0, LAT);
+        suppressor.replaceAnchor(anchor, Set.of(1L));
+
+        assertTrue(suppressor.tryMerge(point(30, LAT + NEARBY), Set::isEmpty).isEmpty());
+        assertNull(anchor.getStationaryUntil());
+        assertEquals(0.0, meterRegistry.get("courier.stationary.suppressed").counter().count());
+        verify(locationWriter, never()).updateStationaryUntil(any());
+    }
+
+    @Test
+    @DisplayName("Should only test the row's stores for a fix within the stationary envelope")
+    void shouldOnlyTestStoresForFixWithinEnvelope() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        suppressor.replaceAnchor(stored(0, LAT), Set.of(1L));
+
+        assertTrue(suppressor.tryMerge(point(30, LAT + FAR), storeIds -> fail("stores tested")).isEmpty());
+        assertTrue(suppressor.tryMerge(point(30, LAT), Set.of(1L)::equals).isPresent());
+    }
+
+    @Test
+    @DisplayName("Should not merge fix outside radius")
+    void shouldNotMergeFixOutsideRadius() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(0, LAT);
+        suppressor.replaceAnchor(anchor);
+
+        assertTrue(suppressor.tryMerge(point(30, LAT + FAR)).isEmpty());
+        assertNull(anchor.getStationaryUntil());
+    }
+
+    @Test
+    @DisplayName("Should not merge fix after the maximum stationary duration")
+    void shouldNotMergeFixAfterMaxDuration() {
+        properties.getStationarySuppression().setMaxDuration(Duration.ofMinutes(1));
+        StationaryPointSuppressor suppressor = newSuppressor();
+        suppressor.replaceAnchor(stored(0, LAT));
+
+        assertTrue(suppressor.tryMerge(point(50, LAT)).isPresent());
+        assertTrue(suppressor.tryMerge(point(61, LAT)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not merge fix older than the stationary period")
+    void shouldNotMergeFixOlderThanStationaryPeriod() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(0, LAT);
+        suppressor.replaceAnchor(anchor);
+        suppressor.tryMerge(point(30, LAT));
+
+        assertTrue(suppressor.tryMerge(point(20, LAT)).isEmpty());
+        assertEquals(START.plusSeconds(30), anchor.getStationaryUntil());
+    }
+
+    @Test
+    @DisplayName("Should not merge anything when disabled")
+    void shouldNotMergeWhenDisabled() {
+        properties.getStationarySuppression().setEnabled(false);
+        StationaryPointSuppressor suppressor = newSuppressor();
+        suppressor.replaceAnchor(stored(0, LAT));
+
+        assertTrue(suppressor.tryMerge(point(30, LAT)).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep the newer row when an older row is stored")
+    void shouldKeepNewerRowWhenOlderRowIsStored() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(60, LAT);
+        suppressor.replaceAnchor(anchor);
+
+        suppressor.replaceAnchor(stored(10, LAT + FAR));
+
+        assertSame(anchor, suppressor.tryMerge(point(70, LAT)).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should restore stationary period on rollback")
+    void shouldRestoreStationaryPeriodOnRollback() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(0, LAT);
+        suppressor.replaceAnchor(anchor);
+        suppressor.tryMerge(point(10, LAT));
+
+        TransactionSynchronizationManager.initSynchronization();
+        suppressor.tryMerge(point(20, LAT));
+        rollback();
+
+        assertEquals(START.plusSeconds(10), anchor.getStationaryUntil());
+    }
+
+    @Test
+    @DisplayName("Should restore previous row on rollback")
+    void shouldRestorePreviousRowOnRollback() {
+        StationaryPointSuppressor suppressor = newSuppressor();
+        CourierLocation anchor = stored(0, LAT);
+        suppressor.replaceAnchor(anchor);
+
+        TransactionSynchronizationManager.initSynchronization();
+        suppressor.replaceAnchor(stored(10, LAT + FAR));
+        rollback();
+
+        assertSame(anchor, suppressor.tryMerge(point(20, LAT)).orElseThrow());
+    }
+
+    private StationaryPointSuppressor newSuppressor() {
+        return new StationaryPointSuppressor(new DistanceCalculatorService(new HaversineDistanceStrategy()),
+                locationWriter, meterRegistry, properties);
+    }
+
+    private static void rollback() {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+    }
+
+    private static CourierLocation stored(int seconds, double lat) {
+        return CourierLocation.builder()
+                .courierId(COURIER_ID)
+                .lat(lat)
+                .lng(LNG)
+                .timestamp(START.plusSeconds(seconds))
+                .build();
+    }
+
+    private static CourierLocationRequest point(int seconds, double lat) {
+        return CourierLocationRequest.builder()
+                .courierId(COURIER_ID)
+                .lat(lat)
+                .lng(LNG)
+                .time(START.plusSeconds(seconds))
+                .build();
+    }
+}
@@ -0,0 +1,216 @@
+package com.migros.online.service.courier;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.CourierLocation;
+import com.migros.online.exception.IngestBackpressureException;
+import com.migros.online.repository.CourierLocationRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WriteBehindCourierLocationWriter Unit Tests")
+class WriteBehindCourierLocationWriterTest {
+
+    @Mock
+    private CourierLocationRepository locationRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackerProperties properties;
+    private WriteBehindCourierLocationWriter writer;
+    private List<Integer> flushedBatchSizes;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CourierTrackerProperties();
+        properties.getLocationWrite().setBatchSize(3);
+        properties.getLocationWrite().setFlushInterval(Duration.ofMillis(50));
+        properties.getLocationWrite().setOfferTimeout(Duration.ofMillis(10));
+        flushedBatchSizes = new CopyOnWriteArrayList<>();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (writer != null) {
+            writer.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should flush queued locations in batches of configured size")
+    void shouldFlushQueuedLocationsInBatches() {
+        recordFlushes();
+        properties.getLocationWrite().setFlushInterval(Duration.ofSeconds(5));
+        writer = newWriter();
+        writer.start();
+
+        writer.writeAll(locations(6));
+
+        verify(locationRepository, timeout(2000).times(2)).batchInsert(anyList());
+        awaitFlushes(2);
+        assertEquals(List.of(3, 3), flushedBatchSizes);
+    }
+
+    @Test
+    @DisplayName("Should flush partial batch once flush interval elapses")
+    void shouldFlushPartialBatchAfterInterval() {
+        recordFlushes();
+        writer = newWriter();
+        writer.start();
+
+        writer.write(location(0));
+
+        verify(locationRepository, timeout(2000)).batchInsert(anyList());
+        awaitFlushes(1);
+        assertEquals(List.of(1), flushedBatchSizes);
+        Timer flushTimer = meterRegistry.get("courier.location.write_behind.flush").timer();
+        // The timer records once the insert has returned, after the answer above ran
+        long deadline = System.currentTimeMillis() + 2000;
+        while (flushTimer.count() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(1, flushTimer.count());
+    }
+
+    @Test
+    @DisplayName("Should reject writes when queue is full")
+    void shouldRejectWritesWhenQueueIsFull() {
+        properties.getLocationWrite().setQueueCapacity(2);
+        writer = newWriter();
+
+        writer.writeAll(locations(2));
+
+        assertThrows(IngestBackpressureException.class, () -> writer.write(location(3)));
+        assertEquals(2, writer.getQueueDepth());
+        assertEquals(2.0, meterRegistry.get("courier.location.write_behind.queue.depth").gauge().value());
+        assertEquals(1.0, meterRegistry.get("courier.location.write_behind.rejected").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should flush remaining locations on shutdown")
+    void shouldFlushRemainingLocationsOnShutdown() throws InterruptedException {
+        recordFlushes();
+        properties.getLocationWrite().setFlushInterval(Duration.ofSeconds(1));
+        properties.getLocationWrite().setBatchSize(100);
+        writer = newWriter();
+        writer.start();
+
+        writer.writeAll(locations(5));
+        writer.shutdown();
+        writer = null;
+
+        assertEquals(5, flushedBatchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    @DisplayName("Should retry failed flush")
+    void shouldRetryFailedFlush() {
+        doThrow(new RuntimeException("Database unavailable"))
+                .doNothing()
+                .when(locationRepository).batchInsert(anyList());
+        writer = newWriter();
+        writer.start();
+
+        writer.write(location(0));
+
+        verify(locationRepository, timeout(2000).times(2)).batchInsert(anyList());
+        assertEquals(0.0, meterRegistry.get("courier.location.write_behind.failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should keep retrying a failing flush and reject new writes meanwhile")
+    void shouldKeepRetryingAndHoldCapacity() throws InterruptedException {
+        properties.getLocationWrite().setQueueCapacity(1);
+        doThrow(new RuntimeException("Database unavailable"))
+                .doThrow(new RuntimeException("Database unavailable"))
+                .doThrow(new RuntimeException("Database unavailable"))
+                .doThrow(new RuntimeException("Database unavailable"))
+                .doNothing()
+                .when(locationRepository).batchInsert(anyList());
+        writer = newWriter();
+        writer.start();
+
+        writer.write(location(0));
+        verify(locationRepository, timeout(2000).times(2)).batchInsert(anyList());
+        assertThrows(IngestBackpressureException.class, () -> writer.write(location(1)));
+
+        verify(locationRepository, timeout(3000).times(5)).batchInsert(anyList());
+        writer.shutdown();
+        writer = null;
+        assertEquals(0.0, meterRegistry.get("courier.location.write_behind.failed").counter().count());
+        assertEquals(1.0, meterRegistry.get("courier.location.write_behind.flushed").counter().count(), 0.0);
+    }
+
+    @Test
+    @DisplayName("Should update a row extended several times since the last flush once")
+    void shouldUpdateRepeatedlyExtendedRowOnce() throws InterruptedException {
+        writer = newWriter();
+        CourierLocation anchor = location(0);
+        anchor.setId(7L);
+        for (int i = 1; i <= 3; i++) {
+            anchor.setStationaryUntil(anchor.getTimestamp().plusSeconds(i * 10));
+            writer.updateStationaryUntil(List.of(anchor));
+        }
+
+        writer.start();
+        writer.shutdown();
+        writer = null;
+
+        verify(locationRepository).updateStationaryUntil(List.of(anchor));
+    }
+
+    private WriteBehindCourierLocationWriter newWriter() {
+        return new WriteBehindCourierLocationWriter(
+                locationRepository, transactionManager, meterRegistry, Thread.ofPlatform().factory(), properties);
+    }
+
+    private void recordFlushes() {
+        doAnswer(invocation -> {
+            flushedBatchSizes.add(invocation.<List<CourierLocation>>getArgument(0).size());
+            return null;
+        }).when(locationRepository).batchInsert(anyList());
+    }
+
+    // Mockito registers the invocation before the answer runs, so verify can return first
+    private void awaitFlushes(int count) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (flushedBatchSizes.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private static List<CourierLocation> locations(int count) {
+        return IntStream.range(0, count).mapToObj(WriteBehindCourierLocationWriterTest::location).toList();
+    }
+
+    private static CourierLocation location(int offsetSeconds) {
+        return CourierLocation.builder()
+                .courierId("test-courier-1")
+                .lat(40.99)
+                .lng(29.12)
+                .timestamp(LocalDateTime.of(2024, 5, 1, 12, 0).plusSeconds(offsetSeconds))
+                .build();
+    }
+}
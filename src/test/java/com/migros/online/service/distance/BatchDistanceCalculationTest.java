@@ -0,0 +1,112 @@
+package com.migros.online.service.distance;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Batch Distance Calculation Tests")
+class BatchDistanceCalculationTest {
+
+    // Batch kernels may use different trig implementations than Math, so allow a millimeter
+    private static final double TOLERANCE_METERS = 0.001;
+
+    static Stream<Arguments> strategiesAndSizes() {
+        return Stream.of(new HaversineDistanceStrategy(), new EuclideanDistanceStrategy())
+                .flatMap(strategy -> IntStream.of(0, 1, 2, 3, 7, 8, 9, 17, 1001)
+                        .mapToObj(size -> Arguments.of(strategy, size)));
+    }
+
+    @ParameterizedTest(name = "{0} with {1} points")
+    @MethodSource("strategiesAndSizes")
+    @DisplayName("Should match per-pair distances from one point to many")
+    void shouldMatchPerPairDistancesFromOnePointToMany(DistanceCalculationStrategy strategy, int size) {
+        double[][] points = randomPoints(size);
+        // Extra slack at the end to check nothing is written past count
+        double[] out = new double[size + 1];
+        out[size] = -1.0;
+
+        strategy.calculateDistances(40.9923307, 29.1244229, points[0], points[1], out, size);
+
+        for (int i = 0; i < size; i++) {
+            double expected = strategy.calculateDistance(40.9923307, 29.1244229, points[0][i], points[1][i]);
+            assertEquals(expected, out[i], TOLERANCE_METERS, "Distance to point " + i);
+        }
+        assertEquals(-1.0, out[size]);
+    }
+
+    @ParameterizedTest(name = "{0} with {1} points")
+    @MethodSource("strategiesAndSizes")
+    @DisplayName("Should match per-pair distances along a track")
+    void shouldMatchPerPairDistancesAlongTrack(DistanceCalculationStrategy strategy, int size) {
+        double[][] points = randomPoints(size);
+        double[] out = new double[Math.max(size, 1)];
+        out[Math.max(size - 1, 0)] = -1.0;
+
+        strategy.calculateTrackDistances(points[0], points[1], out, size);
+
+        for (int i = 0; i + 1 < size; i++) {
+            double expected = strategy.calculateDistance(points[0][i], points[1][i], points[0][i + 1], points[1][i + 1]);
+            assertEquals(expected, out[i], TOLERANCE_METERS, "Leg " + i);
+        }
+        assertEquals(-1.0, out[Math.max(size - 1, 0)]);
+    }
+
+    @Test
+    @DisplayName("Should return zero for identical points in batch")
+    void shouldReturnZeroForIdenticalPointsInBatch() {
+        double[] lats = new double[16];
+        double[] lngs = new double[16];
+        Arrays.fill(lats, 40.9923307);
+        Arrays.fill(lngs, 29.1244229);
+        double[] out = new double[16];
+
+        new HaversineDistanceStrategy().calculateDistances(40.9923307, 29.1244229, lats, lngs, out, 16);
+
+        for (double distance : out) {
+            assertEquals(0.0, distance, TOLERANCE_METERS);
+        }
+    }
+
+    @Test
+    @DisplayName("Should fall back to per-pair calculation for strategies without batch support")
+    void shouldFallBackToPerPairCalculation() {
+        DistanceCalculationStrategy constant = new DistanceCalculationStrategy() {
+            @Override
+            public double calculateDistance(double lat1, double lng1, double lat2, double lng2) {
+                return lat2 - lat1;
+            }
+
+            @Override
+            public String getStrategyName() {
+                return "Constant";
+            }
+        };
+        double[] out = new double[3];
+
+        constant.calculateTrackDistances(new double[]{1, 3, 6}, new double[3], out, 3);
+
+        assertArrayEquals(new double[]{2, 3, 0}, out);
+    }
+
+    private static double[][] randomPoints(int size) {
+        Random random = new Random(size);
+        double[] lats = new double[size];
+        double[] lngs = new double[size];
+        for (int i = 0; i < size; i++) {
+            // Mix of nearby points and points across the Istanbul area
+            double spread = i % 3 == 0 ? 0.001 : 0.5;
+            lats[i] = 40.9923307 + (random.nextDouble() - 0.5) * spread;
+            lngs[i] = 29.1244229 + (random.nextDouble() - 0.5) * spread;
+        }
+        return new double[][]{lats, lngs};
+    }
+}
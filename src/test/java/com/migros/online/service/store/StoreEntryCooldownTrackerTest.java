@@ -0,0 +1,208 @@
+package com.migros.online.service.store;
+
+import com.migros.online.entity.Store;
+import com.migros.online.entity.StoreEntry;
+import com.migros.online.repository.StoreEntryRepository;
+import com.migros.online.service.store.observer.BatchingPersistenceStoreEntryObserver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("StoreEntryCooldownTracker Unit Tests")
+class StoreEntryCooldownTrackerTest {
+
+    private static final long COOLDOWN_SECONDS = 60;
+    private static final long GRACE_SECONDS = 300;
+
+    @Mock
+    private StoreEntryRepository storeEntryRepository;
+
+    @Mock
+    private ObjectProvider<BatchingPersistenceStoreEntryObserver> batchingObserver;
+
+    @Mock
+    private BatchingPersistenceStoreEntryObserver observer;
+
+    private MutableClock clock;
+    private StoreEntryCooldownTracker tracker;
+    private Store testStore;
+    private Store otherStore;
+
+    @BeforeEach
+    void setUp() {
+        clock = new MutableClock(LocalDateTime.of(2024, 5, 1, 12, 0).toInstant(ZoneOffset.UTC));
+        tracker = new StoreEntryCooldownTracker(storeEntryRepository, batchingObserver, clock, COOLDOWN_SECONDS, GRACE_SECONDS);
+        testStore = Store.builder().id(1L).name("Ataşehir MMM Migros").lat(40.9923307).lng(29.1244229).build();
+        otherStore = Store.builder().id(2L).name("Novada MMM Migros").lat(40.986106).lng(29.1161293).build();
+    }
+
+    @Test
+    @DisplayName("Should register first entry for courier and store")
+    void shouldRegisterFirstEntry() {
+        assertTrue(tracker.tryRegisterEntry("courier-1", testStore, now()));
+        assertEquals(1, tracker.getTrackedEntryCount());
+    }
+
+    @Test
+    @DisplayName("Should reject re-entry within cooldown")
+    void shouldRejectReentryWithinCooldown() {
+        tracker.tryRegisterEntry("courier-1", testStore, now());
+
+        assertFalse(tracker.tryRegisterEntry("courier-1", testStore, now().plusSeconds(30)));
+    }
+
+    @Test
+    @DisplayName("Should accept re-entry after cooldown has lapsed")
+    void shouldAcceptReentryAfterCooldown() {
+        tracker.tryRegisterEntry("courier-1", testStore, now());
+
+        assertTrue(tracker.tryRegisterEntry("courier-1", testStore, now().plusSeconds(61)));
+    }
+
+    @Test
+    @DisplayName("Should track cooldown separately per store and courier")
+    void shouldTrackCooldownSeparatelyPerStoreAndCourier() {
+        tracker.tryRegisterEntry("courier-1", testStore, now());
+
+        assertTrue(tracker.tryRegisterEntry("courier-1", otherStore, now()));
+        assertTrue(tracker.tryRegisterEntry("courier-2", testStore, now()));
+    }
+
+    @Test
+    @DisplayName("Should treat later entry as blocking an earlier out-of-order report")
+    void shouldTreatLaterEntryAsBlockingEarlierReport() {
+        tracker.tryRegisterEntry("courier-1", testStore, now());
+
+        assertFalse(tracker.tryRegisterEntry("courier-1", testStore, now().minusSeconds(30)));
+    }
+
+    @Test
+    @DisplayName("Should expire entries once the retention window has passed")
+    void shouldExpireEntriesAfterRetention() {
+        tracker.tryRegisterEntry("courier-1", testStore, now());
+        tracker.tryRegisterEntry("courier-2", testStore, now());
+
+        clock.advanceSeconds(COOLDOWN_SECONDS + GRACE_SECONDS + 2);
+        tracker.tryRegisterEntry("courier-3", otherStore, now());
+
+        assertEquals(1, tracker.getTrackedEntryCount());
+    }
+
+    @Test
+    @DisplayName("Should keep refreshed entries alive across wheel rotations")
+    void shouldKeepRefreshedEntriesAlive() {
+        tracker.tryRegisterEntry("courier-1", testStore, now());
+        clock.advanceSeconds(200);
+        tracker.tryRegisterEntry("courier-1", testStore, now());
+
+        clock.advanceSeconds(COOLDOWN_SECONDS + GRACE_SECONDS - 100);
+        assertFalse(tracker.tryRegisterEntry("courier-1", testStore, now().minusSeconds(COOLDOWN_SECONDS + GRACE_SECONDS - 130)));
+        assertEquals(1, tracker.getTrackedEntryCount());
+    }
+
+    @Test
+    @DisplayName("Should fall back to repository for reports older than retention")
+    void shouldFallBackToRepositoryForOldReports() {
+        LocalDateTime oldTime = now().minusHours(2);
+        when(storeEntryRepository.existsByCourierIdAndStoreAndEntryTimeAfter("courier-1", testStore, oldTime.minusSeconds(COOLDOWN_SECONDS)))
+                .thenReturn(true);
+
+        assertFalse(tracker.tryRegisterEntry("courier-1", testStore, oldTime));
+        verify(storeEntryRepository).existsByCourierIdAndStoreAndEntryTimeAfter(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject old report when a matching entry is still queued for writing")
+    void shouldRejectOldReportWhenEntryIsQueued() {
+        LocalDateTime oldTime = now().minusHours(2);
+        when(batchingObserver.getIfAvailable()).thenReturn(observer);
+        when(observer.hasPendingEntry("courier-1", testStore.getId(), oldTime.minusSeconds(COOLDOWN_SECONDS)))
+                .thenReturn(true);
+
+        assertFalse(tracker.tryRegisterEntry("courier-1", testStore, oldTime));
+        verify(storeEntryRepository, never()).existsByCourierIdAndStoreAndEntryTimeAfter(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not query repository for recent reports")
+    void shouldNotQueryRepositoryForRecentReports() {
+        tracker.tryRegisterEntry("courier-1", testStore, now().minusSeconds(30));
+
+        verify(storeEntryRepository, never()).existsByCourierIdAndStoreAndEntryTimeAfter(any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should warm up from recent store entries")
+    void shouldWarmUpFromRecentStoreEntries() {
+        StoreEntry recent = StoreEntry.builder()
+                .courierId("courier-1")
+                .store(testStore)
+                .entryTime(now().minusSeconds(20))
+                .build();
+        when(storeEntryRepository.findByEntryTimeAfter(any())).thenReturn(List.of(recent));
+
+        tracker.warmUp();
+
+        assertFalse(tracker.tryRegisterEntry("courier-1", testStore, now()));
+        assertTrue(tracker.tryRegisterEntry("courier-1", testStore, now().plusSeconds(41)));
+    }
+
+    @Test
+    @DisplayName("Should handle warm up with no recent entries")
+    void shouldHandleWarmUpWithNoRecentEntries() {
+        when(storeEntryRepository.findByEntryTimeAfter(any())).thenReturn(Collections.emptyList());
+
+        tracker.warmUp();
+
+        assertEquals(0, tracker.getTrackedEntryCount());
+    }
+
+    private LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advanceSeconds(long seconds) {
+            instant = instant.plusSeconds(seconds);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -1,19 +1,33 @@
 package com.migros.online.service.store;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.config.CourierTrackerProperties.StoreEntryDispatch;
 import com.migros.online.entity.Store;
 import com.migros.online.service.store.observer.StoreEntryEvent;
 import com.migros.online.service.store.observer.StoreEntryObserver;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -28,12 +42,18 @@ class StoreEntryNotificationServiceTest {
     @Mock
     private StoreEntryObserver mockObserver2;
 
+    @TempDir
+    Path spillDirectory;
+
+    private MeterRegistry meterRegistry;
     private StoreEntryNotificationService notificationService;
+    private StoreEntryNotificationService asyncService;
     private StoreEntryEvent testEvent;
 
     @BeforeEach
     void setUp() {
-        notificationService = new StoreEntryNotificationService(Collections.emptyList());
+        meterRegistry = new SimpleMeterRegistry();
+        notificationService = newService(Collections.emptyList(), new CourierTrackerProperties());
 
         Store testStore = Store.builder()
                 .id(1L)
@@ -52,6 +72,16 @@ class StoreEntryNotificationServiceTest {
                 .build();
     }
 
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (asyncService != null) {
+            asyncService.shutdown();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
     @Test
     @DisplayName("Should register observer")
     void shouldRegisterObserver() {
@@ -109,6 +139,8 @@ class StoreEntryNotificationServiceTest {
 
         verify(mockObserver1).onStoreEntry(testEvent);
         verify(mockObserver2).onStoreEntry(testEvent);
+        assertEquals(1, meterRegistry.get("store_entry.observer").tag("observer", "MockObserver1").timer().count());
+        assertEquals(1, meterRegistry.get("store_entry.observer").tag("observer", "MockObserver2").timer().count());
     }
 
     @Test
@@ -165,7 +197,7 @@ class StoreEntryNotificationServiceTest {
         when(mockObserver2.getObserverName()).thenReturn("AvailableObserver2");
 
         StoreEntryNotificationService serviceWithObservers = 
-                new StoreEntryNotificationService(Arrays.asList(mockObserver1, mockObserver2));
+                newService(Arrays.asList(mockObserver1, mockObserver2), new CourierTrackerProperties());
         serviceWithObservers.init();
 
         assertEquals(2, serviceWithObservers.getObserverCount());
@@ -176,5 +208,135 @@ class StoreEntryNotificationServiceTest {
     void shouldHandleNotificationWithNoObservers() {
         assertDoesNotThrow(() -> notificationService.notifyObservers(testEvent));
     }
-}
 
+    @Test
+    @DisplayName("Should deliver events to observers on their own threads in async mode")
+    void shouldDeliverEventsAsynchronously() {
+        when(mockObserver1.getObserverName()).thenReturn("MockObserver1");
+        when(mockObserver2.getObserverName()).thenReturn("MockObserver2");
+        asyncService = newService(Arrays.asList(mockObserver1, mockObserver2), asyncProperties(StoreEntryDispatch.OverflowPolicy.BLOCK, 10));
+        asyncService.init();
+
+        asyncService.notifyObservers(testEvent);
+
+        verify(mockObserver1, timeout(2000)).onStoreEntry(testEvent);
+        verify(mockObserver2, timeout(2000)).onStoreEntry(testEvent);
+        assertEquals(1, meterRegistry.get("store_entry.dispatch.lag").tag("observer", "MockObserver1").timer().count());
+    }
+
+    @Test
+    @DisplayName("Should not let a slow observer delay other observers in async mode")
+    void shouldIsolateSlowObserver() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(mockObserver1.getObserverName()).thenReturn("SlowObserver");
+        when(mockObserver2.getObserverName()).thenReturn("FastObserver");
+        doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(mockObserver1).onStoreEntry(any());
+        asyncService = newService(Arrays.asList(mockObserver1, mockObserver2), asyncProperties(StoreEntryDispatch.OverflowPolicy.BLOCK, 10));
+        asyncService.init();
+
+        asyncService.notifyObservers(testEvent);
+
+        verify(mockObserver2, timeout(2000)).onStoreEntry(testEvent);
+        release.countDown();
+        verify(mockObserver1, timeout(2000)).onStoreEntry(testEvent);
+    }
+
+    @Test
+    @DisplayName("Should publish only after the transaction commits in async mode")
+    void shouldPublishOnlyAfterCommit() {
+        when(mockObserver1.getObserverName()).thenReturn("MockObserver1");
+        asyncService = newService(List.of(mockObserver1), asyncProperties(StoreEntryDispatch.OverflowPolicy.BLOCK, 10));
+        asyncService.init();
+        TransactionSynchronizationManager.initSynchronization();
+
+        asyncService.notifyObservers(testEvent);
+
+        verify(mockObserver1, after(200).never()).onStoreEntry(any());
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        verify(mockObserver1, timeout(2000)).onStoreEntry(testEvent);
+    }
+
+    @Test
+    @DisplayName("Should not publish when the transaction rolls back in async mode")
+    void shouldNotPublishOnRollback() {
+        when(mockObserver1.getObserverName()).thenReturn("MockObserver1");
+        asyncService = newService(List.of(mockObserver1), asyncProperties(StoreEntryDispatch.OverflowPolicy.BLOCK, 10));
+        asyncService.init();
+        TransactionSynchronizationManager.initSynchronization();
+
+        asyncService.notifyObservers(testEvent);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        verify(mockObserver1, after(200).never()).onStoreEntry(any());
+    }
+
+    @Test
+    @DisplayName("Should drop oldest events when the observer queue is full")
+    void shouldDropOldestEventsWhenQueueIsFull() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(mockObserver1.getObserverName()).thenReturn("SlowObserver");
+        doAnswer(invocation -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }).when(mockObserver1).onStoreEntry(any());
+        asyncService = newService(List.of(mockObserver1), asyncProperties(StoreEntryDispatch.OverflowPolicy.DROP_OLDEST, 2));
+        asyncService.init();
+
+        asyncService.notifyObservers(testEvent);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        for (int i = 0; i < 4; i++) {
+            asyncService.notifyObservers(testEvent);
+        }
+        release.countDown();
+
+        assertEquals(2.0, meterRegistry.get("store_entry.dispatch.dropped").tag("observer", "SlowObserver").counter().count());
+        verify(mockObserver1, timeout(2000).times(3)).onStoreEntry(any());
+    }
+
+    @Test
+    @DisplayName("Should spill overflow to disk and replay it later")
+    void shouldSpillOverflowAndReplay() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        when(mockObserver1.getObserverName()).thenReturn("SlowObserver");
+        doAnswer(invocation -> {
+            started.countDown();
+            return release.await(5, TimeUnit.SECONDS);
+        }).when(mockObserver1).onStoreEntry(any());
+        asyncService = newService(List.of(mockObserver1), asyncProperties(StoreEntryDispatch.OverflowPolicy.SPILL, 1));
+        asyncService.init();
+
+        asyncService.notifyObservers(testEvent);
+        assertTrue(started.await(2, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            asyncService.notifyObservers(testEvent);
+        }
+
+        assertEquals(2.0, meterRegistry.get("store_entry.dispatch.spilled").tag("observer", "SlowObserver").counter().count());
+        assertTrue(Files.exists(spillDirectory.resolve("SlowObserver.ndjson")));
+        release.countDown();
+
+        verify(mockObserver1, timeout(2000).times(4)).onStoreEntry(any());
+    }
+
+    private CourierTrackerProperties asyncProperties(StoreEntryDispatch.OverflowPolicy overflowPolicy, int queueCapacity) {
+        CourierTrackerProperties properties = new CourierTrackerProperties();
+        StoreEntryDispatch dispatch = properties.getStoreEntryDispatch();
+        dispatch.setMode(StoreEntryDispatch.Mode.ASYNC);
+        dispatch.setOverflowPolicy(overflowPolicy);
+        dispatch.setQueueCapacity(queueCapacity);
+        dispatch.setSpillDirectory(spillDirectory);
+        dispatch.setShutdownTimeout(Duration.ofSeconds(5));
+        return properties;
+    }
+
+    private StoreEntryNotificationService newService(List<StoreEntryObserver> observers, CourierTrackerProperties properties) {
+        return new StoreEntryNotificationService(observers, properties, meterRegistry,
+                new ObjectMapper().findAndRegisterModules(), Thread.ofPlatform().factory());
+    }
+}
@@ -16,13 +16,16 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -220,5 +223,23 @@ class StoreEntryServiceTest {
         verify(storeEntryRepository).findByCourierIdOrderByEntryTimeDesc("courier-1");
         verify(storeEntryRepository).findByCourierIdOrderByEntryTimeDesc("courier-2");
     }
-}
 
+    @Test
+    @DisplayName("Should export mapped entries from repository stream")
+    void shouldExportMappedEntriesFromRepositoryStream() {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        doAnswer(invocation -> {
+            Consumer<StoreEntry> consumer = invocation.getArgument(3);
+            consumer.accept(testEntry);
+            return null;
+        }).when(storeEntryRepository).streamEntries(eq(from), eq(to), eq(1L), any());
+        when(storeEntryMapper.toResponse(testEntry)).thenReturn(testResponse);
+
+        List<StoreEntryResponse> exported = new ArrayList<>();
+        storeEntryService.exportEntries(from, to, 1L, exported::add);
+
+        assertEquals(List.of(testResponse), exported);
+        verify(storeEntryRepository, never()).findAll();
+    }
+}
@@ -0,0 +1,171 @@
+package com.migros.online.service.store;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.Store;
+import com.migros.online.service.distance.DistanceCalculationStrategy;
+import com.migros.online.service.distance.DistanceCalculatorService;
+import com.migros.online.service.distance.EuclideanDistanceStrategy;
+import com.migros.online.service.distance.HaversineDistanceStrategy;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("StoreProximityFilter Unit Tests")
+class StoreProximityFilterTest {
+
+    private static final double RADIUS_METERS = 100.0;
+    private static final double LAT = 40.9923307;
+    private static final double LNG = 29.1244229;
+
+    // About 100 m in each direction at this latitude
+    private static final double LAT_DEGREES_100M = 0.000899;
+    private static final double LNG_DEGREES_100M = 0.001191;
+
+    private MeterRegistry meterRegistry;
+    private CourierTrackerProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CourierTrackerProperties();
+    }
+
+    @Test
+    @DisplayName("Should return stores within radius with exact distance")
+    void shouldReturnStoresWithinRadiusWithExactDistance() {
+        HaversineDistanceStrategy haversine = new HaversineDistanceStrategy();
+        Store near = store(1L, LAT + 0.0003, LNG + 0.0002);
+        Store far = store(2L, 41.0066851, 28.6552262);
+        StoreProximityFilter filter = newFilter(haversine);
+
+        List<StoreProximityMatch> matches = filter.findWithinRadius(LAT, LNG, RADIUS_METERS, List.of(near, far));
+
+        assertEquals(1, matches.size());
+        assertEquals(near, matches.get(0).store());
+        assertEquals(haversine.calculateDistance(LAT, LNG, near.getLat(), near.getLng()),
+                matches.get(0).distance(), 0.001);
+    }
+
+    @Test
+    @DisplayName("Should reject distant stores at the bounding box stage")
+    void shouldRejectDistantStoresAtBoundingBoxStage() {
+        StoreProximityFilter filter = newFilter(new HaversineDistanceStrategy());
+
+        List<StoreProximityMatch> matches = filter.findWithinRadius(LAT, LNG, RADIUS_METERS, List.of(
+                store(1L, LAT + 2 * LAT_DEGREES_100M, LNG),
+                store(2L, LAT, LNG - 2 * LNG_DEGREES_100M)));
+
+        assertTrue(matches.isEmpty());
+        assertEquals(2.0, candidates());
+        assertEquals(2.0, rejected("bounding_box"));
+        assertEquals(0.0, rejected("equirectangular"));
+        assertEquals(0.0, rejected("exact"));
+    }
+
+    @Test
+    @DisplayName("Should reject bounding box corners by equirectangular estimate")
+    void shouldRejectBoundingBoxCornersByEquirectangularEstimate() {
+        StoreProximityFilter filter = newFilter(new HaversineDistanceStrategy());
+        Store corner = store(1L, LAT + 0.9 * LAT_DEGREES_100M, LNG + 0.9 * LNG_DEGREES_100M);
+
+        List<StoreProximityMatch> matches = filter.findWithinRadius(LAT, LNG, RADIUS_METERS, List.of(corner));
+
+        assertTrue(matches.isEmpty());
+        assertEquals(0.0, rejected("bounding_box"));
+        assertEquals(1.0, rejected("equirectangular"));
+        assertEquals(0.0, rejected("exact"));
+    }
+
+    @Test
+    @DisplayName("Should leave corners to the exact strategy when estimate is disabled")
+    void shouldLeaveCornersToExactStrategyWhenEstimateDisabled() {
+        properties.getStoreProximity().setEquirectangularEstimate(false);
+        StoreProximityFilter filter = newFilter(new HaversineDistanceStrategy());
+        Store corner = store(1L, LAT + 0.9 * LAT_DEGREES_100M, LNG + 0.9 * LNG_DEGREES_100M);
+
+        List<StoreProximityMatch> matches = filter.findWithinRadius(LAT, LNG, RADIUS_METERS, List.of(corner));
+
+        assertTrue(matches.isEmpty());
+        assertEquals(0.0, rejected("equirectangular"));
+        assertEquals(1.0, rejected("exact"));
+    }
+
+    @Test
+    @DisplayName("Should match stores across the antimeridian")
+    void shouldMatchStoresAcrossAntimeridian() {
+        StoreProximityFilter filter = newFilter(new HaversineDistanceStrategy());
+        Store store = store(1L, 0.0, -179.9996);
+
+        List<StoreProximityMatch> matches = filter.findWithinRadius(0.0, 179.9997, RADIUS_METERS, List.of(store));
+
+        assertEquals(1, matches.size());
+        assertTrue(matches.get(0).distance() < RADIUS_METERS);
+    }
+
+    @Test
+    @DisplayName("Should return nothing and count nothing for no candidates")
+    void shouldReturnNothingForNoCandidates() {
+        StoreProximityFilter filter = newFilter(new HaversineDistanceStrategy());
+
+        assertTrue(filter.findWithinRadius(LAT, LNG, RADIUS_METERS, Collections.emptyList()).isEmpty());
+        assertEquals(0.0, candidates());
+    }
+
+    @Test
+    @DisplayName("Should agree with exact check for random stores for both strategies")
+    void shouldAgreeWithExactCheckForRandomStores() {
+        for (DistanceCalculationStrategy strategy : List.of(new HaversineDistanceStrategy(), new EuclideanDistanceStrategy())) {
+            StoreProximityFilter filter = newFilter(strategy);
+            Random random = new Random(42);
+            List<Store> stores = new ArrayList<>();
+            for (long i = 0; i < 2000; i++) {
+                stores.add(store(i,
+                        LAT + (random.nextDouble() - 0.5) * 3 * LAT_DEGREES_100M,
+                        LNG + (random.nextDouble() - 0.5) * 3 * LNG_DEGREES_100M));
+            }
+
+            Set<Long> expected = stores.stream()
+                    .filter(s -> strategy.calculateDistance(LAT, LNG, s.getLat(), s.getLng()) <= RADIUS_METERS)
+                    .map(Store::getId)
+                    .collect(Collectors.toSet());
+            Set<Long> actual = filter.findWithinRadius(LAT, LNG, RADIUS_METERS, stores).stream()
+                    .map(match -> match.store().getId())
+                    .collect(Collectors.toSet());
+
+            assertEquals(expected, actual, strategy.getStrategyName());
+        }
+    }
+
+    private StoreProximityFilter newFilter(DistanceCalculationStrategy strategy) {
+        meterRegistry = new SimpleMeterRegistry();
+        return new StoreProximityFilter(new DistanceCalculatorService(strategy), meterRegistry, properties);
+    }
+
+    private double candidates() {
+        return meterRegistry.get("store_proximity.candidates").counter().count();
+    }
+
+    private double rejected(String stage) {
+        return meterRegistry.get("store_proximity.rejected").tag("stage", stage).counter().count();
+    }
+
+    private static Store store(Long id, double lat, double lng) {
+        return Store.builder()
+                .id(id)
+                .name("Store " + id)
+                .lat(lat)
+                .lng(lng)
+                .build();
+    }
+}
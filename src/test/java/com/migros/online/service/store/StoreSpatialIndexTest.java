@@ -0,0 +1,117 @@
+package com.migros.online.service.store;
+
+import com.migros.online.entity.Store;
+import com.migros.online.service.distance.HaversineDistanceStrategy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("StoreSpatialIndex Unit Tests")
+class StoreSpatialIndexTest {
+
+    private static final double RADIUS_METERS = 100.0;
+
+    private StoreSpatialIndex index;
+    private HaversineDistanceStrategy haversineStrategy;
+
+    @BeforeEach
+    void setUp() {
+        index = new StoreSpatialIndex(RADIUS_METERS);
+        haversineStrategy = new HaversineDistanceStrategy();
+    }
+
+    @Test
+    @DisplayName("Should return no candidates when index is empty")
+    void shouldReturnNoCandidatesWhenIndexIsEmpty() {
+        List<Store> candidates = index.findCandidates(40.9923307, 29.1244229, RADIUS_METERS);
+
+        assertTrue(candidates.isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    @DisplayName("Should return store within radius and skip distant stores")
+    void shouldReturnStoreWithinRadiusAndSkipDistantStores() {
+        Store atasehir = store(1L, "Ataşehir MMM Migros", 40.9923307, 29.1244229);
+        Store beylikduzu = store(2L, "Beylikdüzü 5M Migros", 41.0066851, 28.6552262);
+        index.rebuild(List.of(atasehir, beylikduzu));
+
+        List<Store> candidates = index.findCandidates(40.9927, 29.1244, RADIUS_METERS);
+
+        assertTrue(candidates.contains(atasehir));
+        assertFalse(candidates.contains(beylikduzu));
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    @DisplayName("Should find store on the other side of the antimeridian")
+    void shouldFindStoreAcrossAntimeridian() {
+        Store store = store(1L, "Dateline Store", 0.0, 179.9999);
+        index.rebuild(Collections.singletonList(store));
+
+        List<Store> candidates = index.findCandidates(0.0, -179.9999, RADIUS_METERS);
+
+        assertTrue(candidates.contains(store));
+    }
+
+    @Test
+    @DisplayName("Should return every store a linear scan would find")
+    void shouldReturnEveryStoreALinearScanWouldFind() {
+        Random random = new Random(42);
+        List<Store> stores = new ArrayList<>();
+        for (long i = 0; i < 5000; i++) {
+            stores.add(store(i, "Store " + i, 40.95 + random.nextDouble() * 0.1, 29.0 + random.nextDouble() * 0.1));
+        }
+        index.rebuild(stores);
+
+        for (int query = 0; query < 500; query++) {
+            double lat = 40.95 + random.nextDouble() * 0.1;
+            double lng = 29.0 + random.nextDouble() * 0.1;
+
+            Set<Long> expected = stores.stream()
+                    .filter(s -> haversineStrategy.calculateDistance(lat, lng, s.getLat(), s.getLng()) <= RADIUS_METERS)
+                    .map(Store::getId)
+                    .collect(Collectors.toSet());
+            Set<Long> candidates = index.findCandidates(lat, lng, RADIUS_METERS).stream()
+                    .map(Store::getId)
+                    .collect(Collectors.toSet());
+
+            assertTrue(candidates.containsAll(expected),
+                    "Index missed stores within radius for query (" + lat + ", " + lng + ")");
+            assertTrue(candidates.size() < stores.size() / 10,
+                    "Index should only touch nearby cells, but returned " + candidates.size() + " candidates");
+        }
+    }
+
+    @Test
+    @DisplayName("Should replace previous contents on rebuild")
+    void shouldReplacePreviousContentsOnRebuild() {
+        Store first = store(1L, "First", 40.9923307, 29.1244229);
+        Store second = store(2L, "Second", 40.9923307, 29.1244229);
+        index.rebuild(List.of(first));
+
+        index.rebuild(List.of(second));
+
+        List<Store> candidates = index.findCandidates(40.9923307, 29.1244229, RADIUS_METERS);
+        assertEquals(List.of(second), candidates);
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive cell size")
+    void shouldRejectNonPositiveCellSize() {
+        assertThrows(IllegalArgumentException.class, () -> new StoreSpatialIndex(0));
+    }
+
+    private static Store store(Long id, String name, double lat, double lng) {
+        return Store.builder().id(id).name(name).lat(lat).lng(lng).build();
+    }
+}
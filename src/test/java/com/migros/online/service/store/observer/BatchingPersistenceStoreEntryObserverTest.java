@@ -0,0 +1,198 @@
+package com.migros.online.service.store.observer;
+
+import com.migros.online.config.CourierTrackerProperties;
+import com.migros.online.entity.Store;
+import com.migros.online.entity.StoreEntry;
+import com.migros.online.repository.StoreEntryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("BatchingPersistenceStoreEntryObserver Unit Tests")
+class BatchingPersistenceStoreEntryObserverTest {
+
+    @Mock
+    private StoreEntryRepository storeEntryRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CourierTrackerProperties properties;
+    private BatchingPersistenceStoreEntryObserver observer;
+    private List<StoreEntry> persisted;
+    private Store testStore;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CourierTrackerProperties();
+        properties.getStoreEntryPersistence().setBatchSize(3);
+        properties.getStoreEntryPersistence().setFlushInterval(Duration.ofMillis(50));
+        persisted = new CopyOnWriteArrayList<>();
+        testStore = Store.builder().id(1L).name("Ataşehir MMM Migros").lat(40.9923307).lng(29.1244229).build();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (observer != null) {
+            observer.shutdown();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("Should write entries in batches without looking up the store")
+    void shouldWriteEntriesInBatches() {
+        recordInserts();
+        properties.getStoreEntryPersistence().setFlushInterval(Duration.ofSeconds(5));
+        observer = newObserver();
+        observer.start();
+
+        for (int i = 0; i < 6; i++) {
+            observer.onStoreEntry(event("courier-" + i));
+        }
+
+        verify(storeEntryRepository, timeout(2000).times(2)).batchInsert(anyList());
+        awaitPersisted(6);
+        assertEquals(6, persisted.size());
+        assertSame(testStore, persisted.get(0).getStore());
+    }
+
+    @Test
+    @DisplayName("Should flush partial batch once flush interval elapses")
+    void shouldFlushPartialBatchAfterInterval() {
+        recordInserts();
+        observer = newObserver();
+        observer.start();
+
+        observer.onStoreEntry(event("courier-1"));
+
+        verify(storeEntryRepository, timeout(2000)).batchInsert(anyList());
+        awaitPersisted(1);
+        assertEquals("courier-1", persisted.get(0).getCourierId());
+        assertEquals(50.0, persisted.get(0).getDistanceFromStore());
+    }
+
+    @Test
+    @DisplayName("Should queue entry only after the publishing transaction commits")
+    void shouldQueueEntryOnlyAfterCommit() {
+        observer = newObserver();
+        TransactionSynchronizationManager.initSynchronization();
+
+        observer.onStoreEntry(event("courier-1"));
+        assertEquals(0, observer.getQueueDepth());
+
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+        }
+        assertEquals(1, observer.getQueueDepth());
+    }
+
+    @Test
+    @DisplayName("Should flush queued entries on shutdown")
+    void shouldFlushQueuedEntriesOnShutdown() throws InterruptedException {
+        recordInserts();
+        properties.getStoreEntryPersistence().setFlushInterval(Duration.ofSeconds(1));
+        properties.getStoreEntryPersistence().setBatchSize(100);
+        observer = newObserver();
+        observer.start();
+
+        for (int i = 0; i < 5; i++) {
+            observer.onStoreEntry(event("courier-" + i));
+        }
+        observer.shutdown();
+        observer = null;
+
+        assertEquals(5, persisted.size());
+    }
+
+    @Test
+    @DisplayName("Should keep retrying a failing flush and keep the entries pending")
+    void shouldKeepRetryingFailingFlush() throws InterruptedException {
+        doThrow(new RuntimeException("Database unavailable"))
+                .doThrow(new RuntimeException("Database unavailable"))
+                .doThrow(new RuntimeException("Database unavailable"))
+                .doThrow(new RuntimeException("Database unavailable"))
+                .doNothing()
+                .when(storeEntryRepository).batchInsert(anyList());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        observer = new BatchingPersistenceStoreEntryObserver(
+                storeEntryRepository, transactionManager, meterRegistry, Thread.ofPlatform().factory(), properties);
+        observer.start();
+        LocalDateTime threshold = LocalDateTime.of(2024, 5, 1, 11, 59);
+
+        observer.onStoreEntry(event("courier-1"));
+
+        verify(storeEntryRepository, timeout(2000).times(4)).batchInsert(anyList());
+        assertTrue(observer.hasPendingEntry("courier-1", testStore.getId(), threshold));
+        assertFalse(observer.hasPendingEntry("courier-2", testStore.getId(), threshold));
+        verify(storeEntryRepository, timeout(3000).times(5)).batchInsert(anyList());
+        observer.shutdown();
+        observer = null;
+        assertEquals(0.0, meterRegistry.get("store_entry.persistence.failed").counter().count());
+    }
+
+    @Test
+    @DisplayName("Should not report entries as pending once written")
+    void shouldNotReportWrittenEntriesAsPending() throws InterruptedException {
+        observer = newObserver();
+        observer.start();
+
+        observer.onStoreEntry(event("courier-1"));
+        observer.shutdown();
+        observer = null;
+
+        BatchingPersistenceStoreEntryObserver stopped = newObserver();
+        assertFalse(stopped.hasPendingEntry("courier-1", testStore.getId(), LocalDateTime.of(2024, 5, 1, 11, 59)));
+    }
+
+    private BatchingPersistenceStoreEntryObserver newObserver() {
+        return new BatchingPersistenceStoreEntryObserver(
+                storeEntryRepository, transactionManager, new SimpleMeterRegistry(), Thread.ofPlatform().factory(), properties);
+    }
+
+    private void recordInserts() {
+        doAnswer(invocation -> {
+            persisted.addAll(invocation.<List<StoreEntry>>getArgument(0));
+            return null;
+        }).when(storeEntryRepository).batchInsert(anyList());
+    }
+
+    // Mockito registers the invocation before the answer runs, so verify can return first
+    private void awaitPersisted(int count) {
+        long deadline = System.currentTimeMillis() + 2000;
+        while (persisted.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+    }
+
+    private StoreEntryEvent event(String courierId) {
+        return StoreEntryEvent.builder()
+                .courierId(courierId)
+                .store(testStore)
+                .lat(40.9923307)
+                .lng(29.1244229)
+                .distanceFromStore(50.0)
+                .entryTime(LocalDateTime.of(2024, 5, 1, 12, 0))
+                .build();
+    }
+}
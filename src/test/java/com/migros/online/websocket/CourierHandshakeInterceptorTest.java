@@ -0,0 +1,99 @@
+package com.migros.online.websocket;
+
+import com.migros.online.config.CourierTrackerProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CourierHandshakeInterceptor Unit Tests")
+class CourierHandshakeInterceptorTest {
+
+    private static final String COURIER_ID = "550e8400-e29b-41d4-a716-446655440000";
+    private static final String TOKEN = "device-secret";
+
+    private final MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    @Test
+    @DisplayName("Should bind courier id to session")
+    void shouldBindCourierIdToSession() {
+        CourierHandshakeInterceptor interceptor = new CourierHandshakeInterceptor(propertiesWithToken());
+
+        assertTrue(handshake(interceptor, authorized(request(COURIER_ID.toUpperCase()))));
+        assertEquals(COURIER_ID, attributes.get(CourierHandshakeInterceptor.COURIER_ID_ATTRIBUTE));
+    }
+
+    @Test
+    @DisplayName("Should reject missing or invalid courier id")
+    void shouldRejectMissingOrInvalidCourierId() {
+        CourierHandshakeInterceptor interceptor = new CourierHandshakeInterceptor(propertiesWithToken());
+
+        assertFalse(handshake(interceptor, authorized(request(null))));
+        assertFalse(handshake(interceptor, authorized(request("not-a-uuid"))));
+        assertFalse(handshake(interceptor, authorized(request("550e8400-e29b-61d4-a716-446655440000"))));
+        assertEquals(HttpStatus.BAD_REQUEST.value(), servletResponse.getStatus());
+        assertTrue(attributes.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should require configured bearer token")
+    void shouldRequireConfiguredBearerToken() {
+        CourierHandshakeInterceptor interceptor = new CourierHandshakeInterceptor(propertiesWithToken());
+
+        MockHttpServletRequest wrongToken = request(COURIER_ID);
+        wrongToken.addHeader(HttpHeaders.AUTHORIZATION, "Bearer other-secret");
+
+        assertFalse(handshake(interceptor, request(COURIER_ID)));
+        assertFalse(handshake(interceptor, wrongToken));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), servletResponse.getStatus());
+        assertTrue(handshake(interceptor, authorized(request(COURIER_ID))));
+    }
+
+    @Test
+    @DisplayName("Should refuse every connection when no token is configured")
+    void shouldRefuseConnectionsWithoutConfiguredToken() {
+        CourierHandshakeInterceptor interceptor = new CourierHandshakeInterceptor(new CourierTrackerProperties());
+
+        MockHttpServletRequest emptyToken = request(COURIER_ID);
+        emptyToken.addHeader(HttpHeaders.AUTHORIZATION, "Bearer ");
+
+        assertFalse(handshake(interceptor, request(COURIER_ID)));
+        assertFalse(handshake(interceptor, emptyToken));
+        assertEquals(HttpStatus.UNAUTHORIZED.value(), servletResponse.getStatus());
+        assertTrue(attributes.isEmpty());
+    }
+
+    private boolean handshake(CourierHandshakeInterceptor interceptor, MockHttpServletRequest request) {
+        return interceptor.beforeHandshake(new ServletServerHttpRequest(request),
+                new ServletServerHttpResponse(servletResponse), null, attributes);
+    }
+
+    private static CourierTrackerProperties propertiesWithToken() {
+        CourierTrackerProperties properties = new CourierTrackerProperties();
+        properties.getWebsocket().setAuthToken(TOKEN);
+        return properties;
+    }
+
+    private static MockHttpServletRequest authorized(MockHttpServletRequest request) {
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + TOKEN);
+        return request;
+    }
+
+    private static MockHttpServletRequest request(String courierId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/ws/v1/courier/location");
+        if (courierId != null) {
+            request.setParameter("courierId", courierId);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,162 @@
+package com.migros.online.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.migros.online.codec.CourierLocationBinaryCodec;
+import com.migros.online.config.WebSocketConfig;
+import com.migros.online.dto.request.CourierLocationRequest;
+import com.migros.online.dto.response.IngestAck;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.net.URI;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "courier-tracker.websocket.auth-token=" + CourierIngestWebSocketTest.TOKEN)
+@DisplayName("WebSocket Ingest Integration Tests")
+class CourierIngestWebSocketTest {
+
+    static final String TOKEN = "test-device-token";
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final CourierLocationBinaryCodec codec = new CourierLocationBinaryCodec(ZoneId.systemDefault());
+    private final BlockingQueue<String> acks = new LinkedBlockingQueue<>();
+    private final CompletableFuture<CloseStatus> closed = new CompletableFuture<>();
+    private WebSocketSession session;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        if (session != null && session.isOpen()) {
+            session.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should ack each frame and report store entries")
+    void shouldAckEachFrameAndReportStoreEntries() throws Exception {
+        String courierId = UUID.randomUUID().toString();
+        session = connect(courierId);
+        LocalDateTime time = LocalDateTime.now().withNano(0);
+
+        session.sendMessage(new BinaryMessage(codec.encode(List.of(location(courierId, 41.05, 29.02, time)))));
+        IngestAck first = nextAck();
+        session.sendMessage(new BinaryMessage(codec.encode(List.of(
+                location(courierId, 40.9923307, 29.1244229, time.plusSeconds(30)),
+                location(courierId, 40.9923400, 29.1244300, time.plusSeconds(31))))));
+        IngestAck second = nextAck();
+
+        assertEquals(1, first.getSeq());
+        assertEquals(1, first.getAccepted());
+        assertNull(first.getStoreEntries());
+        assertEquals(2, second.getSeq());
+        assertEquals(2, second.getAccepted());
+        assertEquals(1, second.getStoreEntries().size());
+        assertEquals("Ataşehir MMM Migros", second.getStoreEntries().get(0).getStoreName());
+    }
+
+    @Test
+    @DisplayName("Should accept a full frame larger than the container default buffer")
+    void shouldAcceptFullFrame() throws Exception {
+        String courierId = UUID.randomUUID().toString();
+        session = connect(courierId);
+        LocalDateTime time = LocalDateTime.now().minusHours(1).withNano(0);
+
+        List<CourierLocationRequest> locations = IntStream.range(0, CourierLocationBinaryCodec.MAX_LOCATIONS_PER_FRAME)
+                .mapToObj(i -> location(courierId, 41.05 + i * 0.00001, 29.02, time.plusSeconds(i)))
+                .toList();
+        session.sendMessage(new BinaryMessage(codec.encode(locations)));
+
+        assertEquals(CourierLocationBinaryCodec.MAX_LOCATIONS_PER_FRAME, nextAck().getAccepted());
+    }
+
+    @Test
+    @DisplayName("Should close connection when frame is for another courier")
+    void shouldCloseConnectionWhenFrameIsForAnotherCourier() throws Exception {
+        session = connect(UUID.randomUUID().toString());
+
+        session.sendMessage(new BinaryMessage(codec.encode(List.of(
+                location(UUID.randomUUID().toString(), 41.05, 29.02, LocalDateTime.now())))));
+
+        assertEquals(CloseStatus.POLICY_VIOLATION.getCode(), closed.get(5, TimeUnit.SECONDS).getCode());
+        assertTrue(acks.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should close connection on malformed frame")
+    void shouldCloseConnectionOnMalformedFrame() throws Exception {
+        session = connect(UUID.randomUUID().toString());
+
+        session.sendMessage(new BinaryMessage(new byte[]{1, 2, 3}));
+
+        assertEquals(CloseStatus.BAD_DATA.getCode(), closed.get(5, TimeUnit.SECONDS).getCode());
+    }
+
+    @Test
+    @DisplayName("Should reject handshake without courier id")
+    void shouldRejectHandshakeWithoutCourierId() {
+        StandardWebSocketClient client = new StandardWebSocketClient();
+
+        assertThrows(ExecutionException.class, () -> client.execute(new TextWebSocketHandler(), new WebSocketHttpHeaders(),
+                URI.create("ws://localhost:" + port + WebSocketConfig.INGEST_PATH)).get(5, TimeUnit.SECONDS));
+    }
+
+    private WebSocketSession connect(String courierId) throws Exception {
+        TextWebSocketHandler handler = new TextWebSocketHandler() {
+            @Override
+            protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+                acks.add(message.getPayload());
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+                closed.complete(status);
+            }
+        };
+        URI uri = URI.create("ws://localhost:" + port + WebSocketConfig.INGEST_PATH + "?courierId=" + courierId);
+        WebSocketHttpHeaders headers = new WebSocketHttpHeaders();
+        headers.setBearerAuth(TOKEN);
+        return new StandardWebSocketClient().execute(handler, headers, uri).get(5, TimeUnit.SECONDS);
+    }
+
+    private IngestAck nextAck() throws Exception {
+        String ack = acks.poll(5, TimeUnit.SECONDS);
+        assertNotNull(ack, "No ack received");
+        return objectMapper.readValue(ack, IngestAck.class);
+    }
+
+    private static CourierLocationRequest location(String courierId, double lat, double lng, LocalDateTime time) {
+        return CourierLocationRequest.builder()
+                .courierId(courierId)
+                .lat(lat)
+                .lng(lng)
+                .time(time)
+                .build();
+    }
+}